@@ -102,6 +102,9 @@ INSERT INTO estado (nombre_estado)
 VALUES ('ACTIVO'), ('INACTIVO');
 
 -- Indices
+-- Nota: la aplicacion aplica al arrancar las migraciones de db/migration:
+-- V1 agrega ix_usuario_listado / ix_cred_listado y V2 quita los tres
+-- indices de abajo (activo / estado), que ninguna consulta usa.
 
 -- elimina los indices si existian anteriormente
 DROP INDEX ix_usuario_activo ON usuario;
@@ -0,0 +1,33 @@
+package integradorfinal.programacion2.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Punto de entrada de benchmarks.jar. Es el Main de JMH, pero si no se pide
+ * otro formato de resultados guardo siempre un JSON (jmh-result.json en el
+ * directorio actual), así cada corrida queda para comparar con la siguiente
+ * (por ejemplo en https://jmh.morethan.io).
+ *
+ * Acepta las mismas opciones que JMH: java -jar target/benchmarks.jar -h
+ */
+public final class BenchmarkRunner {
+
+    private static final String ARCHIVO_POR_DEFECTO = "jmh-result.json";
+
+    private BenchmarkRunner() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> opciones = new ArrayList<>(Arrays.asList(args));
+        boolean soloConsulta = opciones.contains("-h") || opciones.contains("-l") || opciones.contains("-lp")
+                || opciones.contains("-lprof") || opciones.contains("-lrf");
+        if (!soloConsulta && !opciones.contains("-rf")) {
+            opciones.addAll(0, List.of("-rf", "json"));
+            if (!opciones.contains("-rff")) {
+                opciones.addAll(2, List.of("-rff", ARCHIVO_POR_DEFECTO));
+            }
+        }
+        org.openjdk.jmh.Main.main(opciones.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,103 @@
+package integradorfinal.programacion2.bench;
+
+import integradorfinal.programacion2.dao.impl.DaoConcurrenteBenchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.Statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Corre DaoConcurrenteBenchmark para varias cantidades de hilos y al final
+ * imprime una tabla por operación con ops/s (modo Throughput) y la latencia
+ * p50 / p99 / p99.9 en microsegundos (modo SampleTime). Cada corrida deja
+ * además su JSON (dao-concurrente-N-hilos.json) para comparar versiones.
+ *
+ * Propiedades (todas opcionales):
+ * - bench.threads: cantidades de hilos separadas por coma (1,4,16).
+ * - bench.include: expresión para elegir operaciones (por defecto todas).
+ * Los argumentos se pasan a JMH tal cual (por ejemplo -wi 1 -i 3 -r 2 para
+ * una corrida más corta).
+ *
+ * Ejecución:
+ *   java -Dbench.threads=1,8,32 -cp target/benchmarks.jar integradorfinal.programacion2.bench.InformeDaoConcurrente
+ */
+public final class InformeDaoConcurrente {
+
+    private InformeDaoConcurrente() {}
+
+    /** Lo medido para una operación con una cantidad de hilos. */
+    private static final class Fila {
+        double opsPorSegundo = Double.NaN;
+        double p50 = Double.NaN;
+        double p99 = Double.NaN;
+        double p999 = Double.NaN;
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions deLaLinea = new CommandLineOptions(args);
+        int[] hilos = Arrays.stream(System.getProperty("bench.threads", "1,4,16").split(","))
+                .map(String::trim).filter(s -> !s.isEmpty()).mapToInt(Integer::parseInt).toArray();
+        String include = DaoConcurrenteBenchmark.class.getName() + "\\." + System.getProperty("bench.include", ".*");
+
+        // operación → (hilos → fila), en el orden en que van saliendo
+        Map<String, Map<Integer, Fila>> tabla = new LinkedHashMap<>();
+        for (int h : hilos) {
+            Options opciones = new OptionsBuilder()
+                    .parent(deLaLinea)
+                    .include(include)
+                    .threads(h)
+                    .timeUnit(TimeUnit.MICROSECONDS)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("dao-concurrente-" + h + "-hilos.json")
+                    .build();
+            for (RunResult r : new Runner(opciones).run()) {
+                String benchmark = r.getParams().getBenchmark();
+                String operacion = benchmark.substring(benchmark.lastIndexOf('.') + 1);
+                Fila fila = tabla.computeIfAbsent(operacion, k -> new LinkedHashMap<>())
+                        .computeIfAbsent(h, k -> new Fila());
+                Result<?> principal = r.getPrimaryResult();
+                if (r.getParams().getMode() == Mode.Throughput) {
+                    // El score viene en ops/us (timeUnit de arriba)
+                    fila.opsPorSegundo = principal.getScore() * 1_000_000d;
+                } else if (r.getParams().getMode() == Mode.SampleTime) {
+                    Statistics s = principal.getStatistics();
+                    fila.p50 = s.getPercentile(50);
+                    fila.p99 = s.getPercentile(99);
+                    fila.p999 = s.getPercentile(99.9);
+                }
+            }
+        }
+        imprimir(tabla);
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private static void imprimir(Map<String, Map<Integer, Fila>> tabla) {
+        List<String> lineas = new ArrayList<>();
+        lineas.add(String.format("%-22s %6s %14s %12s %12s %12s",
+                "Operación", "Hilos", "ops/s", "p50 (us)", "p99 (us)", "p99.9 (us)"));
+        tabla.forEach((operacion, porHilos) -> porHilos.forEach((h, f) ->
+                lineas.add(String.format("%-22s %6d %14.0f %12.1f %12.1f %12.1f",
+                        operacion, h, f.opsPorSegundo, f.p50, f.p99, f.p999))));
+
+        System.out.println();
+        System.out.println("========= DAO CONCURRENTE (H2 modo MySQL, esquema real) =========");
+        lineas.forEach(System.out::println);
+    }
+}
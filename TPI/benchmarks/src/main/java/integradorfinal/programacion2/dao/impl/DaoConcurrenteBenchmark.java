@@ -0,0 +1,157 @@
+package integradorfinal.programacion2.dao.impl;
+
+import integradorfinal.programacion2.bench.EsquemaMySql;
+import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rendimiento de los DAO con varios hilos a la vez contra la base real (el
+ * script Base_de_Datos_Solo_Tablas cargado en H2 modo MySQL con EsquemaMySql:
+ * mismas restricciones, índices y el stored procedure), usando el pool y la
+ * caché de sentencias de la aplicación.
+ *
+ * Cada operación se mide en dos modos: Throughput (operaciones por unidad de
+ * tiempo, sumando todos los hilos) y SampleTime (latencia de una muestra de
+ * llamadas, con sus percentiles p50 / p99 / p99.9).
+ *
+ * Operaciones:
+ * - create: alta de un usuario nuevo.
+ * - findById / findByUsername: lecturas por PK y por índice único.
+ * - login: la parte de base de authenticate (usuario + credencial en un
+ *   JOIN y después el UPDATE de ultima_sesion). El hash se mide aparte en
+ *   PasswordUtilBenchmark.
+ * - update: UPDATE parcial de un campo de un usuario leído.
+ * - updatePasswordSeguro: el stored procedure.
+ *
+ * Los hilos se eligen con la opción -t de JMH (por defecto 4), o con
+ * InformeDaoConcurrente, que corre la clase para varias cantidades de hilos
+ * y arma una tabla con ops/s y percentiles. El pool se agranda a 64
+ * conexiones para que con hasta 64 hilos se mida la base y no la espera
+ * de una conexión libre.
+ *
+ * Ejecución: java -jar target/benchmarks.jar DaoConcurrenteBenchmark -t 8
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Ddb.url=jdbc:h2:mem:concurrente;MODE=MySQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+        "-Ddb.driver=org.h2.Driver", "-Djdbc.user=sa", "-Djdbc.pass=",
+        "-Ddb.pool.maxSize=64", "-Ddb.pool.maxIdle=64"})
+public class DaoConcurrenteBenchmark {
+
+    static final int USUARIOS = 10_000;
+
+    private final UsuarioDaoImpl usuarios = new UsuarioDaoImpl();
+    private final CredencialAccesoDaoImpl credenciales = new CredencialAccesoDaoImpl();
+
+    // Contador compartido para que las altas de todos los hilos no choquen en los UNIQUE
+    private final AtomicLong altas = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void crearBase() throws SQLException, IOException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            System.out.println(EsquemaMySql.cargar(conn));
+            try (Statement st = conn.createStatement()) {
+                st.execute("INSERT INTO usuario (username, nombre, apellido, email) "
+                        + "SELECT 'user' || X, 'Nombre' || X, 'Apellido' || X, 'user' || X || '@mail.com' "
+                        + "FROM SYSTEM_RANGE(1, " + USUARIOS + ")");
+                // El hash no se verifica acá, alcanza con que tenga el formato de la columna
+                st.execute("INSERT INTO credencial_acceso (usuario_id, estado, hash_password, salt, ultimo_cambio) "
+                        + "SELECT id_usuario, 'ACTIVO', 'pbkdf2-sha256$10000$' || REPEAT('0', 64), "
+                        + "'a1b2c3d4e5f60718293a4b5c6d7e8f90', CURRENT_TIMESTAMP FROM usuario");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        DatabaseConnection.closeConnection();
+    }
+
+    // ======================================================
+    // MEDICIONES
+    // ======================================================
+
+    @Benchmark
+    public Long create() throws SQLException {
+        long n = altas.incrementAndGet();
+        Usuario u = new Usuario(null, false, "alta" + n, "Nombre" + n, "Apellido" + n,
+                "alta" + n + "@mail.com", null, true, Estado.ACTIVO);
+        return usuarios.create(u);
+    }
+
+    @Benchmark
+    public Optional<Usuario> findById() throws SQLException {
+        return usuarios.findById(idAlAzar());
+    }
+
+    @Benchmark
+    public Optional<Usuario> findByUsername() throws SQLException {
+        return usuarios.findByUsername("user" + idAlAzar());
+    }
+
+    @Benchmark
+    public boolean login() throws SQLException {
+        Usuario u = usuarios.findByUsernameWithCredencial("user" + idAlAzar())
+                .orElseThrow(() -> new IllegalStateException("Usuario no encontrado en el benchmark"));
+        return credenciales.updateUltimaSesion(u.getIdUsuario(), LocalDateTime.now());
+    }
+
+    @Benchmark
+    public Usuario update() throws SQLException {
+        long id = idAlAzar();
+        // Igual que un usuario recién leído al que se le cambia un campo
+        Usuario u = new Usuario(id, false, "user" + id, "Nombre" + id, "Apellido" + id,
+                "user" + id + "@mail.com", null, true, Estado.ACTIVO);
+        u.marcarLimpio();
+        u.setNombre("Nombre" + ThreadLocalRandom.current().nextInt());
+        usuarios.update(u);
+        return u;
+    }
+
+    @Benchmark
+    public void updatePasswordSeguro() throws SQLException {
+        credenciales.updatePasswordSeguro(idAlAzar(), "pbkdf2-sha256$10000$" + "1".repeat(64),
+                "0f1e2d3c4b5a69788796a5b4c3d2e1f0");
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private static long idAlAzar() {
+        return ThreadLocalRandom.current().nextLong(1, USUARIOS + 1);
+    }
+}
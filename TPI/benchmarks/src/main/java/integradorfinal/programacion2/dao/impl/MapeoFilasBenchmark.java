@@ -0,0 +1,148 @@
+package integradorfinal.programacion2.dao.impl;
+
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo por fila de leer la tabla usuario completa (1M de filas) y convertir
+ * cada fila en un Usuario, comparando:
+ * - antes: SELECT * y lectura por nombre de columna (el mapRow original).
+ * - ahora: lista de columnas explícita y lectura por posición (mapRow actual).
+ * - resumen: proyección SUMMARY (id, username, estado).
+ *
+ * Uso H2 en memoria para no depender de un MySQL instalado. Cada invocación
+ * recorre la tabla entera; con @OperationsPerInvocation el resultado queda
+ * expresado en nanosegundos por fila.
+ *
+ * Está en el mismo paquete que los DAO para poder usar mapRow / mapResumen y
+ * los SQL, que son package-private.
+ *
+ * Ejecución: java -jar target/benchmarks.jar MapeoFilasBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(MapeoFilasBenchmark.FILAS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MapeoFilasBenchmark {
+
+    static final int FILAS = 1_000_000;
+
+    // El SQL tal como estaba antes de nombrar las columnas
+    private static final String SQL_ANTES = "SELECT * FROM usuario WHERE eliminado = FALSE ORDER BY id_usuario";
+
+    private final UsuarioDaoImpl dao = new UsuarioDaoImpl();
+    private Connection conn;
+
+    @Setup(Level.Trial)
+    public void crearTabla() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:mapeo;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        try (Statement st = conn.createStatement()) {
+            st.execute("""
+                    CREATE TABLE usuario (
+                      id_usuario INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                      eliminado BOOLEAN NOT NULL DEFAULT FALSE,
+                      username VARCHAR(60) NOT NULL UNIQUE,
+                      nombre VARCHAR(100) NOT NULL,
+                      apellido VARCHAR(100) NOT NULL,
+                      email VARCHAR(120) NOT NULL UNIQUE,
+                      fecha_registro DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                      activo BOOLEAN NOT NULL DEFAULT TRUE,
+                      estado VARCHAR(15) NOT NULL DEFAULT 'ACTIVO'
+                    )""");
+            st.execute("INSERT INTO usuario (username, nombre, apellido, email, fecha_registro, activo, estado) "
+                    + "SELECT 'user' || X, 'Nombre' || X, 'Apellido' || X, 'user' || X || '@mail.com', "
+                    + "CURRENT_TIMESTAMP, TRUE, CASE WHEN MOD(X, 10) = 0 THEN 'INACTIVO' ELSE 'ACTIVO' END "
+                    + "FROM SYSTEM_RANGE(1, " + FILAS + ")");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    // ======================================================
+    // MEDICIONES
+    // ======================================================
+
+    @Benchmark
+    public int antesSelectAsteriscoPorNombre(Blackhole bh) throws SQLException {
+        return recorrer(SQL_ANTES, MapeoFilasBenchmark::mapRowPorNombre, bh);
+    }
+
+    @Benchmark
+    public int columnasExplicitasPorPosicion(Blackhole bh) throws SQLException {
+        return recorrer(UsuarioDaoImpl.SQL_FIND_ALL, dao::mapRow, bh);
+    }
+
+    @Benchmark
+    public int proyeccionResumen(Blackhole bh) throws SQLException {
+        return recorrer(UsuarioDaoImpl.SQL_FIND_ALL_RESUMEN, dao::mapResumen, bh);
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private int recorrer(String sql, JdbcSupport.RowMapper<Usuario> mapper, Blackhole bh) throws SQLException {
+        int n = 0;
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                bh.consume(mapper.map(rs));
+                n++;
+            }
+        }
+        if (n != FILAS) {
+            throw new IllegalStateException("Se esperaban " + FILAS + " filas y se leyeron " + n);
+        }
+        return n;
+    }
+
+    /** Copia del mapRow original (por nombre de columna), como referencia. */
+    private static Usuario mapRowPorNombre(ResultSet rs) throws SQLException {
+        Usuario u = new Usuario();
+        u.setIdUsuario(rs.getLong("id_usuario"));
+        u.setEliminado(rs.getBoolean("eliminado"));
+        u.setUsername(rs.getString("username"));
+        u.setNombre(rs.getString("nombre"));
+        u.setApellido(rs.getString("apellido"));
+        u.setEmail(rs.getString("email"));
+
+        Timestamp ts = rs.getTimestamp("fecha_registro");
+        if (ts != null) u.setFechaRegistro(ts.toLocalDateTime());
+
+        u.setActivo(rs.getBoolean("activo"));
+        u.setEstado(Estado.from(rs.getString("estado")));
+        return u;
+    }
+}
@@ -0,0 +1,132 @@
+package integradorfinal.programacion2.dao.impl;
+
+import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.entities.Usuario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de los mapRow de los DAO aislado de la base: el ResultSet es un
+ * simulacro (Proxy) que devuelve valores ya armados por posición, así que lo
+ * que se mide es la conversión fila → entidad (Estado.from, Timestamp →
+ * LocalDateTime, setters, marcado de campos limpios).
+ *
+ * El Proxy agrega un costo fijo por columna leída; sirve para comparar
+ * versiones de los mapRow entre sí, no como número absoluto. Para el costo
+ * con un driver real está MapeoFilasBenchmark.
+ *
+ * Ejecución: java -jar target/benchmarks.jar MapeoResultSetBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeoResultSetBenchmark {
+
+    // Cantidad de filas distintas que recorre el simulacro (potencia de 2)
+    private static final int FILAS = 64;
+
+    private final UsuarioDaoImpl usuarios = new UsuarioDaoImpl();
+    private final CredencialAccesoDaoImpl credenciales = new CredencialAccesoDaoImpl();
+
+    private ResultSet rsUsuario;
+    private ResultSet rsResumen;
+    private ResultSet rsCredencial;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Timestamp ahora = Timestamp.valueOf(LocalDateTime.now());
+        Object[][] filasUsuario = new Object[FILAS][];
+        Object[][] filasResumen = new Object[FILAS][];
+        Object[][] filasCredencial = new Object[FILAS][];
+        for (int i = 0; i < FILAS; i++) {
+            String estado = i % 10 == 0 ? "INACTIVO" : "ACTIVO";
+            // Mismo orden que UsuarioDaoImpl.COLUMNAS
+            filasUsuario[i] = new Object[]{(long) i + 1, false, "user" + i, "Nombre" + i, "Apellido" + i,
+                    "user" + i + "@mail.com", ahora, true, estado};
+            // Mismo orden que UsuarioDaoImpl.COLUMNAS_RESUMEN
+            filasResumen[i] = new Object[]{(long) i + 1, "user" + i, estado};
+            // Mismo orden que CredencialAccesoDaoImpl.COLUMNAS
+            filasCredencial[i] = new Object[]{(long) i + 1, false, (long) i + 1, estado, i % 2 == 0 ? ahora : null,
+                    "pbkdf2-sha256$10000$" + "0".repeat(64), "a1b2c3d4e5f60718293a4b5c6d7e8f90", ahora, false};
+        }
+        rsUsuario = simulacro(filasUsuario);
+        rsResumen = simulacro(filasResumen);
+        rsCredencial = simulacro(filasCredencial);
+    }
+
+    // ======================================================
+    // MEDICIONES
+    // ======================================================
+
+    @Benchmark
+    public Usuario usuarioMapRow() throws SQLException {
+        rsUsuario.next();
+        return usuarios.mapRow(rsUsuario);
+    }
+
+    @Benchmark
+    public Usuario usuarioMapResumen() throws SQLException {
+        rsResumen.next();
+        return usuarios.mapResumen(rsResumen);
+    }
+
+    @Benchmark
+    public CredencialAcceso credencialMapRow() throws SQLException {
+        rsCredencial.next();
+        return credenciales.mapRow(rsCredencial);
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    /**
+     * Armo un ResultSet que recorre las filas en círculo (next() siempre da
+     * true) y responde los getXxx(int) que usan los mapRow. Cualquier otro
+     * método tira UnsupportedOperationException.
+     */
+    private static ResultSet simulacro(Object[][] filas) {
+        int[] actual = {-1};
+        Object[] ultimo = {null};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, metodo, args) -> {
+                    switch (metodo.getName()) {
+                        case "next":
+                            actual[0] = (actual[0] + 1) & (filas.length - 1);
+                            return true;
+                        case "wasNull":
+                            return ultimo[0] == null;
+                        case "getLong":
+                        case "getBoolean":
+                        case "getString":
+                        case "getTimestamp":
+                            Object v = filas[actual[0]][(Integer) args[0] - 1];
+                            ultimo[0] = v;
+                            if (v != null) return v;
+                            return metodo.getReturnType() == long.class ? 0L
+                                    : metodo.getReturnType() == boolean.class ? Boolean.FALSE : null;
+                        default:
+                            throw new UnsupportedOperationException(metodo.getName());
+                    }
+                });
+    }
+}
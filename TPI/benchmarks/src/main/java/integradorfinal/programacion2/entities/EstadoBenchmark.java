@@ -0,0 +1,39 @@
+package integradorfinal.programacion2.entities;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de Estado.from, que se llama una vez por fila leída (usuario y
+ * credencial). Recorro los valores tal como vienen de la base, más una
+ * variante en minúsculas, para que el JIT no pueda quedarse con uno solo.
+ *
+ * Ejecución: java -jar target/benchmarks.jar EstadoBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EstadoBenchmark {
+
+    private final String[] valores = {"ACTIVO", "INACTIVO", "ACTIVO", "activo", "ACTIVO", "INACTIVO", "ACTIVO", "ACTIVO"};
+    private int i = 0;
+
+    @Benchmark
+    public Estado from() {
+        String v = valores[i];
+        i = (i + 1) & (valores.length - 1);
+        return Estado.from(v);
+    }
+}
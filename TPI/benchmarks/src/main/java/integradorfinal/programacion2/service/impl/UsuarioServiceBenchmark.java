@@ -0,0 +1,162 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.dao.impl.CachingUsuarioDao;
+import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
+import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.service.AuthenticationResult;
+import integradorfinal.programacion2.util.PasswordUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operaciones de UsuarioServiceImpl de punta a punta (servicio → DAO → pool
+ * → JDBC) contra una base H2 en memoria en modo MySQL, con 10.000 usuarios
+ * que tienen todos la misma contraseña.
+ *
+ * La base se elige con -Ddb.url (ver Config), así que se usa el mismo pool,
+ * caché de sentencias y transacciones que en la aplicación. El parámetro
+ * "cache" mide cada lectura con y sin CachingUsuarioDao (con lugar para
+ * todos los usuarios, así después del calentamiento casi todo es acierto).
+ *
+ * Las iteraciones de PBKDF2 están fijas para que authenticate sea comparable
+ * entre corridas (la mayor parte de su tiempo es el hash).
+ *
+ * Ejecución: java -jar target/benchmarks.jar UsuarioServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {
+        "-Ddb.url=jdbc:h2:mem:servicio;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "-Ddb.driver=org.h2.Driver", "-Djdbc.user=sa", "-Djdbc.pass=",
+        "-Dpassword.hasher=pbkdf2", "-Dpassword.pbkdf2.iterations=10000",
+        "-Dcache.usuario.maxSize=" + UsuarioServiceBenchmark.USUARIOS})
+public class UsuarioServiceBenchmark {
+
+    static final int USUARIOS = 10_000;
+    private static final String PASSWORD = "MiClave123";
+
+    @Param({"false", "true"})
+    public boolean cache;
+
+    private UsuarioServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void crearBase() throws SQLException {
+        String salt = PasswordUtil.generateSalt(16);
+        String hash = PasswordUtil.hashPassword(PASSWORD, salt);
+
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("""
+                    CREATE TABLE usuario (
+                      id_usuario INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                      eliminado BOOLEAN NOT NULL DEFAULT FALSE,
+                      username VARCHAR(60) NOT NULL UNIQUE,
+                      nombre VARCHAR(100) NOT NULL,
+                      apellido VARCHAR(100) NOT NULL,
+                      email VARCHAR(120) NOT NULL UNIQUE,
+                      fecha_registro DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                      activo BOOLEAN NOT NULL DEFAULT TRUE,
+                      estado VARCHAR(15) NOT NULL DEFAULT 'ACTIVO'
+                    )""");
+            st.execute("""
+                    CREATE TABLE credencial_acceso (
+                      id_credencial INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                      eliminado BOOLEAN NOT NULL DEFAULT FALSE,
+                      usuario_id INT NOT NULL UNIQUE,
+                      estado VARCHAR(15) NOT NULL DEFAULT 'ACTIVO',
+                      ultima_sesion DATETIME NULL,
+                      hash_password VARCHAR(255) NOT NULL,
+                      salt VARCHAR(64) NULL,
+                      ultimo_cambio DATETIME NULL,
+                      requiere_reset BOOLEAN NOT NULL DEFAULT FALSE,
+                      FOREIGN KEY (usuario_id) REFERENCES usuario(id_usuario) ON DELETE CASCADE
+                    )""");
+            st.execute("INSERT INTO usuario (username, nombre, apellido, email) "
+                    + "SELECT 'user' || X, 'Nombre' || X, 'Apellido' || X, 'user' || X || '@mail.com' "
+                    + "FROM SYSTEM_RANGE(1, " + USUARIOS + ")");
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO credencial_acceso (usuario_id, hash_password, salt, ultimo_cambio) "
+                    + "SELECT id_usuario, ?, ?, CURRENT_TIMESTAMP FROM usuario")) {
+                ps.setString(1, hash);
+                ps.setString(2, salt);
+                ps.executeUpdate();
+            }
+        }
+
+        service = new UsuarioServiceImpl(
+                cache ? new CachingUsuarioDao(new UsuarioDaoImpl()) : new UsuarioDaoImpl(),
+                new CredencialAccesoDaoImpl(), null, PasswordHashingExecutor.compartido());
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            st.execute("DROP ALL OBJECTS");
+        }
+        PasswordHashingExecutor.cerrarCompartido();
+        DatabaseConnection.closeConnection();
+    }
+
+    // ======================================================
+    // MEDICIONES
+    // ======================================================
+
+    @Benchmark
+    public Optional<Usuario> findById() throws SQLException {
+        return service.findById(idAlAzar());
+    }
+
+    @Benchmark
+    public Optional<Usuario> findByUsername() throws SQLException {
+        return service.findByUsername("user" + idAlAzar());
+    }
+
+    @Benchmark
+    public List<Usuario> findPage() throws SQLException {
+        return service.findPage(idAlAzar() - 1, 20);
+    }
+
+    @Benchmark
+    public AuthenticationResult authenticate() throws SQLException {
+        AuthenticationResult r = service.authenticate("user" + idAlAzar(), PASSWORD);
+        if (!r.isOk()) {
+            throw new IllegalStateException("Login fallido en el benchmark: " + r);
+        }
+        return r;
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private static long idAlAzar() {
+        return ThreadLocalRandom.current().nextLong(1, USUARIOS + 1);
+    }
+}
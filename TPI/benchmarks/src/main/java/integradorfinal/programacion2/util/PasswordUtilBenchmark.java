@@ -0,0 +1,80 @@
+package integradorfinal.programacion2.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de las operaciones de PasswordUtil que usa cada login y cada alta:
+ * - generateSalt
+ * - hashPassword con el esquema preferido (PBKDF2)
+ * - validatePassword contra un hash PBKDF2 y contra uno del SHA-256 original
+ *
+ * Fijo las iteraciones de PBKDF2 con -Dpassword.pbkdf2.iterations para que el
+ * resultado no dependa de la calibración de cada arranque y se pueda
+ * comparar entre versiones. El SHA-256 original se mide aparte (sha256Hex)
+ * porque es unas mil veces más rápido y no se vería al lado de PBKDF2.
+ *
+ * Ejecución: java -jar target/benchmarks.jar PasswordUtilBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dpassword.hasher=pbkdf2", "-Dpassword.pbkdf2.iterations=10000"})
+public class PasswordUtilBenchmark {
+
+    private static final String PASSWORD = "MiClave123";
+
+    private String salt;
+    private String hashPbkdf2;
+    private String hashLegacy;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        salt = PasswordUtil.generateSalt(16);
+        hashPbkdf2 = PasswordUtil.hashPassword(PASSWORD, salt);
+        hashLegacy = new Sha256PasswordHasher().hash(PASSWORD, salt);
+    }
+
+    // ======================================================
+    // MEDICIONES
+    // ======================================================
+
+    @Benchmark
+    public String generateSalt() {
+        return PasswordUtil.generateSalt(16);
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return PasswordUtil.hashPassword(PASSWORD, salt);
+    }
+
+    @Benchmark
+    public boolean validatePasswordPbkdf2() {
+        return PasswordUtil.validatePassword(PASSWORD, salt, hashPbkdf2);
+    }
+
+    @Benchmark
+    public boolean validatePasswordLegacy() {
+        return PasswordUtil.validatePassword(PASSWORD, salt, hashLegacy);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public String sha256Hex() {
+        return PasswordUtil.sha256Hex(PASSWORD, salt);
+    }
+}
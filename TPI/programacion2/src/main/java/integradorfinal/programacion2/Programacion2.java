@@ -30,8 +30,7 @@ public class Programacion2 {
         } catch (Exception e) {
             System.err.println("Ocurrió un error inesperado al intentar conectar.");
             System.err.println("Detalles técnicos: " + e.getMessage());
-        } finally {
-            DatabaseConnection.closeConnection();
         }
+        // No cierro el pool acá: la conexión de prueba vuelve al pool y queda lista para el menú.
     }
 }
\ No newline at end of file
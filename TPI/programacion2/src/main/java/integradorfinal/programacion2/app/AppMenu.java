@@ -1,13 +1,22 @@
 package integradorfinal.programacion2.app;
 
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.dao.Disponibilidad;
 import integradorfinal.programacion2.entities.Usuario;
 import integradorfinal.programacion2.entities.CredencialAcceso;
 import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.exceptions.DuplicateKeyException;
+import integradorfinal.programacion2.metrics.Metricas;
+import integradorfinal.programacion2.service.AuthenticationResult;
 import integradorfinal.programacion2.service.UsuarioService;
 import integradorfinal.programacion2.service.CredencialAccesoService;
+import integradorfinal.programacion2.service.impl.CoalescingCredencialAccesoService;
+import integradorfinal.programacion2.service.impl.CoalescingUsuarioService;
 import integradorfinal.programacion2.service.impl.UsuarioServiceImpl;
 import integradorfinal.programacion2.service.impl.CredencialAccesoServiceImpl;
+import integradorfinal.programacion2.service.impl.UsuarioCsvImporter;
 
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -26,10 +35,19 @@ public class AppMenu {
     private final Scanner sc = new Scanner(System.in);
 
     // Servicio de Usuario: lo uso para toda la lógica de negocio de usuarios.
-    private final UsuarioService usuarioService = new UsuarioServiceImpl();
+    // Con coalesce.enabled, las búsquedas simultáneas se juntan (CoalescingUsuarioService).
+    private final UsuarioService usuarioService =
+            Metricas.instrumentar(UsuarioService.class,
+                    Config.COALESCE_ENABLED ? new CoalescingUsuarioService(new UsuarioServiceImpl())
+                                            : new UsuarioServiceImpl(),
+                    "UsuarioService");
 
     // Servicio de Credencial: acá centralizo la lógica de las credenciales.
-    private final CredencialAccesoService credService = new CredencialAccesoServiceImpl();
+    private final CredencialAccesoService credService =
+            Metricas.instrumentar(CredencialAccesoService.class,
+                    Config.COALESCE_ENABLED ? new CoalescingCredencialAccesoService(new CredencialAccesoServiceImpl())
+                                            : new CredencialAccesoServiceImpl(),
+                    "CredencialAccesoService");
 
     // Punto de entrada de la aplicación. Arranco creando un AppMenu y llamando a run().
     public static void main(String[] args) {
@@ -79,6 +97,8 @@ public class AppMenu {
                         loginUsuario();
                     case 15 ->
                         demoRollbackMenu();
+                    case 16 ->
+                        importarUsuariosCsv();
                     case 0 ->
                         System.out.println("Saliendo...");
                     default ->
@@ -113,6 +133,7 @@ public class AppMenu {
         System.out.println("13) Actualizar contraseña (stored procedure)");
         System.out.println("14) Login de Usuario (validar contraseña)");
         System.out.println("15) PRUEBA DE ROLLBACK (Solo para demostracion)");
+        System.out.println("16) Importar Usuarios + Credenciales desde CSV (carga masiva)");
         System.out.println(" 0) Salir");
     }
 
@@ -138,17 +159,34 @@ public class AppMenu {
     }
 
     /**
-     * Listo todos los usuarios que obtengo del service.
-     * Si la lista viene vacía, informo que no hay usuarios.
+     * Listo los usuarios de a páginas (Config.PAGE_SIZE por página) en lugar de
+     * traer la tabla entera. Después de cada página pregunto si sigo.
+     * Si no hay ningún usuario, lo informo.
      */
     private void listarUsuarios() throws SQLException {
-        List<Usuario> lista = usuarioService.findAll();
-        if (lista.isEmpty()) {
-            System.out.println("(sin usuarios)");
-            return;
+        Long afterId = null;
+        int pagina = 1;
+        while (true) {
+            List<Usuario> lista = usuarioService.findPage(afterId, Config.PAGE_SIZE);
+            if (lista.isEmpty()) {
+                System.out.println(pagina == 1 ? "(sin usuarios)" : "(no hay más usuarios)");
+                return;
+            }
+            System.out.println("--- Página " + pagina + " ---");
+            // Uso method reference para imprimir cada usuario con su toString().
+            lista.forEach(System.out::println);
+
+            // Página incompleta: era la última, no hace falta otra consulta.
+            if (lista.size() < Config.PAGE_SIZE) {
+                return;
+            }
+            String resp = leerStrOpc("Enter = siguiente página, Q = volver al menú");
+            if (resp.equalsIgnoreCase("q")) {
+                return;
+            }
+            afterId = lista.get(lista.size() - 1).getIdUsuario();
+            pagina++;
         }
-        // Uso method reference para imprimir cada usuario con su toString().
-        lista.forEach(System.out::println);
     }
 
     /**
@@ -269,6 +307,16 @@ public class AppMenu {
         u.setNombre(leerStr("Nombre"));
         u.setApellido(leerStr("Apellido"));
         u.setEmail(leerStr("Email"));
+
+        // Aviso antes de pedir la contraseña (una consulta, solo índices);
+        // igual el alta puede chocar si otro lo toma mientras tanto
+        Disponibilidad d = usuarioService.checkAvailability(u.getUsername(), u.getEmail());
+        if (!d.isDisponible()) {
+            System.out.println(" No se puede crear:"
+                    + (d.usernameLibre() ? "" : " el username ya existe.")
+                    + (d.emailLibre() ? "" : " el email ya está registrado."));
+            return;
+        }
         u.setFechaRegistro(LocalDateTime.now());
         u.setActivo(true);
         u.setEstado(leerEstado());
@@ -277,7 +325,7 @@ public class AppMenu {
         CredencialAcceso c = new CredencialAcceso();
         c.setEliminado(false);
         c.setEstado(Estado.ACTIVO);
-        c.setHashPassword(leerStr("Password (se guardara el hash SHA-256)"));
+        c.setHashPassword(leerStr("Password (se guardara el hash)"));
         c.setSalt("manual"); // salt fijo solo a modo de ejemplo
         c.setUltimoCambio(LocalDateTime.now());
         c.setRequiereReset(false);
@@ -285,20 +333,42 @@ public class AppMenu {
         // garantizando la relación 1→1 y la transacción.
         u.setCredencial(c);
 
-        Long nuevoId = usuarioService.createUsuarioConCredencial(u);
-        System.out.println("Usuario Creado. Usuario id = " + nuevoId + " + credencial creada.");
+        try {
+            Long nuevoId = usuarioService.createUsuarioConCredencial(u);
+            System.out.println("Usuario Creado. Usuario id = " + nuevoId + " + credencial creada.");
+        } catch (DuplicateKeyException e) {
+            System.out.println(" No se puede crear: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Importo usuarios con credencial desde un archivo CSV.
+     * Todo el trabajo pesado (lotes, hasheo en paralelo, rechazos) lo hace
+     * UsuarioCsvImporter; acá solo pido las rutas y muestro el resumen.
+     */
+    private void importarUsuariosCsv() throws Exception {
+        System.out.println("Formato: username,nombre,apellido,email,password[,salt]");
+        Path csv = Path.of(leerStr("Ruta del archivo CSV"));
+        String rech = leerStrOpc("Archivo de rechazos (enter = " + csv.getFileName() + ".rechazos.csv)");
+        Path rechazos = rech.isBlank() ? csv.resolveSibling(csv.getFileName() + ".rechazos.csv") : Path.of(rech);
+
+        UsuarioCsvImporter.Resultado res = new UsuarioCsvImporter().importar(csv, rechazos);
+        System.out.println(res);
+        if (res.getRechazadas() > 0) {
+            System.out.println("Las filas rechazadas quedaron en: " + rechazos.toAbsolutePath());
+        }
     }
 
     // ===================== CREDENCIAL =====================
 
     /**
      * Creo una credencial para un usuario que ya existe.
-     * Acá sí genero un salt aleatorio y calculo el hash SHA-256 de la contraseña
+     * Acá sí genero un salt aleatorio y calculo el hash de la contraseña (PBKDF2 por defecto)
      * usando PasswordUtil, para que quede guardada de manera más segura.
      */
     private void crearCredencialParaUsuario() throws SQLException {
         long usuarioId = leerLong("Usuario ID para asociar credencial");
-        String passwordPlano = leerStr("Password (se guardará el hash SHA-256)");
+        String passwordPlano = leerStr("Password (se guardará el hash)");
 
         // Genero un salt aleatorio de 16 bytes para esta credencial.
         String salt = integradorfinal.programacion2.util.PasswordUtil.generateSalt(16);
@@ -345,7 +415,7 @@ public class AppMenu {
      */
     private void actualizarPasswordSeguro() throws SQLException {
         long usuarioId = leerLong("Usuario ID");
-        String nuevoPassword = leerStr("Nuevo password (se guardará hash SHA-256)");
+        String nuevoPassword = leerStr("Nuevo password (se guardará el hash)");
         // El tercer parámetro "IGNORAR" es un placeholder según la firma del SP.
         credService.updatePasswordSeguro(usuarioId, nuevoPassword, "IGNORAR");
         System.out.println("Password actualizada vía stored procedure.");
@@ -424,10 +494,12 @@ public class AppMenu {
 
     /**
      * Simulo el proceso de login:
-     * - Busco al usuario por username.
-     * - Busco su credencial asociada.
+     * - Busco al usuario junto con su credencial (un solo JOIN).
      * - Valido la contraseña ingresada contra el hash almacenado usando salt.
-     * - Si todo está OK, actualizo la fecha de última sesión.
+     * - Si todo está OK, actualizo solo la fecha de última sesión.
+     *
+     * Todo eso lo hace usuarioService.authenticate con una sola conexión;
+     * acá solo muestro el resultado.
      */
     private void loginUsuario() throws SQLException {
         System.out.println("=== LOGIN DE USUARIO ===");
@@ -435,38 +507,20 @@ public class AppMenu {
         String username = leerStr("Username");
         String passwordIngresada = leerStr("Password");
 
-        // 1. Buscar usuario por username
-        Optional<Usuario> optUser = usuarioService.findByUsername(username);
-        if (optUser.isEmpty()) {
-            System.out.println("Usuario no encontrado.");
-            return;
-        }
-
-        Usuario u = optUser.get();
-
-        // 2. Buscar credencial asociada al usuario
-        Optional<CredencialAcceso> optCred = credService.findByUsuarioId(u.getIdUsuario());
-        if (optCred.isEmpty()) {
-            System.out.println("No hay credencial asociada a este usuario.");
-            return;
-        }
-
-        CredencialAcceso cred = optCred.get();
-
-        // 3. Validar password ingresada contra hash y salt usando PasswordUtil.
-        boolean ok = integradorfinal.programacion2.util.PasswordUtil.validatePassword(
-                passwordIngresada,
-                cred.getSalt(),
-                cred.getHashPassword()
-        );
-
-        if (ok) {
-            System.out.println("Login exitoso. Bienvenido, " + u.getNombre() + "!");
-            // Actualizo la última sesión del usuario.
-            cred.setUltimaSesion(LocalDateTime.now());
-            credService.update(cred); // persisto el cambio
-        } else {
-            System.out.println("Contraseña incorrecta.");
+        // Una sola operación del service: busca usuario + credencial, valida
+        // la contraseña y registra la última sesión.
+        AuthenticationResult res = usuarioService.authenticate(username, passwordIngresada);
+        switch (res.getStatus()) {
+            case OK ->
+                System.out.println("Login exitoso. Bienvenido, " + res.getUsuario().getNombre() + "!");
+            case USUARIO_NO_ENCONTRADO ->
+                System.out.println("Usuario no encontrado.");
+            case SIN_CREDENCIAL ->
+                System.out.println("No hay credencial asociada a este usuario.");
+            case PASSWORD_INCORRECTA ->
+                System.out.println("Contraseña incorrecta.");
+            case SOBRECARGA ->
+                System.out.println("El sistema está ocupado. Intentá de nuevo en unos segundos.");
         }
     }
 
@@ -10,7 +10,16 @@ Necesario para que UTF 8 funcione correctamente
  */
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
 import integradorfinal.programacion2.Programacion2;
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.config.MigrationRunner;
+import integradorfinal.programacion2.metrics.Metricas;
+import integradorfinal.programacion2.service.impl.PasswordHashingExecutor;
+import integradorfinal.programacion2.service.impl.ServiceExecutor;
+import integradorfinal.programacion2.service.impl.UltimaSesionWriteBehind;
+import integradorfinal.programacion2.util.PasswordUtil;
 
 /**
  *
@@ -25,8 +34,32 @@ public class Main {
         //Testeo de la conexion
         Programacion2.testConnection(); // se ejecuta una sola vez
 
+        // Cambios de esquema pendientes (índices, etc.): sin ellos no arranco el menú
+        if (Config.MIGRATE_ENABLED) {
+            try {
+                MigrationRunner.migrar();
+            } catch (SQLException e) {
+                System.err.println("No se pudo actualizar el esquema de la base: " + e.getMessage());
+                DatabaseConnection.closeConnection();
+                return;
+            }
+        }
+
+        // Calibro el hash de contraseñas al arrancar, así no lo paga el primer login
+        System.out.println("Hash de contraseñas: " + PasswordUtil.preferredHasher());
+
+        // Volcado periódico de métricas a un archivo (si está configurado)
+        Metricas.iniciarExportador();
+
         // Llamás al menú desde acá
         AppMenu menu = new AppMenu();
         menu.run();
+
+        // Al salir del menú grabo las últimas sesiones pendientes y cierro el pool de conexiones
+        UltimaSesionWriteBehind.cerrarCompartido();
+        PasswordHashingExecutor.cerrarCompartido();
+        ServiceExecutor.cerrarCompartido();
+        Metricas.detenerExportador();
+        DatabaseConnection.closeConnection();
     }
 }
@@ -0,0 +1,41 @@
+package integradorfinal.programacion2.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conexión física abierta contra la base, tal como la guarda el pool.
+ *
+ * Además de la Connection real, acá vive todo lo que tiene que sobrevivir
+ * entre préstamos: el caché de sentencias preparadas y un id correlativo
+ * que sirve para identificar la conexión en los mensajes.
+ */
+final class ConexionFisica {
+
+    private static final AtomicLong SECUENCIA = new AtomicLong();
+
+    private final long id = SECUENCIA.incrementAndGet();
+    private final Connection conn;
+    private final StatementCache cache;
+
+    ConexionFisica(Connection conn, int cacheSize) {
+        this.conn = conn;
+        this.cache = new StatementCache(conn, cacheSize);
+    }
+
+    long getId() { return id; }
+
+    Connection getConn() { return conn; }
+
+    StatementCache getCache() { return cache; }
+
+    /** Cierro las sentencias cacheadas y después la conexión, sin propagar errores. */
+    void cerrar() {
+        cache.cerrarTodo();
+        try {
+            conn.close();
+        } catch (SQLException ignore) {
+        }
+    }
+}
@@ -2,6 +2,8 @@ package integradorfinal.programacion2.config;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 /**
@@ -46,28 +48,310 @@ public final class Config {
     /**
      * Estos campos se llenan usando las propiedades del archivo.
      * Si alguna propiedad no está en db.properties, se utiliza el valor por defecto
-     * como segundo parámetro.
+     * como segundo parámetro. Cualquier propiedad también se puede pisar con
+     * una propiedad de sistema (-Dclave=valor), por ejemplo para los benchmarks.
      */
-    public static final String DB_HOST   = props.getProperty("db.host", "127.0.0.1");
-    public static final String DB_PORT   = props.getProperty("db.port", "3306");
-    public static final String DB_NAME   = props.getProperty("db.name", "tpi_prog_2");
-    public static final String DB_USER   = props.getProperty("jdbc.user", "root");
-    public static final String DB_PASS   = props.getProperty("jdbc.pass");
-    public static final String DB_DRIVER = props.getProperty("db.driver", "com.mysql.cj.jdbc.Driver");
+    public static final String DB_HOST   = prop("db.host", "127.0.0.1");
+    public static final String DB_PORT   = prop("db.port", "3306");
+    public static final String DB_NAME   = prop("db.name", "tpi_prog_2");
+    public static final String DB_USER   = prop("jdbc.user", "root");
+    public static final String DB_PASS   = prop("jdbc.pass", null);
+    public static final String DB_DRIVER = prop("db.driver", "com.mysql.cj.jdbc.Driver");
+
+    // -------------------- POOL DE CONEXIONES --------------------
+    /**
+     * Parámetros del pool que usa DatabaseConnection. Todos son opcionales en
+     * db.properties; si no están, uso valores chicos pensados para la app de consola.
+     */
+    public static final int POOL_MAX_SIZE            = intProp("db.pool.maxSize", 10);
+    public static final int POOL_MIN_IDLE            = intProp("db.pool.minIdle", 2);
+    public static final int POOL_MAX_IDLE            = intProp("db.pool.maxIdle", 5);
+    public static final long POOL_BORROW_TIMEOUT_MS  = intProp("db.pool.borrowTimeoutMs", 5000);
+    public static final int POOL_VALIDATION_TIMEOUT_S = intProp("db.pool.validationTimeoutSec", 2);
+    public static final long POOL_LEAK_DETECTION_MS  = intProp("db.pool.leakDetectionMs", 30000);
+
+    // -------------------- CACHÉ DE SENTENCIAS --------------------
+    /**
+     * Cantidad de sentencias preparadas que guarda cada conexión del pool (0 = sin caché)
+     * y si se le pide a MySQL que las prepare del lado del servidor.
+     */
+    public static final int STMT_CACHE_SIZE          = intProp("db.stmt.cacheSize", 50);
+    public static final boolean STMT_SERVER_PREPARE  =
+        Boolean.parseBoolean(prop("db.stmt.serverPrepare", "true"));
+
+    // -------------------- OPERACIONES POR LOTE --------------------
+    /**
+     * Cantidad de filas que mando en cada executeBatch() de los createAll/updateAll.
+     * El driver además reescribe cada lote de INSERT como un único INSERT multi-fila.
+     */
+    public static final int BATCH_SIZE               = Math.max(1, intProp("db.batch.size", 500));
+
+    /**
+     * Tope de IDs por consulta en los findByIds (WHERE ... IN (...)). Cada
+     * tramo se completa hasta la potencia de 2 siguiente (8, 16, 32, ...)
+     * repitiendo el último ID, así hay pocas formas distintas de la consulta
+     * y el StatementCache las reutiliza.
+     */
+    public static final int IN_LIST_MAX_SIZE         = Math.max(1, intProp("db.inList.maxSize", 256));
+
+    // -------------------- PAGINACIÓN --------------------
+    /**
+     * Filas por página en los listados del menú (findPage) y tope máximo que
+     * aceptan los DAO para no volver a traer la tabla entera de una.
+     */
+    public static final int PAGE_SIZE                = Math.max(1, intProp("page.size", 20));
+    public static final int PAGE_MAX_SIZE            = Math.max(1, intProp("page.maxSize", 1000));
+
+    // -------------------- LECTURA EN STREAMING --------------------
+    /**
+     * Filas que trae el cursor del servidor por cada viaje en streamAll()
+     * (0 = sin cursor: el driver trae todo el resultado de una).
+     */
+    public static final int STREAM_FETCH_SIZE        = Math.max(0, intProp("db.stream.fetchSize", 500));
+
+    // -------------------- CACHÉ DE USUARIOS --------------------
+    /**
+     * Caché de lectura de usuarios (findById / findByUsername / findByEmail):
+     * si está activo, cuántos usuarios guarda como máximo y cuánto tiempo
+     * vale cada entrada antes de volver a leerla de la base.
+     */
+    public static final boolean CACHE_USUARIO_ENABLED =
+        Boolean.parseBoolean(prop("cache.usuario.enabled", "true"));
+    public static final int CACHE_USUARIO_MAX_SIZE   = Math.max(1, intProp("cache.usuario.maxSize", 1000));
+    public static final long CACHE_USUARIO_TTL_MS    = Math.max(0, intProp("cache.usuario.ttlSeconds", 60)) * 1000L;
+
+    // -------------------- ÚLTIMA SESIÓN (WRITE-BEHIND) --------------------
+    /**
+     * Si está activo, el login no escribe ultima_sesion en el momento: la
+     * anota en memoria y un hilo la graba por lotes cada flushMs milisegundos
+     * (o antes, si se juntan maxPendientes usuarios). flushMs es el máximo
+     * atraso con el que puede quedar ultima_sesion en la base.
+     */
+    public static final boolean ULTIMA_SESION_WRITE_BEHIND =
+        Boolean.parseBoolean(prop("login.ultimaSesion.writeBehind", "false"));
+    public static final long ULTIMA_SESION_FLUSH_MS  = Math.max(100, intProp("login.ultimaSesion.flushMs", 2000));
+    public static final int ULTIMA_SESION_MAX_PENDIENTES =
+        Math.max(1, intProp("login.ultimaSesion.maxPendientes", 5000));
+
+    // -------------------- IMPORTACIÓN MASIVA (CSV) --------------------
+    /**
+     * Filas por lote transaccional y cantidad de hilos para hashear contraseñas
+     * durante la importación masiva (0 = tantos hilos como núcleos).
+     */
+    public static final int IMPORT_CHUNK_SIZE        = Math.max(1, intProp("import.chunkSize", 1000));
+    public static final int IMPORT_HASH_THREADS      = intProp("import.hashThreads", 0);
+
+    // -------------------- HASH DE CONTRASEÑAS --------------------
+    /**
+     * Esquema con el que se hashean las contraseñas nuevas ("pbkdf2" o el
+     * "sha256" original). Para PBKDF2, si no se fijan las iteraciones (0),
+     * se calibran al arrancar para que cada hash tarde unos targetMs en esta
+     * máquina, sin bajar nunca de minIterations.
+     */
+    public static final String PASSWORD_HASHER       = prop("password.hasher", "pbkdf2").trim();
+    public static final int PBKDF2_ITERATIONS        = Math.max(0, intProp("password.pbkdf2.iterations", 0));
+    public static final int PBKDF2_TARGET_MS         = Math.max(1, intProp("password.pbkdf2.targetMs", 100));
+    public static final int PBKDF2_MIN_ITERATIONS    = Math.max(1, intProp("password.pbkdf2.minIterations", 10000));
+
+    // -------------------- HASH DEL LOGIN (POOL ACOTADO) --------------------
+    /**
+     * Hilos que verifican contraseñas en el login (0 = uno por núcleo), cuántos
+     * pedidos pueden esperar en la cola y cuántos ms como máximo. Si la cola
+     * está llena o el pedido esperó de más, el login se rechaza enseguida.
+     */
+    public static final int AUTH_HASH_THREADS        = Math.max(0, intProp("auth.hash.threads", 0));
+    public static final int AUTH_HASH_QUEUE_SIZE     = Math.max(1, intProp("auth.hash.queueSize", 256));
+    public static final long AUTH_HASH_MAX_WAIT_MS   = Math.max(1, intProp("auth.hash.maxWaitMs", 2000));
+
+    // -------------------- SERVICIOS ASÍNCRONOS --------------------
+    /**
+     * Hilos que ejecutan las variantes *Async de los servicios (0 = tantos
+     * como conexiones tiene el pool, así nunca hay más tareas que conexiones),
+     * cuántas tareas pueden esperar en la cola y el tiempo máximo de cada
+     * una, contando la espera (0 = sin límite).
+     */
+    public static final int ASYNC_THREADS            = Math.max(0, intProp("async.threads", 0));
+    public static final int ASYNC_QUEUE_SIZE         = Math.max(1, intProp("async.queueSize", 1000));
+    public static final long ASYNC_TIMEOUT_MS        = Math.max(0, intProp("async.timeoutMs", 30000));
+
+    // -------------------- COALESCENCIA DE BÚSQUEDAS --------------------
+    /**
+     * Si está activo, las búsquedas por ID / username de los servicios que
+     * llegan a la vez desde varios hilos se juntan: las de la misma clave
+     * comparten una sola consulta, y las de claves distintas que llegan
+     * dentro de windowMs (mientras otra tanda está en la base) salen juntas
+     * en un findByIds de hasta maxBatchSize claves.
+     */
+    public static final boolean COALESCE_ENABLED     =
+        Boolean.parseBoolean(prop("coalesce.enabled", "true"));
+    public static final long COALESCE_WINDOW_MS      = Math.max(0, intProp("coalesce.windowMs", 2));
+    public static final int COALESCE_MAX_BATCH_SIZE  = Math.max(1, intProp("coalesce.maxBatchSize", 128));
+
+    // -------------------- LOG DE CONSULTAS LENTAS --------------------
+    /**
+     * Si está activo, se mide cada sentencia que pasa por el pool y las que
+     * tardan más de thresholdMs se anotan (SQL, parámetros, filas, método
+     * del DAO y conexión) desde un hilo aparte. sampleRate (0..1) es la
+     * proporción de sentencias que se miden; las demás no pagan nada. Los
+     * textos de los parámetros se ocultan salvo que redactStrings sea false.
+     * Si no se indica archivo, se escribe en la salida de error.
+     */
+    public static final boolean SLOW_QUERY_ENABLED   =
+        Boolean.parseBoolean(prop("db.slowQuery.enabled", "true"));
+    public static final long SLOW_QUERY_THRESHOLD_MS = Math.max(0, intProp("db.slowQuery.thresholdMs", 200));
+    public static final double SLOW_QUERY_SAMPLE_RATE = doubleProp("db.slowQuery.sampleRate", 1.0);
+    public static final boolean SLOW_QUERY_REDACT_STRINGS =
+        Boolean.parseBoolean(prop("db.slowQuery.redactStrings", "true"));
+    public static final int SLOW_QUERY_QUEUE_SIZE    = Math.max(1, intProp("db.slowQuery.queueSize", 1000));
+    public static final String SLOW_QUERY_FILE       = prop("db.slowQuery.file", "").trim();
+
+    // -------------------- MÉTRICAS --------------------
+    /**
+     * Si está activo, los DAO y servicios se envuelven para contar llamadas,
+     * errores y latencias; todo se publica por JMX (si metrics.jmx) y, si se
+     * indica un archivo, se vuelca en formato de texto de Prometheus cada
+     * intervalSeconds segundos.
+     */
+    public static final boolean METRICS_ENABLED      =
+        Boolean.parseBoolean(prop("metrics.enabled", "true"));
+    public static final boolean METRICS_JMX          =
+        Boolean.parseBoolean(prop("metrics.jmx", "true"));
+    public static final String METRICS_PROMETHEUS_FILE = prop("metrics.prometheus.file", "").trim();
+    public static final int METRICS_PROMETHEUS_INTERVAL_S =
+        Math.max(1, intProp("metrics.prometheus.intervalSeconds", 15));
+
+    // -------------------- MIGRACIONES --------------------
+    /**
+     * Si está activo, al arrancar se aplican los scripts de db/migration que
+     * todavía no figuran en la tabla schema_version (ver MigrationRunner).
+     */
+    public static final boolean MIGRATE_ENABLED      =
+        Boolean.parseBoolean(prop("db.migrate.enabled", "true"));
+
+    // -------------------- RÉPLICAS DE LECTURA --------------------
+    /**
+     * URLs JDBC de réplicas de solo lectura, separadas por coma (vacío = todo
+     * va al primario). Las lecturas fuera de transacción se reparten entre
+     * ellas con balance (round-robin o least-loaded); las escrituras y las
+     * transacciones van siempre al primario. Después de escribir, las lecturas
+     * de esa sesión siguen yendo al primario durante readYourWrites.ms, que
+     * tiene que ser mayor que el retraso de replicación habitual (ver
+     * ReplicaRouter). Si no se indica usuario / contraseña se usan los del primario.
+     * A las URLs jdbc:mysql: les agrego los parámetros de la URL principal que
+     * no traigan (timezone, encoding, useCursorFetch...), para que una lectura
+     * en la réplica se comporte igual que en el primario.
+     */
+    public static final List<String> DB_REPLICAS     = lista(prop("db.replicas", "")).stream()
+        .map(Config::conParametrosMySql)
+        .toList();
+    public static final String DB_REPLICAS_USER      = prop("db.replicas.user", DB_USER);
+    public static final String DB_REPLICAS_PASS      = prop("db.replicas.pass", DB_PASS);
+    public static final String DB_REPLICAS_BALANCE   = prop("db.replicas.balance", "round-robin");
+    public static final long READ_YOUR_WRITES_MS     = Math.max(0, intProp("db.readYourWrites.ms", 2000));
 
     /**
      * Acá se arma  la URL completa de conexión usando los valores configurados.
      * También agrego los parámetros que necesito para UTF-8 y compatibilidad
      * con MySQL moderno (SSL, timezone, PK retrieval, etc.).
+     * Si está activado, también pido sentencias preparadas del lado del servidor,
+     * que combinadas con el StatementCache evitan re-parsear el mismo SQL.
+     * rewriteBatchedStatements hace que los lotes de INSERT viajen como un solo INSERT multi-fila.
+     * useCursorFetch permite que las sentencias con fetchSize &gt; 0 (streamAll)
+     * lean el resultado de a tramos con un cursor del servidor.
+     * Si se define db.url, se usa esa URL tal cual (por ejemplo, una base H2
+     * en memoria para los benchmarks) y se ignora todo lo anterior.
      */
-    public static final String JDBC_URL = 
-        "jdbc:mysql://" + DB_HOST + ":" + DB_PORT + "/" + DB_NAME
-        + "?useUnicode=true&characterEncoding=utf8&useSSL=false"
-        + "&allowPublicKeyRetrieval=true&serverTimezone=America/Argentina/Buenos_Aires";
+    public static final String JDBC_URL = prop("db.url",
+        "jdbc:mysql://" + DB_HOST + ":" + DB_PORT + "/" + DB_NAME + "?" + parametrosMySql());
 
     // Constructor privado: no quiero que nadie instancie esta clase.
     private Config() {}
 
+    /**
+     * Leo una propiedad: primero la de sistema (-Dclave=valor) y, si no está,
+     * la de db.properties.
+     */
+    private static String prop(String key, String defaultValue) {
+        String valor = System.getProperty(key);
+        return valor != null ? valor : props.getProperty(key, defaultValue);
+    }
+
+    /**
+     * Leo una propiedad numérica. Si no está o no es un número válido,
+     * me quedo con el valor por defecto en lugar de romper el arranque.
+     */
+    private static int intProp(String key, int defaultValue) {
+        String valor = prop(key, null);
+        if (valor == null || valor.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + key + ": '" + valor + "'. Uso " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Leo una propiedad con decimales, acotada entre 0 y 1 (proporciones).
+     * Si no está o no es válida, me quedo con el valor por defecto.
+     */
+    private static double doubleProp(String key, double defaultValue) {
+        String valor = prop(key, null);
+        if (valor == null || valor.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return Math.min(1.0, Math.max(0.0, Double.parseDouble(valor.trim())));
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + key + ": '" + valor + "'. Uso " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    /** Parámetros del driver de MySQL que uso en la URL principal y en las réplicas. */
+    private static String parametrosMySql() {
+        return "useUnicode=true&characterEncoding=utf8&useSSL=false"
+            + "&allowPublicKeyRetrieval=true&serverTimezone=America/Argentina/Buenos_Aires"
+            + "&rewriteBatchedStatements=true"
+            + (STMT_SERVER_PREPARE ? "&useServerPrepStmts=true" : "")
+            + (STREAM_FETCH_SIZE > 0 ? "&useCursorFetch=true" : "");
+    }
+
+    /**
+     * Completo una URL jdbc:mysql: con los parámetros de la principal que no
+     * tenga; los que ya trae quedan como están. Otras URLs (H2...) no las toco.
+     */
+    private static String conParametrosMySql(String url) {
+        if (!url.startsWith("jdbc:mysql:")) {
+            return url;
+        }
+        int q = url.indexOf('?');
+        List<String> presentes = q < 0 ? List.of() : Arrays.stream(url.substring(q + 1).split("&"))
+                .map(p -> p.split("=", 2)[0].toLowerCase())
+                .toList();
+        StringBuilder sb = new StringBuilder(url);
+        if (q < 0) {
+            sb.append('?');
+        }
+        for (String parametro : parametrosMySql().split("&")) {
+            if (!presentes.contains(parametro.split("=", 2)[0].toLowerCase())) {
+                char ultimo = sb.charAt(sb.length() - 1);
+                sb.append(ultimo == '?' || ultimo == '&' ? "" : "&").append(parametro);
+            }
+        }
+        return sb.toString();
+    }
+
+    /** Parto una lista separada por comas, sin elementos vacíos. */
+    private static List<String> lista(String valor) {
+        return Arrays.stream(valor.split(","))
+                .map(String::trim)
+                .filter(v -> !v.isEmpty())
+                .toList();
+    }
+
     /**
      * Método útil para debug o para mostrar en consola qué configuración
      * estoy usando realmente en un momento dado.
@@ -77,5 +361,11 @@ public final class Config {
         System.out.println("DB_USER  = " + DB_USER);
         System.out.println("DB_PASS  = " + DB_PASS);
         System.out.println("DB_DRIVER= " + DB_DRIVER);
+        System.out.println("POOL     = max " + POOL_MAX_SIZE + ", minIdle " + POOL_MIN_IDLE
+                + ", maxIdle " + POOL_MAX_IDLE);
+        if (!DB_REPLICAS.isEmpty()) {
+            System.out.println("REPLICAS = " + DB_REPLICAS + " (" + DB_REPLICAS_BALANCE
+                    + ", readYourWrites " + READ_YOUR_WRITES_MS + " ms)");
+        }
     }
 }
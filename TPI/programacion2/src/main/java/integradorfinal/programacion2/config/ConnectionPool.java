@@ -0,0 +1,287 @@
+package integradorfinal.programacion2.config;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool de conexiones JDBC propio, acotado y sin dependencias externas.
+ *
+ * La idea es no pagar el handshake TCP + autenticación de MySQL cada vez que un
+ * DAO hace try-with-resources sobre la Connection: las conexiones físicas se
+ * abren una vez y se reutilizan. Lo que se entrega hacia afuera es un
+ * {@link PooledConnection}, cuyo close() devuelve la conexión al pool.
+ *
+ * Características:
+ * - Tamaño máximo (semáforo justo) y mínimo / máximo de conexiones ociosas.
+ * - Validación antes de prestar la conexión (isValid).
+ * - Timeout al pedir una conexión cuando el pool está agotado.
+ * - Detección de "fugas": aviso por consola si una conexión no se devuelve.
+ * - Cada conexión física tiene su propio {@link StatementCache}.
+ */
+public final class ConnectionPool {
+
+    private final String nombre;
+    private final String url;
+    private final String user;
+    private final String pass;
+
+    private final int maxSize;
+    private final int minIdle;
+    private final int maxIdle;
+    private final long borrowTimeoutMs;
+    private final int validationTimeoutSec;
+    private final long leakDetectionMs;
+
+    // Un permiso por conexión que se puede prestar (fair = se atiende por orden de llegada).
+    private final Semaphore permisos;
+
+    // Conexiones físicas ociosas. Uso la punta como pila (LIFO) para reutilizar las "calientes".
+    private final LinkedBlockingDeque<ConexionFisica> ociosas = new LinkedBlockingDeque<>();
+
+    // Conexiones actualmente prestadas (para detectar fugas y para estadísticas).
+    private final Set<PooledConnection> prestadas = ConcurrentHashMap.newKeySet();
+
+    // Tarea de mantenimiento: mantiene el mínimo de ociosas y revisa las fugas.
+    private final ScheduledExecutorService mantenimiento;
+
+    private volatile boolean cerrado = false;
+
+    /**
+     * Creo un pool con la configuración de tamaños y timeouts que sale de Config.
+     *
+     * @param nombre nombre descriptivo (aparece en los mensajes de consola)
+     * @param url    URL JDBC completa
+     * @param user   usuario de la base
+     * @param pass   contraseña de la base
+     * @throws SQLException si no se encuentra el driver JDBC
+     */
+    public ConnectionPool(String nombre, String url, String user, String pass) throws SQLException {
+        this.nombre = nombre;
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+
+        this.maxSize = Math.max(1, Config.POOL_MAX_SIZE);
+        this.maxIdle = Math.max(0, Math.min(Config.POOL_MAX_IDLE, maxSize));
+        this.minIdle = Math.max(0, Math.min(Config.POOL_MIN_IDLE, maxIdle));
+        this.borrowTimeoutMs = Config.POOL_BORROW_TIMEOUT_MS;
+        this.validationTimeoutSec = Config.POOL_VALIDATION_TIMEOUT_S;
+        this.leakDetectionMs = Config.POOL_LEAK_DETECTION_MS;
+        this.permisos = new Semaphore(maxSize, true);
+
+        try {
+            // Cargo el driver JDBC una sola vez, al crear el pool.
+            Class.forName(Config.DB_DRIVER);
+        } catch (ClassNotFoundException e) {
+            System.err.println("No se encontró el driver JDBC. Verifique la configuración.");
+            throw new SQLException("Driver JDBC no disponible: " + Config.DB_DRIVER, e);
+        }
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-" + nombre + "-mantenimiento");
+            t.setDaemon(true);
+            return t;
+        });
+        long periodo = leakDetectionMs > 0 ? Math.max(1000, Math.min(leakDetectionMs / 2, 5000)) : 5000;
+        mantenimiento.scheduleWithFixedDelay(this::mantener, 0, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    // ======================================================
+    // PRÉSTAMO Y DEVOLUCIÓN
+    // ======================================================
+
+    /**
+     * Pido una conexión al pool. Si no hay permisos libres espero como máximo
+     * borrowTimeoutMs; si hay una ociosa la valido antes de entregarla y, si no
+     * hay ninguna, abro una nueva conexión física.
+     *
+     * @return una conexión lista para usar; su close() la devuelve al pool
+     * @throws SQLException si el pool está cerrado, se agotó el tiempo de espera
+     * o falla la apertura de la conexión física
+     */
+    public Connection borrow() throws SQLException {
+        return borrow(null);
+    }
+
+    /**
+     * Igual que {@link #borrow()}, pero {@code alDevolver} se ejecuta cuando
+     * se devuelve la conexión (DatabaseConnection lo usa para anotar las
+     * escrituras de la sesión, ver ReplicaRouter).
+     */
+    Connection borrow(Runnable alDevolver) throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool '" + nombre + "' está cerrado");
+        }
+        try {
+            if (!permisos.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("Timeout de " + borrowTimeoutMs
+                        + " ms esperando una conexión del pool '" + nombre + "' (activas=" + getActivas() + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido esperando una conexión del pool", e);
+        }
+
+        try {
+            ConexionFisica fisica = tomarOciosaValida();
+            if (fisica == null) {
+                fisica = abrirFisica();
+            }
+            Throwable origen = leakDetectionMs > 0
+                    ? new Throwable("Conexión pedida por el hilo " + Thread.currentThread().getName())
+                    : null;
+            PooledConnection pc = new PooledConnection(this, fisica, origen, alDevolver);
+            prestadas.add(pc);
+            return pc.getProxy();
+        } catch (SQLException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * La llama PooledConnection cuando el usuario hace close().
+     * Dejo la conexión física limpia (rollback pendiente, autocommit, readOnly)
+     * y la guardo como ociosa, o la cierro si ya sobran ociosas.
+     */
+    void release(PooledConnection pc) {
+        if (!prestadas.remove(pc)) {
+            return; // doble close: no hago nada
+        }
+        ConexionFisica fisica = pc.getFisica();
+        try {
+            if (!cerrado && resetear(fisica.getConn()) && ociosas.size() < maxIdle) {
+                ociosas.offerFirst(fisica);
+            } else {
+                fisica.cerrar();
+            }
+        } finally {
+            permisos.release();
+        }
+    }
+
+    /**
+     * Cierro el pool: cierro todas las conexiones ociosas y marco el pool para
+     * que las prestadas se cierren al devolverse.
+     */
+    public void shutdown() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        ConexionFisica c;
+        while ((c = ociosas.pollFirst()) != null) {
+            c.cerrar();
+        }
+    }
+
+    // ======================================================
+    // ESTADÍSTICAS
+    // ======================================================
+
+    public String getNombre() { return nombre; }
+
+    public int getMaxSize() { return maxSize; }
+
+    /** Conexiones prestadas en este momento. */
+    public int getActivas() { return prestadas.size(); }
+
+    /** Conexiones físicas abiertas y sin usar. */
+    public int getOciosas() { return ociosas.size(); }
+
+    /** Hilos esperando una conexión. */
+    public int getEsperando() { return permisos.getQueueLength(); }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    /**
+     * Saco ociosas hasta encontrar una válida. Las que no responden las cierro.
+     */
+    private ConexionFisica tomarOciosaValida() {
+        ConexionFisica c;
+        while ((c = ociosas.pollFirst()) != null) {
+            try {
+                if (c.getConn().isValid(validationTimeoutSec)) {
+                    return c;
+                }
+            } catch (SQLException ignore) {
+            }
+            c.cerrar();
+        }
+        return null;
+    }
+
+    private ConexionFisica abrirFisica() throws SQLException {
+        return new ConexionFisica(DriverManager.getConnection(url, user, pass), Config.STMT_CACHE_SIZE);
+    }
+
+    /**
+     * Dejo la conexión como si fuera nueva para el próximo que la pida.
+     * Si algo falla devuelvo false y la conexión se descarta.
+     */
+    private boolean resetear(Connection c) {
+        try {
+            if (c.isClosed()) return false;
+            if (!c.getAutoCommit()) {
+                c.rollback();
+                c.setAutoCommit(true);
+            }
+            if (c.isReadOnly()) c.setReadOnly(false);
+            c.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Tarea periódica: completo el mínimo de ociosas y aviso de posibles fugas.
+     *
+     * Cada conexión que abro para completar ociosas ocupa un permiso mientras
+     * se abre, igual que un borrow(): así no se pasa de maxSize aunque haya
+     * hilos con permiso que todavía están abriendo su conexión física (esos
+     * no figuran en prestadas). Si no hay permisos libres, lo dejo para la
+     * próxima vuelta.
+     */
+    private void mantener() {
+        try {
+            while (!cerrado && ociosas.size() < minIdle
+                    && ociosas.size() + prestadas.size() < maxSize
+                    && permisos.tryAcquire()) {
+                try {
+                    ConexionFisica nueva = abrirFisica();
+                    if (cerrado) {
+                        nueva.cerrar(); // se cerró el pool mientras la abría
+                    } else {
+                        ociosas.offerLast(nueva);
+                    }
+                } finally {
+                    permisos.release();
+                }
+            }
+        } catch (SQLException e) {
+            // Si la base no está disponible lo reintento en la próxima vuelta.
+        }
+
+        if (leakDetectionMs > 0) {
+            long ahora = System.currentTimeMillis();
+            for (PooledConnection pc : prestadas) {
+                if (!pc.isFugaReportada() && ahora - pc.getPrestadaEn() > leakDetectionMs) {
+                    pc.marcarFugaReportada();
+                    System.err.println("Posible fuga de conexión en el pool '" + nombre + "': prestada hace "
+                            + (ahora - pc.getPrestadaEn()) + " ms y todavía no se devolvió.");
+                    if (pc.getOrigen() != null) pc.getOrigen().printStackTrace();
+                }
+            }
+        }
+    }
+}
@@ -1,76 +1,161 @@
 package integradorfinal.programacion2.config;
 
+import integradorfinal.programacion2.metrics.Metricas;
+
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Map;
 
 /**
  * Esta clase la uso como un punto central para manejar la conexión JDBC a mi base de datos.
- * La idea es simple: tener un único lugar donde se abre, se reutiliza y se cierra la conexión.
+ * La idea es simple: tener un único lugar donde se abren, se reutilizan y se cierran las conexiones.
  * De esta forma evito código repetido en todos los DAO.
+ *
+ * Detrás hay un {@link ConnectionPool}: cada getConnection() presta una conexión
+ * del pool y el close() que hacen los DAO con try-with-resources la devuelve,
+ * en lugar de cerrar el socket contra MySQL.
+ *
+ * Si hay réplicas configuradas (db.replicas), las lecturas de los DAO piden
+ * {@link #getReadConnection()} y {@link ReplicaRouter} decide si van a una
+ * réplica o al primario. getConnection() siempre es del primario.
  */
 public class DatabaseConnection {
 
-    // Mantengo una única conexión (patrón Singleton a nivel conexión).
-    private static Connection connection = null;
+    // Pool único para toda la aplicación. Se crea la primera vez que se pide una conexión.
+    private static volatile ConnectionPool pool = null;
 
     // Constructor privado: no quiero que esta clase se pueda instanciar.
     private DatabaseConnection() {}
 
     /**
-     * Acá obtengo la conexión a la base usando los valores de la clase Config.
+     * Acá obtengo una conexión del pool, que se arma con los valores de la clase Config.
+     *
+     * Es importante cerrarla (idealmente con try-with-resources): el close()
+     * no corta la conexión física, sino que la devuelve al pool para reutilizarla.
      *
-     * Si ya existe una conexión abierta, la reutilizo para no crear conexiones innecesarias.
-     * Si no existe (o está cerrada), creo una nueva usando DriverManager.
+     * Si el hilo está dentro de un {@link TransactionTemplate}, devuelvo la
+     * conexión de esa transacción (en ese caso el close() no hace nada).
      *
      * @return una conexión activa, lista para ejecutar SQL
-     * @throws SQLException si algo falla al conectar
+     * @throws SQLException si algo falla al conectar o si se agota el tiempo de espera del pool
      */
     public static Connection getConnection() throws SQLException {
-        // Si nunca abrí la conexión, o si se cerró por algún motivo, la creo de nuevo.
-        if (connection == null || connection.isClosed()) {
-            try {
-                // Cargo el driver JDBC antes de usarlo.
-                Class.forName(Config.DB_DRIVER);
+        Connection enTransaccion = TransactionTemplate.currentConnection();
+        if (enTransaccion != null) {
+            return enTransaccion;
+        }
+        return borrowEscritura();
+    }
 
-                // Creo la conexión usando la URL, usuario y contraseña definidos en Config.
-                connection = DriverManager.getConnection(
-                    Config.JDBC_URL,
-                    Config.DB_USER,
-                    Config.DB_PASS
-                );
+    /**
+     * Conexión para una lectura que puede ir a una réplica: la uso en las
+     * consultas de los DAO que no modifican nada. Dentro de una transacción
+     * devuelvo la de la transacción; sin réplicas, o si la sesión escribió
+     * hace menos de db.readYourWrites.ms, una del primario (ver {@link ReplicaRouter}).
+     *
+     * @return una conexión lista para consultar; el close() la devuelve a su pool
+     * @throws SQLException si no se puede obtener conexión ni de la réplica ni del primario
+     */
+    public static Connection getReadConnection() throws SQLException {
+        return ReplicaRouter.lectura();
+    }
 
-                System.out.println("Conexión establecida correctamente con la base de datos.");
+    /**
+     * Conexión del primario para una lectura que no puede ir a una réplica
+     * (el login: una contraseña recién cambiada tiene que valer enseguida).
+     * A diferencia de getConnection(), al devolverla no se anota una
+     * escritura, así que no abre la ventana de read-your-writes.
+     *
+     * @return la conexión de la transacción en curso o una del primario
+     * @throws SQLException si no se puede obtener la conexión
+     */
+    public static Connection getPrimaryReadConnection() throws SQLException {
+        Connection enTransaccion = TransactionTemplate.currentConnection();
+        if (enTransaccion != null) {
+            return enTransaccion;
+        }
+        return getPool().borrow();
+    }
 
-            } catch (ClassNotFoundException e) {
-                // Error claro si el driver no está en el classpath.
-                System.err.println("No se encontró el driver JDBC. Verifique la configuración.");
-                System.err.println("Detalles técnicos: " + e.getMessage());
-            }
+    /**
+     * Presto una conexión del primario para escribir. Si hay réplicas, al
+     * devolverla se anota la escritura en la sesión que la pidió, así sus
+     * lecturas siguientes no van a una réplica que todavía no la tiene.
+     */
+    static Connection borrowEscritura() throws SQLException {
+        if (!ReplicaRouter.isActivo()) {
+            return getPool().borrow();
         }
-        return connection;
+        ReplicaRouter.Sesion sesion = ReplicaRouter.sesionActual();
+        return getPool().borrow(sesion::registrarEscritura);
     }
 
     /**
-     * Cierro la conexión si existe y está abierta.
+     * Devuelvo el pool, creándolo la primera vez (doble chequeo para que sea seguro entre hilos).
      *
-     * Siempre envuelvo el cierre en un try/catch porque es común que falle si
-     * la conexión ya está cerrada o si hubo un timeout. En esos casos muestro
-     * un mensaje amable pero también registro el detalle técnico por consola.
+     * @return el pool de conexiones de la aplicación
+     * @throws SQLException si no se puede inicializar el pool
      */
-    public static void closeConnection() {
-        try {
-            // Solo cierro si existe y realmente está abierta.
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Conexión cerrada correctamente.");
+    public static ConnectionPool getPool() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DatabaseConnection.class) {
+                p = pool;
+                if (p == null) {
+                    p = new ConnectionPool("principal", Config.JDBC_URL, Config.DB_USER, Config.DB_PASS);
+                    pool = p;
+                    System.out.println("Pool de conexiones inicializado (máximo " + p.getMaxSize() + " conexiones).");
+                    registrarMedidores(p);
+                }
             }
-        } catch (SQLException e) {
-            // Mensaje amable para el usuario.
-            System.err.println(" Hubo un problema al cerrar la conexión, pero no afecta sus datos.");
+        }
+        return p;
+    }
+
+    /** Publico el estado del pool, de la caché de sentencias, del log de consultas lentas y de las réplicas en las métricas. */
+    private static void registrarMedidores(ConnectionPool p) {
+        Metricas.registrarMedidores("Pool", Map.of(
+                "activas", p::getActivas,
+                "ociosas", p::getOciosas,
+                "esperando", p::getEsperando,
+                "maxSize", p::getMaxSize,
+                "stmtCacheHits", StatementCache::getHits,
+                "stmtCacheMisses", StatementCache::getMisses,
+                "stmtCacheEvictions", StatementCache::getEvictions,
+                "stmtCacheHitRatio", StatementCache::getHitRatio));
+        if (SlowQueryLog.isActivo()) {
+            Metricas.registrarMedidores("ConsultasLentas", Map.of(
+                    "medidas", SlowQueryLog::getMedidas,
+                    "lentas", SlowQueryLog::getLentas,
+                    "descartadas", SlowQueryLog::getDescartadas,
+                    "enCola", SlowQueryLog::getEnCola));
+        }
+        if (ReplicaRouter.isActivo()) {
+            Metricas.registrarMedidores("Replicas", Map.of(
+                    "activas", ReplicaRouter::getActivas,
+                    "lecturasReplica", ReplicaRouter::getLecturasReplica,
+                    "lecturasPrimario", ReplicaRouter::getLecturasPrimario,
+                    "porVentana", ReplicaRouter::getPorVentana,
+                    "fallasReplica", ReplicaRouter::getFallasReplica));
+        }
+    }
 
-            // Detalle técnico para debugging.
-            System.err.println("Detalles técnicos: " + e.getMessage());
+    /**
+     * Cierro el pool (y los de las réplicas) con todas sus conexiones ociosas.
+     * Lo uso al salir de la aplicación.
+     *
+     * Si después alguien vuelve a pedir una conexión, el pool se crea de nuevo.
+     */
+    public static void closeConnection() {
+        ReplicaRouter.cerrar();
+        ConnectionPool p;
+        synchronized (DatabaseConnection.class) {
+            p = pool;
+            pool = null;
+        }
+        if (p != null) {
+            p.shutdown();
+            System.out.println("Conexiones cerradas correctamente.");
         }
     }
 }
@@ -0,0 +1,308 @@
+package integradorfinal.programacion2.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Aplica al arrancar los cambios de esquema versionados (índices, columnas
+ * nuevas...), para no depender de que alguien corra a mano un script.
+ *
+ * - Los scripts están en el classpath, en db/migration, con nombre
+ *   V&lt;versión&gt;__&lt;descripción&gt;.sql (por ejemplo V1__indices_listados.sql).
+ *   Se aplican en orden de versión.
+ * - Cada script aplicado queda en la tabla schema_version con el SHA-256 de
+ *   su contenido. Si después alguien modifica un script ya aplicado, el
+ *   arranque se corta: el cambio va en un script nuevo.
+ * - Un script pendiente con versión menor a la última aplicada también corta
+ *   el arranque (quedaría aplicado fuera de orden).
+ *
+ * Las sentencias de un script se separan por ";" (o por el delimitador de
+ * una línea DELIMITER, igual que en los scripts de la base) y se ejecutan en
+ * autocommit: en MySQL los DDL no se pueden revertir, así que si una
+ * sentencia falla las anteriores quedan aplicadas y la versión no se anota.
+ * Conviene que cada script sea chico y de un solo tema.
+ *
+ * MySQL no tiene DROP INDEX IF EXISTS, así que un "DROP INDEX x ON tabla"
+ * de un índice que no existe (una base creada sin él, o donde alguien ya lo
+ * borró a mano) lo salteo en vez de cortar el arranque.
+ *
+ * Supongo una sola instancia de la aplicación arrancando a la vez (no tomo
+ * un lock sobre la tabla de versiones).
+ */
+public final class MigrationRunner {
+
+    /** Carpeta de los scripts dentro del classpath. */
+    public static final String UBICACION = "db/migration";
+
+    private static final Pattern NOMBRE = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final Pattern DELIMITER = Pattern.compile("(?i)^\\s*DELIMITER\\s+(\\S+)\\s*$");
+    private static final Pattern DROP_INDEX = Pattern.compile("(?i)DROP\\s+INDEX\\s+`?(\\w+)`?\\s+ON\\s+`?(\\w+)`?");
+
+    private static final String SQL_CREAR_TABLA = """
+            CREATE TABLE IF NOT EXISTS schema_version (
+                version INT NOT NULL,
+                descripcion VARCHAR(200) NOT NULL,
+                script VARCHAR(200) NOT NULL,
+                checksum CHAR(64) NOT NULL,
+                aplicada_en TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                duracion_ms INT NOT NULL,
+                CONSTRAINT pk_schema_version PRIMARY KEY (version)
+            )
+            """;
+    private static final String SQL_APLICADAS = "SELECT version, checksum FROM schema_version";
+    private static final String SQL_ANOTAR =
+            "INSERT INTO schema_version (version, descripcion, script, checksum, duracion_ms) VALUES (?, ?, ?, ?, ?)";
+
+    /** Un script de db/migration. */
+    record Migracion(int version, String descripcion, String script, String contenido, String checksum) {}
+
+    private MigrationRunner() {}
+
+    // ======================================================
+    // API
+    // ======================================================
+
+    /**
+     * Aplico las migraciones pendientes con una conexión del pool.
+     *
+     * @return cuántas se aplicaron
+     * @throws SQLException si una migración falla o un script ya aplicado cambió
+     */
+    public static int migrar() throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return migrar(conn);
+        }
+    }
+
+    /**
+     * Aplico las migraciones pendientes sobre la conexión recibida (la dejo en
+     * autocommit, que es como corren los DDL de todos modos).
+     *
+     * @return cuántas se aplicaron
+     * @throws SQLException si una migración falla o un script ya aplicado cambió
+     */
+    public static int migrar(Connection conn) throws SQLException {
+        List<Migracion> scripts = buscarScripts();
+        conn.setAutoCommit(true);
+        try (Statement st = conn.createStatement()) {
+            st.execute(SQL_CREAR_TABLA);
+        }
+        TreeMap<Integer, String> aplicadas = leerAplicadas(conn);
+        int ultima = aplicadas.isEmpty() ? 0 : aplicadas.lastKey();
+
+        List<Migracion> pendientes = new ArrayList<>();
+        for (Migracion m : scripts) {
+            String checksum = aplicadas.remove(m.version());
+            if (checksum == null) {
+                if (m.version() < ultima) {
+                    throw new SQLException("La migración " + m.script() + " es anterior a la última aplicada (V"
+                            + ultima + "): renumerarla con una versión mayor");
+                }
+                pendientes.add(m);
+            } else if (!checksum.equalsIgnoreCase(m.checksum())) {
+                throw new SQLException("El script " + m.script() + " cambió después de aplicarse"
+                        + " (los cambios van en una migración nueva)");
+            }
+        }
+        for (Integer version : aplicadas.keySet()) {
+            System.err.println("La versión " + version + " de schema_version no tiene script en " + UBICACION);
+        }
+
+        for (Migracion m : pendientes) {
+            aplicar(conn, m);
+        }
+        return pendientes.size();
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private static TreeMap<Integer, String> leerAplicadas(Connection conn) throws SQLException {
+        TreeMap<Integer, String> aplicadas = new TreeMap<>();
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(SQL_APLICADAS)) {
+            while (rs.next()) {
+                aplicadas.put(rs.getInt(1), rs.getString(2));
+            }
+        }
+        return aplicadas;
+    }
+
+    /** Ejecuto las sentencias del script y anoto la versión. */
+    private static void aplicar(Connection conn, Migracion m) throws SQLException {
+        long inicio = System.nanoTime();
+        try (Statement st = conn.createStatement()) {
+            for (String sql : sentencias(m.contenido())) {
+                Matcher drop = DROP_INDEX.matcher(sql);
+                if (drop.matches() && !existeIndice(conn, drop.group(2), drop.group(1))) {
+                    System.out.println("Migración " + m.script() + ": el índice " + drop.group(1)
+                            + " no existe en " + drop.group(2) + ", lo salteo");
+                    continue;
+                }
+                try {
+                    st.execute(sql);
+                } catch (SQLException e) {
+                    throw new SQLException("Falló la migración " + m.script() + " en: " + resumir(sql)
+                            + " (las sentencias anteriores del script quedaron aplicadas)", e);
+                }
+            }
+        }
+        long ms = (System.nanoTime() - inicio) / 1_000_000;
+        try (PreparedStatement ps = conn.prepareStatement(SQL_ANOTAR)) {
+            ps.setInt(1, m.version());
+            ps.setString(2, m.descripcion());
+            ps.setString(3, m.script());
+            ps.setString(4, m.checksum());
+            ps.setInt(5, (int) Math.min(Integer.MAX_VALUE, ms));
+            ps.executeUpdate();
+        }
+        System.out.println("Migración " + m.script() + " aplicada (" + ms + " ms)");
+    }
+
+    /** Me fijo en los metadatos si la tabla tiene un índice con ese nombre. */
+    private static boolean existeIndice(Connection conn, String tabla, String indice) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        String nombre = meta.storesUpperCaseIdentifiers() ? tabla.toUpperCase()
+                : meta.storesLowerCaseIdentifiers() ? tabla.toLowerCase()
+                : tabla;
+        try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), conn.getSchema(), nombre, false, true)) {
+            while (rs.next()) {
+                if (indice.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Busco los scripts de {@link #UBICACION}, ya sea en una carpeta (al
+     * correr desde el IDE) o dentro del jar, y los ordeno por versión.
+     */
+    static List<Migracion> buscarScripts() throws SQLException {
+        URL url = MigrationRunner.class.getClassLoader().getResource(UBICACION);
+        if (url == null) {
+            return List.of();
+        }
+        try {
+            URI uri = url.toURI();
+            if (!"jar".equals(uri.getScheme())) {
+                return leerScripts(Path.of(uri));
+            }
+            try (FileSystem jar = FileSystems.newFileSystem(uri, Map.of())) {
+                return leerScripts(jar.getPath(UBICACION));
+            } catch (FileSystemAlreadyExistsException e) {
+                return leerScripts(FileSystems.getFileSystem(uri).getPath(UBICACION));
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new SQLException("No se pudieron leer los scripts de " + UBICACION, e);
+        }
+    }
+
+    private static List<Migracion> leerScripts(Path carpeta) throws IOException, SQLException {
+        Map<Integer, Migracion> porVersion = new TreeMap<>();
+        try (Stream<Path> archivos = Files.list(carpeta)) {
+            for (Path p : (Iterable<Path>) archivos::iterator) {
+                String nombre = p.getFileName().toString();
+                Matcher m = NOMBRE.matcher(nombre);
+                if (!m.matches()) {
+                    continue;
+                }
+                // Normalizo los fin de línea: el checksum no tiene que cambiar por un checkout en Windows
+                String contenido = Files.readString(p, StandardCharsets.UTF_8).replace("\r\n", "\n");
+                Migracion mig = new Migracion(Integer.parseInt(m.group(1)), m.group(2).replace('_', ' '),
+                        nombre, contenido, sha256(contenido));
+                Migracion repetida = porVersion.put(mig.version(), mig);
+                if (repetida != null) {
+                    throw new SQLException("Hay dos migraciones con la versión " + mig.version() + ": "
+                            + repetida.script() + " y " + nombre);
+                }
+            }
+        }
+        return new ArrayList<>(porVersion.values());
+    }
+
+    /**
+     * Parto el script en sentencias: respeto DELIMITER y saco los
+     * comentarios "--" que no estén dentro de un literal.
+     */
+    static List<String> sentencias(String contenido) {
+        List<String> sentencias = new ArrayList<>();
+        String delimitador = ";";
+        StringBuilder actual = new StringBuilder();
+        for (String linea : contenido.split("\n")) {
+            Matcher d = DELIMITER.matcher(linea);
+            if (d.matches()) {
+                delimitador = d.group(1);
+                continue;
+            }
+            actual.append(sinComentario(linea)).append('\n');
+            String texto = actual.toString().stripTrailing();
+            if (texto.endsWith(delimitador)) {
+                agregar(sentencias, texto.substring(0, texto.length() - delimitador.length()));
+                actual.setLength(0);
+            }
+        }
+        agregar(sentencias, actual.toString());
+        return sentencias;
+    }
+
+    private static void agregar(List<String> sentencias, String sql) {
+        String limpia = sql.strip();
+        if (!limpia.isEmpty()) {
+            sentencias.add(limpia);
+        }
+    }
+
+    private static String sinComentario(String linea) {
+        boolean enLiteral = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '\'') {
+                enLiteral = !enLiteral;
+            } else if (!enLiteral && c == '-' && i + 1 < linea.length() && linea.charAt(i + 1) == '-') {
+                return linea.substring(0, i);
+            }
+        }
+        return linea;
+    }
+
+    private static String sha256(String contenido) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(contenido.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static String resumir(String sql) {
+        String una = sql.replaceAll("\\s+", " ").trim();
+        return una.length() > 120 ? una.substring(0, 117) + "..." : una;
+    }
+}
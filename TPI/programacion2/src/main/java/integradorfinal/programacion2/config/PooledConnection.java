@@ -0,0 +1,142 @@
+package integradorfinal.programacion2.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Envoltorio de una conexión física prestada por {@link ConnectionPool}.
+ *
+ * Hacia afuera se entrega un proxy de {@link Connection}: todos los métodos se
+ * delegan en la conexión física, salvo close(), que en lugar de cerrar el
+ * socket devuelve la conexión al pool. Así los DAO pueden seguir usando
+ * try-with-resources sin enterarse de que hay un pool detrás.
+ *
+ * Además, prepareStatement(sql), prepareStatement(sql, autoGeneratedKeys) y
+ * prepareCall(sql) pasan por el {@link StatementCache} de la conexión física.
+ * Las sentencias que salen de acá (cacheadas o no) pasan por
+ * {@link SlowQueryLog#envolver} para el log de consultas lentas.
+ */
+final class PooledConnection implements InvocationHandler {
+
+    private final ConnectionPool pool;
+    private final ConexionFisica fisica;
+    private final Connection proxy;
+
+    // Datos para la detección de fugas
+    private final long prestadaEn = System.currentTimeMillis();
+    private final Throwable origen;
+    private volatile boolean fugaReportada = false;
+
+    private volatile boolean cerrada = false;
+
+    // Lo que hay que hacer al devolverla (puede ser null)
+    private final Runnable alDevolver;
+
+    PooledConnection(ConnectionPool pool, ConexionFisica fisica, Throwable origen, Runnable alDevolver) {
+        this.pool = pool;
+        this.fisica = fisica;
+        this.origen = origen;
+        this.alDevolver = alDevolver;
+        this.proxy = (Connection) Proxy.newProxyInstance(
+                PooledConnection.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+    }
+
+    @Override
+    public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "close" -> {
+                if (!cerrada) {
+                    cerrada = true;
+                    try {
+                        pool.release(this);
+                    } finally {
+                        if (alDevolver != null) alDevolver.run();
+                    }
+                }
+                return null;
+            }
+            case "isClosed" -> {
+                return cerrada || fisica.getConn().isClosed();
+            }
+            case "equals" -> {
+                return p == args[0];
+            }
+            case "hashCode" -> {
+                return System.identityHashCode(p);
+            }
+            case "toString" -> {
+                return "PooledConnection[" + pool.getNombre() + ", #" + fisica.getId() + "]";
+            }
+            default -> {
+                // Usar la conexión después de devolverla al pool es un error del llamador.
+                if (cerrada) {
+                    throw new SQLException("La conexión ya fue devuelta al pool");
+                }
+                Object cacheada = desdeCache(method, args);
+                if (cacheada != null) {
+                    return medir(method, args, cacheada);
+                }
+                try {
+                    return medir(method, args, method.invoke(fisica.getConn(), args));
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+
+    /**
+     * Si el método es uno de los prepare que se cachean, lo resuelvo con el
+     * StatementCache. Si no, devuelvo null y se delega normalmente.
+     */
+    private Object desdeCache(Method method, Object[] args) throws SQLException {
+        if (args == null || !(args[0] instanceof String sql)) {
+            return null;
+        }
+        String nombre = method.getName();
+        if (nombre.equals("prepareStatement")) {
+            if (args.length == 1) {
+                return fisica.getCache().prepare(sql, null, proxy);
+            }
+            if (args.length == 2 && method.getParameterTypes()[1] == int.class) {
+                return fisica.getCache().prepare(sql, (Integer) args[1], proxy);
+            }
+        } else if (nombre.equals("prepareCall") && args.length == 1) {
+            return fisica.getCache().prepareCall(sql, proxy);
+        }
+        return null;
+    }
+
+    /** Si el método crea una sentencia, la paso por el log de consultas lentas. */
+    private Object medir(Method method, Object[] args, Object resultado) {
+        if (!SlowQueryLog.isActivo()) {
+            return resultado;
+        }
+        String nombre = method.getName();
+        if (!nombre.equals("prepareStatement") && !nombre.equals("prepareCall") && !nombre.equals("createStatement")) {
+            return resultado;
+        }
+        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+        return SlowQueryLog.envolver(resultado, sql, fisica.getId());
+    }
+
+    // ======================================================
+    // Uso interno del pool
+    // ======================================================
+
+    Connection getProxy() { return proxy; }
+
+    ConexionFisica getFisica() { return fisica; }
+
+    long getPrestadaEn() { return prestadaEn; }
+
+    Throwable getOrigen() { return origen; }
+
+    boolean isFugaReportada() { return fugaReportada; }
+
+    void marcarFugaReportada() { fugaReportada = true; }
+}
@@ -0,0 +1,20 @@
+package integradorfinal.programacion2.config;
+
+/**
+ * Reglas de propagación que entiende {@link TransactionTemplate}.
+ * Indican qué hacer cuando ya hay una transacción abierta en el hilo actual.
+ */
+public enum Propagation {
+
+    /** Me sumo a la transacción actual; si no hay ninguna, abro una nueva. */
+    REQUIRED,
+
+    /** Suspendo la transacción actual (si existe) y abro una nueva, con su propia conexión. */
+    REQUIRES_NEW,
+
+    /**
+     * Solo lectura: me sumo a la transacción actual o abro una nueva marcada
+     * como readOnly, que comparte una sola conexión para todas las lecturas.
+     */
+    READ_ONLY
+}
@@ -0,0 +1,257 @@
+package integradorfinal.programacion2.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reparte las lecturas entre las réplicas de solo lectura (db.replicas).
+ *
+ * DatabaseConnection.getReadConnection() me pregunta a dónde mandar cada
+ * lectura. Va al primario si:
+ * - no hay réplicas configuradas,
+ * - el hilo está dentro de una transacción (se usa la conexión de esa
+ *   transacción, que siempre es del primario),
+ * - la sesión escribió hace menos de db.readYourWrites.ms (read-your-writes:
+ *   la réplica puede no tener todavía lo que se acaba de grabar), o
+ * - no se pudo obtener conexión de la réplica elegida.
+ *
+ * En cualquier otro caso elijo una réplica por turno (round-robin) o la que
+ * tenga menos conexiones en uso y pedidos esperando (least-loaded). Cada
+ * réplica tiene su propio {@link ConnectionPool} ("replica-1", "replica-2"...),
+ * con los mismos tamaños que el principal, creado la primera vez que se usa.
+ *
+ * La "sesión" es el hilo que atiende al usuario: en la app de consola hay
+ * uno solo. ServiceExecutor pasa la sesión de quien encola la operación al
+ * hilo que la ejecuta, así que una escritura asíncrona también abre la
+ * ventana para quien la pidió. Si algún día hay varios usuarios por hilo,
+ * alcanza con guardar la {@link Sesion} de cada uno y activarla con
+ * {@link #usarSesion(Sesion)} al atender su pedido.
+ */
+public final class ReplicaRouter {
+
+    /** Cómo se elige la réplica para cada lectura. */
+    public enum Balanceo {
+        ROUND_ROBIN,
+        LEAST_LOADED;
+
+        static Balanceo desde(String valor) {
+            return "least-loaded".equalsIgnoreCase(valor.trim()) ? LEAST_LOADED : ROUND_ROBIN;
+        }
+    }
+
+    /**
+     * Momento de la última escritura de un usuario. Se comparte entre el hilo
+     * que lo atiende y los hilos del ServiceExecutor que trabajan para él.
+     */
+    public static final class Sesion {
+        private volatile long ultimaEscrituraNanos;
+        private volatile boolean escribio = false;
+
+        void registrarEscritura() {
+            ultimaEscrituraNanos = System.nanoTime();
+            escribio = true;
+            ultimaEscrituraGlobalNanos = ultimaEscrituraNanos;
+            hayEscrituras = true;
+        }
+
+        /** True si la última escritura fue hace menos de la ventana configurada. */
+        boolean enVentana() {
+            return escribio && System.nanoTime() - ultimaEscrituraNanos < VENTANA_NANOS;
+        }
+    }
+
+    private static final List<String> URLS = Config.DB_REPLICAS;
+    private static final Balanceo BALANCEO = Balanceo.desde(Config.DB_REPLICAS_BALANCE);
+    private static final long VENTANA_NANOS = Config.READ_YOUR_WRITES_MS * 1_000_000L;
+
+    private static final ThreadLocal<Sesion> SESION = ThreadLocal.withInitial(Sesion::new);
+
+    // Última escritura de cualquier sesión (para los cachés, ver isEscrituraReciente)
+    private static volatile long ultimaEscrituraGlobalNanos;
+    private static volatile boolean hayEscrituras = false;
+
+    // Un pool por réplica, en el mismo orden que db.replicas (null hasta que se usa)
+    private static final ConnectionPool[] pools = new ConnectionPool[URLS.size()];
+    private static final AtomicInteger turno = new AtomicInteger();
+
+    private static final LongAdder lecturasReplica = new LongAdder();
+    private static final LongAdder lecturasPrimario = new LongAdder();
+    private static final LongAdder porVentana = new LongAdder();
+    private static final LongAdder fallasReplica = new LongAdder();
+
+    private ReplicaRouter() {}
+
+    // ======================================================
+    // SESIÓN (READ-YOUR-WRITES)
+    // ======================================================
+
+    /** @return true si hay réplicas configuradas */
+    public static boolean isActivo() {
+        return !URLS.isEmpty();
+    }
+
+    /** La sesión del hilo actual (se crea la primera vez). */
+    public static Sesion sesionActual() {
+        return SESION.get();
+    }
+
+    /**
+     * Activo una sesión en el hilo actual.
+     *
+     * @param sesion la sesión a usar (null vuelve a la propia del hilo)
+     * @return la que estaba antes, para restaurarla al terminar
+     */
+    public static Sesion usarSesion(Sesion sesion) {
+        Sesion anterior = SESION.get();
+        if (sesion == null) {
+            SESION.remove();
+        } else {
+            SESION.set(sesion);
+        }
+        return anterior;
+    }
+
+    /**
+     * @return true si hay réplicas y la sesión actual escribió hace menos de
+     * db.readYourWrites.ms (sus lecturas van al primario)
+     */
+    public static boolean isEnVentana() {
+        return isActivo() && SESION.get().enVentana();
+    }
+
+    /**
+     * @return true si hay réplicas y alguna sesión (no solo la actual) escribió
+     * hace menos de db.readYourWrites.ms. Una lectura de réplica hecha ahora
+     * puede no tener esa escritura, así que los cachés no la guardan.
+     */
+    public static boolean isEscrituraReciente() {
+        return isActivo() && hayEscrituras && System.nanoTime() - ultimaEscrituraGlobalNanos < VENTANA_NANOS;
+    }
+
+    /**
+     * Anoto que la sesión actual escribió recién: sus lecturas van al
+     * primario durante db.readYourWrites.ms. DatabaseConnection lo hace solo
+     * al devolver cada conexión del primario, así que los DAO no lo llaman.
+     */
+    public static void registrarEscritura() {
+        SESION.get().registrarEscritura();
+    }
+
+    // ======================================================
+    // RUTEO
+    // ======================================================
+
+    /**
+     * Conexión de lectura según las reglas de la clase. El close() la
+     * devuelve al pool del que salió.
+     */
+    static Connection lectura() throws SQLException {
+        Connection enTransaccion = TransactionTemplate.currentConnection();
+        if (enTransaccion != null) {
+            return enTransaccion;
+        }
+        if (!isActivo()) {
+            return DatabaseConnection.getConnection();
+        }
+        if (SESION.get().enVentana()) {
+            porVentana.increment();
+            return primario();
+        }
+
+        int elegida = elegir();
+        try {
+            Connection conn = pool(elegida).borrow();
+            lecturasReplica.increment();
+            return conn;
+        } catch (SQLException e) {
+            fallasReplica.increment();
+            System.err.println("No se pudo leer de la réplica " + (elegida + 1) + " (" + e.getMessage()
+                    + "): uso el primario");
+            return primario();
+        }
+    }
+
+    /** Lectura en el primario: no abre la ventana de read-your-writes. */
+    private static Connection primario() throws SQLException {
+        lecturasPrimario.increment();
+        return DatabaseConnection.getPool().borrow();
+    }
+
+    private static int elegir() {
+        int n = pools.length;
+        int inicio = Math.floorMod(turno.getAndIncrement(), n);
+        if (BALANCEO == Balanceo.ROUND_ROBIN || n == 1) {
+            return inicio;
+        }
+        // Arranco desde el turno para que los empates no caigan siempre en la primera
+        int mejor = inicio;
+        int menorCarga = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            int r = (inicio + i) % n;
+            ConnectionPool p = pools[r];
+            int carga = p == null ? 0 : p.getActivas() + p.getEsperando();
+            if (carga < menorCarga) {
+                menorCarga = carga;
+                mejor = r;
+            }
+        }
+        return mejor;
+    }
+
+    /** El pool de la réplica, creándolo la primera vez. */
+    private static ConnectionPool pool(int i) throws SQLException {
+        ConnectionPool p = pools[i];
+        if (p == null) {
+            synchronized (pools) {
+                p = pools[i];
+                if (p == null) {
+                    p = new ConnectionPool("replica-" + (i + 1), URLS.get(i),
+                            Config.DB_REPLICAS_USER, Config.DB_REPLICAS_PASS);
+                    pools[i] = p;
+                    System.out.println("Pool de la réplica " + (i + 1) + " inicializado (" + URLS.get(i) + ").");
+                }
+            }
+        }
+        return p;
+    }
+
+    /** Cierro los pools de las réplicas (se vuelven a crear si se pide otra lectura). */
+    static void cerrar() {
+        synchronized (pools) {
+            for (int i = 0; i < pools.length; i++) {
+                if (pools[i] != null) {
+                    pools[i].shutdown();
+                    pools[i] = null;
+                }
+            }
+        }
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    /** Lecturas que fueron a una réplica. */
+    public static long getLecturasReplica() { return lecturasReplica.sum(); }
+
+    /** Lecturas fuera de transacción que fueron al primario habiendo réplicas. */
+    public static long getLecturasPrimario() { return lecturasPrimario.sum(); }
+
+    /** De las anteriores, las que fueron al primario por la ventana de read-your-writes. */
+    public static long getPorVentana() { return porVentana.sum(); }
+
+    /** Veces que no se pudo obtener conexión de una réplica y se leyó del primario. */
+    public static long getFallasReplica() { return fallasReplica.sum(); }
+
+    /** Conexiones en uso sumando todas las réplicas. */
+    public static int getActivas() {
+        int total = 0;
+        for (ConnectionPool p : pools) {
+            if (p != null) total += p.getActivas();
+        }
+        return total;
+    }
+}
@@ -0,0 +1,237 @@
+package integradorfinal.programacion2.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Envoltorio de una sentencia para el {@link SlowQueryLog}.
+ *
+ * - Los setXxx(indice, valor, ...) se guardan para poder mostrar los
+ *   parámetros con los que corrió (clearParameters los borra; setNull se
+ *   guarda como NULL).
+ * - executeUpdate / executeBatch / execute se miden y se anotan al volver,
+ *   con las filas modificadas.
+ * - executeQuery devuelve el ResultSet envuelto en {@link FilasLeidas}: el
+ *   tiempo corre hasta que se leyó la última fila o se cerró el ResultSet,
+ *   que es lo que espera de verdad el DAO (y lo que mide la base en su
+ *   propio slow log, con el envío de filas incluido).
+ * - Con setFetchSize &gt; 0 (las lecturas en streaming de JdbcSupport.stream)
+ *   el que lee va procesando cada fila a su ritmo, así que ahí el tiempo
+ *   corre solo hasta la primera fila y las filas quedan como "no se sabe".
+ *
+ * El resto de los métodos se delega tal cual. Una instancia la usa un solo
+ * hilo a la vez (igual que la sentencia que envuelve).
+ */
+final class SentenciaMedida implements InvocationHandler {
+
+    private final Statement real;
+    private final long conexionId;
+    private String sql;
+
+    private Object[] parametros = null;
+    private int cantidadParametros = 0;
+    private int lote = 0;
+    private boolean enStreaming = false;
+
+    private SentenciaMedida(Statement real, String sql, long conexionId) {
+        this.real = real;
+        this.sql = sql;
+        this.conexionId = conexionId;
+    }
+
+    static Object nueva(Class<?> interfaz, Statement real, String sql, long conexionId) {
+        return Proxy.newProxyInstance(SentenciaMedida.class.getClassLoader(), new Class<?>[]{interfaz},
+                new SentenciaMedida(real, sql, conexionId));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String nombre = method.getName();
+        if (nombre.startsWith("execute")) {
+            return ejecutar(nombre, method, args);
+        }
+        if (nombre.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer indice) {
+            // En setNull el segundo argumento es el tipo SQL, no el valor
+            guardarParametro(indice, nombre.equals("setNull") ? null : args[1]);
+        } else if (nombre.equals("setFetchSize") && args != null && args[0] instanceof Integer filas) {
+            enStreaming = filas > 0;
+        } else if (nombre.equals("clearParameters")) {
+            parametros = null;
+            cantidadParametros = 0;
+        } else if (nombre.equals("addBatch")) {
+            lote++;
+            if (args != null && args.length == 1 && args[0] instanceof String s) {
+                sql = s;
+            }
+        } else if (nombre.equals("clearBatch")) {
+            lote = 0;
+        } else if (nombre.equals("equals")) {
+            return proxy == args[0];
+        } else if (nombre.equals("hashCode")) {
+            return System.identityHashCode(proxy);
+        }
+        return invocar(method, args);
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private Object ejecutar(String nombre, Method method, Object[] args) throws Throwable {
+        // Statement común: el SQL viene en el execute
+        if (args != null && args.length >= 1 && args[0] instanceof String s) {
+            sql = s;
+        }
+        Object[] copia = parametros == null ? null : Arrays.copyOf(parametros, cantidadParametros);
+        int filasDelLote = lote;
+        long inicio = System.nanoTime();
+        Object resultado;
+        try {
+            resultado = invocar(method, args);
+        } catch (Throwable t) {
+            lote = 0;
+            SlowQueryLog.registrar(System.nanoTime() - inicio, conexionId, sql, copia, -1, filasDelLote, t);
+            throw t;
+        }
+
+        switch (nombre) {
+            case "executeQuery" -> {
+                return FilasLeidas.nueva((ResultSet) resultado, inicio, this, copia, enStreaming);
+            }
+            case "executeUpdate", "executeLargeUpdate" ->
+                terminar(inicio, copia, ((Number) resultado).longValue(), 0);
+            case "executeBatch" -> {
+                lote = 0;
+                long suma = 0;
+                for (int n : (int[]) resultado) {
+                    suma = n >= 0 && suma >= 0 ? suma + n : -1;   // SUCCESS_NO_INFO: no se sabe
+                }
+                terminar(inicio, copia, suma, filasDelLote);
+            }
+            case "executeLargeBatch" -> {
+                lote = 0;
+                long suma = 0;
+                for (long n : (long[]) resultado) {
+                    suma = n >= 0 && suma >= 0 ? suma + n : -1;
+                }
+                terminar(inicio, copia, suma, filasDelLote);
+            }
+            default -> {
+                // execute(): si devolvió un ResultSet no sé cuántas filas se van a leer
+                boolean hayResultSet = Boolean.TRUE.equals(resultado);
+                terminar(inicio, copia, hayResultSet ? -1 : real.getUpdateCount(), 0);
+            }
+        }
+        return resultado;
+    }
+
+    void terminar(long inicio, Object[] copia, long filas, int filasDelLote) {
+        SlowQueryLog.registrar(System.nanoTime() - inicio, conexionId, sql, copia, filas, filasDelLote, null);
+    }
+
+    private void guardarParametro(int indice, Object valor) {
+        if (indice < 1) {
+            return;
+        }
+        if (parametros == null) {
+            parametros = new Object[Math.max(indice, 4)];
+        } else if (indice > parametros.length) {
+            parametros = Arrays.copyOf(parametros, Math.max(indice, parametros.length * 2));
+        }
+        parametros[indice - 1] = valor;
+        cantidadParametros = Math.max(cantidadParametros, indice);
+    }
+
+    private Object invocar(Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(real, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * ResultSet de un executeQuery medido: cuenta las filas y anota la
+     * consulta cuando next() devuelve false o cuando se cierra, lo que pase
+     * primero. En streaming la anoto en el primer next(): lo que tarde
+     * después depende de quien consume las filas, no de la base.
+     */
+    private static final class FilasLeidas implements InvocationHandler {
+
+        private final ResultSet real;
+        private final long inicio;
+        private final SentenciaMedida sentencia;
+        private final Object[] parametros;
+        private final boolean enStreaming;
+
+        private long filas = 0;
+        private boolean terminada = false;
+
+        private FilasLeidas(ResultSet real, long inicio, SentenciaMedida sentencia, Object[] parametros,
+                            boolean enStreaming) {
+            this.real = real;
+            this.inicio = inicio;
+            this.sentencia = sentencia;
+            this.parametros = parametros;
+            this.enStreaming = enStreaming;
+        }
+
+        static ResultSet nueva(ResultSet real, long inicio, SentenciaMedida sentencia, Object[] parametros,
+                               boolean enStreaming) {
+            if (real == null) {
+                return null;
+            }
+            return (ResultSet) Proxy.newProxyInstance(SentenciaMedida.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new FilasLeidas(real, inicio, sentencia, parametros, enStreaming));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next" -> {
+                    boolean hay = (Boolean) invocar(method, args);
+                    if (hay) {
+                        filas++;
+                    }
+                    if (!hay || enStreaming) {
+                        terminar();
+                    }
+                    return hay;
+                }
+                case "close" -> {
+                    terminar();
+                    return invocar(method, args);
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    return invocar(method, args);
+                }
+            }
+        }
+
+        private void terminar() {
+            if (!terminada) {
+                terminada = true;
+                sentencia.terminar(inicio, parametros, enStreaming && filas > 0 ? -1 : filas, 0);
+            }
+        }
+
+        private Object invocar(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(real, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
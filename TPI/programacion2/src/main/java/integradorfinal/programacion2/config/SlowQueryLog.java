@@ -0,0 +1,267 @@
+package integradorfinal.programacion2.config;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log de consultas lentas.
+ *
+ * Las sentencias que entrega el pool (preparadas, llamadas a procedures y
+ * Statement comunes) se envuelven en {@link SentenciaMedida}, que toma el
+ * tiempo de cada execute. Si pasa de db.slowQuery.thresholdMs, se anota una
+ * línea con:
+ * - el tiempo en ms (en las consultas, hasta terminar de leer las filas; en
+ *   las de streaming, hasta la primera);
+ * - la conexión física (#id, el mismo del toString de la conexión del pool);
+ * - el método del DAO que la ejecutó (primer método de la aplicación en la pila);
+ * - las filas leídas o modificadas;
+ * - el SQL y los parámetros. Los textos se muestran solo con su largo (no
+ *   quiero hashes, salts ni emails en un log), salvo con redactStrings=false.
+ *
+ * El que ejecutó la sentencia solo arma el registro y lo deja en una cola
+ * acotada; un hilo aparte lo formatea y lo escribe. Si la cola está llena el
+ * registro se descarta y se cuenta, para que un problema de la base no
+ * termine frenando también por el log.
+ *
+ * Con db.slowQuery.sampleRate menor a 1 solo se envuelve esa proporción de
+ * las sentencias que se preparan; el resto se entrega sin envoltorio y no
+ * paga nada. Así se puede dejar activo en producción con muestreo bajo.
+ */
+public final class SlowQueryLog {
+
+    private static final DateTimeFormatter HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    // Prefijo de las clases de la aplicación (para encontrar el método del DAO en la pila)
+    private static final String APP = "integradorfinal.programacion2.";
+    private static final String PROPIO = APP + "config.";
+
+    private static final StackWalker PILA = StackWalker.getInstance();
+
+    /** Lo que el hilo que ejecutó deja en la cola; se formatea en el hilo del log. */
+    private record Registro(LocalDateTime cuando, long nanos, long conexionId, String origen,
+                            long filas, int lote, String sql, Object[] parametros, Throwable error) {}
+
+    private static final BlockingQueue<Registro> COLA = new ArrayBlockingQueue<>(Config.SLOW_QUERY_QUEUE_SIZE);
+
+    private static final LongAdder MEDIDAS = new LongAdder();
+    private static final LongAdder LENTAS = new LongAdder();
+    private static final LongAdder DESCARTADAS = new LongAdder();
+
+    private static Thread escritor = null;
+
+    private SlowQueryLog() {}
+
+    // ======================================================
+    // API
+    // ======================================================
+
+    /** Indica si el log está activo (db.slowQuery.enabled). */
+    public static boolean isActivo() {
+        return Config.SLOW_QUERY_ENABLED;
+    }
+
+    /** Sentencias medidas (las que entraron en el muestreo). */
+    public static long getMedidas() { return MEDIDAS.sum(); }
+
+    /** Sentencias que pasaron el umbral. */
+    public static long getLentas() { return LENTAS.sum(); }
+
+    /** Consultas lentas que no se escribieron porque la cola estaba llena. */
+    public static long getDescartadas() { return DESCARTADAS.sum(); }
+
+    /** Consultas lentas esperando a escribirse. */
+    public static int getEnCola() { return COLA.size(); }
+
+    // ======================================================
+    // USO INTERNO (PooledConnection / SentenciaMedida)
+    // ======================================================
+
+    /**
+     * Si el log está activo y la sentencia entra en el muestreo, la devuelvo
+     * envuelta para medirla; si no, la devuelvo tal cual.
+     *
+     * @param sentencia  lo que devolvió prepareStatement / prepareCall / createStatement
+     * @param sql        SQL de la sentencia (null en un Statement común, se toma del execute)
+     * @param conexionId id de la conexión física
+     */
+    static Object envolver(Object sentencia, String sql, long conexionId) {
+        if (!Config.SLOW_QUERY_ENABLED || !(sentencia instanceof Statement s) || !muestrear()) {
+            return sentencia;
+        }
+        Class<?> interfaz = s instanceof CallableStatement ? CallableStatement.class
+                : s instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        return SentenciaMedida.nueva(interfaz, s, sql, conexionId);
+    }
+
+    /**
+     * Anoto una ejecución medida. Si no pasó el umbral solo se cuenta; si
+     * pasó, busco el método del DAO (tiene que ser en el hilo que ejecutó) y
+     * dejo el registro en la cola.
+     *
+     * @param parametros copia de los parámetros (puede ser null)
+     * @param filas      filas leídas o modificadas (-1 si no se sabe)
+     * @param lote       cantidad de filas del batch (0 si no fue un batch)
+     */
+    static void registrar(long nanos, long conexionId, String sql, Object[] parametros,
+                          long filas, int lote, Throwable error) {
+        MEDIDAS.increment();
+        if (TimeUnit.NANOSECONDS.toMillis(nanos) < Config.SLOW_QUERY_THRESHOLD_MS) {
+            return;
+        }
+        LENTAS.increment();
+        Registro r = new Registro(LocalDateTime.now(), nanos, conexionId, origen(), filas, lote, sql,
+                parametros, error);
+        if (!COLA.offer(r)) {
+            DESCARTADAS.increment();
+            return;
+        }
+        iniciarEscritor();
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private static boolean muestrear() {
+        double tasa = Config.SLOW_QUERY_SAMPLE_RATE;
+        return tasa >= 1.0 || (tasa > 0.0 && ThreadLocalRandom.current().nextDouble() < tasa);
+    }
+
+    /**
+     * Primer método de la aplicación fuera de config en la pila (el DAO que
+     * ejecutó la sentencia), como "UsuarioDaoImpl.findByUsername:172".
+     */
+    private static String origen() {
+        Optional<StackWalker.StackFrame> frame = PILA.walk(s -> s
+                .filter(f -> f.getClassName().startsWith(APP) && !f.getClassName().startsWith(PROPIO))
+                .findFirst());
+        return frame.map(f -> {
+            String clase = f.getClassName();
+            return clase.substring(clase.lastIndexOf('.') + 1) + "." + f.getMethodName() + ":" + f.getLineNumber();
+        }).orElse("?");
+    }
+
+    /** Arranco el hilo que escribe, la primera vez que hace falta. */
+    private static synchronized void iniciarEscritor() {
+        if (escritor != null) {
+            return;
+        }
+        escritor = new Thread(SlowQueryLog::escribir, "slow-query-log");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /** Bucle del hilo del log: saco registros de la cola y los escribo. */
+    private static void escribir() {
+        BufferedWriter archivo = abrirArchivo();
+        PrintStream salida = System.err;
+        while (true) {
+            Registro r;
+            try {
+                r = COLA.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            String linea = formatear(r);
+            if (archivo == null) {
+                salida.println(linea);
+                continue;
+            }
+            try {
+                archivo.write(linea);
+                archivo.newLine();
+                if (COLA.isEmpty()) {
+                    archivo.flush();
+                }
+            } catch (IOException e) {
+                System.err.println("No se pudo escribir el log de consultas lentas: " + e.getMessage());
+                archivo = null;
+                salida.println(linea);
+            }
+        }
+    }
+
+    private static BufferedWriter abrirArchivo() {
+        if (Config.SLOW_QUERY_FILE.isEmpty()) {
+            return null;
+        }
+        try {
+            return Files.newBufferedWriter(Path.of(Config.SLOW_QUERY_FILE), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("No se pudo abrir " + Config.SLOW_QUERY_FILE
+                    + " para el log de consultas lentas, uso la salida de error: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static String formatear(Registro r) {
+        StringBuilder sb = new StringBuilder(160);
+        sb.append(HORA.format(r.cuando()))
+          .append(" [LENTA ").append(String.format("%.1f", r.nanos() / 1_000_000.0)).append(" ms]")
+          .append(" conexion=#").append(r.conexionId())
+          .append(" origen=").append(r.origen())
+          .append(" filas=").append(r.filas() >= 0 ? String.valueOf(r.filas()) : "?");
+        if (r.lote() > 0) {
+            sb.append(" lote=").append(r.lote());
+        }
+        if (r.error() != null) {
+            sb.append(" error=\"").append(enUnaLinea(String.valueOf(r.error().getMessage()))).append('"');
+        }
+        sb.append(" sql=\"").append(r.sql() == null ? "?" : enUnaLinea(r.sql())).append('"');
+        Object[] p = r.parametros();
+        if (p != null && p.length > 0) {
+            sb.append(" parametros=[");
+            for (int i = 0; i < p.length; i++) {
+                if (i > 0) {
+                    sb.append(", ");
+                }
+                sb.append(valor(p[i]));
+            }
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    private static String enUnaLinea(String texto) {
+        return texto.replaceAll("\\s+", " ").trim();
+    }
+
+    /** Muestro un parámetro, ocultando textos y binarios. */
+    private static String valor(Object v) {
+        if (v == null) {
+            return "NULL";
+        }
+        if (v instanceof Number || v instanceof Boolean || v instanceof BigDecimal
+                || v instanceof Date || v instanceof TemporalAccessor) {
+            return v.toString();
+        }
+        if (v instanceof byte[] b) {
+            return "<" + b.length + " bytes>";
+        }
+        if (v instanceof CharSequence cs) {
+            return Config.SLOW_QUERY_REDACT_STRINGS ? "<texto " + cs.length() + ">" : "'" + cs + "'";
+        }
+        return "<" + v.getClass().getSimpleName() + ">";
+    }
+}
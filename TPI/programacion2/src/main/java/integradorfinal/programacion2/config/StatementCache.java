@@ -0,0 +1,264 @@
+package integradorfinal.programacion2.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU de sentencias preparadas, ligado a una conexión física del pool.
+ *
+ * Los DAO preparan siempre el mismo SQL constante (findByUsername,
+ * findByUsuarioId, los INSERT, el CALL al stored procedure...). En lugar de
+ * volver a preparar (y que MySQL vuelva a parsear) en cada llamada, guardo la
+ * sentencia ya preparada usando el texto SQL como clave. El close() que hace el
+ * DAO con try-with-resources no la cierra: limpia los parámetros y la deja
+ * disponible para la próxima vez.
+ *
+ * Solo cacheo prepareStatement(sql), prepareStatement(sql, autoGeneratedKeys) y
+ * prepareCall(sql). Las variantes con tipo de ResultSet, fetch size, etc. se
+ * preparan normalmente.
+ *
+ * Cada conexión se usa desde un solo hilo a la vez (la tiene prestada), por eso
+ * el mapa no necesita sincronización. Los contadores sí son globales.
+ */
+public final class StatementCache {
+
+    // Contadores globales (de todas las conexiones) para ver si el caché sirve
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder EVICTIONS = new LongAdder();
+
+    private final Connection fisica;
+    private final int maxSize;
+    private final LinkedHashMap<Clave, Entrada> sentencias;
+
+    StatementCache(Connection fisica, int maxSize) {
+        this.fisica = fisica;
+        this.maxSize = maxSize;
+        // accessOrder = true → el orden de iteración es de menos a más recientemente usado (LRU)
+        this.sentencias = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    EVICTIONS.increment();
+                    eldest.getValue().descartar();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ======================================================
+    // API usada por PooledConnection
+    // ======================================================
+
+    /**
+     * Devuelvo una PreparedStatement para el SQL indicado, reutilizando la
+     * cacheada si existe y no está en uso.
+     *
+     * @param sql               texto SQL (es la clave del caché)
+     * @param autoGeneratedKeys Statement.RETURN_GENERATED_KEYS / NO_GENERATED_KEYS, o null si no se indicó
+     * @param owner             la conexión del pool que ve el usuario (para getConnection())
+     */
+    PreparedStatement prepare(String sql, Integer autoGeneratedKeys, Connection owner) throws SQLException {
+        Clave clave = new Clave(sql, false, autoGeneratedKeys == null ? -1 : autoGeneratedKeys);
+        return (PreparedStatement) obtener(clave, owner);
+    }
+
+    /**
+     * Igual que {@link #prepare}, pero para llamadas a stored procedures.
+     */
+    CallableStatement prepareCall(String sql, Connection owner) throws SQLException {
+        return (CallableStatement) obtener(new Clave(sql, true, -1), owner);
+    }
+
+    /** Cierro todas las sentencias cacheadas (la conexión física se va a cerrar). */
+    void cerrarTodo() {
+        Iterator<Entrada> it = sentencias.values().iterator();
+        while (it.hasNext()) {
+            it.next().descartar();
+            it.remove();
+        }
+    }
+
+    // ======================================================
+    // ESTADÍSTICAS
+    // ======================================================
+
+    /** Cantidad de veces que se reutilizó una sentencia ya preparada. */
+    public static long getHits() { return HITS.sum(); }
+
+    /** Cantidad de veces que hubo que preparar una sentencia nueva. */
+    public static long getMisses() { return MISSES.sum(); }
+
+    /** Sentencias descartadas por falta de lugar en el caché. */
+    public static long getEvictions() { return EVICTIONS.sum(); }
+
+    /** Proporción de aciertos (0..1). */
+    public static double getHitRatio() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private Object obtener(Clave clave, Connection owner) throws SQLException {
+        if (maxSize <= 0) {
+            MISSES.increment();
+            return preparar(clave);
+        }
+
+        Entrada e = sentencias.get(clave);
+        if (e != null && !e.enUso) {
+            HITS.increment();
+            e.enUso = true;
+            return e.nuevoProxy(owner);
+        }
+
+        MISSES.increment();
+        PreparedStatement ps = preparar(clave);
+        if (e != null) {
+            // La misma sentencia ya está abierta (uso anidado): esta no se cachea.
+            return ps;
+        }
+        Entrada nueva = new Entrada(clave, ps);
+        nueva.enUso = true;
+        sentencias.put(clave, nueva);
+        return nueva.nuevoProxy(owner);
+    }
+
+    private PreparedStatement preparar(Clave clave) throws SQLException {
+        if (clave.callable) {
+            return fisica.prepareCall(clave.sql);
+        }
+        if (clave.autoGeneratedKeys >= 0) {
+            return fisica.prepareStatement(clave.sql, clave.autoGeneratedKeys);
+        }
+        return fisica.prepareStatement(clave.sql);
+    }
+
+    /** Clave del caché: el SQL más la forma en que se preparó. */
+    private record Clave(String sql, boolean callable, int autoGeneratedKeys) {}
+
+    /**
+     * Una sentencia física cacheada. Cada vez que se entrega, se entrega un
+     * proxy nuevo cuyo close() la devuelve al caché.
+     */
+    private final class Entrada {
+
+        private final Clave clave;
+        private final PreparedStatement ps;
+        private boolean enUso = false;
+        private boolean descartada = false;
+
+        Entrada(Clave clave, PreparedStatement ps) {
+            this.clave = clave;
+            this.ps = ps;
+        }
+
+        Object nuevoProxy(Connection owner) {
+            Class<?> tipo = clave.callable ? CallableStatement.class : PreparedStatement.class;
+            return Proxy.newProxyInstance(StatementCache.class.getClassLoader(),
+                    new Class<?>[]{tipo}, new Prestamo(this, owner));
+        }
+
+        /** El DAO terminó de usar la sentencia: la dejo limpia para reutilizarla. */
+        void devolver() {
+            enUso = false;
+            if (descartada) {
+                cerrarFisica();
+                return;
+            }
+            try {
+                ps.clearParameters();
+                ps.clearBatch();
+                ps.clearWarnings();
+            } catch (SQLException e) {
+                // Si no se puede limpiar, la saco del caché.
+                descartada = true;
+                sentencias.remove(clave, this);
+                cerrarFisica();
+            }
+        }
+
+        /** Sale del caché. Si alguien la está usando se cierra cuando la devuelva. */
+        void descartar() {
+            descartada = true;
+            if (!enUso) cerrarFisica();
+        }
+
+        private void cerrarFisica() {
+            try {
+                ps.close();
+            } catch (SQLException ignore) {
+            }
+        }
+    }
+
+    /**
+     * Handler del proxy entregado al DAO: delega todo en la sentencia física,
+     * salvo close()/isClosed() y getConnection().
+     */
+    private static final class Prestamo implements InvocationHandler {
+
+        private final Entrada entrada;
+        private final Connection owner;
+        private boolean cerrado = false;
+
+        Prestamo(Entrada entrada, Connection owner) {
+            this.entrada = entrada;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!cerrado) {
+                        cerrado = true;
+                        entrada.devolver();
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return cerrado || entrada.ps.isClosed();
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return p == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(p);
+                }
+                case "toString" -> {
+                    return "CachedStatement[" + entrada.clave.sql.strip() + "]";
+                }
+                default -> {
+                    if (cerrado) {
+                        throw new SQLException("La sentencia ya fue cerrada");
+                    }
+                    try {
+                        return method.invoke(entrada.ps, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+        }
+    }
+}
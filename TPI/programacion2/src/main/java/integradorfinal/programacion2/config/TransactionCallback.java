@@ -0,0 +1,19 @@
+package integradorfinal.programacion2.config;
+
+import java.sql.SQLException;
+
+/**
+ * Código que se ejecuta dentro de una unidad de trabajo de {@link TransactionTemplate}.
+ *
+ * @param <T> tipo del resultado (Void / null si no devuelve nada)
+ */
+@FunctionalInterface
+public interface TransactionCallback<T> {
+
+    /**
+     * @param status estado de la transacción actual (conexión, savepoints, rollback-only)
+     * @return el resultado de la operación
+     * @throws SQLException si falla el acceso a datos; provoca el rollback
+     */
+    T doInTransaction(TransactionStatus status) throws SQLException;
+}
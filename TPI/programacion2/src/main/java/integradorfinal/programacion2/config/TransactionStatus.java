@@ -0,0 +1,187 @@
+package integradorfinal.programacion2.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Estado de una unidad de trabajo abierta por {@link TransactionTemplate}.
+ *
+ * Le da al código de la transacción acceso a la conexión ligada al hilo,
+ * a los savepoints y a la marca de "solo rollback". También guarda las
+ * acciones que hay que correr cuando la transacción termina (ver
+ * {@link #alConfirmar(Runnable)} y {@link #alRevertir(Runnable)}).
+ */
+public final class TransactionStatus {
+
+    private final Connection conn;
+    private final boolean readOnly;
+    private final boolean nuevaTransaccion;
+    private final TransactionStatus raiz;
+
+    // Vista de la conexión cuyo close() no hace nada (la usan los DAO vía DatabaseConnection)
+    private final Connection compartida;
+
+    private boolean rollbackOnly = false;
+    private boolean fallaParticipante = false;
+
+    // Acciones para después del commit / del rollback (solo en la raíz; null hasta que se usan)
+    private List<Runnable> despuesDelCommit = null;
+    private List<Runnable> despuesDelRollback = null;
+
+    /** Transacción nueva: dueña de la conexión. */
+    TransactionStatus(Connection conn, boolean readOnly) {
+        this.conn = conn;
+        this.readOnly = readOnly;
+        this.nuevaTransaccion = true;
+        this.raiz = this;
+        this.compartida = crearVistaCompartida(conn);
+    }
+
+    /** Participante: se suma a la transacción de otro. */
+    private TransactionStatus(TransactionStatus raiz) {
+        this.conn = raiz.conn;
+        this.readOnly = raiz.readOnly;
+        this.nuevaTransaccion = false;
+        this.raiz = raiz;
+        this.compartida = raiz.compartida;
+    }
+
+    // ======================================================
+    // API pública
+    // ======================================================
+
+    /**
+     * Conexión de la transacción. Se puede cerrar sin problema (por ejemplo con
+     * try-with-resources): la conexión real la libera el TransactionTemplate.
+     */
+    public Connection getConnection() {
+        return compartida;
+    }
+
+    /** true si esta llamada abrió la transacción; false si se sumó a una existente. */
+    public boolean isNewTransaction() {
+        return nuevaTransaccion;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /** Marco la transacción (completa) para que termine en rollback en lugar de commit. */
+    public void setRollbackOnly() {
+        raiz.rollbackOnly = true;
+    }
+
+    public boolean isRollbackOnly() {
+        return raiz.rollbackOnly;
+    }
+
+    /**
+     * Agrego una acción para correr cuando la transacción (completa) haga
+     * commit, por ejemplo invalidar un caché: si se hace antes, otro hilo
+     * puede volver a leer la fila vieja mientras la transacción sigue abierta.
+     * Si la transacción termina en rollback, la acción se descarta.
+     */
+    public void alConfirmar(Runnable accion) {
+        if (raiz.despuesDelCommit == null) raiz.despuesDelCommit = new ArrayList<>();
+        raiz.despuesDelCommit.add(accion);
+    }
+
+    /**
+     * Agrego una acción para correr si la transacción (completa) termina en
+     * rollback, por ejemplo devolverle a una entidad lo que se había dado por
+     * grabado. Si la transacción hace commit, la acción se descarta.
+     */
+    public void alRevertir(Runnable accion) {
+        if (raiz.despuesDelRollback == null) raiz.despuesDelRollback = new ArrayList<>();
+        raiz.despuesDelRollback.add(accion);
+    }
+
+    /**
+     * Creo un savepoint dentro de la transacción actual.
+     *
+     * @param nombre nombre del savepoint (puede ser null)
+     * @return el savepoint creado
+     * @throws SQLException si el driver no soporta savepoints o falla la base
+     */
+    public Savepoint createSavepoint(String nombre) throws SQLException {
+        return nombre == null ? conn.setSavepoint() : conn.setSavepoint(nombre);
+    }
+
+    /** Deshago todo lo hecho después del savepoint, sin terminar la transacción. */
+    public void rollbackToSavepoint(Savepoint savepoint) throws SQLException {
+        conn.rollback(savepoint);
+    }
+
+    /** Libero el savepoint cuando ya no lo necesito. */
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        conn.releaseSavepoint(savepoint);
+    }
+
+    // ======================================================
+    // Uso interno de TransactionTemplate
+    // ======================================================
+
+    TransactionStatus participante() {
+        return new TransactionStatus(raiz);
+    }
+
+    /** Un participante falló: la transacción ya no puede confirmarse. */
+    void marcarFallaParticipante() {
+        raiz.rollbackOnly = true;
+        raiz.fallaParticipante = true;
+    }
+
+    boolean isFallaParticipante() {
+        return fallaParticipante;
+    }
+
+    /** Corro las acciones de commit (o las de rollback) y descarto las otras. */
+    void terminar(boolean confirmada) {
+        List<Runnable> acciones = confirmada ? despuesDelCommit : despuesDelRollback;
+        despuesDelCommit = null;
+        despuesDelRollback = null;
+        if (acciones == null) return;
+        for (Runnable accion : acciones) {
+            try {
+                accion.run();
+            } catch (RuntimeException e) {
+                // La transacción ya terminó: una acción que falla no cambia el resultado
+                System.err.println("Falló una acción al terminar la transacción: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Armo un proxy de la conexión que ignora close(), para que los DAO que usan
+     * try-with-resources no devuelvan al pool la conexión de la transacción.
+     */
+    private static Connection crearVistaCompartida(Connection conn) {
+        return (Connection) Proxy.newProxyInstance(TransactionStatus.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (p, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            return null;
+                        }
+                        case "equals" -> {
+                            return p == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(p);
+                        }
+                        default -> {
+                            try {
+                                return method.invoke(conn, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,172 @@
+package integradorfinal.programacion2.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Plantilla de unidad de trabajo: liga una única conexión del pool al hilo
+ * actual durante toda la operación y se encarga del commit / rollback.
+ *
+ * Mientras la transacción está abierta, {@link DatabaseConnection#getConnection()}
+ * y {@link DatabaseConnection#getReadConnection()} devuelven esa misma conexión
+ * (siempre del primario, aunque haya réplicas), así que los métodos de los DAO que piden su propia
+ * Connection (findByUsername, findByUsuarioId, update...) quedan todos dentro de
+ * la misma transacción sin tener que pasar la conexión a mano.
+ *
+ * Ejemplo:
+ * <pre>
+ * Long id = new TransactionTemplate().execute(status -&gt; {
+ *     Long userId = usuarioDao.create(usuario, status.getConnection());
+ *     ...
+ *     return userId;
+ * });
+ * </pre>
+ */
+public final class TransactionTemplate {
+
+    // Transacción abierta en cada hilo (null si no hay ninguna)
+    private static final ThreadLocal<TransactionStatus> ACTUAL = new ThreadLocal<>();
+
+    private final Propagation propagation;
+
+    /** Plantilla con propagación {@link Propagation#REQUIRED}. */
+    public TransactionTemplate() {
+        this(Propagation.REQUIRED);
+    }
+
+    public TransactionTemplate(Propagation propagation) {
+        this.propagation = propagation;
+    }
+
+    /**
+     * Ejecuto el callback dentro de una transacción según la propagación.
+     *
+     * Si el callback termina bien se hace commit (salvo que se haya marcado
+     * rollback-only); si lanza cualquier excepción se hace rollback y la
+     * excepción se propaga tal cual.
+     *
+     * @param callback código a ejecutar
+     * @return lo que devuelva el callback
+     * @throws SQLException si falla el callback, el commit o no se puede obtener conexión
+     */
+    public <T> T execute(TransactionCallback<T> callback) throws SQLException {
+        TransactionStatus actual = ACTUAL.get();
+
+        if (actual != null && propagation != Propagation.REQUIRES_NEW) {
+            return participar(actual, callback);
+        }
+
+        // Transacción nueva (si había una, queda suspendida hasta que termine esta)
+        boolean readOnly = propagation == Propagation.READ_ONLY;
+        // Una transacción de solo lectura no abre la ventana de read-your-writes
+        Connection conn = readOnly ? DatabaseConnection.getPool().borrow() : DatabaseConnection.borrowEscritura();
+        TransactionStatus status;
+        try {
+            conn.setAutoCommit(false);
+            if (readOnly) conn.setReadOnly(true);
+            status = new TransactionStatus(conn, readOnly);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+
+        ACTUAL.set(status);
+        try {
+            T resultado = callback.doInTransaction(status);
+            if (status.isRollbackOnly()) {
+                conn.rollback();
+                status.terminar(false);
+                if (status.isFallaParticipante()) {
+                    throw new SQLException("La transacción se revirtió porque falló una operación interna");
+                }
+            } else {
+                conn.commit();
+                if (!readOnly) {
+                    // Antes de las acciones de commit (por ejemplo invalidar un caché):
+                    // así nadie guarda una lectura de réplica que todavía no tiene esto
+                    ReplicaRouter.registrarEscritura();
+                }
+                status.terminar(true);
+            }
+            return resultado;
+        } catch (SQLException | RuntimeException | Error e) {
+            rollbackSilencioso(conn, e);
+            status.terminar(false);
+            throw e;
+        } finally {
+            if (actual != null) {
+                ACTUAL.set(actual);
+            } else {
+                ACTUAL.remove();
+            }
+            // El pool restaura autocommit / readOnly al recibir la conexión.
+            conn.close();
+        }
+    }
+
+    /**
+     * @return true si el hilo actual está dentro de una transacción del template
+     */
+    public static boolean isTransactionActive() {
+        return ACTUAL.get() != null;
+    }
+
+    /**
+     * Corro la acción cuando confirme la transacción del hilo actual, o ahora
+     * mismo si no hay ninguna (con autocommit lo escrito ya quedó grabado).
+     * Lo usan los DAO, que reciben la Connection pero no el TransactionStatus.
+     */
+    public static void despuesDelCommit(Runnable accion) {
+        TransactionStatus status = ACTUAL.get();
+        if (status == null) {
+            accion.run();
+        } else {
+            status.alConfirmar(accion);
+        }
+    }
+
+    /**
+     * Corro la acción si la transacción del hilo actual termina en rollback.
+     * Sin transacción no hace nada: con autocommit lo escrito ya quedó grabado.
+     */
+    public static void siSeRevierte(Runnable accion) {
+        TransactionStatus status = ACTUAL.get();
+        if (status != null) {
+            status.alRevertir(accion);
+        }
+    }
+
+    /**
+     * Conexión ligada al hilo actual (con close() inofensivo), o null si no hay transacción.
+     * La usa DatabaseConnection para que los DAO se sumen solos.
+     */
+    static Connection currentConnection() {
+        TransactionStatus status = ACTUAL.get();
+        return status == null ? null : status.getConnection();
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private <T> T participar(TransactionStatus actual, TransactionCallback<T> callback) throws SQLException {
+        if (propagation == Propagation.REQUIRED && actual.isReadOnly()) {
+            throw new IllegalStateException("No se puede escribir dentro de una transacción de solo lectura");
+        }
+        try {
+            return callback.doInTransaction(actual.participante());
+        } catch (SQLException | RuntimeException | Error e) {
+            // La transacción de afuera ya no puede confirmarse.
+            actual.marcarFallaParticipante();
+            throw e;
+        }
+    }
+
+    private static void rollbackSilencioso(Connection conn, Throwable causa) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            causa.addSuppressed(e);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package integradorfinal.programacion2.dao;
 
 import integradorfinal.programacion2.entities.CredencialAcceso;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -19,6 +23,20 @@ public interface CredencialAccesoDao extends GenericDao<CredencialAcceso, Long>
      */
     Optional<CredencialAcceso> findByUsuarioId(Long usuarioId) throws SQLException;
 
+    /**
+     * Busca las credenciales de varios usuarios con pocas consultas (WHERE
+     * usuario_id IN (...) en tramos de db.inList.maxSize IDs).
+     *
+     * @param usuarioIds IDs de los usuarios (los repetidos cuentan una vez; no puede haber null)
+     * @return usuario_id → credencial, en el orden de {@code usuarioIds}; los
+     * usuarios sin credencial activa no aparecen
+     * @throws SQLException si ocurre un error SQL
+     */
+    Map<Long, CredencialAcceso> findByUsuarioIds(Collection<Long> usuarioIds) throws SQLException;
+
+    /** Versión transaccional de {@link #findByUsuarioIds(Collection)}. */
+    Map<Long, CredencialAcceso> findByUsuarioIds(Collection<Long> usuarioIds, Connection conn) throws SQLException;
+
     /**
      * Actualiza de forma segura la contraseña y el salt del usuario.
      * Puede implementarse llamando al procedimiento almacenado
@@ -30,4 +48,36 @@ public interface CredencialAccesoDao extends GenericDao<CredencialAcceso, Long>
      * @throws SQLException si ocurre un error SQL
      */
     void updatePasswordSeguro(Long usuarioId, String nuevoHash, String nuevoSalt) throws SQLException;
+
+    /**
+     * Igual que {@link #updatePasswordSeguro(Long, String, String)}, usando
+     * una Connection externa.
+     */
+    void updatePasswordSeguro(Long usuarioId, String nuevoHash, String nuevoSalt, Connection conn) throws SQLException;
+
+    /**
+     * Registra la fecha/hora de la última sesión del usuario, actualizando
+     * solo esa columna (sin reescribir el resto de la credencial).
+     *
+     * @param usuarioId ID del usuario
+     * @param cuando    fecha y hora de la sesión
+     * @return true si se actualizó una credencial activa
+     * @throws SQLException si ocurre un error SQL
+     */
+    boolean updateUltimaSesion(Long usuarioId, LocalDateTime cuando) throws SQLException;
+
+    /** Versión transaccional de {@link #updateUltimaSesion(Long, LocalDateTime)}. */
+    boolean updateUltimaSesion(Long usuarioId, LocalDateTime cuando, Connection conn) throws SQLException;
+
+    /**
+     * Registra la última sesión de varios usuarios a la vez, con un único
+     * UPDATE ... SET ultima_sesion = CASE usuario_id ... por cada tramo de
+     * Config.BATCH_SIZE usuarios.
+     *
+     * @param porUsuario usuario_id → fecha/hora de su última sesión
+     * @param conn       conexión a usar (puede estar en una transacción)
+     * @return cantidad de credenciales actualizadas
+     * @throws SQLException si ocurre un error SQL
+     */
+    int updateUltimaSesionAll(Map<Long, LocalDateTime> porUsuario, Connection conn) throws SQLException;
 }
@@ -0,0 +1,18 @@
+package integradorfinal.programacion2.dao;
+
+/**
+ * Si un username y un email se pueden usar para un usuario nuevo.
+ *
+ * Ojo: los índices únicos de la tabla usuario incluyen a los eliminados
+ * lógicamente, así que un username de un usuario dado de baja sigue tomado.
+ *
+ * @param usernameLibre true si ningún usuario (ni eliminado) tiene ese username
+ * @param emailLibre    true si ningún usuario (ni eliminado) tiene ese email
+ */
+public record Disponibilidad(boolean usernameLibre, boolean emailLibre) {
+
+    /** True si se pueden usar los dos. */
+    public boolean isDisponible() {
+        return usernameLibre && emailLibre;
+    }
+}
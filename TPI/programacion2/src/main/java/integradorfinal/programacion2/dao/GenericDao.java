@@ -2,8 +2,10 @@ package integradorfinal.programacion2.dao;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * DAO genérico con operaciones CRUD y soporte opcional para transacciones
@@ -21,6 +23,46 @@ public interface GenericDao<T, ID> {
 
     List<T> findAll() throws SQLException;
 
+    /**
+     * Paginación por clave (keyset): devuelve hasta {@code limit} entidades no
+     * eliminadas cuyo ID es mayor que {@code afterId}, ordenadas por ID.
+     * Para la primera página se pasa null; para la siguiente, el ID de la
+     * última entidad recibida. Una página con menos de {@code limit}
+     * elementos indica que no hay más.
+     *
+     * @param afterId último ID de la página anterior (null = desde el principio)
+     * @param limit   cantidad máxima de filas (se acota a Config.PAGE_MAX_SIZE)
+     */
+    List<T> findPage(ID afterId, int limit) throws SQLException;
+
+    /**
+     * Igual que {@link #findPage(Object, int)}, pero trayendo solo las columnas
+     * de la proyección indicada.
+     */
+    List<T> findPage(ID afterId, int limit, Projection projection) throws SQLException;
+
+    /**
+     * Recorre todas las entidades no eliminadas, ordenadas por ID, sin
+     * cargarlas todas en memoria: las filas se leen con un cursor del servidor
+     * y se mapean a medida que el consumidor las pide.
+     *
+     * El Stream mantiene tomada una conexión hasta que se cierra, por eso hay
+     * que usarlo siempre con try-with-resources:
+     * <pre>
+     * try (Stream&lt;Usuario&gt; usuarios = usuarioDao.streamAll()) {
+     *     usuarios.forEach(...);
+     * }
+     * </pre>
+     * Los errores de lectura durante el recorrido llegan como DataAccessException.
+     */
+    Stream<T> streamAll() throws SQLException;
+
+    /**
+     * Igual que {@link #streamAll()}, pero trayendo solo las columnas de la
+     * proyección indicada.
+     */
+    Stream<T> streamAll(Projection projection) throws SQLException;
+
     void update(T entity) throws SQLException;
 
     /**
@@ -34,6 +76,27 @@ public interface GenericDao<T, ID> {
     void deleteById(ID id) throws SQLException;
 
 
+    // --------- Operaciones por lote (JDBC batch) ---------
+    /**
+     * Inserta todas las entidades usando addBatch/executeBatch en tramos de
+     * tamaño configurable, dentro de una única transacción. Las claves
+     * generadas se asignan a cada entidad, en el mismo orden de la lista.
+     *
+     * @return los IDs generados, en el orden de la lista
+     */
+    List<ID> createAll(List<T> entities) throws SQLException;
+
+    /**
+     * Actualiza todas las entidades por lotes, dentro de una única transacción.
+     */
+    void updateAll(List<T> entities) throws SQLException;
+
+    /**
+     * Baja lógica de todos los IDs por lotes, dentro de una única transacción.
+     */
+    void softDeleteAllById(Collection<ID> ids) throws SQLException;
+
+
     // --------- Versión transaccional (misma Connection) ---------
     ID create(T entity, Connection conn) throws SQLException;
 
@@ -41,9 +104,19 @@ public interface GenericDao<T, ID> {
 
     List<T> findAll(Connection conn) throws SQLException;
 
+    List<T> findPage(ID afterId, int limit, Connection conn) throws SQLException;
+
+    List<T> findPage(ID afterId, int limit, Projection projection, Connection conn) throws SQLException;
+
     void update(T entity, Connection conn) throws SQLException;
 
     void softDeleteById(ID id, Connection conn) throws SQLException;
 
     void deleteById(ID id, Connection conn) throws SQLException;
+
+    List<ID> createAll(List<T> entities, Connection conn) throws SQLException;
+
+    void updateAll(List<T> entities, Connection conn) throws SQLException;
+
+    void softDeleteAllById(Collection<ID> ids, Connection conn) throws SQLException;
 }
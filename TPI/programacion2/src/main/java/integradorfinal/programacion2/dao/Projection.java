@@ -0,0 +1,22 @@
+package integradorfinal.programacion2.dao;
+
+/**
+ * Qué columnas trae una consulta de lectura.
+ *
+ * Las entidades que se arman con una proyección reducida quedan con el resto
+ * de los campos en null / valores por defecto, así que solo sirven para
+ * mostrar: no hay que pasarlas a update().
+ */
+public enum Projection {
+
+    /** Todas las columnas de la tabla: la entidad queda completa. */
+    FULL,
+
+    /**
+     * Solo lo necesario para un listado.
+     * - Usuario: id_usuario, username, estado.
+     * - CredencialAcceso: id_credencial, usuario_id, estado, ultima_sesion,
+     *   requiere_reset (nunca hash_password ni salt).
+     */
+    SUMMARY
+}
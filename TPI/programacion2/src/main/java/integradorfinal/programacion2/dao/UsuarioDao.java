@@ -1,7 +1,10 @@
 package integradorfinal.programacion2.dao;
 
 import integradorfinal.programacion2.entities.Usuario;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -27,4 +30,73 @@ public interface UsuarioDao extends GenericDao<Usuario, Long> {
      * @throws SQLException si ocurre un error SQL
      */
     Optional<Usuario> findByEmail(String email) throws SQLException;
+
+    /**
+     * Indica si algún usuario (también los eliminados lógicamente, porque el
+     * índice único los incluye) tiene ese username. Se responde solo con el
+     * índice uq_usuario_username, sin leer la fila.
+     *
+     * @param username nombre de usuario
+     * @return true si el username ya está tomado
+     * @throws SQLException si ocurre un error SQL
+     */
+    boolean existsByUsername(String username) throws SQLException;
+
+    /** Versión transaccional de {@link #existsByUsername(String)}. */
+    boolean existsByUsername(String username, Connection conn) throws SQLException;
+
+    /**
+     * Igual que {@link #existsByUsername(String)} pero por email (índice
+     * uq_usuario_email).
+     *
+     * @param email correo electrónico
+     * @return true si el email ya está tomado
+     * @throws SQLException si ocurre un error SQL
+     */
+    boolean existsByEmail(String email) throws SQLException;
+
+    /** Versión transaccional de {@link #existsByEmail(String)}. */
+    boolean existsByEmail(String email, Connection conn) throws SQLException;
+
+    /**
+     * Verifica username y email en una sola consulta (dos EXISTS sobre los
+     * índices únicos).
+     *
+     * @param username nombre de usuario
+     * @param email    correo electrónico
+     * @return cuál de los dos está libre
+     * @throws SQLException si ocurre un error SQL
+     */
+    Disponibilidad checkAvailability(String username, String email) throws SQLException;
+
+    /** Versión transaccional de {@link #checkAvailability(String, String)}. */
+    Disponibilidad checkAvailability(String username, String email, Connection conn) throws SQLException;
+
+    /**
+     * Busca varios usuarios por ID con pocas consultas (WHERE id_usuario IN
+     * (...) en tramos de db.inList.maxSize IDs), en lugar de una por ID.
+     *
+     * @param ids IDs buscados (los repetidos cuentan una vez; no puede haber null)
+     * @return ID → usuario, en el orden de {@code ids}; los que no existen o
+     * están eliminados no aparecen
+     * @throws SQLException si ocurre un error SQL
+     */
+    Map<Long, Usuario> findByIds(Collection<Long> ids) throws SQLException;
+
+    /** Versión transaccional de {@link #findByIds(Collection)}. */
+    Map<Long, Usuario> findByIds(Collection<Long> ids, Connection conn) throws SQLException;
+
+    /**
+     * Busca un usuario por username junto con su credencial, en una sola
+     * consulta (JOIN por usuario_id). Pensado para el login.
+     *
+     * @param username nombre de usuario
+     * @return Optional con el usuario si existe; su credencial queda en
+     * {@link Usuario#getCredencial()} (null si no tiene una activa)
+     * @throws SQLException si ocurre un error SQL
+     */
+    Optional<Usuario> findByUsernameWithCredencial(String username) throws SQLException;
+
+    /** Versión transaccional de {@link #findByUsernameWithCredencial(String)}. */
+    Optional<Usuario> findByUsernameWithCredencial(String username, Connection conn) throws SQLException;
 }
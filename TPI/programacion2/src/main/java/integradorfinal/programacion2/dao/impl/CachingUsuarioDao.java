@@ -0,0 +1,551 @@
+package integradorfinal.programacion2.dao.impl;
+
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.config.ReplicaRouter;
+import integradorfinal.programacion2.config.TransactionTemplate;
+import integradorfinal.programacion2.dao.Disponibilidad;
+import integradorfinal.programacion2.dao.Projection;
+import integradorfinal.programacion2.dao.UsuarioDao;
+import integradorfinal.programacion2.entities.Usuario;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Decorador de {@link UsuarioDao} con caché de lectura (read-through).
+ *
+ * findById, findByUsername y findByEmail primero miran el caché y solo van a
+ * la base si no encuentran el usuario o si la entrada venció. findByIds hace
+ * lo mismo por cada ID y busca los que faltan en una sola llamada al DAO
+ * real. Todo lo demás se delega tal cual.
+ *
+ * Cómo está armado:
+ * - Un único mapa LRU (LinkedHashMap en orden de acceso) por id_usuario, con
+ *   tamaño máximo y vencimiento (TTL) por entrada.
+ * - Dos índices secundarios (username y email → id) que apuntan a la misma
+ *   entrada, así un usuario ocupa un solo lugar aunque se lo busque de tres formas.
+ *   Los guardo en minúsculas porque la collation de la tabla no distingue mayúsculas.
+ * - update / softDelete / delete (y sus versiones por lote o con Connection)
+ *   invalidan la entrada del usuario tocado.
+ * - Guardo y devuelvo copias: si el que llama modifica el Usuario que recibió,
+ *   el caché no se entera.
+ *
+ * Dentro de una transacción del TransactionTemplate (y en los métodos que
+ * reciben Connection) no uso el caché: lo que se lee ahí puede no estar
+ * confirmado todavía y no quiero guardarlo si después hay rollback. Las
+ * escrituras dentro de una transacción invalidan en el momento y otra vez
+ * después del commit: mientras la transacción está abierta, otro hilo puede
+ * leer y guardar la fila confirmada anterior.
+ *
+ * Con réplicas (db.replicas), lo que se lee poco después de una escritura de
+ * cualquier sesión puede venir de una réplica atrasada: mientras dure la
+ * ventana de read-your-writes lo devuelvo pero no lo guardo.
+ */
+public class CachingUsuarioDao implements UsuarioDao {
+
+    private final UsuarioDao delegate;
+    private final int maxSize;
+    private final long ttlMs;
+
+    // Todo el estado del caché se protege con este lock
+    private final Object lock = new Object();
+
+    // id_usuario → entrada. accessOrder = true → iteración de menos a más usado (LRU)
+    private final LinkedHashMap<Long, Entrada> porId;
+    private final Map<String, Long> porUsername = new HashMap<>();
+    private final Map<String, Long> porEmail = new HashMap<>();
+
+    // Cambia con cada invalidación: si cambió mientras leía de la base, no guardo lo leído.
+    private long version = 0;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    /**
+     * Creo el caché con el tamaño y el TTL configurados en db.properties.
+     *
+     * @param delegate DAO real que va a la base
+     */
+    public CachingUsuarioDao(UsuarioDao delegate) {
+        this(delegate, Config.CACHE_USUARIO_MAX_SIZE, Config.CACHE_USUARIO_TTL_MS);
+    }
+
+    /**
+     * @param delegate DAO real que va a la base
+     * @param maxSize  cantidad máxima de usuarios en caché
+     * @param ttlMs    milisegundos que vale cada entrada (0 = no vence)
+     */
+    public CachingUsuarioDao(UsuarioDao delegate, int maxSize, long ttlMs) {
+        this.delegate = delegate;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlMs = ttlMs;
+        this.porId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> eldest) {
+                if (size() > CachingUsuarioDao.this.maxSize) {
+                    evictions.increment();
+                    quitarIndices(eldest.getValue().usuario);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ======================================================
+    // LECTURAS CON CACHÉ
+    // ======================================================
+
+    @Override
+    public Optional<Usuario> findById(Long id) throws SQLException {
+        if (TransactionTemplate.isTransactionActive()) {
+            return delegate.findById(id);
+        }
+        long v;
+        synchronized (lock) {
+            Usuario u = buscar(id);
+            if (u != null) return Optional.of(new Usuario(u));
+            v = version;
+        }
+        return cargar(delegate.findById(id), v);
+    }
+
+    @Override
+    public Optional<Usuario> findByUsername(String username) throws SQLException {
+        if (username == null || TransactionTemplate.isTransactionActive()) {
+            return delegate.findByUsername(username);
+        }
+        long v;
+        synchronized (lock) {
+            Usuario u = buscar(porUsername.get(clave(username)));
+            if (u != null) return Optional.of(new Usuario(u));
+            v = version;
+        }
+        return cargar(delegate.findByUsername(username), v);
+    }
+
+    @Override
+    public Optional<Usuario> findByEmail(String email) throws SQLException {
+        if (email == null || TransactionTemplate.isTransactionActive()) {
+            return delegate.findByEmail(email);
+        }
+        long v;
+        synchronized (lock) {
+            Usuario u = buscar(porEmail.get(clave(email)));
+            if (u != null) return Optional.of(new Usuario(u));
+            v = version;
+        }
+        return cargar(delegate.findByEmail(email), v);
+    }
+
+    /**
+     * Tomo del caché los que están y pido al DAO real solo los que faltan,
+     * todos juntos. El resultado respeta el orden de los IDs pedidos.
+     */
+    @Override
+    public Map<Long, Usuario> findByIds(Collection<Long> ids) throws SQLException {
+        if (TransactionTemplate.isTransactionActive()) {
+            return delegate.findByIds(ids);
+        }
+        Map<Long, Usuario> enCache = new HashMap<>();
+        List<Long> faltan = new ArrayList<>();
+        long v;
+        synchronized (lock) {
+            for (Long id : new LinkedHashSet<>(ids)) {
+                Usuario u = buscar(id);
+                if (u != null) enCache.put(id, new Usuario(u));
+                else faltan.add(id);
+            }
+            v = version;
+        }
+        if (faltan.isEmpty()) {
+            return ordenar(ids, enCache);
+        }
+        Map<Long, Usuario> leidos = delegate.findByIds(faltan);
+        for (Usuario u : leidos.values()) {
+            cargar(Optional.of(u), v);
+        }
+        enCache.putAll(leidos);
+        return ordenar(ids, enCache);
+    }
+
+    /**
+     * El login siempre va a la base: necesita la credencial actual y no la
+     * guardo en el caché (tiene el hash de la contraseña).
+     */
+    @Override
+    public Optional<Usuario> findByUsernameWithCredencial(String username) throws SQLException {
+        return delegate.findByUsernameWithCredencial(username);
+    }
+
+    @Override
+    public Optional<Usuario> findByUsernameWithCredencial(String username, Connection conn) throws SQLException {
+        return delegate.findByUsernameWithCredencial(username, conn);
+    }
+
+    /**
+     * La disponibilidad siempre va a la base: el caché no tiene a los
+     * eliminados (que igual ocupan el username / email) y un "libre" viejo
+     * es justo lo que no quiero. Igual son consultas que solo leen el índice.
+     */
+    @Override
+    public boolean existsByUsername(String username) throws SQLException {
+        return delegate.existsByUsername(username);
+    }
+
+    @Override
+    public boolean existsByUsername(String username, Connection conn) throws SQLException {
+        return delegate.existsByUsername(username, conn);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) throws SQLException {
+        return delegate.existsByEmail(email);
+    }
+
+    @Override
+    public boolean existsByEmail(String email, Connection conn) throws SQLException {
+        return delegate.existsByEmail(email, conn);
+    }
+
+    @Override
+    public Disponibilidad checkAvailability(String username, String email) throws SQLException {
+        return delegate.checkAvailability(username, email);
+    }
+
+    @Override
+    public Disponibilidad checkAvailability(String username, String email, Connection conn) throws SQLException {
+        return delegate.checkAvailability(username, email, conn);
+    }
+
+    /** Con Connection externa puede haber una transacción abierta: no uso el caché. */
+    @Override
+    public Optional<Usuario> findById(Long id, Connection conn) throws SQLException {
+        return delegate.findById(id, conn);
+    }
+
+    @Override
+    public Map<Long, Usuario> findByIds(Collection<Long> ids, Connection conn) throws SQLException {
+        return delegate.findByIds(ids, conn);
+    }
+
+    // ======================================================
+    // ESCRITURAS (delegan e invalidan)
+    // ======================================================
+
+    @Override
+    public Long create(Usuario entity) throws SQLException {
+        return delegate.create(entity);
+    }
+
+    @Override
+    public Long create(Usuario entity, Connection conn) throws SQLException {
+        return delegate.create(entity, conn);
+    }
+
+    @Override
+    public List<Long> createAll(List<Usuario> entities) throws SQLException {
+        return delegate.createAll(entities);
+    }
+
+    @Override
+    public List<Long> createAll(List<Usuario> entities, Connection conn) throws SQLException {
+        return delegate.createAll(entities, conn);
+    }
+
+    @Override
+    public void update(Usuario entity) throws SQLException {
+        try {
+            delegate.update(entity);
+        } finally {
+            invalidarEscrito(entity.getIdUsuario());
+        }
+    }
+
+    @Override
+    public void update(Usuario entity, Connection conn) throws SQLException {
+        try {
+            delegate.update(entity, conn);
+        } finally {
+            invalidarEscrito(entity.getIdUsuario());
+        }
+    }
+
+    @Override
+    public void updateAll(List<Usuario> entities) throws SQLException {
+        try {
+            delegate.updateAll(entities);
+        } finally {
+            entities.forEach(u -> invalidarEscrito(u.getIdUsuario()));
+        }
+    }
+
+    @Override
+    public void updateAll(List<Usuario> entities, Connection conn) throws SQLException {
+        try {
+            delegate.updateAll(entities, conn);
+        } finally {
+            entities.forEach(u -> invalidarEscrito(u.getIdUsuario()));
+        }
+    }
+
+    @Override
+    public void softDeleteById(Long id) throws SQLException {
+        try {
+            delegate.softDeleteById(id);
+        } finally {
+            invalidarEscrito(id);
+        }
+    }
+
+    @Override
+    public void softDeleteById(Long id, Connection conn) throws SQLException {
+        try {
+            delegate.softDeleteById(id, conn);
+        } finally {
+            invalidarEscrito(id);
+        }
+    }
+
+    @Override
+    public void softDeleteAllById(Collection<Long> ids) throws SQLException {
+        try {
+            delegate.softDeleteAllById(ids);
+        } finally {
+            ids.forEach(this::invalidarEscrito);
+        }
+    }
+
+    @Override
+    public void softDeleteAllById(Collection<Long> ids, Connection conn) throws SQLException {
+        try {
+            delegate.softDeleteAllById(ids, conn);
+        } finally {
+            ids.forEach(this::invalidarEscrito);
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) throws SQLException {
+        try {
+            delegate.deleteById(id);
+        } finally {
+            invalidarEscrito(id);
+        }
+    }
+
+    @Override
+    public void deleteById(Long id, Connection conn) throws SQLException {
+        try {
+            delegate.deleteById(id, conn);
+        } finally {
+            invalidarEscrito(id);
+        }
+    }
+
+    // ======================================================
+    // LISTADOS (sin caché: delegan directo)
+    // ======================================================
+
+    @Override
+    public List<Usuario> findAll() throws SQLException {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Usuario> findAll(Connection conn) throws SQLException {
+        return delegate.findAll(conn);
+    }
+
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit) throws SQLException {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit, Projection projection) throws SQLException {
+        return delegate.findPage(afterId, limit, projection);
+    }
+
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit, Connection conn) throws SQLException {
+        return delegate.findPage(afterId, limit, conn);
+    }
+
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit, Projection projection, Connection conn)
+            throws SQLException {
+        return delegate.findPage(afterId, limit, projection, conn);
+    }
+
+    @Override
+    public Stream<Usuario> streamAll() throws SQLException {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public Stream<Usuario> streamAll(Projection projection) throws SQLException {
+        return delegate.streamAll(projection);
+    }
+
+    // ======================================================
+    // ADMINISTRACIÓN Y ESTADÍSTICAS
+    // ======================================================
+
+    /** Saco del caché al usuario indicado (si estaba). */
+    public void invalidate(Long id) {
+        if (id == null) return;
+        synchronized (lock) {
+            version++;
+            invalidations.increment();
+            Entrada e = porId.remove(id);
+            if (e != null) quitarIndices(e.usuario);
+        }
+    }
+
+    /** Vacío el caché completo. */
+    public void invalidateAll() {
+        synchronized (lock) {
+            version++;
+            invalidations.increment();
+            porId.clear();
+            porUsername.clear();
+            porEmail.clear();
+        }
+    }
+
+    /** Búsquedas resueltas sin ir a la base. */
+    public long getHits() { return hits.sum(); }
+
+    /** Búsquedas que tuvieron que ir a la base. */
+    public long getMisses() { return misses.sum(); }
+
+    /** Entradas descartadas por falta de lugar (las menos usadas). */
+    public long getEvictions() { return evictions.sum(); }
+
+    /** Entradas descartadas porque venció su TTL. */
+    public long getExpirations() { return expirations.sum(); }
+
+    /** Invalidaciones por escrituras. */
+    public long getInvalidations() { return invalidations.sum(); }
+
+    /** Proporción de aciertos (0..1). */
+    public double getHitRatio() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /** Usuarios guardados en este momento. */
+    public int size() {
+        synchronized (lock) {
+            return porId.size();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CachingUsuarioDao{size=%d/%d, hits=%d, misses=%d, hitRatio=%.1f%%, evictions=%d, expirations=%d}",
+                size(), maxSize, getHits(), getMisses(), getHitRatio() * 100, getEvictions(), getExpirations());
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    /**
+     * Busco por id (con el lock tomado). Cuento el hit / miss y descarto la
+     * entrada si venció.
+     */
+    private Usuario buscar(Long id) {
+        Entrada e = id == null ? null : porId.get(id);
+        if (e != null && ttlMs > 0 && System.currentTimeMillis() > e.expiraEn) {
+            expirations.increment();
+            porId.remove(id);
+            quitarIndices(e.usuario);
+            e = null;
+        }
+        if (e == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return e.usuario;
+    }
+
+    /**
+     * Guardo lo que se leyó de la base, salvo que mientras tanto alguien haya
+     * invalidado o que haya una escritura reciente con réplicas (en los dos
+     * casos lo leído puede estar viejo).
+     */
+    private Optional<Usuario> cargar(Optional<Usuario> leido, long versionAlLeer) {
+        if (leido.isEmpty() || leido.get().getIdUsuario() == null) {
+            return leido;
+        }
+        if (ReplicaRouter.isEscrituraReciente()) {
+            return leido; // pudo venir de una réplica que todavía no tiene la escritura
+        }
+        Usuario copia = new Usuario(leido.get());
+        synchronized (lock) {
+            if (version == versionAlLeer) {
+                Entrada anterior = porId.remove(copia.getIdUsuario());
+                if (anterior != null) quitarIndices(anterior.usuario);
+
+                long expira = ttlMs > 0 ? System.currentTimeMillis() + ttlMs : Long.MAX_VALUE;
+                porId.put(copia.getIdUsuario(), new Entrada(copia, expira));
+                if (copia.getUsername() != null) porUsername.put(clave(copia.getUsername()), copia.getIdUsuario());
+                if (copia.getEmail() != null) porEmail.put(clave(copia.getEmail()), copia.getIdUsuario());
+            }
+        }
+        return leido;
+    }
+
+    /**
+     * Invalido después de una escritura. Si estoy dentro de una transacción,
+     * vuelvo a invalidar cuando haga commit: lo que otro hilo guarde mientras
+     * tanto es la fila anterior.
+     */
+    private void invalidarEscrito(Long id) {
+        invalidate(id);
+        if (id != null && TransactionTemplate.isTransactionActive()) {
+            TransactionTemplate.despuesDelCommit(() -> invalidate(id));
+        }
+    }
+
+    /** Armo el resultado de findByIds en el orden de los IDs pedidos. */
+    private static Map<Long, Usuario> ordenar(Collection<Long> ids, Map<Long, Usuario> encontrados) {
+        Map<Long, Usuario> resultado = new LinkedHashMap<>(encontrados.size() * 2);
+        for (Long id : ids) {
+            Usuario u = encontrados.get(id);
+            if (u != null) resultado.putIfAbsent(id, u);
+        }
+        return resultado;
+    }
+
+    /** Saco los índices secundarios que apuntan a este usuario. */
+    private void quitarIndices(Usuario u) {
+        if (u.getUsername() != null) porUsername.remove(clave(u.getUsername()), u.getIdUsuario());
+        if (u.getEmail() != null) porEmail.remove(clave(u.getEmail()), u.getIdUsuario());
+    }
+
+    private static String clave(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    /** Un usuario cacheado y el momento en que vence. */
+    private record Entrada(Usuario usuario, long expiraEn) {}
+}
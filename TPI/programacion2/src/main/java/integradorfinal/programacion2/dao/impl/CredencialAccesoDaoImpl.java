@@ -1,7 +1,10 @@
 package integradorfinal.programacion2.dao.impl;
 
+import integradorfinal.programacion2.config.Config;
 import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.config.TransactionTemplate;
 import integradorfinal.programacion2.dao.CredencialAccesoDao;
+import integradorfinal.programacion2.dao.Projection;
 import integradorfinal.programacion2.entities.CredencialAcceso;
 import integradorfinal.programacion2.entities.Estado;
 import integradorfinal.programacion2.exceptions.DataAccessException;
@@ -9,8 +12,16 @@ import integradorfinal.programacion2.exceptions.DataAccessException;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * Implementación JDBC del DAO de CredencialAcceso.
@@ -21,9 +32,86 @@ import java.util.Optional;
  * La estructura la separé en dos partes:
  * - Métodos CRUD que se manejan solos (piden su propia Connection).
  * - Métodos CRUD que reciben una Connection externa (para trabajar en transacciones).
+ *
+ * Las lecturas que se manejan solas piden DatabaseConnection.getReadConnection(),
+ * que puede ser de una réplica; las escrituras, getConnection() (primario).
  */
 public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
 
+    // SQL compartido entre las versiones de a una fila y las de lote
+    private static final String SQL_INSERT = """
+            INSERT INTO credencial_acceso
+              (eliminado, usuario_id, estado, ultima_sesion, hash_password, salt, ultimo_cambio, requiere_reset)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // UPDATE parcial ya armado para cada combinación de campos modificados
+    private static final Map<Set<CredencialAcceso.Campo>, String> SQL_UPDATE_POR_CAMPOS = new ConcurrentHashMap<>();
+
+    private static final String SQL_SOFT_DELETE = "UPDATE credencial_acceso SET eliminado = TRUE WHERE id_credencial = ?";
+
+    // Solo la columna de la última sesión (el login no necesita reescribir el resto)
+    private static final String SQL_UPDATE_ULTIMA_SESION =
+            "UPDATE credencial_acceso SET ultima_sesion = ? WHERE usuario_id = ? AND eliminado = FALSE";
+
+    // ======================================================
+    // COLUMNAS DE CADA PROYECCIÓN
+    // ======================================================
+
+    /**
+     * Columnas de la proyección completa, en el orden en que las lee mapRow.
+     * Con la lista explícita el orden es fijo y puedo leer por posición.
+     */
+    static final String COLUMNAS = "id_credencial, eliminado, usuario_id, estado, ultima_sesion, "
+            + "hash_password, salt, ultimo_cambio, requiere_reset";
+
+    // Posición (1..n) de cada columna dentro de COLUMNAS
+    private static final int COL_ID = 1;
+    private static final int COL_ELIMINADO = 2;
+    private static final int COL_USUARIO_ID = 3;
+    private static final int COL_ESTADO = 4;
+    private static final int COL_ULTIMA_SESION = 5;
+    private static final int COL_HASH = 6;
+    private static final int COL_SALT = 7;
+    private static final int COL_ULTIMO_CAMBIO = 8;
+    private static final int COL_REQUIERE_RESET = 9;
+
+    /**
+     * Columnas de la proyección SUMMARY: lo que se muestra en un listado,
+     * sin hash ni salt.
+     */
+    static final String COLUMNAS_RESUMEN = "id_credencial, usuario_id, estado, ultima_sesion, requiere_reset";
+
+    private static final int RES_ID = 1;
+    private static final int RES_USUARIO_ID = 2;
+    private static final int RES_ESTADO = 3;
+    private static final int RES_ULTIMA_SESION = 4;
+    private static final int RES_REQUIERE_RESET = 5;
+
+    // Las consultas de lectura que no son private las revisa PlanesDeConsultaTest
+    // con EXPLAIN, para ver que usen el índice esperado.
+    private static final String SQL_FIND_BY_ID =
+            select(COLUMNAS, "WHERE id_credencial = ? AND eliminado = FALSE");
+    static final String SQL_FIND_BY_USUARIO_ID =
+            select(COLUMNAS, "WHERE usuario_id = ? AND eliminado = FALSE");
+
+    // findByUsuarioIds: una consulta por cada tamaño de IN (ver JdbcSupport.tamanioIn)
+    private static final Map<Integer, String> SQL_FIND_BY_USUARIO_IDS = new ConcurrentHashMap<>();
+
+    // updateUltimaSesionAll: un UPDATE ... CASE por cada tamaño de tramo (ver JdbcSupport.tamanioIn)
+    private static final Map<Integer, String> SQL_ULTIMA_SESION_CASE = new ConcurrentHashMap<>();
+
+    static final String SQL_FIND_ALL =
+            select(COLUMNAS, "WHERE eliminado = FALSE ORDER BY id_credencial");
+    static final String SQL_FIND_ALL_RESUMEN =
+            select(COLUMNAS_RESUMEN, "WHERE eliminado = FALSE ORDER BY id_credencial");
+
+    // Paginación por clave sobre la PK (ver findPage)
+    static final String SQL_FIND_PAGE =
+            select(COLUMNAS, "WHERE id_credencial > ? AND eliminado = FALSE ORDER BY id_credencial LIMIT ?");
+    static final String SQL_FIND_PAGE_RESUMEN =
+            select(COLUMNAS_RESUMEN, "WHERE id_credencial > ? AND eliminado = FALSE ORDER BY id_credencial LIMIT ?");
+
     // ======================================================
     // CRUD BÁSICO (maneja su propia Connection)
     // ======================================================
@@ -46,7 +134,7 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      */
     @Override
     public Optional<CredencialAcceso> findById(Long id) throws SQLException {
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
             return findById(id, conn);
         }
     }
@@ -57,11 +145,47 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      */
     @Override
     public List<CredencialAcceso> findAll() throws SQLException {
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
             return findAll(conn);
         }
     }
 
+    /**
+     * Devuelvo una página de credenciales no eliminadas, usando su propia Connection.
+     */
+    @Override
+    public List<CredencialAcceso> findPage(Long afterId, int limit) throws SQLException {
+        return findPage(afterId, limit, Projection.FULL);
+    }
+
+    /**
+     * Página de credenciales con la proyección indicada, usando su propia Connection.
+     */
+    @Override
+    public List<CredencialAcceso> findPage(Long afterId, int limit, Projection projection) throws SQLException {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            return findPage(afterId, limit, projection, conn);
+        }
+    }
+
+    /**
+     * Recorro todas las credenciales no eliminadas en streaming, con cursor
+     * del servidor. El Stream libera la Connection cuando se cierra.
+     */
+    @Override
+    public Stream<CredencialAcceso> streamAll() throws SQLException {
+        return streamAll(Projection.FULL);
+    }
+
+    /**
+     * Recorro todas las credenciales en streaming con la proyección indicada.
+     */
+    @Override
+    public Stream<CredencialAcceso> streamAll(Projection projection) throws SQLException {
+        final String sql = projection == Projection.SUMMARY ? SQL_FIND_ALL_RESUMEN : SQL_FIND_ALL;
+        return JdbcSupport.stream(DatabaseConnection.getReadConnection(), sql, mapper(projection));
+    }
+
     /**
      * Actualizo una credencial completa usando una Connection propia.
      */
@@ -103,21 +227,10 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      */
     @Override
     public Long create(CredencialAcceso c, Connection conn) throws SQLException {
-        final String sql = """
-            INSERT INTO credencial_acceso
-              (eliminado, usuario_id, estado, ultima_sesion, hash_password, salt, ultimo_cambio, requiere_reset)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setBoolean(1, c.isEliminado());
-            ps.setLong(2, c.getUsuarioId());
-            ps.setString(3, c.getEstado().name());
-            setNullableTimestamp(ps, 4, c.getUltimaSesion());
-            ps.setString(5, c.getHashPassword());
-            ps.setString(6, c.getSalt());
-            setNullableTimestamp(ps, 7, c.getUltimoCambio());
-            ps.setBoolean(8, c.isRequiereReset());
+        Long idAnterior = c.getIdCredencial();
+        Set<CredencialAcceso.Campo> anteriores = c.getCamposModificados();
+        try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsert(ps, c);
             ps.executeUpdate();
 
             // Recupero el ID autogenerado por la base y lo seteo en el objeto.
@@ -125,6 +238,12 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
                 if (rs.next()) {
                     long id = rs.getLong(1);
                     c.setIdCredencial(id);
+                    c.marcarLimpio();
+                    // Con rollback la fila no existe: le devuelvo el id y los cambios que tenía
+                    TransactionTemplate.siSeRevierte(() -> {
+                        c.setIdCredencial(idAnterior);
+                        c.marcarModificados(anteriores);
+                    });
                     return id;
                 }
             }
@@ -138,8 +257,7 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      */
     @Override
     public Optional<CredencialAcceso> findById(Long id, Connection conn) throws SQLException {
-        final String sql = "SELECT * FROM credencial_acceso WHERE id_credencial = ? AND eliminado = FALSE";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_ID)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return Optional.of(mapRow(rs));
@@ -154,9 +272,8 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      */
     @Override
     public List<CredencialAcceso> findAll(Connection conn) throws SQLException {
-        final String sql = "SELECT * FROM credencial_acceso WHERE eliminado = FALSE ORDER BY id_credencial";
         List<CredencialAcceso> out = new ArrayList<>();
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND_ALL);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) out.add(mapRow(rs));
         }
@@ -164,28 +281,50 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
     }
 
     /**
-     * Actualizo todos los campos de una credencial, usando una Connection externa.
+     * Devuelvo hasta limit credenciales con id_credencial &gt; afterId, usando una
+     * Connection externa. Filtrar por la PK (en lugar de usar OFFSET) hace que
+     * cada página cueste lo mismo sin importar cuántas se hayan recorrido antes.
      */
     @Override
-    public void update(CredencialAcceso c, Connection conn) throws SQLException {
-        final String sql = """
-            UPDATE credencial_acceso
-               SET eliminado=?, usuario_id=?, estado=?, ultima_sesion=?, hash_password=?, salt=?, ultimo_cambio=?, requiere_reset=?
-             WHERE id_credencial=?
-            """;
+    public List<CredencialAcceso> findPage(Long afterId, int limit, Connection conn) throws SQLException {
+        return findPage(afterId, limit, Projection.FULL, conn);
+    }
 
+    /**
+     * Página de credenciales con la proyección indicada, usando una Connection externa.
+     */
+    @Override
+    public List<CredencialAcceso> findPage(Long afterId, int limit, Projection projection, Connection conn)
+            throws SQLException {
+        int tope = JdbcSupport.limitePagina(limit);
+        final String sql = projection == Projection.SUMMARY ? SQL_FIND_PAGE_RESUMEN : SQL_FIND_PAGE;
+        JdbcSupport.RowMapper<CredencialAcceso> mapper = mapper(projection);
+        List<CredencialAcceso> out = new ArrayList<>(tope);
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setBoolean(1, c.isEliminado());
-            ps.setLong(2, c.getUsuarioId());
-            ps.setString(3, c.getEstado().name());
-            setNullableTimestamp(ps, 4, c.getUltimaSesion());
-            ps.setString(5, c.getHashPassword());
-            ps.setString(6, c.getSalt());
-            setNullableTimestamp(ps, 7, c.getUltimoCambio());
-            ps.setBoolean(8, c.isRequiereReset());
-            ps.setLong(9, c.getIdCredencial());
+            ps.setLong(1, JdbcSupport.cursor(afterId));
+            ps.setInt(2, tope);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) out.add(mapper.map(rs));
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Actualizo una credencial usando una Connection externa. Solo escribo las
+     * columnas que cambiaron desde que se leyó; si no cambió nada, no mando SQL.
+     */
+    @Override
+    public void update(CredencialAcceso c, Connection conn) throws SQLException {
+        Set<CredencialAcceso.Campo> campos = c.getCamposModificados();
+        if (campos.isEmpty()) return;
+        try (PreparedStatement ps = conn.prepareStatement(sqlUpdate(campos))) {
+            bindUpdate(ps, c, campos);
             ps.executeUpdate();
         }
+        c.marcarLimpio();
+        // Si la transacción termina en rollback, los campos vuelven a quedar pendientes
+        TransactionTemplate.siSeRevierte(() -> c.marcarModificados(campos));
     }
 
     /**
@@ -194,8 +333,7 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      */
     @Override
     public void softDeleteById(Long id, Connection conn) throws SQLException {
-        final String sql = "UPDATE credencial_acceso SET eliminado = TRUE WHERE id_credencial = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_SOFT_DELETE)) {
             ps.setLong(1, id);
             ps.executeUpdate();
         }
@@ -213,6 +351,105 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
         }
     }
 
+    // ======================================================
+    // OPERACIONES POR LOTE
+    // ======================================================
+
+    /**
+     * Inserto todas las credenciales por lotes dentro de una única transacción
+     * (o sumándome a la que ya esté abierta en el hilo).
+     */
+    @Override
+    public List<Long> createAll(List<CredencialAcceso> credenciales) throws SQLException {
+        return new TransactionTemplate().execute(status -> createAll(credenciales, status.getConnection()));
+    }
+
+    /**
+     * Versión con Connection externa: addBatch/executeBatch y asigno a cada
+     * credencial su ID generado, en el orden de la lista.
+     */
+    @Override
+    public List<Long> createAll(List<CredencialAcceso> credenciales, Connection conn) throws SQLException {
+        if (credenciales.isEmpty()) return new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            List<Long> idsAnteriores = new ArrayList<>();
+            List<Set<CredencialAcceso.Campo>> anteriores = new ArrayList<>();
+            for (CredencialAcceso c : credenciales) {
+                idsAnteriores.add(c.getIdCredencial());
+                anteriores.add(c.getCamposModificados());
+            }
+            // Con rollback (aunque falle a mitad del lote) las filas no existen:
+            // les devuelvo el id y los cambios que tenían
+            TransactionTemplate.siSeRevierte(() -> {
+                for (int i = 0; i < credenciales.size(); i++) {
+                    credenciales.get(i).setIdCredencial(idsAnteriores.get(i));
+                    credenciales.get(i).marcarModificados(anteriores.get(i));
+                }
+            });
+            List<Long> ids = JdbcSupport.executeBatch(ps, credenciales, this::bindInsert, CredencialAcceso::setIdCredencial);
+            credenciales.forEach(CredencialAcceso::marcarLimpio);
+            return ids;
+        }
+    }
+
+    /**
+     * Actualizo todas las credenciales por lotes dentro de una única transacción.
+     */
+    @Override
+    public void updateAll(List<CredencialAcceso> credenciales) throws SQLException {
+        new TransactionTemplate().execute(status -> {
+            updateAll(credenciales, status.getConnection());
+            return null;
+        });
+    }
+
+    /**
+     * Versión con Connection externa para actualizar por lotes. Agrupo las
+     * credenciales según qué campos cambiaron (un UPDATE por grupo) y salteo
+     * las que no tienen cambios.
+     */
+    @Override
+    public void updateAll(List<CredencialAcceso> credenciales, Connection conn) throws SQLException {
+        Map<Set<CredencialAcceso.Campo>, List<CredencialAcceso>> grupos = new LinkedHashMap<>();
+        for (CredencialAcceso c : credenciales) {
+            Set<CredencialAcceso.Campo> campos = c.getCamposModificados();
+            if (!campos.isEmpty()) {
+                grupos.computeIfAbsent(campos, k -> new ArrayList<>()).add(c);
+            }
+        }
+        for (Map.Entry<Set<CredencialAcceso.Campo>, List<CredencialAcceso>> grupo : grupos.entrySet()) {
+            Set<CredencialAcceso.Campo> campos = grupo.getKey();
+            try (PreparedStatement ps = conn.prepareStatement(sqlUpdate(campos))) {
+                JdbcSupport.executeBatch(ps, grupo.getValue(), (p, c) -> bindUpdate(p, c, campos), null);
+            }
+        }
+        grupos.values().forEach(grupo -> grupo.forEach(CredencialAcceso::marcarLimpio));
+        TransactionTemplate.siSeRevierte(() ->
+                grupos.forEach((campos, grupo) -> grupo.forEach(c -> c.marcarModificados(campos))));
+    }
+
+    /**
+     * Baja lógica de varias credenciales por lotes dentro de una única transacción.
+     */
+    @Override
+    public void softDeleteAllById(Collection<Long> ids) throws SQLException {
+        new TransactionTemplate().execute(status -> {
+            softDeleteAllById(ids, status.getConnection());
+            return null;
+        });
+    }
+
+    /**
+     * Versión con Connection externa para la baja lógica por lotes.
+     */
+    @Override
+    public void softDeleteAllById(Collection<Long> ids, Connection conn) throws SQLException {
+        if (ids.isEmpty()) return;
+        try (PreparedStatement ps = conn.prepareStatement(SQL_SOFT_DELETE)) {
+            JdbcSupport.executeBatch(ps, new ArrayList<>(ids), (st, id) -> st.setLong(1, id), null);
+        }
+    }
+
     // ======================================================
     // MÉTODOS ESPECÍFICOS
     // ======================================================
@@ -223,9 +460,8 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      */
     @Override
     public Optional<CredencialAcceso> findByUsuarioId(Long usuarioId) throws SQLException {
-        final String sql = "SELECT * FROM credencial_acceso WHERE usuario_id = ? AND eliminado = FALSE";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_USUARIO_ID)) {
 
             ps.setLong(1, usuarioId);
             try (ResultSet rs = ps.executeQuery()) {
@@ -235,6 +471,29 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
         return Optional.empty();
     }
 
+    /**
+     * Busco las credenciales de muchos usuarios con WHERE usuario_id IN (...),
+     * usando Connection propia.
+     */
+    @Override
+    public Map<Long, CredencialAcceso> findByUsuarioIds(Collection<Long> usuarioIds) throws SQLException {
+        if (usuarioIds.isEmpty()) return new LinkedHashMap<>();
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            return findByUsuarioIds(usuarioIds, conn);
+        }
+    }
+
+    /**
+     * Versión que recibe Connection. usuario_id tiene índice único, así que
+     * hay a lo sumo una credencial activa por usuario.
+     */
+    @Override
+    public Map<Long, CredencialAcceso> findByUsuarioIds(Collection<Long> usuarioIds, Connection conn)
+            throws SQLException {
+        return JdbcSupport.findByIds(conn, usuarioIds, CredencialAccesoDaoImpl::sqlFindByUsuarioIds,
+                this::mapRow, CredencialAcceso::getUsuarioId);
+    }
+
     /**
      * Actualizo el password de forma "segura" llamando a un stored procedure:
      * sp_actualizar_password_seguro.
@@ -253,6 +512,7 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
      * Versión sobrecargada que recibe la Connection desde afuera,
      * para poder ser usada dentro de una transacción más grande.
      */
+    @Override
     public void updatePasswordSeguro(Long usuarioId, String nuevoHash, String nuevoSalt, Connection conn) throws SQLException {
         try (CallableStatement cs = conn.prepareCall("{ call sp_actualizar_password_seguro(?, ?, ?) }")) {
             cs.setLong(1, usuarioId);
@@ -262,35 +522,220 @@ public class CredencialAccesoDaoImpl implements CredencialAccesoDao {
         }
     }
 
+    /**
+     * Registro la última sesión con un UPDATE de una sola columna, usando
+     * una Connection propia.
+     */
+    @Override
+    public boolean updateUltimaSesion(Long usuarioId, LocalDateTime cuando) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection()) {
+            return updateUltimaSesion(usuarioId, cuando, conn);
+        }
+    }
+
+    /**
+     * Versión con Connection externa. Filtro por usuario_id, que tiene índice
+     * único, así que toca una sola fila.
+     */
+    @Override
+    public boolean updateUltimaSesion(Long usuarioId, LocalDateTime cuando, Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_UPDATE_ULTIMA_SESION)) {
+            setNullableTimestamp(ps, 1, cuando);
+            ps.setLong(2, usuarioId);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Actualizo la última sesión de muchos usuarios con un UPDATE por tramo:
+     * <pre>
+     * UPDATE credencial_acceso
+     *    SET ultima_sesion = CASE usuario_id WHEN ? THEN ? WHEN ? THEN ? ... END
+     *  WHERE usuario_id IN (?, ?, ...) AND eliminado = FALSE
+     * </pre>
+     * Así cada tramo es un solo viaje a la base y una sola sentencia, en lugar
+     * de un UPDATE por usuario. El texto depende de la cantidad de usuarios del
+     * tramo, así que el último tramo de cada grabación lo completo hasta la
+     * potencia de 2 siguiente repitiendo el último usuario (un WHEN repetido no
+     * cambia nada): igual que en findByIds, hay pocos textos distintos y no
+     * desplazan del caché de sentencias a las consultas de siempre.
+     */
+    @Override
+    public int updateUltimaSesionAll(Map<Long, LocalDateTime> porUsuario, Connection conn) throws SQLException {
+        int total = 0;
+        Iterator<Map.Entry<Long, LocalDateTime>> it = porUsuario.entrySet().iterator();
+        while (it.hasNext()) {
+            List<Map.Entry<Long, LocalDateTime>> tramo = new ArrayList<>(Math.min(Config.BATCH_SIZE, porUsuario.size()));
+            while (it.hasNext() && tramo.size() < Config.BATCH_SIZE) {
+                tramo.add(it.next());
+            }
+
+            int tamanio = JdbcSupport.tamanioIn(tramo.size(), Config.BATCH_SIZE);
+            Map.Entry<Long, LocalDateTime> ultimo = tramo.get(tramo.size() - 1);
+            try (PreparedStatement ps = conn.prepareStatement(sqlUltimaSesionCase(tamanio))) {
+                int i = 1;
+                for (int k = 0; k < tamanio; k++) {
+                    Map.Entry<Long, LocalDateTime> e = k < tramo.size() ? tramo.get(k) : ultimo;
+                    ps.setLong(i++, e.getKey());
+                    setNullableTimestamp(ps, i++, e.getValue());
+                }
+                for (int k = 0; k < tamanio; k++) {
+                    ps.setLong(i++, (k < tramo.size() ? tramo.get(k) : ultimo).getKey());
+                }
+                total += ps.executeUpdate();
+            }
+        }
+        return total;
+    }
+
     // ======================================================
     // MÉTODOS AUXILIARES
     // ======================================================
 
     /**
-     * Convierto una fila del ResultSet en un objeto CredencialAcceso.
+     * Convierto una fila del ResultSet (seleccionada con COLUMNAS) en un objeto CredencialAcceso.
      * 
-     * Acá mapeo cada columna de la tabla a su campo correspondiente en la entidad.
+     * Leo cada columna por su posición, que es fija porque la lista de
+     * columnas es explícita; así el driver no busca la etiqueta en cada campo.
      */
-    private CredencialAcceso mapRow(ResultSet rs) throws SQLException {
+    CredencialAcceso mapRow(ResultSet rs) throws SQLException {
+        return mapRow(rs, 0);
+    }
+
+    /**
+     * Igual que {@link #mapRow(ResultSet)}, pero con las columnas de COLUMNAS
+     * empezando después de la posición {@code base} (para consultas con JOIN
+     * donde antes vienen las columnas de otra tabla).
+     */
+    CredencialAcceso mapRow(ResultSet rs, int base) throws SQLException {
         CredencialAcceso c = new CredencialAcceso();
-        c.setIdCredencial(rs.getLong("id_credencial"));
-        c.setEliminado(rs.getBoolean("eliminado"));
-        c.setUsuarioId(rs.getLong("usuario_id"));
-        c.setEstado(Estado.from(rs.getString("estado")));
+        c.setIdCredencial(rs.getLong(base + COL_ID));
+        c.setEliminado(rs.getBoolean(base + COL_ELIMINADO));
+        c.setUsuarioId(rs.getLong(base + COL_USUARIO_ID));
+        c.setEstado(Estado.from(rs.getString(base + COL_ESTADO)));
 
-        Timestamp tsUlt = rs.getTimestamp("ultima_sesion");
+        Timestamp tsUlt = rs.getTimestamp(base + COL_ULTIMA_SESION);
         if (tsUlt != null) c.setUltimaSesion(tsUlt.toLocalDateTime());
 
-        c.setHashPassword(rs.getString("hash_password"));
-        c.setSalt(rs.getString("salt"));
+        c.setHashPassword(rs.getString(base + COL_HASH));
+        c.setSalt(rs.getString(base + COL_SALT));
 
-        Timestamp tsCambio = rs.getTimestamp("ultimo_cambio");
+        Timestamp tsCambio = rs.getTimestamp(base + COL_ULTIMO_CAMBIO);
         if (tsCambio != null) c.setUltimoCambio(tsCambio.toLocalDateTime());
 
-        c.setRequiereReset(rs.getBoolean("requiere_reset"));
+        c.setRequiereReset(rs.getBoolean(base + COL_REQUIERE_RESET));
+        c.marcarLimpio(); // recién leída: todavía no hay nada para grabar
+        return c;
+    }
+
+    /**
+     * Convierto una fila seleccionada con COLUMNAS_RESUMEN en una credencial
+     * parcial (sin hash, salt ni fechas de cambio).
+     */
+    CredencialAcceso mapResumen(ResultSet rs) throws SQLException {
+        CredencialAcceso c = new CredencialAcceso();
+        c.setIdCredencial(rs.getLong(RES_ID));
+        c.setUsuarioId(rs.getLong(RES_USUARIO_ID));
+        c.setEstado(Estado.from(rs.getString(RES_ESTADO)));
+
+        Timestamp tsUlt = rs.getTimestamp(RES_ULTIMA_SESION);
+        if (tsUlt != null) c.setUltimaSesion(tsUlt.toLocalDateTime());
+
+        c.setRequiereReset(rs.getBoolean(RES_REQUIERE_RESET));
+        c.marcarLimpio();
         return c;
     }
 
+    /** Mapeo que corresponde a cada proyección. */
+    private JdbcSupport.RowMapper<CredencialAcceso> mapper(Projection projection) {
+        return projection == Projection.SUMMARY ? this::mapResumen : this::mapRow;
+    }
+
+    /** UPDATE con CASE para n usuarios (ver updateUltimaSesionAll), uno armado por tamaño. */
+    private static String sqlUltimaSesionCase(int n) {
+        return SQL_ULTIMA_SESION_CASE.computeIfAbsent(n, k -> {
+            StringBuilder sb = new StringBuilder("UPDATE credencial_acceso SET ultima_sesion = CASE usuario_id");
+            for (int i = 0; i < k; i++) sb.append(" WHEN ? THEN ?");
+            sb.append(" END WHERE usuario_id IN (").append(JdbcSupport.marcadores(k));
+            return sb.append(") AND eliminado = FALSE").toString();
+        });
+    }
+
+    /** SELECT por usuario_id IN (...) con n parámetros (uno armado por tamaño). */
+    private static String sqlFindByUsuarioIds(int n) {
+        return SQL_FIND_BY_USUARIO_IDS.computeIfAbsent(n, k ->
+                select(COLUMNAS, "WHERE usuario_id IN (" + JdbcSupport.marcadores(k) + ") AND eliminado = FALSE"));
+    }
+
+    /** Armo un SELECT sobre credencial_acceso con las columnas indicadas. */
+    private static String select(String columnas, String resto) {
+        return "SELECT " + columnas + " FROM credencial_acceso " + resto;
+    }
+
+    /**
+     * Cargo los parámetros del INSERT (lo comparten create y createAll).
+     */
+    private void bindInsert(PreparedStatement ps, CredencialAcceso c) throws SQLException {
+        ps.setBoolean(1, c.isEliminado());
+        ps.setLong(2, c.getUsuarioId());
+        ps.setString(3, c.getEstado().name());
+        setNullableTimestamp(ps, 4, c.getUltimaSesion());
+        ps.setString(5, c.getHashPassword());
+        ps.setString(6, c.getSalt());
+        setNullableTimestamp(ps, 7, c.getUltimoCambio());
+        ps.setBoolean(8, c.isRequiereReset());
+    }
+
+    /**
+     * Cargo los parámetros del UPDATE parcial (lo comparten update y updateAll):
+     * primero los campos en el orden de sqlUpdate y al final el id.
+     */
+    private void bindUpdate(PreparedStatement ps, CredencialAcceso c, Set<CredencialAcceso.Campo> campos) throws SQLException {
+        int i = 1;
+        for (CredencialAcceso.Campo campo : campos) {
+            switch (campo) {
+                case ELIMINADO      -> ps.setBoolean(i, c.isEliminado());
+                case USUARIO_ID     -> ps.setLong(i, c.getUsuarioId());
+                case ESTADO         -> ps.setString(i, c.getEstado().name());
+                case ULTIMA_SESION  -> setNullableTimestamp(ps, i, c.getUltimaSesion());
+                case HASH_PASSWORD  -> ps.setString(i, c.getHashPassword());
+                case SALT           -> ps.setString(i, c.getSalt());
+                case ULTIMO_CAMBIO  -> setNullableTimestamp(ps, i, c.getUltimoCambio());
+                case REQUIERE_RESET -> ps.setBoolean(i, c.isRequiereReset());
+            }
+            i++;
+        }
+        ps.setLong(i, c.getIdCredencial());
+    }
+
+    /**
+     * Armo (una sola vez por combinación) el UPDATE que escribe solo los
+     * campos indicados, en el orden del enum (el mismo que usa bindUpdate).
+     */
+    private static String sqlUpdate(Set<CredencialAcceso.Campo> campos) {
+        return SQL_UPDATE_POR_CAMPOS.computeIfAbsent(campos, k -> {
+            StringJoiner set = new StringJoiner(", ", "UPDATE credencial_acceso SET ", " WHERE id_credencial=?");
+            for (CredencialAcceso.Campo campo : k) {
+                set.add(columna(campo) + "=?");
+            }
+            return set.toString();
+        });
+    }
+
+    /** Columna de la tabla credencial_acceso que corresponde a cada campo. */
+    private static String columna(CredencialAcceso.Campo campo) {
+        return switch (campo) {
+            case ELIMINADO      -> "eliminado";
+            case USUARIO_ID     -> "usuario_id";
+            case ESTADO         -> "estado";
+            case ULTIMA_SESION  -> "ultima_sesion";
+            case HASH_PASSWORD  -> "hash_password";
+            case SALT           -> "salt";
+            case ULTIMO_CAMBIO  -> "ultimo_cambio";
+            case REQUIERE_RESET -> "requiere_reset";
+        };
+    }
+
     /**
      * Helper para setear un LocalDateTime en un PreparedStatement,
      * permitiendo también valores nulos.
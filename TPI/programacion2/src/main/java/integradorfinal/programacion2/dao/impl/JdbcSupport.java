@@ -0,0 +1,284 @@
+package integradorfinal.programacion2.dao.impl;
+
+import integradorfinal.programacion2.config.Config;
+
+import integradorfinal.programacion2.exceptions.DataAccessException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Helpers JDBC compartidos por las implementaciones de los DAO.
+ *
+ * Concentra la ejecución por lotes (addBatch / executeBatch) en tramos de
+ * {@link Config#BATCH_SIZE} filas, para que cada DAO solo tenga que decir cómo
+ * se cargan los parámetros de una entidad, la validación de los parámetros
+ * de paginación, la lectura en streaming con cursor del servidor y las
+ * búsquedas de muchos IDs con WHERE ... IN (...).
+ */
+final class JdbcSupport {
+
+    private JdbcSupport() {}
+
+    /** Carga en la sentencia los parámetros de un elemento. */
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    /** Convierte la fila actual del ResultSet en una entidad. */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /** Recibe la clave generada por la base para un elemento. */
+    @FunctionalInterface
+    interface KeySetter<T> {
+        void set(T item, long id);
+    }
+
+    /**
+     * Ejecuto la sentencia por lotes sobre todos los elementos.
+     *
+     * @param ps     sentencia ya preparada (con RETURN_GENERATED_KEYS si keys != null)
+     * @param items  elementos a procesar, en orden
+     * @param binder cómo cargar los parámetros de cada elemento
+     * @param keys   si no es null, recibe en orden la clave generada de cada elemento
+     * @return las claves generadas (vacía si keys es null)
+     * @throws SQLException si falla algún lote o la base no devuelve todas las claves
+     */
+    static <T> List<Long> executeBatch(PreparedStatement ps, List<T> items,
+                                       Binder<T> binder, KeySetter<T> keys) throws SQLException {
+        List<Long> ids = new ArrayList<>(keys != null ? items.size() : 0);
+        int desde = 0;
+        while (desde < items.size()) {
+            int hasta = Math.min(desde + Config.BATCH_SIZE, items.size());
+            for (int i = desde; i < hasta; i++) {
+                binder.bind(ps, items.get(i));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+
+            if (keys != null) {
+                // Las claves vuelven en el mismo orden en que se agregaron las filas al lote.
+                int i = desde;
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    while (rs.next() && i < hasta) {
+                        long id = rs.getLong(1);
+                        keys.set(items.get(i++), id);
+                        ids.add(id);
+                    }
+                }
+                if (i != hasta) {
+                    throw new SQLException("La base devolvió " + (i - desde) + " claves generadas para un lote de "
+                            + (hasta - desde) + " filas");
+                }
+            }
+            desde = hasta;
+        }
+        return ids;
+    }
+
+    /**
+     * Busco muchas entidades por ID con consultas WHERE ... IN (...), en tramos
+     * de a lo sumo {@link Config#IN_LIST_MAX_SIZE} IDs, en lugar de una consulta
+     * por ID.
+     *
+     * La cantidad de parámetros de cada tramo se redondea con {@link #tamanioIn}
+     * y los lugares que sobran repiten el último ID (no cambia el resultado).
+     * Así solo hay unas pocas formas de la consulta (8, 16, 32, ... parámetros)
+     * y cada una se prepara una sola vez por conexión en el StatementCache.
+     *
+     * @param conn   conexión a usar
+     * @param ids    IDs buscados (los repetidos se buscan una sola vez)
+     * @param sql    arma la consulta para n parámetros en el IN
+     * @param mapper cómo convertir cada fila
+     * @param clave  ID de cada entidad leída (el mismo que se busca en el IN)
+     * @return ID → entidad, en el orden en que llegaron los IDs; los que no
+     * existen (o están eliminados) no aparecen
+     * @throws IllegalArgumentException si algún ID es null
+     * @throws SQLException si falla alguna consulta
+     */
+    static <T> Map<Long, T> findByIds(Connection conn, Collection<Long> ids, IntFunction<String> sql,
+                                      RowMapper<T> mapper, ToLongFunction<T> clave) throws SQLException {
+        // Sin repetidos y en el orden de llegada
+        List<Long> distintos = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (distintos.contains(null)) {
+            throw new IllegalArgumentException("La lista de IDs no puede contener null");
+        }
+
+        Map<Long, T> encontrados = new HashMap<>(distintos.size() * 2);
+        for (int desde = 0; desde < distintos.size(); desde += Config.IN_LIST_MAX_SIZE) {
+            int hasta = Math.min(desde + Config.IN_LIST_MAX_SIZE, distintos.size());
+            int n = tamanioIn(hasta - desde);
+            try (PreparedStatement ps = conn.prepareStatement(sql.apply(n))) {
+                for (int i = 0; i < n; i++) {
+                    ps.setLong(i + 1, distintos.get(Math.min(desde + i, hasta - 1)));
+                }
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        T entidad = mapper.map(rs);
+                        encontrados.put(clave.applyAsLong(entidad), entidad);
+                    }
+                }
+            }
+        }
+
+        Map<Long, T> resultado = new LinkedHashMap<>(encontrados.size() * 2);
+        for (Long id : distintos) {
+            T entidad = encontrados.get(id);
+            if (entidad != null) resultado.put(id, entidad);
+        }
+        return resultado;
+    }
+
+    /**
+     * Cantidad de parámetros del IN para un tramo de n IDs: la potencia de 2
+     * siguiente (como mínimo 8), sin pasarse de {@link Config#IN_LIST_MAX_SIZE}.
+     */
+    static int tamanioIn(int n) {
+        return tamanioIn(n, Config.IN_LIST_MAX_SIZE);
+    }
+
+    /**
+     * Igual que {@link #tamanioIn(int)} pero con otro tope, para las sentencias
+     * cuyos tramos no se cortan en IN_LIST_MAX_SIZE (por ejemplo, los de
+     * BATCH_SIZE de updateUltimaSesionAll).
+     */
+    static int tamanioIn(int n, int maximo) {
+        int tamanio = Math.max(8, Integer.highestOneBit(Math.max(1, n - 1)) << 1);
+        return Math.min(tamanio, maximo);
+    }
+
+    /** Marcadores de un IN con n parámetros: "?, ?, ?". */
+    static String marcadores(int n) {
+        StringBuilder sb = new StringBuilder(n * 3);
+        for (int i = 0; i < n; i++) sb.append(i == 0 ? "?" : ", ?");
+        return sb.toString();
+    }
+
+    /**
+     * Abro un Stream perezoso sobre el resultado del SQL: cada fila se mapea
+     * recién cuando el consumidor la pide, y con {@link Config#STREAM_FETCH_SIZE}
+     * &gt; 0 el driver la trae del cursor del servidor de a tramos, así que la
+     * memoria usada no depende del tamaño de la tabla.
+     *
+     * El Stream pasa a ser dueño de la conexión: su close() cierra ResultSet,
+     * sentencia y conexión, así que hay que usarlo con try-with-resources.
+     * Si falla la apertura, la conexión se cierra acá mismo.
+     *
+     * Uso la variante de prepareStatement con tipo de ResultSet a propósito:
+     * esa no pasa por el StatementCache, y la sentencia con el cursor abierto
+     * no debe quedar compartida.
+     *
+     * @param conn   conexión a usar (se cierra al cerrar el Stream)
+     * @param sql    consulta sin parámetros
+     * @param mapper cómo convertir cada fila
+     * @throws SQLException si falla la ejecución de la consulta
+     */
+    static <T> Stream<T> stream(Connection conn, String sql, RowMapper<T> mapper) throws SQLException {
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(Config.STREAM_FETCH_SIZE);
+            rs = ps.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            cerrarSilencioso(e, rs, ps, conn);
+            throw e;
+        }
+
+        final ResultSet cursor = rs;
+        final PreparedStatement sentencia = ps;
+        Spliterator<T> filas = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!cursor.next()) return false;
+                    action.accept(mapper.map(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    throw new DataAccessException("Error leyendo el resultado en streaming", e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(filas, false).onClose(() -> {
+            SQLException error = cerrarSilencioso(null, cursor, sentencia, conn);
+            if (error != null) {
+                throw new DataAccessException("Error al cerrar el stream", error);
+            }
+        });
+    }
+
+    /**
+     * Cierro los recursos en orden sin cortar en el primer error. Si recibo una
+     * causa, los errores de cierre se le agregan como suprimidos; si no, devuelvo
+     * el primero (o null si todo cerró bien).
+     */
+    private static SQLException cerrarSilencioso(Throwable causa, AutoCloseable... recursos) {
+        SQLException primero = null;
+        for (AutoCloseable r : recursos) {
+            if (r == null) continue;
+            try {
+                r.close();
+            } catch (Exception e) {
+                SQLException sqle = e instanceof SQLException s ? s : new SQLException(e);
+                if (causa != null) {
+                    causa.addSuppressed(sqle);
+                } else if (primero == null) {
+                    primero = sqle;
+                } else {
+                    primero.addSuppressed(sqle);
+                }
+            }
+        }
+        return primero;
+    }
+
+    /**
+     * Valido el tamaño de página pedido y lo acoto a {@link Config#PAGE_MAX_SIZE}.
+     *
+     * @throws IllegalArgumentException si limit no es positivo
+     */
+    static int limitePagina(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a 0 (recibido: " + limit + ")");
+        }
+        return Math.min(limit, Config.PAGE_MAX_SIZE);
+    }
+
+    /**
+     * Indico si el error es una clave única duplicada: código 1062 en MySQL,
+     * SQLState 23505 en el estándar (H2, PostgreSQL).
+     */
+    static boolean esClaveDuplicada(SQLException e) {
+        return e.getErrorCode() == 1062 || "23505".equals(e.getSQLState());
+    }
+
+    /**
+     * Cursor de la paginación por clave: null (primera página) equivale a 0,
+     * porque los IDs autoincrementales empiezan en 1.
+     */
+    static long cursor(Long afterId) {
+        return afterId == null ? 0L : afterId;
+    }
+}
@@ -1,16 +1,28 @@
 package integradorfinal.programacion2.dao.impl;
 
 import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.config.TransactionTemplate;
+import integradorfinal.programacion2.dao.Disponibilidad;
+import integradorfinal.programacion2.dao.Projection;
 import integradorfinal.programacion2.dao.UsuarioDao;
 import integradorfinal.programacion2.entities.Estado;
 import integradorfinal.programacion2.entities.Usuario;
 import integradorfinal.programacion2.exceptions.DataAccessException;
+import integradorfinal.programacion2.exceptions.DuplicateKeyException;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 
 /**
  * Implementación JDBC del DAO de Usuario.
@@ -22,9 +34,97 @@ import java.util.Optional;
  * También separo claramente:
  * - Métodos que se manejan solos (crean/cierra su propia Connection).
  * - Métodos que reciben una Connection externa para usarse dentro de transacciones.
+ *
+ * Las consultas que se manejan solas piden DatabaseConnection.getReadConnection(),
+ * que puede ser de una réplica; las escrituras, getConnection() (primario).
  */
 public class UsuarioDaoImpl implements UsuarioDao {
 
+    // SQL compartido entre las versiones de a una fila y las de lote
+    private static final String SQL_INSERT = """
+            INSERT INTO usuario (eliminado, username, nombre, apellido, email,
+                                 fecha_registro, activo, estado)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    // UPDATE parcial ya armado para cada combinación de campos modificados
+    private static final Map<Set<Usuario.Campo>, String> SQL_UPDATE_POR_CAMPOS = new ConcurrentHashMap<>();
+
+    private static final String SQL_SOFT_DELETE = "UPDATE usuario SET eliminado = TRUE WHERE id_usuario = ?";
+
+    // ================================
+    // Columnas de cada proyección
+    // ================================
+
+    /**
+     * Columnas de la proyección completa, en el orden en que las lee mapRow.
+     * Las nombro en lugar de usar SELECT * para que el orden no dependa de la
+     * tabla y poder leer cada campo por su posición.
+     */
+    static final String COLUMNAS = "id_usuario, eliminado, username, nombre, apellido, email, "
+            + "fecha_registro, activo, estado";
+
+    // Posición (1..n) de cada columna dentro de COLUMNAS
+    private static final int COL_ID = 1;
+    private static final int COL_ELIMINADO = 2;
+    private static final int COL_USERNAME = 3;
+    private static final int COL_NOMBRE = 4;
+    private static final int COL_APELLIDO = 5;
+    private static final int COL_EMAIL = 6;
+    private static final int COL_FECHA_REGISTRO = 7;
+    private static final int COL_ACTIVO = 8;
+    private static final int COL_ESTADO = 9;
+
+    /** Columnas de la proyección SUMMARY (listados), en el orden en que las lee mapResumen. */
+    static final String COLUMNAS_RESUMEN = "id_usuario, username, estado";
+
+    private static final int RES_ID = 1;
+    private static final int RES_USERNAME = 2;
+    private static final int RES_ESTADO = 3;
+
+    // Las consultas de lectura que no son private las revisa PlanesDeConsultaTest
+    // con EXPLAIN, para ver que usen el índice esperado.
+    private static final String SQL_FIND_BY_ID = select(COLUMNAS, "WHERE id_usuario = ? AND eliminado = FALSE");
+    static final String SQL_FIND_BY_USERNAME = select(COLUMNAS, "WHERE username = ? AND eliminado = FALSE");
+    static final String SQL_FIND_BY_EMAIL = select(COLUMNAS, "WHERE email = ? AND eliminado = FALSE");
+
+    // Disponibilidad: solo miran los índices únicos (SELECT 1, sin columnas de
+    // la fila). No filtro eliminado a propósito: el índice único incluye a los
+    // eliminados y filtrar obligaría a leer la fila de cada coincidencia.
+    static final String SQL_EXISTS_USERNAME = "SELECT EXISTS(SELECT 1 FROM usuario WHERE username = ?)";
+    static final String SQL_EXISTS_EMAIL = "SELECT EXISTS(SELECT 1 FROM usuario WHERE email = ?)";
+    static final String SQL_CHECK_AVAILABILITY = """
+            SELECT EXISTS(SELECT 1 FROM usuario WHERE username = ?),
+                   EXISTS(SELECT 1 FROM usuario WHERE email = ?)
+            """;
+
+    // findByIds: una consulta por cada tamaño de IN (ver JdbcSupport.tamanioIn)
+    private static final Map<Integer, String> SQL_FIND_BY_IDS = new ConcurrentHashMap<>();
+
+    static final String SQL_FIND_ALL = select(COLUMNAS, "WHERE eliminado = FALSE ORDER BY id_usuario");
+    static final String SQL_FIND_ALL_RESUMEN = select(COLUMNAS_RESUMEN, "WHERE eliminado = FALSE ORDER BY id_usuario");
+
+    // Login: usuario + credencial en una sola consulta. Las columnas de la
+    // credencial empiezan después de las de COLUMNAS (ver mapRow(rs, base)).
+    // Usa los índices únicos de username y de credencial_acceso.usuario_id.
+    static final String SQL_FIND_BY_USERNAME_CON_CREDENCIAL =
+            "SELECT " + prefijar("u", COLUMNAS) + ", " + prefijar("c", CredencialAccesoDaoImpl.COLUMNAS)
+            + " FROM usuario u"
+            + " LEFT JOIN credencial_acceso c ON c.usuario_id = u.id_usuario AND c.eliminado = FALSE"
+            + " WHERE u.username = ? AND u.eliminado = FALSE";
+
+    // Cantidad de columnas de COLUMNAS (donde empiezan las de la credencial en el JOIN)
+    private static final int CANT_COLUMNAS = COL_ESTADO;
+
+    // Solo lo uso para mapear las columnas de la credencial en el JOIN
+    private static final CredencialAccesoDaoImpl CREDENCIALES = new CredencialAccesoDaoImpl();
+
+    // Paginación por clave: usa la PK, así que MySQL arranca directo desde afterId
+    static final String SQL_FIND_PAGE =
+            select(COLUMNAS, "WHERE id_usuario > ? AND eliminado = FALSE ORDER BY id_usuario LIMIT ?");
+    static final String SQL_FIND_PAGE_RESUMEN =
+            select(COLUMNAS_RESUMEN, "WHERE id_usuario > ? AND eliminado = FALSE ORDER BY id_usuario LIMIT ?");
+
     // ================================
     // Métodos CRUD básicos
     // ================================
@@ -47,32 +147,23 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public Long create(Usuario usuario, Connection conn) throws SQLException {
-        String sql = """
-            INSERT INTO usuario (eliminado, username, nombre, apellido, email,
-                                 fecha_registro, activo, estado)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-            """;
-
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            ps.setBoolean(1, usuario.isEliminado());
-            ps.setString(2, usuario.getUsername());
-            ps.setString(3, usuario.getNombre());
-            ps.setString(4, usuario.getApellido());
-            ps.setString(5, usuario.getEmail());
-            // Si por alguna razón no viene fecha de registro, uso la fecha/hora actual.
-            ps.setTimestamp(6, Timestamp.valueOf(
-                    usuario.getFechaRegistro() != null ? usuario.getFechaRegistro() : LocalDateTime.now()
-            ));
-            ps.setBoolean(7, usuario.isActivo());
-            // Acá uso el valor que corresponde a cómo lo guardo en la BD (dbValue).
-            ps.setString(8, usuario.getEstado().dbValue());
-            ps.executeUpdate();
+        Long idAnterior = usuario.getIdUsuario();
+        Set<Usuario.Campo> anteriores = usuario.getCamposModificados();
+        try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            bindInsert(ps, usuario);
+            ejecutarEscritura(ps, usuario);
 
             // Recupero la clave primaria autogenerada y la guardo en el objeto.
             try (ResultSet rs = ps.getGeneratedKeys()) {
                 if (rs.next()) {
                     long id = rs.getLong(1);
                     usuario.setIdUsuario(id);
+                    usuario.marcarLimpio();
+                    // Con rollback la fila no existe: le devuelvo el id y los cambios que tenía
+                    TransactionTemplate.siSeRevierte(() -> {
+                        usuario.setIdUsuario(idAnterior);
+                        usuario.marcarModificados(anteriores);
+                    });
                     return id;
                 } else {
                     throw new SQLException("No se obtuvo la clave generada para usuario");
@@ -87,7 +178,7 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public Optional<Usuario> findById(Long id) {
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
             return findById(id, conn);
         } catch (SQLException e) {
             throw new DataAccessException("Error al buscar usuario por id=" + id, e);
@@ -100,8 +191,7 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public Optional<Usuario> findById(Long id, Connection conn) throws SQLException {
-        String sql = "SELECT * FROM usuario WHERE id_usuario = ? AND eliminado = FALSE";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_ID)) {
             ps.setLong(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return Optional.of(mapRow(rs));
@@ -115,7 +205,7 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public List<Usuario> findAll() {
-        try (Connection conn = DatabaseConnection.getConnection()) {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
             return findAll(conn);
         } catch (SQLException e) {
             throw new DataAccessException("Error al listar usuarios", e);
@@ -128,14 +218,80 @@ public class UsuarioDaoImpl implements UsuarioDao {
     @Override
     public List<Usuario> findAll(Connection conn) throws SQLException {
         List<Usuario> lista = new ArrayList<>();
-        String sql = "SELECT * FROM usuario WHERE eliminado = FALSE ORDER BY id_usuario";
-        try (PreparedStatement ps = conn.prepareStatement(sql);
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND_ALL);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) lista.add(mapRow(rs));
         }
         return lista;
     }
 
+    /**
+     * Devuelvo una página de usuarios (no eliminados) usando Connection propia.
+     */
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit) {
+        return findPage(afterId, limit, Projection.FULL);
+    }
+
+    /**
+     * Página de usuarios con la proyección indicada, usando Connection propia.
+     */
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit, Projection projection) {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            return findPage(afterId, limit, projection, conn);
+        } catch (SQLException e) {
+            throw new DataAccessException("Error al listar la página de usuarios después de id=" + afterId, e);
+        }
+    }
+
+    /**
+     * Versión que recibe Connection para traer una página.
+     * En lugar de OFFSET (que obliga a la base a recorrer y descartar las filas
+     * anteriores) filtro por id_usuario &gt; afterId, así cada página cuesta lo mismo.
+     */
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit, Connection conn) throws SQLException {
+        return findPage(afterId, limit, Projection.FULL, conn);
+    }
+
+    /**
+     * Versión que recibe Connection para traer una página con la proyección indicada.
+     */
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit, Projection projection, Connection conn) throws SQLException {
+        int tope = JdbcSupport.limitePagina(limit);
+        String sql = projection == Projection.SUMMARY ? SQL_FIND_PAGE_RESUMEN : SQL_FIND_PAGE;
+        JdbcSupport.RowMapper<Usuario> mapper = mapper(projection);
+        List<Usuario> lista = new ArrayList<>(tope);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, JdbcSupport.cursor(afterId));
+            ps.setInt(2, tope);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) lista.add(mapper.map(rs));
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * Recorro todos los usuarios (no eliminados) en streaming.
+     * La conexión queda tomada por el Stream y se libera cuando se cierra.
+     */
+    @Override
+    public Stream<Usuario> streamAll() throws SQLException {
+        return streamAll(Projection.FULL);
+    }
+
+    /**
+     * Recorro todos los usuarios en streaming con la proyección indicada.
+     */
+    @Override
+    public Stream<Usuario> streamAll(Projection projection) throws SQLException {
+        String sql = projection == Projection.SUMMARY ? SQL_FIND_ALL_RESUMEN : SQL_FIND_ALL;
+        return JdbcSupport.stream(DatabaseConnection.getReadConnection(), sql, mapper(projection));
+    }
+
     /**
      * Actualizo un usuario completo usando Connection propia.
      * Delego en la versión con Connection para reutilizar la lógica.
@@ -148,26 +304,21 @@ public class UsuarioDaoImpl implements UsuarioDao {
     }
 
     /**
-     * Versión que recibe Connection para actualizar todos los datos del usuario.
+     * Versión que recibe Connection. Solo escribo las columnas que cambiaron
+     * desde que el usuario se leyó de la base; si no cambió nada, no mando SQL.
+     * Un usuario armado a mano (no leído) se escribe completo.
      */
     @Override
     public void update(Usuario usuario, Connection conn) throws SQLException {
-        String sql = """
-            UPDATE usuario
-            SET username=?, nombre=?, apellido=?, email=?, activo=?, estado=?, eliminado=?
-            WHERE id_usuario=?
-            """;
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, usuario.getUsername());
-            ps.setString(2, usuario.getNombre());
-            ps.setString(3, usuario.getApellido());
-            ps.setString(4, usuario.getEmail());
-            ps.setBoolean(5, usuario.isActivo());
-            ps.setString(6, usuario.getEstado().dbValue());
-            ps.setBoolean(7, usuario.isEliminado());
-            ps.setLong(8, usuario.getIdUsuario());
-            ps.executeUpdate();
+        Set<Usuario.Campo> campos = usuario.getCamposModificados();
+        if (campos.isEmpty()) return;
+        try (PreparedStatement ps = conn.prepareStatement(sqlUpdate(campos))) {
+            bindUpdate(ps, usuario, campos);
+            ejecutarEscritura(ps, usuario);
         }
+        usuario.marcarLimpio();
+        // Si la transacción termina en rollback, los campos vuelven a quedar pendientes
+        TransactionTemplate.siSeRevierte(() -> usuario.marcarModificados(campos));
     }
 
     /**
@@ -186,8 +337,7 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public void softDeleteById(Long id, Connection conn) throws SQLException {
-        String sql = "UPDATE usuario SET eliminado = TRUE WHERE id_usuario = ?";
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_SOFT_DELETE)) {
             ps.setLong(1, id);
             ps.executeUpdate();
         }
@@ -218,6 +368,105 @@ public class UsuarioDaoImpl implements UsuarioDao {
         }
     }
 
+    // ================================
+    // Operaciones por lote
+    // ================================
+
+    /**
+     * Inserto todos los usuarios por lotes dentro de una única transacción.
+     * Si ya hay una transacción abierta en el hilo, me sumo a ella.
+     */
+    @Override
+    public List<Long> createAll(List<Usuario> usuarios) throws SQLException {
+        return new TransactionTemplate().execute(status -> createAll(usuarios, status.getConnection()));
+    }
+
+    /**
+     * Versión que recibe Connection: uso addBatch/executeBatch y asigno a cada
+     * usuario su ID generado, respetando el orden de la lista.
+     */
+    @Override
+    public List<Long> createAll(List<Usuario> usuarios, Connection conn) throws SQLException {
+        if (usuarios.isEmpty()) return new ArrayList<>();
+        try (PreparedStatement ps = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
+            List<Long> idsAnteriores = new ArrayList<>();
+            List<Set<Usuario.Campo>> anteriores = new ArrayList<>();
+            for (Usuario u : usuarios) {
+                idsAnteriores.add(u.getIdUsuario());
+                anteriores.add(u.getCamposModificados());
+            }
+            // Con rollback (aunque falle a mitad del lote) las filas no existen:
+            // les devuelvo el id y los cambios que tenían
+            TransactionTemplate.siSeRevierte(() -> {
+                for (int i = 0; i < usuarios.size(); i++) {
+                    usuarios.get(i).setIdUsuario(idsAnteriores.get(i));
+                    usuarios.get(i).marcarModificados(anteriores.get(i));
+                }
+            });
+            List<Long> ids = JdbcSupport.executeBatch(ps, usuarios, this::bindInsert, Usuario::setIdUsuario);
+            usuarios.forEach(Usuario::marcarLimpio);
+            return ids;
+        }
+    }
+
+    /**
+     * Actualizo todos los usuarios por lotes dentro de una única transacción.
+     */
+    @Override
+    public void updateAll(List<Usuario> usuarios) throws SQLException {
+        new TransactionTemplate().execute(status -> {
+            updateAll(usuarios, status.getConnection());
+            return null;
+        });
+    }
+
+    /**
+     * Versión que recibe Connection para actualizar por lotes. Agrupo los
+     * usuarios según qué campos cambiaron (cada grupo es un UPDATE distinto)
+     * y salteo los que no tienen cambios.
+     */
+    @Override
+    public void updateAll(List<Usuario> usuarios, Connection conn) throws SQLException {
+        Map<Set<Usuario.Campo>, List<Usuario>> grupos = new LinkedHashMap<>();
+        for (Usuario u : usuarios) {
+            Set<Usuario.Campo> campos = u.getCamposModificados();
+            if (!campos.isEmpty()) {
+                grupos.computeIfAbsent(campos, k -> new ArrayList<>()).add(u);
+            }
+        }
+        for (Map.Entry<Set<Usuario.Campo>, List<Usuario>> grupo : grupos.entrySet()) {
+            Set<Usuario.Campo> campos = grupo.getKey();
+            try (PreparedStatement ps = conn.prepareStatement(sqlUpdate(campos))) {
+                JdbcSupport.executeBatch(ps, grupo.getValue(), (p, u) -> bindUpdate(p, u, campos), null);
+            }
+        }
+        grupos.values().forEach(grupo -> grupo.forEach(Usuario::marcarLimpio));
+        TransactionTemplate.siSeRevierte(() ->
+                grupos.forEach((campos, grupo) -> grupo.forEach(u -> u.marcarModificados(campos))));
+    }
+
+    /**
+     * Baja lógica de varios usuarios por lotes dentro de una única transacción.
+     */
+    @Override
+    public void softDeleteAllById(Collection<Long> ids) throws SQLException {
+        new TransactionTemplate().execute(status -> {
+            softDeleteAllById(ids, status.getConnection());
+            return null;
+        });
+    }
+
+    /**
+     * Versión que recibe Connection para la baja lógica por lotes.
+     */
+    @Override
+    public void softDeleteAllById(Collection<Long> ids, Connection conn) throws SQLException {
+        if (ids.isEmpty()) return;
+        try (PreparedStatement ps = conn.prepareStatement(SQL_SOFT_DELETE)) {
+            JdbcSupport.executeBatch(ps, new ArrayList<>(ids), (st, id) -> st.setLong(1, id), null);
+        }
+    }
+
     // ================================
     // Métodos específicos
     // ================================
@@ -228,9 +477,8 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public Optional<Usuario> findByUsername(String username) throws SQLException {
-        String sql = "SELECT * FROM usuario WHERE username = ? AND eliminado = FALSE";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_USERNAME)) {
             ps.setString(1, username);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return Optional.of(mapRow(rs));
@@ -245,9 +493,8 @@ public class UsuarioDaoImpl implements UsuarioDao {
      */
     @Override
     public Optional<Usuario> findByEmail(String email) throws SQLException {
-        String sql = "SELECT * FROM usuario WHERE email = ? AND eliminado = FALSE";
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getReadConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_EMAIL)) {
             ps.setString(1, email);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) return Optional.of(mapRow(rs));
@@ -256,28 +503,277 @@ public class UsuarioDaoImpl implements UsuarioDao {
         return Optional.empty();
     }
 
+    /**
+     * Me fijo si el username ya está tomado, usando Connection propia.
+     */
+    @Override
+    public boolean existsByUsername(String username) throws SQLException {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            return existsByUsername(username, conn);
+        }
+    }
+
+    @Override
+    public boolean existsByUsername(String username, Connection conn) throws SQLException {
+        return existe(SQL_EXISTS_USERNAME, username, conn);
+    }
+
+    /**
+     * Me fijo si el email ya está tomado, usando Connection propia.
+     */
+    @Override
+    public boolean existsByEmail(String email) throws SQLException {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            return existsByEmail(email, conn);
+        }
+    }
+
+    @Override
+    public boolean existsByEmail(String email, Connection conn) throws SQLException {
+        return existe(SQL_EXISTS_EMAIL, email, conn);
+    }
+
+    /**
+     * Verifico username y email con una sola consulta, usando Connection propia.
+     */
+    @Override
+    public Disponibilidad checkAvailability(String username, String email) throws SQLException {
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            return checkAvailability(username, email, conn);
+        }
+    }
+
+    /**
+     * Versión que recibe Connection. Los dos EXISTS van en la misma fila: un
+     * solo viaje a la base para el formulario de alta.
+     */
+    @Override
+    public Disponibilidad checkAvailability(String username, String email, Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_CHECK_AVAILABILITY)) {
+            ps.setString(1, username);
+            ps.setString(2, email);
+            try (ResultSet rs = ps.executeQuery()) {
+                rs.next();
+                return new Disponibilidad(!rs.getBoolean(1), !rs.getBoolean(2));
+            }
+        }
+    }
+
+    /**
+     * Busco muchos usuarios por ID con WHERE id_usuario IN (...), usando
+     * Connection propia.
+     */
+    @Override
+    public Map<Long, Usuario> findByIds(Collection<Long> ids) throws SQLException {
+        if (ids.isEmpty()) return new LinkedHashMap<>();
+        try (Connection conn = DatabaseConnection.getReadConnection()) {
+            return findByIds(ids, conn);
+        }
+    }
+
+    /**
+     * Versión que recibe Connection. Los tramos y el orden del resultado los
+     * resuelve JdbcSupport.findByIds.
+     */
+    @Override
+    public Map<Long, Usuario> findByIds(Collection<Long> ids, Connection conn) throws SQLException {
+        return JdbcSupport.findByIds(conn, ids, UsuarioDaoImpl::sqlFindByIds, this::mapRow, Usuario::getIdUsuario);
+    }
+
+    /**
+     * Busco un usuario y su credencial con un solo JOIN, usando Connection propia.
+     * Va al primario aunque haya réplicas: el login no puede aceptar una
+     * contraseña que ya se cambió y todavía no llegó a la réplica.
+     */
+    @Override
+    public Optional<Usuario> findByUsernameWithCredencial(String username) throws SQLException {
+        try (Connection conn = DatabaseConnection.getPrimaryReadConnection()) {
+            return findByUsernameWithCredencial(username, conn);
+        }
+    }
+
+    /**
+     * Versión que recibe Connection. Uso LEFT JOIN para distinguir "no existe
+     * el usuario" (sin filas) de "existe pero no tiene credencial" (columnas
+     * de la credencial en NULL).
+     */
+    @Override
+    public Optional<Usuario> findByUsernameWithCredencial(String username, Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_FIND_BY_USERNAME_CON_CREDENCIAL)) {
+            ps.setString(1, username);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) return Optional.empty();
+                Usuario u = mapRow(rs);
+                rs.getLong(CANT_COLUMNAS + 1);
+                if (!rs.wasNull()) {
+                    u.setCredencial(CREDENCIALES.mapRow(rs, CANT_COLUMNAS));
+                }
+                return Optional.of(u);
+            }
+        }
+    }
+
+    /**
+     * Ejecuto el INSERT / UPDATE de un usuario y, si choca con un índice
+     * único, lo informo como {@link DuplicateKeyException} con el campo
+     * repetido. Así la verificación previa de disponibilidad es opcional: la
+     * que manda es la de la base, que además no tiene carrera entre hilos.
+     */
+    private static void ejecutarEscritura(PreparedStatement ps, Usuario usuario) throws SQLException {
+        try {
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            if (!JdbcSupport.esClaveDuplicada(e)) throw e;
+            // El nombre del índice viene en el mensaje ("for key 'usuario.uq_usuario_email'" en MySQL)
+            String mensaje = String.valueOf(e.getMessage()).toLowerCase(Locale.ROOT);
+            if (mensaje.contains("uq_usuario_username")) {
+                throw new DuplicateKeyException(DuplicateKeyException.Campo.USERNAME, usuario.getUsername(), e);
+            }
+            if (mensaje.contains("uq_usuario_email")) {
+                throw new DuplicateKeyException(DuplicateKeyException.Campo.EMAIL, usuario.getEmail(), e);
+            }
+            throw e;
+        }
+    }
+
+    /** Ejecuto un SELECT EXISTS(...) de un parámetro. */
+    private static boolean existe(String sql, String valor, Connection conn) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, valor);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    // ================================
+    // Helpers: carga de parámetros
+    // ================================
+
+    /**
+     * Cargo los parámetros del INSERT (lo comparten create y createAll).
+     */
+    private void bindInsert(PreparedStatement ps, Usuario usuario) throws SQLException {
+        ps.setBoolean(1, usuario.isEliminado());
+        ps.setString(2, usuario.getUsername());
+        ps.setString(3, usuario.getNombre());
+        ps.setString(4, usuario.getApellido());
+        ps.setString(5, usuario.getEmail());
+        // Si por alguna razón no viene fecha de registro, uso la fecha/hora actual.
+        ps.setTimestamp(6, Timestamp.valueOf(
+                usuario.getFechaRegistro() != null ? usuario.getFechaRegistro() : LocalDateTime.now()
+        ));
+        ps.setBoolean(7, usuario.isActivo());
+        // Acá uso el valor que corresponde a cómo lo guardo en la BD (dbValue).
+        ps.setString(8, usuario.getEstado().dbValue());
+    }
+
+    /**
+     * Cargo los parámetros del UPDATE parcial (lo comparten update y updateAll):
+     * primero los campos en el orden de sqlUpdate y al final el id.
+     */
+    private void bindUpdate(PreparedStatement ps, Usuario usuario, Set<Usuario.Campo> campos) throws SQLException {
+        int i = 1;
+        for (Usuario.Campo campo : campos) {
+            switch (campo) {
+                case ELIMINADO -> ps.setBoolean(i, usuario.isEliminado());
+                case USERNAME  -> ps.setString(i, usuario.getUsername());
+                case NOMBRE    -> ps.setString(i, usuario.getNombre());
+                case APELLIDO  -> ps.setString(i, usuario.getApellido());
+                case EMAIL     -> ps.setString(i, usuario.getEmail());
+                case ACTIVO    -> ps.setBoolean(i, usuario.isActivo());
+                case ESTADO    -> ps.setString(i, usuario.getEstado().dbValue());
+            }
+            i++;
+        }
+        ps.setLong(i, usuario.getIdUsuario());
+    }
+
+    /**
+     * Armo (una sola vez por combinación) el UPDATE que escribe solo los
+     * campos indicados. Los recorro en el orden del enum, igual que bindUpdate.
+     */
+    private static String sqlUpdate(Set<Usuario.Campo> campos) {
+        return SQL_UPDATE_POR_CAMPOS.computeIfAbsent(campos, k -> {
+            StringJoiner set = new StringJoiner(", ", "UPDATE usuario SET ", " WHERE id_usuario=?");
+            for (Usuario.Campo campo : k) {
+                set.add(columna(campo) + "=?");
+            }
+            return set.toString();
+        });
+    }
+
+    /** SELECT por id_usuario IN (...) con n parámetros (uno armado por tamaño). */
+    private static String sqlFindByIds(int n) {
+        return SQL_FIND_BY_IDS.computeIfAbsent(n, k ->
+                select(COLUMNAS, "WHERE id_usuario IN (" + JdbcSupport.marcadores(k) + ") AND eliminado = FALSE"));
+    }
+
+    /** Columna de la tabla usuario que corresponde a cada campo. */
+    private static String columna(Usuario.Campo campo) {
+        return switch (campo) {
+            case ELIMINADO -> "eliminado";
+            case USERNAME  -> "username";
+            case NOMBRE    -> "nombre";
+            case APELLIDO  -> "apellido";
+            case EMAIL     -> "email";
+            case ACTIVO    -> "activo";
+            case ESTADO    -> "estado";
+        };
+    }
+
     // ================================
-    // Helper: mapea un ResultSet a Usuario
+    // Helpers: mapean un ResultSet a Usuario
     // ================================
 
     /**
-     * Convierto una fila del ResultSet en un objeto Usuario.
-     * Acá hago el mapeo campo a campo de las columnas de la tabla a mi entidad.
+     * Convierto una fila del ResultSet (seleccionada con COLUMNAS) en un objeto Usuario.
+     * Leo por posición: con el nombre, el driver tiene que buscar la etiqueta
+     * de la columna en cada campo de cada fila.
      */
-    private Usuario mapRow(ResultSet rs) throws SQLException {
+    Usuario mapRow(ResultSet rs) throws SQLException {
         Usuario u = new Usuario();
-        u.setIdUsuario(rs.getLong("id_usuario"));
-        u.setEliminado(rs.getBoolean("eliminado"));
-        u.setUsername(rs.getString("username"));
-        u.setNombre(rs.getString("nombre"));
-        u.setApellido(rs.getString("apellido"));
-        u.setEmail(rs.getString("email"));
-
-        Timestamp ts = rs.getTimestamp("fecha_registro");
+        u.setIdUsuario(rs.getLong(COL_ID));
+        u.setEliminado(rs.getBoolean(COL_ELIMINADO));
+        u.setUsername(rs.getString(COL_USERNAME));
+        u.setNombre(rs.getString(COL_NOMBRE));
+        u.setApellido(rs.getString(COL_APELLIDO));
+        u.setEmail(rs.getString(COL_EMAIL));
+
+        Timestamp ts = rs.getTimestamp(COL_FECHA_REGISTRO);
         if (ts != null) u.setFechaRegistro(ts.toLocalDateTime());
 
-        u.setActivo(rs.getBoolean("activo"));
-        u.setEstado(Estado.from(rs.getString("estado")));
+        u.setActivo(rs.getBoolean(COL_ACTIVO));
+        u.setEstado(Estado.from(rs.getString(COL_ESTADO)));
+        u.marcarLimpio(); // recién leído: todavía no hay nada para grabar
+        return u;
+    }
+
+    /**
+     * Convierto una fila seleccionada con COLUMNAS_RESUMEN en un Usuario
+     * parcial (solo id, username y estado).
+     */
+    Usuario mapResumen(ResultSet rs) throws SQLException {
+        Usuario u = new Usuario();
+        u.setIdUsuario(rs.getLong(RES_ID));
+        u.setUsername(rs.getString(RES_USERNAME));
+        u.setEstado(Estado.from(rs.getString(RES_ESTADO)));
+        u.marcarLimpio();
         return u;
     }
+
+    /** Mapeo que corresponde a cada proyección. */
+    private JdbcSupport.RowMapper<Usuario> mapper(Projection projection) {
+        return projection == Projection.SUMMARY ? this::mapResumen : this::mapRow;
+    }
+
+    /** Antepongo el alias de la tabla a cada columna de la lista ("u.id_usuario, u.eliminado, ..."). */
+    private static String prefijar(String alias, String columnas) {
+        return alias + "." + columnas.replace(", ", ", " + alias + ".");
+    }
+
+    /** Armo un SELECT sobre usuario con las columnas indicadas. */
+    private static String select(String columnas, String resto) {
+        return "SELECT " + columnas + " FROM usuario " + resto;
+    }
 }
@@ -1,6 +1,9 @@
 package integradorfinal.programacion2.entities;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Esta clase representa exactamente una fila de la tabla `credencial_acceso`.
@@ -10,6 +13,9 @@ import java.time.LocalDateTime;
  * 
  * Cada credencial está ligada a un usuario mediante una relación 1:1.
  * El campo `usuarioId` es la FK contra usuario.id_usuario.
+ * 
+ * Los setters anotan qué campos cambiaron desde que se leyó de la base,
+ * así el DAO puede actualizar solo esas columnas.
  */
 public class CredencialAcceso {
 
@@ -28,7 +34,8 @@ public class CredencialAcceso {
     // Fecha/hora de la última sesión exitosa del usuario
     private LocalDateTime ultimaSesion;
 
-    // Hash SHA-256 de la contraseña (nunca guardo la contraseña en texto plano)
+    // Hash de la contraseña, con el esquema como prefijo si no es el SHA-256 original
+    // (nunca guardo la contraseña en texto plano)
     private String hashPassword;
 
     // Salt usado para el hash (parte clave para validar contraseñas)
@@ -40,6 +47,14 @@ public class CredencialAcceso {
     // Indica si el usuario debe cambiar la contraseña en el próximo login
     private boolean requiereReset;
 
+    /** Campos que se pueden actualizar con un UPDATE parcial (todos menos el id). */
+    public enum Campo {
+        ELIMINADO, USUARIO_ID, ESTADO, ULTIMA_SESION, HASH_PASSWORD, SALT, ULTIMO_CAMBIO, REQUIERE_RESET
+    }
+
+    // Campos cambiados desde que se leyó de la base (null = no viene de la base: todos)
+    private EnumSet<Campo> modificados = null;
+
 
     // --- Constructores ---
 
@@ -63,6 +78,13 @@ public class CredencialAcceso {
         this.requiereReset = requiereReset;
     }
 
+    /** Constructor de copia, con los mismos campos marcados como modificados. */
+    public CredencialAcceso(CredencialAcceso otra) {
+        this(otra.idCredencial, otra.eliminado, otra.usuarioId, otra.estado, otra.ultimaSesion,
+                otra.hashPassword, otra.salt, otra.ultimoCambio, otra.requiereReset);
+        this.modificados = otra.modificados == null ? null : EnumSet.copyOf(otra.modificados);
+    }
+
 
     // --- Getters y Setters (acceso estándar para JDBC y servicios) ---
 
@@ -70,29 +92,95 @@ public class CredencialAcceso {
     public void setIdCredencial(Long idCredencial) { this.idCredencial = idCredencial; }
 
     public boolean isEliminado() { return eliminado; }
-    public void setEliminado(boolean eliminado) { this.eliminado = eliminado; }
+    public void setEliminado(boolean eliminado) {
+        marcar(Campo.ELIMINADO, this.eliminado, eliminado);
+        this.eliminado = eliminado;
+    }
 
     public Long getUsuarioId() { return usuarioId; }
-    public void setUsuarioId(Long usuarioId) { this.usuarioId = usuarioId; }
+    public void setUsuarioId(Long usuarioId) {
+        marcar(Campo.USUARIO_ID, this.usuarioId, usuarioId);
+        this.usuarioId = usuarioId;
+    }
 
     public Estado getEstado() { return estado; }
-    public void setEstado(Estado estado) { this.estado = estado; }
+    public void setEstado(Estado estado) {
+        marcar(Campo.ESTADO, this.estado, estado);
+        this.estado = estado;
+    }
 
     public LocalDateTime getUltimaSesion() { return ultimaSesion; }
-    public void setUltimaSesion(LocalDateTime ultimaSesion) { this.ultimaSesion = ultimaSesion; }
+    public void setUltimaSesion(LocalDateTime ultimaSesion) {
+        marcar(Campo.ULTIMA_SESION, this.ultimaSesion, ultimaSesion);
+        this.ultimaSesion = ultimaSesion;
+    }
 
     public String getHashPassword() { return hashPassword; }
-    public void setHashPassword(String hashPassword) { this.hashPassword = hashPassword; }
+    public void setHashPassword(String hashPassword) {
+        marcar(Campo.HASH_PASSWORD, this.hashPassword, hashPassword);
+        this.hashPassword = hashPassword;
+    }
 
     public String getSalt() { return salt; }
-    public void setSalt(String salt) { this.salt = salt; }
+    public void setSalt(String salt) {
+        marcar(Campo.SALT, this.salt, salt);
+        this.salt = salt;
+    }
 
     public LocalDateTime getUltimoCambio() { return ultimoCambio; }
-    public void setUltimoCambio(LocalDateTime ultimoCambio) { this.ultimoCambio = ultimoCambio; }
+    public void setUltimoCambio(LocalDateTime ultimoCambio) {
+        marcar(Campo.ULTIMO_CAMBIO, this.ultimoCambio, ultimoCambio);
+        this.ultimoCambio = ultimoCambio;
+    }
 
     public boolean isRequiereReset() { return requiereReset; }
-    public void setRequiereReset(boolean requiereReset) { this.requiereReset = requiereReset; }
+    public void setRequiereReset(boolean requiereReset) {
+        marcar(Campo.REQUIERE_RESET, this.requiereReset, requiereReset);
+        this.requiereReset = requiereReset;
+    }
+
+
+    // --- Seguimiento de cambios (para UPDATE parciales) ---
+
+    /**
+     * Marco la entidad como "igual a la base": a partir de acá solo se
+     * consideran modificados los campos que cambien por setter.
+     * Lo llaman los DAO al mapear una fila y después de un update.
+     */
+    public void marcarLimpio() {
+        modificados = EnumSet.noneOf(Campo.class);
+    }
 
+    /**
+     * Vuelvo a marcar como modificados los campos indicados. Lo usan los DAO
+     * cuando la transacción en la que se grabaron termina en rollback: lo
+     * que se había dado por grabado vuelve a estar pendiente.
+     */
+    public void marcarModificados(Set<Campo> campos) {
+        if (modificados != null) {
+            modificados.addAll(campos);
+        }
+    }
+
+    /**
+     * Campos que cambiaron desde que se leyó de la base. Si la entidad no
+     * vino de la base (se armó a mano), devuelvo todos.
+     */
+    public Set<Campo> getCamposModificados() {
+        return modificados == null ? EnumSet.allOf(Campo.class) : EnumSet.copyOf(modificados);
+    }
+
+    /** true si hay algún campo para guardar. */
+    public boolean isModificado() {
+        return modificados == null || !modificados.isEmpty();
+    }
+
+    /** Anoto el campo como modificado, solo si el valor realmente cambió. */
+    private void marcar(Campo campo, Object anterior, Object nuevo) {
+        if (modificados != null && !Objects.equals(anterior, nuevo)) {
+            modificados.add(campo);
+        }
+    }
 
     // --- toString ---
     /**
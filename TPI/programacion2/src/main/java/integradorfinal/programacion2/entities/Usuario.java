@@ -1,6 +1,9 @@
 package integradorfinal.programacion2.entities;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Esta clase representa una fila de la tabla `usuario`.
@@ -10,6 +13,9 @@ import java.time.LocalDateTime;
  * 
  * Además, cada Usuario puede tener asociada una CredencialAcceso en una
  * relación 1:1, lo cual reflejo con el atributo `credencial`.
+ * 
+ * Lo único que agrega a un POJO es anotar qué campos cambiaron desde que se
+ * leyó de la base, para que el DAO actualice solo esas columnas.
  */
 public class Usuario {
 
@@ -41,6 +47,15 @@ public class Usuario {
     // Relación 1:1 → cada usuario puede tener exactamente una credencial
     private CredencialAcceso credencial;
 
+    /**
+     * Campos que se pueden actualizar con un UPDATE parcial (el id y la fecha
+     * de registro no se modifican nunca).
+     */
+    public enum Campo { ELIMINADO, USERNAME, NOMBRE, APELLIDO, EMAIL, ACTIVO, ESTADO }
+
+    // Campos cambiados desde que se leyó de la base (null = no viene de la base: todos)
+    private EnumSet<Campo> modificados = null;
+
 
     // --- Constructores ---
 
@@ -79,6 +94,20 @@ public class Usuario {
         this.estado = estado;
     }
 
+    /**
+     * Constructor de copia: la uso para no compartir la misma instancia entre
+     * hilos (caché, búsquedas compartidas). Copia también la credencial y los
+     * campos marcados como modificados.
+     *
+     * @param otro usuario a copiar
+     */
+    public Usuario(Usuario otro) {
+        this(otro.idUsuario, otro.eliminado, otro.username, otro.nombre, otro.apellido,
+                otro.email, otro.fechaRegistro, otro.activo, otro.estado);
+        this.credencial = otro.credencial == null ? null : new CredencialAcceso(otro.credencial);
+        this.modificados = otro.modificados == null ? null : EnumSet.copyOf(otro.modificados);
+    }
+
 
     // --- Getters y Setters ---
 
@@ -86,32 +115,95 @@ public class Usuario {
     public void setIdUsuario(Long idUsuario) { this.idUsuario = idUsuario; }
 
     public boolean isEliminado() { return eliminado; }
-    public void setEliminado(boolean eliminado) { this.eliminado = eliminado; }
+    public void setEliminado(boolean eliminado) {
+        marcar(Campo.ELIMINADO, this.eliminado, eliminado);
+        this.eliminado = eliminado;
+    }
 
     public String getUsername() { return username; }
-    public void setUsername(String username) { this.username = username; }
+    public void setUsername(String username) {
+        marcar(Campo.USERNAME, this.username, username);
+        this.username = username;
+    }
 
     public String getNombre() { return nombre; }
-    public void setNombre(String nombre) { this.nombre = nombre; }
+    public void setNombre(String nombre) {
+        marcar(Campo.NOMBRE, this.nombre, nombre);
+        this.nombre = nombre;
+    }
 
     public String getApellido() { return apellido; }
-    public void setApellido(String apellido) { this.apellido = apellido; }
+    public void setApellido(String apellido) {
+        marcar(Campo.APELLIDO, this.apellido, apellido);
+        this.apellido = apellido;
+    }
 
     public String getEmail() { return email; }
-    public void setEmail(String email) { this.email = email; }
+    public void setEmail(String email) {
+        marcar(Campo.EMAIL, this.email, email);
+        this.email = email;
+    }
 
     public LocalDateTime getFechaRegistro() { return fechaRegistro; }
     public void setFechaRegistro(LocalDateTime fechaRegistro) { this.fechaRegistro = fechaRegistro; }
 
     public boolean isActivo() { return activo; }
-    public void setActivo(boolean activo) { this.activo = activo; }
+    public void setActivo(boolean activo) {
+        marcar(Campo.ACTIVO, this.activo, activo);
+        this.activo = activo;
+    }
 
     public Estado getEstado() { return estado; }
-    public void setEstado(Estado estado) { this.estado = estado; }
+    public void setEstado(Estado estado) {
+        marcar(Campo.ESTADO, this.estado, estado);
+        this.estado = estado;
+    }
 
     public CredencialAcceso getCredencial() { return credencial; }
     public void setCredencial(CredencialAcceso credencial) { this.credencial = credencial; }
 
+    // --- Seguimiento de cambios (para UPDATE parciales) ---
+
+    /**
+     * Marco la entidad como "igual a la base": a partir de acá solo se
+     * consideran modificados los campos que cambien por setter.
+     * Lo llaman los DAO al mapear una fila y después de un update.
+     */
+    public void marcarLimpio() {
+        modificados = EnumSet.noneOf(Campo.class);
+    }
+
+    /**
+     * Vuelvo a marcar como modificados los campos indicados. Lo usan los DAO
+     * cuando la transacción en la que se grabaron termina en rollback: lo
+     * que se había dado por grabado vuelve a estar pendiente.
+     */
+    public void marcarModificados(Set<Campo> campos) {
+        if (modificados != null) {
+            modificados.addAll(campos);
+        }
+    }
+
+    /**
+     * Campos que cambiaron desde que se leyó de la base. Si la entidad no
+     * vino de la base (se armó a mano), devuelvo todos.
+     */
+    public Set<Campo> getCamposModificados() {
+        return modificados == null ? EnumSet.allOf(Campo.class) : EnumSet.copyOf(modificados);
+    }
+
+    /** true si hay algún campo para guardar. */
+    public boolean isModificado() {
+        return modificados == null || !modificados.isEmpty();
+    }
+
+    /** Anoto el campo como modificado, solo si el valor realmente cambió. */
+    private void marcar(Campo campo, Object anterior, Object nuevo) {
+        if (modificados != null && !Objects.equals(anterior, nuevo)) {
+            modificados.add(campo);
+        }
+    }
+
     // --- toString ---
 
     /**
@@ -0,0 +1,40 @@
+package integradorfinal.programacion2.exceptions;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+
+/**
+ * Alta o modificación de un usuario que chocó con uno de los índices únicos
+ * (uq_usuario_username / uq_usuario_email).
+ *
+ * La lanza el DAO al traducir el error de clave duplicada de la base, así
+ * que no hace falta verificar la disponibilidad antes de grabar: con
+ * {@link #getCampo()} se sabe cuál de los dos estaba tomado. Extiende
+ * SQLIntegrityConstraintViolationException para que los catch (SQLException)
+ * que ya había la sigan atrapando.
+ */
+public class DuplicateKeyException extends SQLIntegrityConstraintViolationException {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Qué índice único se violó. */
+    public enum Campo {
+        USERNAME,
+        EMAIL
+    }
+
+    private final Campo campo;
+    private final String valor;
+
+    public DuplicateKeyException(Campo campo, String valor, SQLException causa) {
+        super("Ya existe un usuario con " + campo.name().toLowerCase() + " = " + valor,
+                causa.getSQLState(), causa.getErrorCode(), causa);
+        this.campo = campo;
+        this.valor = valor;
+    }
+
+    public Campo getCampo() { return campo; }
+
+    /** El username o email repetido. */
+    public String getValor() { return valor; }
+}
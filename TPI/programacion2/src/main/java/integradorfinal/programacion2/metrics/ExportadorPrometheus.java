@@ -0,0 +1,131 @@
+package integradorfinal.programacion2.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vuelca las métricas a un archivo en el formato de texto de Prometheus,
+ * cada tantos segundos, para que lo levante un node_exporter (textfile
+ * collector) o cualquier otra herramienta que lea ese formato.
+ *
+ * El archivo se escribe primero como .tmp y después se renombra, así quien
+ * lo lee nunca ve uno a medio escribir.
+ *
+ * Por cada operación salen tpi_operacion_llamadas_total,
+ * tpi_operacion_errores_total y el summary tpi_operacion_latencia_segundos
+ * (cuantiles 0.5 / 0.9 / 0.99 / 0.999, _sum y _count); cada medidor sale
+ * como gauge tpi_grupo_valor.
+ */
+final class ExportadorPrometheus {
+
+    private static final double NS_POR_S = 1_000_000_000.0;
+    private static final double[] CUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Path archivo;
+    private final int intervaloSeg;
+    private final ScheduledExecutorService hilo;
+
+    ExportadorPrometheus(Path archivo, int intervaloSeg) {
+        this.archivo = archivo;
+        this.intervaloSeg = intervaloSeg;
+        this.hilo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metricas-prometheus");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void iniciar() {
+        hilo.scheduleWithFixedDelay(this::escribir, intervaloSeg, intervaloSeg, TimeUnit.SECONDS);
+    }
+
+    /** Dejo de volcar, escribiendo una última vez lo que haya. */
+    void detener() {
+        hilo.shutdownNow();
+        escribir();
+    }
+
+    private void escribir() {
+        try {
+            Path tmp = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+            Files.writeString(tmp, Metricas.textoPrometheus(), StandardCharsets.UTF_8);
+            Files.move(tmp, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            // Un volcado fallido no tiene que cortar el hilo: se reintenta en el próximo
+            System.err.println("No se pudieron escribir las métricas en " + archivo + ": " + e.getMessage());
+        }
+    }
+
+    // ======================================================
+    // FORMATO
+    // ======================================================
+
+    static String formatear(Collection<OperacionMetricas> operaciones, Collection<Medidores> medidores) {
+        StringBuilder sb = new StringBuilder();
+
+        if (!operaciones.isEmpty()) {
+            sb.append("# HELP tpi_operacion_llamadas_total Llamadas a cada método de DAO / servicio.\n")
+              .append("# TYPE tpi_operacion_llamadas_total counter\n");
+            for (OperacionMetricas op : operaciones) {
+                linea(sb, "tpi_operacion_llamadas_total", etiqueta(op), op.getLlamadas());
+            }
+            sb.append("# HELP tpi_operacion_errores_total Llamadas que terminaron con excepción.\n")
+              .append("# TYPE tpi_operacion_errores_total counter\n");
+            for (OperacionMetricas op : operaciones) {
+                linea(sb, "tpi_operacion_errores_total", etiqueta(op), op.getErrores());
+            }
+            sb.append("# HELP tpi_operacion_latencia_segundos Latencia de cada método de DAO / servicio.\n")
+              .append("# TYPE tpi_operacion_latencia_segundos summary\n");
+            for (OperacionMetricas op : operaciones) {
+                Histograma h = op.getLatencias();
+                for (double q : CUANTILES) {
+                    linea(sb, "tpi_operacion_latencia_segundos",
+                            etiqueta(op) + ",quantile=\"" + q + "\"", h.percentil(q * 100) / NS_POR_S);
+                }
+                linea(sb, "tpi_operacion_latencia_segundos_sum", etiqueta(op), h.getSumaNs() / NS_POR_S);
+                linea(sb, "tpi_operacion_latencia_segundos_count", etiqueta(op), h.getCantidad());
+            }
+        }
+
+        for (Medidores m : medidores) {
+            for (Map.Entry<String, Number> e : m.leer().entrySet()) {
+                String nombre = "tpi_" + nombreMetrica(m.getGrupo()) + "_" + nombreMetrica(e.getKey());
+                sb.append("# TYPE ").append(nombre).append(" gauge\n");
+                linea(sb, nombre, null, e.getValue());
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String etiqueta(OperacionMetricas op) {
+        return "operacion=\"" + op.getNombre().replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private static void linea(StringBuilder sb, String nombre, String etiquetas, Number valor) {
+        sb.append(nombre);
+        if (etiquetas != null) {
+            sb.append('{').append(etiquetas).append('}');
+        }
+        sb.append(' ');
+        if (valor instanceof Double || valor instanceof Float) {
+            sb.append(String.format(Locale.ROOT, "%.9g", valor.doubleValue()));
+        } else {
+            sb.append(valor);
+        }
+        sb.append('\n');
+    }
+
+    /** Paso un nombre como "hitRatio" o "enCola" a hit_ratio / en_cola. */
+    private static String nombreMetrica(String nombre) {
+        return nombre.replaceAll("([a-z0-9])([A-Z])", "$1_$2").replaceAll("[^A-Za-z0-9_]", "_").toLowerCase(Locale.ROOT);
+    }
+}
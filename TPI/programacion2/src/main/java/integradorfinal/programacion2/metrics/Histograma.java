@@ -0,0 +1,108 @@
+package integradorfinal.programacion2.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias al estilo HDR: los valores (en nanosegundos) se
+ * cuentan en cubetas de ancho creciente, 16 por cada potencia de 2. Así el
+ * error de cualquier percentil es de a lo sumo ~6% del valor, sin importar
+ * si la operación tarda microsegundos o segundos, y la memoria es fija
+ * (960 contadores) sin guardar cada muestra.
+ *
+ * Registrar es un par de operaciones atómicas, sin locks, así que se puede
+ * llamar desde muchos hilos a la vez. Los valores son acumulados desde que
+ * se creó (o desde el último reiniciar()).
+ */
+public final class Histograma {
+
+    // Valores menores a 32 ns van cada uno en su cubeta; desde ahí, 16 cubetas por potencia de 2
+    private static final int EXACTAS = 32;
+    private static final int POR_POTENCIA = 16;
+    private static final int CUBETAS = EXACTAS + (63 - 5) * POR_POTENCIA;
+
+    private final AtomicLongArray cubetas = new AtomicLongArray(CUBETAS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder sumaNs = new LongAdder();
+    private final LongAccumulator maxNs = new LongAccumulator(Math::max, 0);
+
+    /** Anoto una muestra (los valores negativos cuentan como 0). */
+    public void registrar(long ns) {
+        long v = Math.max(0, ns);
+        cubetas.incrementAndGet(indice(v));
+        cantidad.increment();
+        sumaNs.add(v);
+        maxNs.accumulate(v);
+    }
+
+    public long getCantidad() { return cantidad.sum(); }
+
+    public long getSumaNs() { return sumaNs.sum(); }
+
+    public long getMaxNs() { return maxNs.get(); }
+
+    public double getMediaNs() {
+        long n = getCantidad();
+        return n == 0 ? 0.0 : getSumaNs() / (double) n;
+    }
+
+    /**
+     * Percentil aproximado en nanosegundos (p entre 0 y 100). Devuelvo el
+     * punto medio de la cubeta donde cae, sin pasarme del máximo visto.
+     */
+    public long percentil(double p) {
+        long[] copia = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            copia[i] = cubetas.get(i);
+            total += copia[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(Math.min(100.0, Math.max(0.0, p)) / 100.0 * total));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += copia[i];
+            if (acumulado >= objetivo) {
+                return Math.min(medio(i), getMaxNs());
+            }
+        }
+        return getMaxNs();
+    }
+
+    /** Vuelvo todo a cero. */
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas.set(i, 0);
+        }
+        cantidad.reset();
+        sumaNs.reset();
+        maxNs.reset();
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    static int indice(long v) {
+        if (v < EXACTAS) {
+            return (int) v;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(v);       // >= 5
+        int sub = (int) (v >>> (exponente - 4)) - POR_POTENCIA;  // 0..15
+        return EXACTAS + (exponente - 5) * POR_POTENCIA + sub;
+    }
+
+    private static long medio(int i) {
+        if (i < EXACTAS) {
+            return i;
+        }
+        int exponente = (i - EXACTAS) / POR_POTENCIA + 5;
+        int sub = (i - EXACTAS) % POR_POTENCIA;
+        long ancho = 1L << (exponente - 4);
+        long desde = (POR_POTENCIA + sub) * ancho;
+        return desde + ancho / 2;
+    }
+}
@@ -0,0 +1,101 @@
+package integradorfinal.programacion2.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.ReflectionException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Grupo de valores instantáneos (conexiones activas, aciertos de la caché,
+ * tareas en cola, ...) que se leen en el momento en que se consultan.
+ * Se publica por JMX como un MBean de solo lectura con un atributo por
+ * valor (integradorfinal.programacion2:type=Medidores,name=grupo).
+ */
+public final class Medidores implements DynamicMBean {
+
+    private final String grupo;
+    private final Map<String, Supplier<? extends Number>> valores;
+
+    Medidores(String grupo, Map<String, Supplier<? extends Number>> valores) {
+        this.grupo = grupo;
+        // Ordenados por nombre, así JMX y el archivo de Prometheus salen siempre igual
+        this.valores = new TreeMap<>(valores);
+    }
+
+    public String getGrupo() { return grupo; }
+
+    /** Leo todos los valores ahora (los que fallan al leerse quedan afuera). */
+    public Map<String, Number> leer() {
+        Map<String, Number> lectura = new LinkedHashMap<>();
+        valores.forEach((nombre, s) -> {
+            Number n = leerUno(s);
+            if (n != null) {
+                lectura.put(nombre, n);
+            }
+        });
+        return lectura;
+    }
+
+    // ======================================================
+    // JMX
+    // ======================================================
+
+    @Override
+    public Object getAttribute(String nombre) throws AttributeNotFoundException {
+        Supplier<? extends Number> s = valores.get(nombre);
+        if (s == null) {
+            throw new AttributeNotFoundException(nombre);
+        }
+        return leerUno(s);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] nombres) {
+        AttributeList lista = new AttributeList();
+        for (String nombre : nombres) {
+            Supplier<? extends Number> s = valores.get(nombre);
+            if (s != null) {
+                lista.add(new Attribute(nombre, leerUno(s)));
+            }
+        }
+        return lista;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Los medidores son de solo lectura: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        MBeanAttributeInfo[] atributos = valores.keySet().stream()
+                .map(n -> new MBeanAttributeInfo(n, Number.class.getName(), n, true, false, false))
+                .toArray(MBeanAttributeInfo[]::new);
+        return new MBeanInfo(getClass().getName(), "Medidores de " + grupo, atributos, null, null, null);
+    }
+
+    private static Number leerUno(Supplier<? extends Number> s) {
+        try {
+            return s.get();
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
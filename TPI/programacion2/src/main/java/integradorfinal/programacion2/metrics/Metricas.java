@@ -0,0 +1,213 @@
+package integradorfinal.programacion2.metrics;
+
+import integradorfinal.programacion2.config.Config;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Registro central de métricas de la aplicación.
+ *
+ * - Operaciones: cada método de un DAO o servicio envuelto con
+ *   {@link #instrumentar} cuenta llamadas, errores y latencias en un
+ *   {@link OperacionMetricas} llamado "Interfaz.metodo" (las sobrecargas de un
+ *   mismo método, como la que recibe Connection, suman juntas).
+ * - Medidores: valores instantáneos que registran los componentes (pool de
+ *   conexiones, caché de usuarios, pools de hilos), ver {@link #registrarMedidores}.
+ *
+ * Si metrics.jmx está activo, cada operación y cada grupo de medidores se
+ * publica como MBean bajo el dominio integradorfinal.programacion2. Si se
+ * configura metrics.prometheus.file, {@link #iniciarExportador()} lo
+ * reescribe cada tanto con todo en formato de texto de Prometheus.
+ *
+ * Con metrics.enabled=false, instrumentar devuelve el objeto tal cual y no
+ * se registra nada.
+ */
+public final class Metricas {
+
+    private static final String DOMINIO = "integradorfinal.programacion2";
+
+    private static final Map<String, OperacionMetricas> OPERACIONES = new ConcurrentHashMap<>();
+    private static final Map<String, Medidores> MEDIDORES = new ConcurrentHashMap<>();
+
+    private static ExportadorPrometheus exportador = null;
+
+    private Metricas() {}
+
+    // ======================================================
+    // OPERACIONES
+    // ======================================================
+
+    /** Devuelvo (creando si hace falta) las métricas de la operación con ese nombre. */
+    public static OperacionMetricas operacion(String nombre) {
+        return OPERACIONES.computeIfAbsent(nombre, n -> {
+            OperacionMetricas op = new OperacionMetricas(n);
+            publicar("type=Operacion,name=" + n, op);
+            return op;
+        });
+    }
+
+    /**
+     * Envuelvo {@code objetivo} en un Proxy de la interfaz indicada que mide
+     * cada llamada. Los métodos de Object (toString, equals, hashCode) no se
+     * miden. Las excepciones llegan a quien llama igual que sin el Proxy.
+     *
+     * @param interfaz interfaz por la que se usa el objeto (UsuarioDao, UsuarioService...)
+     * @param objetivo implementación real
+     * @param prefijo  prefijo de los nombres de operación (por ejemplo "UsuarioDao")
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T instrumentar(Class<T> interfaz, T objetivo, String prefijo) {
+        if (!Config.METRICS_ENABLED || objetivo == null || yaInstrumentado(objetivo)) {
+            return objetivo;
+        }
+        return (T) Proxy.newProxyInstance(interfaz.getClassLoader(), new Class<?>[]{interfaz},
+                new Medicion(objetivo, prefijo));
+    }
+
+    /** Todas las operaciones medidas hasta ahora, ordenadas por nombre. */
+    public static Collection<OperacionMetricas> operaciones() {
+        List<OperacionMetricas> lista = new ArrayList<>(OPERACIONES.values());
+        lista.sort(Comparator.comparing(OperacionMetricas::getNombre));
+        return lista;
+    }
+
+    // ======================================================
+    // MEDIDORES
+    // ======================================================
+
+    /**
+     * Registro (o reemplazo, si ya existía) un grupo de medidores. Los
+     * valores se leen recién cuando alguien los consulta.
+     *
+     * @param grupo   nombre del grupo (Pool, CacheUsuario, ...)
+     * @param valores nombre de cada valor → cómo leerlo
+     */
+    public static void registrarMedidores(String grupo, Map<String, Supplier<? extends Number>> valores) {
+        if (!Config.METRICS_ENABLED) {
+            return;
+        }
+        Medidores m = new Medidores(grupo, valores);
+        MEDIDORES.put(grupo, m);
+        publicar("type=Medidores,name=" + grupo, m);
+    }
+
+    /** Todos los grupos de medidores registrados, ordenados por nombre. */
+    public static Collection<Medidores> medidores() {
+        List<Medidores> lista = new ArrayList<>(MEDIDORES.values());
+        lista.sort(Comparator.comparing(Medidores::getGrupo));
+        return lista;
+    }
+
+    // ======================================================
+    // EXPORTACIÓN
+    // ======================================================
+
+    /**
+     * Arranco el volcado periódico a metrics.prometheus.file (si está
+     * configurado y las métricas están activas). Se llama una vez al iniciar.
+     */
+    public static synchronized void iniciarExportador() {
+        if (!Config.METRICS_ENABLED || Config.METRICS_PROMETHEUS_FILE.isEmpty() || exportador != null) {
+            return;
+        }
+        exportador = new ExportadorPrometheus(Path.of(Config.METRICS_PROMETHEUS_FILE),
+                Config.METRICS_PROMETHEUS_INTERVAL_S);
+        exportador.iniciar();
+        System.out.println("Métricas: se vuelcan cada " + Config.METRICS_PROMETHEUS_INTERVAL_S
+                + " s en " + Config.METRICS_PROMETHEUS_FILE);
+    }
+
+    /** Detengo el volcado periódico (dejando escrito el último estado). */
+    public static synchronized void detenerExportador() {
+        if (exportador != null) {
+            exportador.detener();
+            exportador = null;
+        }
+    }
+
+    /** Todas las métricas en formato de texto de Prometheus. */
+    public static String textoPrometheus() {
+        return ExportadorPrometheus.formatear(operaciones(), medidores());
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private static boolean yaInstrumentado(Object objeto) {
+        return Proxy.isProxyClass(objeto.getClass()) && Proxy.getInvocationHandler(objeto) instanceof Medicion;
+    }
+
+    /** Registro el MBean (reemplazando uno anterior con el mismo nombre). */
+    private static void publicar(String propiedades, Object mbean) {
+        if (!Config.METRICS_JMX) {
+            return;
+        }
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName(DOMINIO + ":" + propiedades);
+            if (servidor.isRegistered(nombre)) {
+                servidor.unregisterMBean(nombre);
+            }
+            servidor.registerMBean(mbean, nombre);
+        } catch (JMException e) {
+            // Sin JMX la aplicación sigue igual; las métricas quedan en memoria
+            System.err.println("No se pudo publicar la métrica " + propiedades + " por JMX: " + e.getMessage());
+        }
+    }
+
+    /** Handler del Proxy de {@link #instrumentar}: mide y delega. */
+    private static final class Medicion implements InvocationHandler {
+
+        private final Object objetivo;
+        private final String prefijo;
+        // Cache por Method para no armar el nombre en cada llamada
+        private final Map<Method, OperacionMetricas> porMetodo = new ConcurrentHashMap<>();
+
+        Medicion(Object objetivo, String prefijo) {
+            this.objetivo = objetivo;
+            this.prefijo = prefijo;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method metodo, Object[] args) throws Throwable {
+            if (metodo.getDeclaringClass() == Object.class) {
+                return invocar(metodo, args);
+            }
+            OperacionMetricas op = porMetodo.computeIfAbsent(metodo,
+                    m -> operacion(prefijo + "." + m.getName()));
+            long inicio = System.nanoTime();
+            try {
+                Object resultado = invocar(metodo, args);
+                op.exito(System.nanoTime() - inicio);
+                return resultado;
+            } catch (Throwable t) {
+                op.error(System.nanoTime() - inicio);
+                throw t;
+            }
+        }
+
+        private Object invocar(Method metodo, Object[] args) throws Throwable {
+            try {
+                return metodo.invoke(objetivo, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package integradorfinal.programacion2.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Llamadas, errores y latencias de una operación (por ejemplo
+ * "UsuarioDao.findByUsername"). Las latencias incluyen las llamadas que
+ * terminaron con error.
+ */
+public final class OperacionMetricas implements OperacionMetricasMBean {
+
+    private static final double NS_POR_MS = 1_000_000.0;
+
+    private final String nombre;
+    private final LongAdder llamadas = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+    private final Histograma latencias = new Histograma();
+
+    OperacionMetricas(String nombre) {
+        this.nombre = nombre;
+    }
+
+    /** Anoto una llamada que terminó bien. */
+    public void exito(long ns) {
+        llamadas.increment();
+        latencias.registrar(ns);
+    }
+
+    /** Anoto una llamada que terminó con excepción. */
+    public void error(long ns) {
+        llamadas.increment();
+        errores.increment();
+        latencias.registrar(ns);
+    }
+
+    public String getNombre() { return nombre; }
+
+    public Histograma getLatencias() { return latencias; }
+
+    @Override
+    public long getLlamadas() { return llamadas.sum(); }
+
+    @Override
+    public long getErrores() { return errores.sum(); }
+
+    @Override
+    public double getMediaMs() { return latencias.getMediaNs() / NS_POR_MS; }
+
+    @Override
+    public double getP50Ms() { return latencias.percentil(50) / NS_POR_MS; }
+
+    @Override
+    public double getP90Ms() { return latencias.percentil(90) / NS_POR_MS; }
+
+    @Override
+    public double getP99Ms() { return latencias.percentil(99) / NS_POR_MS; }
+
+    @Override
+    public double getP999Ms() { return latencias.percentil(99.9) / NS_POR_MS; }
+
+    @Override
+    public double getMaxMs() { return latencias.getMaxNs() / NS_POR_MS; }
+
+    @Override
+    public void reiniciar() {
+        llamadas.reset();
+        errores.reset();
+        latencias.reiniciar();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{llamadas=%d, errores=%d, p50=%.2fms, p99=%.2fms, p99.9=%.2fms, max=%.2fms}",
+                nombre, getLlamadas(), getErrores(), getP50Ms(), getP99Ms(), getP999Ms(), getMaxMs());
+    }
+}
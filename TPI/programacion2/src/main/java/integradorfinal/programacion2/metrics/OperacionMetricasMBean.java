@@ -0,0 +1,28 @@
+package integradorfinal.programacion2.metrics;
+
+/**
+ * Lo que se publica por JMX de cada operación instrumentada
+ * (integradorfinal.programacion2:type=Operacion,name=...).
+ * Las latencias están en milisegundos.
+ */
+public interface OperacionMetricasMBean {
+
+    long getLlamadas();
+
+    long getErrores();
+
+    double getMediaMs();
+
+    double getP50Ms();
+
+    double getP90Ms();
+
+    double getP99Ms();
+
+    double getP999Ms();
+
+    double getMaxMs();
+
+    /** Pone contadores e histograma en cero. */
+    void reiniciar();
+}
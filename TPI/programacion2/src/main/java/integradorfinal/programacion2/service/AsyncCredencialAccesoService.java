@@ -0,0 +1,24 @@
+package integradorfinal.programacion2.service;
+
+import integradorfinal.programacion2.entities.CredencialAcceso;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de {@link CredencialAccesoService}. Cada método hace lo
+ * mismo que su par bloqueante, pero en el pool de ServiceExecutor.
+ */
+public interface AsyncCredencialAccesoService extends AsyncGenericService<CredencialAcceso, Long> {
+
+    /** Ver {@link CredencialAccesoService#findByUsuarioId(Long)}. */
+    CompletableFuture<Optional<CredencialAcceso>> findByUsuarioIdAsync(Long usuarioId);
+
+    /** Ver {@link CredencialAccesoService#findByUsuarioIds(Collection)}. */
+    CompletableFuture<Map<Long, CredencialAcceso>> findByUsuarioIdsAsync(Collection<Long> usuarioIds);
+
+    /** Ver {@link CredencialAccesoService#updatePasswordSeguro(Long, String, String)}. */
+    CompletableFuture<Void> updatePasswordSeguroAsync(Long usuarioId, String nuevoHash, String nuevoSalt);
+}
@@ -0,0 +1,38 @@
+package integradorfinal.programacion2.service;
+
+import integradorfinal.programacion2.dao.Projection;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de {@link GenericService}: cada operación se encola y
+ * devuelve enseguida un CompletableFuture, así quien necesita varias
+ * búsquedas puede lanzarlas todas juntas y esperar el conjunto.
+ *
+ * Los errores de base llegan como DataAccessException dentro del future
+ * (envuelta en CompletionException si se usa join()). Ver
+ * ServiceExecutor para rechazos, timeouts y cancelación.
+ *
+ * @param <T>  tipo de entidad (p.ej., Usuario)
+ * @param <ID> tipo del identificador (p.ej., Long)
+ */
+public interface AsyncGenericService<T, ID> {
+
+    CompletableFuture<ID> createAsync(T entity);
+
+    CompletableFuture<Optional<T>> findByIdAsync(ID id);
+
+    CompletableFuture<List<T>> findAllAsync();
+
+    CompletableFuture<List<T>> findPageAsync(ID afterId, int limit);
+
+    CompletableFuture<List<T>> findPageAsync(ID afterId, int limit, Projection projection);
+
+    CompletableFuture<Void> updateAsync(T entity);
+
+    CompletableFuture<Void> softDeleteByIdAsync(ID id);
+
+    CompletableFuture<Void> deleteByIdAsync(ID id);
+}
@@ -0,0 +1,37 @@
+package integradorfinal.programacion2.service;
+
+import integradorfinal.programacion2.dao.Disponibilidad;
+import integradorfinal.programacion2.entities.Usuario;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Versión asíncrona de {@link UsuarioService}. Cada método hace lo mismo que
+ * su par bloqueante, pero en el pool de ServiceExecutor.
+ */
+public interface AsyncUsuarioService extends AsyncGenericService<Usuario, Long> {
+
+    /** Ver {@link UsuarioService#findByUsername(String)}. */
+    CompletableFuture<Optional<Usuario>> findByUsernameAsync(String username);
+
+    /** Ver {@link UsuarioService#findByEmail(String)}. */
+    CompletableFuture<Optional<Usuario>> findByEmailAsync(String email);
+
+    /** Ver {@link UsuarioService#findByIds(Collection)}. */
+    CompletableFuture<Map<Long, Usuario>> findByIdsAsync(Collection<Long> ids);
+
+    /** Ver {@link UsuarioService#checkAvailability(String, String)}. */
+    CompletableFuture<Disponibilidad> checkAvailabilityAsync(String username, String email);
+
+    /**
+     * Ver {@link UsuarioService#createUsuarioConCredencial(Usuario)}. La
+     * transacción se abre en el hilo del pool, no en el de quien llama.
+     */
+    CompletableFuture<Long> createUsuarioConCredencialAsync(Usuario usuario);
+
+    /** Ver {@link UsuarioService#authenticate(String, String)}. */
+    CompletableFuture<AuthenticationResult> authenticateAsync(String username, String password);
+}
@@ -0,0 +1,61 @@
+package integradorfinal.programacion2.service;
+
+import integradorfinal.programacion2.entities.Usuario;
+
+/**
+ * Resultado de {@link UsuarioService#authenticate(String, String)}.
+ *
+ * Uso un estado en lugar de excepciones porque un login fallido es un
+ * resultado normal, no un error. El usuario solo viene cargado cuando el
+ * login fue exitoso.
+ */
+public final class AuthenticationResult {
+
+    /** Cómo terminó el intento de login. */
+    public enum Status {
+        /** Usuario y contraseña correctos. */
+        OK,
+        /** No existe un usuario (no eliminado) con ese username. */
+        USUARIO_NO_ENCONTRADO,
+        /** El usuario existe pero no tiene una credencial activa. */
+        SIN_CREDENCIAL,
+        /** La contraseña no coincide. */
+        PASSWORD_INCORRECTA,
+        /** Hay demasiados logins en curso: no se llegó a verificar la contraseña. */
+        SOBRECARGA
+    }
+
+    private final Status status;
+    private final Usuario usuario;
+
+    private AuthenticationResult(Status status, Usuario usuario) {
+        this.status = status;
+        this.usuario = usuario;
+    }
+
+    /** Login exitoso del usuario indicado. */
+    public static AuthenticationResult ok(Usuario usuario) {
+        return new AuthenticationResult(Status.OK, usuario);
+    }
+
+    /** Login fallido por el motivo indicado. */
+    public static AuthenticationResult fallido(Status status) {
+        if (status == Status.OK) {
+            throw new IllegalArgumentException("Un login fallido no puede tener estado OK");
+        }
+        return new AuthenticationResult(status, null);
+    }
+
+    public Status getStatus() { return status; }
+
+    public boolean isOk() { return status == Status.OK; }
+
+    /** Usuario autenticado (con su credencial), o null si el login falló. */
+    public Usuario getUsuario() { return usuario; }
+
+    @Override
+    public String toString() {
+        return "AuthenticationResult{status=" + status
+                + (usuario != null ? ", usuario=" + usuario.getUsername() : "") + '}';
+    }
+}
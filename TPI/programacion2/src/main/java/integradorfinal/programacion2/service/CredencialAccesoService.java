@@ -3,6 +3,8 @@ package integradorfinal.programacion2.service;
 import integradorfinal.programacion2.entities.CredencialAcceso;
 
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -20,6 +22,16 @@ public interface CredencialAccesoService extends GenericService<CredencialAcceso
      */
     Optional<CredencialAcceso> findByUsuarioId(Long usuarioId) throws SQLException;
 
+    /**
+     * Obtiene las credenciales de varios usuarios con pocas consultas a la base.
+     *
+     * @param usuarioIds IDs de los usuarios (los repetidos cuentan una vez)
+     * @return usuario_id → credencial, en el orden de {@code usuarioIds}; los
+     * usuarios sin credencial no aparecen
+     * @throws SQLException error de base de datos
+     */
+    Map<Long, CredencialAcceso> findByUsuarioIds(Collection<Long> usuarioIds) throws SQLException;
+
     /**
      * Actualiza de forma segura el hash y el salt de la contraseña,
      * idealmente llamando al procedimiento almacenado
@@ -1,5 +1,7 @@
 package integradorfinal.programacion2.service;
 
+import integradorfinal.programacion2.dao.Projection;
+
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
@@ -20,6 +22,18 @@ public interface GenericService<T, ID> {
 
     List<T> findAll() throws SQLException;
 
+    /**
+     * Página de hasta {@code limit} entidades con ID mayor que {@code afterId}
+     * (null = primera página), ordenadas por ID.
+     */
+    List<T> findPage(ID afterId, int limit) throws SQLException;
+
+    /**
+     * Igual que {@link #findPage(Object, int)}, pero con la proyección indicada
+     * (por ejemplo {@link Projection#SUMMARY} para listados).
+     */
+    List<T> findPage(ID afterId, int limit, Projection projection) throws SQLException;
+
     void update(T entity) throws SQLException;
 
     void softDeleteById(ID id) throws SQLException;
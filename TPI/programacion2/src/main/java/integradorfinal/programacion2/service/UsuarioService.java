@@ -1,8 +1,12 @@
 package integradorfinal.programacion2.service;
 
+import integradorfinal.programacion2.dao.Disponibilidad;
 import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.exceptions.DuplicateKeyException;
 
 import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -29,6 +33,46 @@ public interface UsuarioService extends GenericService<Usuario, Long> {
      */
     Optional<Usuario> findByEmail(String email) throws SQLException;
 
+    /**
+     * Indica si el username ya está tomado (también por un usuario eliminado
+     * lógicamente). Solo lee el índice único.
+     *
+     * @param username nombre de usuario
+     * @return true si el username no se puede usar
+     * @throws SQLException si ocurre un error de base de datos
+     */
+    boolean existsByUsername(String username) throws SQLException;
+
+    /**
+     * Indica si el email ya está tomado (también por un usuario eliminado
+     * lógicamente). Solo lee el índice único.
+     *
+     * @param email correo electrónico
+     * @return true si el email no se puede usar
+     * @throws SQLException si ocurre un error de base de datos
+     */
+    boolean existsByEmail(String email) throws SQLException;
+
+    /**
+     * Verifica username y email de un alta con una sola consulta.
+     *
+     * @param username nombre de usuario
+     * @param email    correo electrónico
+     * @return cuál de los dos está libre
+     * @throws SQLException si ocurre un error de base de datos
+     */
+    Disponibilidad checkAvailability(String username, String email) throws SQLException;
+
+    /**
+     * Busca varios usuarios por ID con pocas consultas a la base, en lugar de
+     * una por ID.
+     *
+     * @param ids IDs buscados (los repetidos cuentan una vez)
+     * @return ID → usuario, en el orden de {@code ids}; los que no existen no aparecen
+     * @throws SQLException si ocurre un error de base de datos
+     */
+    Map<Long, Usuario> findByIds(Collection<Long> ids) throws SQLException;
+
     /**
      * Caso de uso típico del integrador:
      * crear un Usuario y su Credencial en una única transacción.
@@ -37,6 +81,7 @@ public interface UsuarioService extends GenericService<Usuario, Long> {
      *
      * @param usuario entidad usuario con sus datos (y credencial asociada)
      * @return ID generado del nuevo usuario
+     * @throws DuplicateKeyException si el username o el email ya están tomados
      * @throws SQLException si ocurre un error de base de datos
      */
     Long createUsuarioConCredencial(Usuario usuario) throws SQLException;
@@ -48,6 +93,17 @@ public interface UsuarioService extends GenericService<Usuario, Long> {
      * @throws SQLException si ocurre un error simulado
      */
     void demoRollback() throws SQLException;
+
+    /**
+     * Login: busca el usuario con su credencial en una sola consulta, valida
+     * la contraseña y, si es correcta, registra la fecha de la última sesión.
+     *
+     * @param username nombre de usuario
+     * @param password contraseña en texto plano ingresada por el usuario
+     * @return resultado del intento (con el usuario si fue exitoso)
+     * @throws SQLException si ocurre un error de base de datos
+     */
+    AuthenticationResult authenticate(String username, String password) throws SQLException;
     
     
     
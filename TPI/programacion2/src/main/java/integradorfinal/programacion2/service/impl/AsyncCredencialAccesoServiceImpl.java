@@ -0,0 +1,46 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.service.AsyncCredencialAccesoService;
+import integradorfinal.programacion2.service.CredencialAccesoService;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Servicio asíncrono de credenciales: cada método llama al
+ * CredencialAccesoService envuelto desde el pool de ServiceExecutor.
+ */
+public class AsyncCredencialAccesoServiceImpl
+        extends AsyncGenericServiceImpl<CredencialAcceso, Long, CredencialAccesoService>
+        implements AsyncCredencialAccesoService {
+
+    /** Usa el ServiceExecutor compartido. */
+    public AsyncCredencialAccesoServiceImpl(CredencialAccesoService servicio) {
+        this(servicio, ServiceExecutor.compartido());
+    }
+
+    public AsyncCredencialAccesoServiceImpl(CredencialAccesoService servicio, ServiceExecutor executor) {
+        super(servicio, executor);
+    }
+
+    @Override
+    public CompletableFuture<Optional<CredencialAcceso>> findByUsuarioIdAsync(Long usuarioId) {
+        return executor.enviar("findByUsuarioId", () -> servicio.findByUsuarioId(usuarioId));
+    }
+
+    @Override
+    public CompletableFuture<Map<Long, CredencialAcceso>> findByUsuarioIdsAsync(Collection<Long> usuarioIds) {
+        return executor.enviar("findByUsuarioIds", () -> servicio.findByUsuarioIds(usuarioIds));
+    }
+
+    @Override
+    public CompletableFuture<Void> updatePasswordSeguroAsync(Long usuarioId, String nuevoHash, String nuevoSalt) {
+        return executor.enviar("updatePasswordSeguro", () -> {
+            servicio.updatePasswordSeguro(usuarioId, nuevoHash, nuevoSalt);
+            return null;
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.dao.Projection;
+import integradorfinal.programacion2.service.AsyncGenericService;
+import integradorfinal.programacion2.service.GenericService;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Parte común de los servicios asíncronos: envuelve un servicio bloqueante
+ * y manda cada llamada al ServiceExecutor. Las reglas de negocio siguen
+ * estando solo en el servicio envuelto.
+ *
+ * @param <T>  tipo de entidad
+ * @param <ID> tipo del identificador
+ * @param <S>  servicio bloqueante envuelto
+ */
+abstract class AsyncGenericServiceImpl<T, ID, S extends GenericService<T, ID>> implements AsyncGenericService<T, ID> {
+
+    protected final S servicio;
+    protected final ServiceExecutor executor;
+
+    protected AsyncGenericServiceImpl(S servicio, ServiceExecutor executor) {
+        this.servicio = Objects.requireNonNull(servicio, "servicio");
+        this.executor = Objects.requireNonNull(executor, "executor");
+    }
+
+    @Override
+    public CompletableFuture<ID> createAsync(T entity) {
+        return executor.enviar("create", () -> servicio.create(entity));
+    }
+
+    @Override
+    public CompletableFuture<Optional<T>> findByIdAsync(ID id) {
+        return executor.enviar("findById", () -> servicio.findById(id));
+    }
+
+    @Override
+    public CompletableFuture<List<T>> findAllAsync() {
+        return executor.enviar("findAll", servicio::findAll);
+    }
+
+    @Override
+    public CompletableFuture<List<T>> findPageAsync(ID afterId, int limit) {
+        return executor.enviar("findPage", () -> servicio.findPage(afterId, limit));
+    }
+
+    @Override
+    public CompletableFuture<List<T>> findPageAsync(ID afterId, int limit, Projection projection) {
+        return executor.enviar("findPage", () -> servicio.findPage(afterId, limit, projection));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateAsync(T entity) {
+        return executor.enviar("update", () -> {
+            servicio.update(entity);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> softDeleteByIdAsync(ID id) {
+        return executor.enviar("softDeleteById", () -> {
+            servicio.softDeleteById(id);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteByIdAsync(ID id) {
+        return executor.enviar("deleteById", () -> {
+            servicio.deleteById(id);
+            return null;
+        });
+    }
+}
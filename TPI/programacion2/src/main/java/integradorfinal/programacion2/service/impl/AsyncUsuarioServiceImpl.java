@@ -0,0 +1,67 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.dao.Disponibilidad;
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.service.AsyncUsuarioService;
+import integradorfinal.programacion2.service.AuthenticationResult;
+import integradorfinal.programacion2.service.UsuarioService;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Servicio asíncrono de usuarios: cada método llama al UsuarioService
+ * envuelto desde el pool de ServiceExecutor.
+ *
+ * Ejemplo (varias búsquedas en paralelo):
+ * <pre>
+ * AsyncUsuarioService async = new AsyncUsuarioServiceImpl(new UsuarioServiceImpl());
+ * CompletableFuture&lt;Optional&lt;Usuario&gt;&gt; a = async.findByUsernameAsync("ana");
+ * CompletableFuture&lt;Optional&lt;Usuario&gt;&gt; b = async.findByUsernameAsync("beto");
+ * CompletableFuture.allOf(a, b).join();
+ * </pre>
+ */
+public class AsyncUsuarioServiceImpl extends AsyncGenericServiceImpl<Usuario, Long, UsuarioService>
+        implements AsyncUsuarioService {
+
+    /** Usa el ServiceExecutor compartido. */
+    public AsyncUsuarioServiceImpl(UsuarioService servicio) {
+        this(servicio, ServiceExecutor.compartido());
+    }
+
+    public AsyncUsuarioServiceImpl(UsuarioService servicio, ServiceExecutor executor) {
+        super(servicio, executor);
+    }
+
+    @Override
+    public CompletableFuture<Optional<Usuario>> findByUsernameAsync(String username) {
+        return executor.enviar("findByUsername", () -> servicio.findByUsername(username));
+    }
+
+    @Override
+    public CompletableFuture<Optional<Usuario>> findByEmailAsync(String email) {
+        return executor.enviar("findByEmail", () -> servicio.findByEmail(email));
+    }
+
+    @Override
+    public CompletableFuture<Map<Long, Usuario>> findByIdsAsync(Collection<Long> ids) {
+        return executor.enviar("findByIds", () -> servicio.findByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<Disponibilidad> checkAvailabilityAsync(String username, String email) {
+        return executor.enviar("checkAvailability", () -> servicio.checkAvailability(username, email));
+    }
+
+    @Override
+    public CompletableFuture<Long> createUsuarioConCredencialAsync(Usuario usuario) {
+        return executor.enviar("createUsuarioConCredencial", () -> servicio.createUsuarioConCredencial(usuario));
+    }
+
+    @Override
+    public CompletableFuture<AuthenticationResult> authenticateAsync(String username, String password) {
+        return executor.enviar("authenticate", () -> servicio.authenticate(username, password));
+    }
+}
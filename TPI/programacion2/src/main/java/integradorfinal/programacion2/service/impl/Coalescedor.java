@@ -0,0 +1,267 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.exceptions.DataAccessException;
+import integradorfinal.programacion2.metrics.Metricas;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Junta búsquedas por clave que llegan a la vez desde varios hilos (la idea
+ * de DataLoader / single-flight):
+ *
+ * - Misma clave: si ya hay una búsqueda en curso para esa clave, el que
+ *   llega no hace otra consulta; espera la que está en curso y recibe una
+ *   copia del resultado.
+ * - Claves distintas: se juntan en una tanda que sale en una sola llamada a
+ *   la carga por lote (por ejemplo findByIds). El que abre la tanda espera
+ *   hasta {@code ventanaMs} a que se sumen otras y después la despacha él
+ *   mismo; si la tanda llega a {@code maxLote} claves, la despacha enseguida
+ *   el que la llenó.
+ *
+ * La ventana solo se espera si hay otra tanda en la base en ese momento: con
+ * poca carga cada búsqueda sale sola y enseguida, sin latencia agregada, y
+ * con mucha carga las claves se juntan mientras la tanda anterior corre.
+ *
+ * No uso hilos propios: las consultas corren en el hilo que despacha la
+ * tanda, y los demás esperan su resultado sin tener una conexión tomada.
+ */
+final class Coalescedor<K, V> {
+
+    /** Busca varias claves de una vez; las que no existen no vienen en el mapa. */
+    @FunctionalInterface
+    interface CargaLote<K, V> {
+        Map<K, V> cargar(List<K> claves) throws SQLException;
+    }
+
+    /**
+     * Claves juntadas para una misma consulta. Una clave puede aparecer más
+     * de una vez: si se llamó a olvidarEnCurso() mientras la tanda estaba
+     * abierta, el que pide la misma clave después se suma como otro pedido.
+     */
+    private static final class Lote<K, V> {
+        final List<K> claves = new ArrayList<>();
+        final List<CompletableFuture<Optional<V>>> futuros = new ArrayList<>();
+        final long venceEn;
+
+        Lote(long venceEn) {
+            this.venceEn = venceEn;
+        }
+    }
+
+    private final String nombre;
+    private final CargaLote<K, V> carga;
+    private final UnaryOperator<V> copiar;
+    private final long ventanaNs;
+    private final int maxLote;
+
+    // Búsqueda en curso (o esperando en la tanda abierta) para cada clave
+    private final Map<K, CompletableFuture<Optional<V>>> enVuelo = new ConcurrentHashMap<>();
+
+    // La tanda que está juntando claves (se protege con lock)
+    private final Object lock = new Object();
+    private Lote<K, V> abierto = null;
+
+    private final AtomicInteger despachando = new AtomicInteger();
+
+    private final LongAdder pedidos = new LongAdder();
+    private final LongAdder compartidos = new LongAdder();
+    private final LongAdder lotes = new LongAdder();
+    private final LongAdder clavesCargadas = new LongAdder();
+
+    /**
+     * @param nombre    nombre de la búsqueda (para los mensajes de error)
+     * @param carga     cómo buscar varias claves de una vez
+     * @param copiar    copia del valor para cada hilo que comparte un resultado
+     * @param ventanaMs cuánto se espera a juntar claves (0 = solo se comparten las iguales)
+     * @param maxLote   máximo de claves por consulta (1 = solo se comparten las iguales)
+     */
+    Coalescedor(String nombre, CargaLote<K, V> carga, UnaryOperator<V> copiar, long ventanaMs, int maxLote) {
+        this.nombre = nombre;
+        this.carga = carga;
+        this.copiar = copiar;
+        this.ventanaNs = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ventanaMs));
+        this.maxLote = Math.max(1, maxLote);
+    }
+
+    /**
+     * Busco una clave, juntándola con las búsquedas de otros hilos.
+     *
+     * @throws SQLException si falla la consulta de la tanda (cada hilo recibe
+     * su propia SQLException, con la original como causa)
+     */
+    Optional<V> cargar(K clave) throws SQLException {
+        pedidos.increment();
+        CompletableFuture<Optional<V>> propio = new CompletableFuture<>();
+        CompletableFuture<Optional<V>> enCurso = enVuelo.putIfAbsent(clave, propio);
+        if (enCurso != null) {
+            compartidos.increment();
+            return esperar(enCurso).map(copiar);
+        }
+
+        Lote<K, V> aDespachar = null;
+        Lote<K, V> abiertoPorMi = null;
+        synchronized (lock) {
+            if (abierto == null) {
+                abierto = new Lote<>(System.nanoTime() + ventanaNs);
+                abiertoPorMi = abierto;
+            }
+            abierto.claves.add(clave);
+            abierto.futuros.add(propio);
+            // Llena, sin ventana o sin nadie en la base: no tiene sentido esperar
+            boolean sinEspera = abiertoPorMi != null && (ventanaNs == 0 || despachando.get() == 0);
+            if (abierto.claves.size() >= maxLote || sinEspera) {
+                aDespachar = cerrarAbierto();
+                lock.notifyAll();
+            }
+        }
+        if (aDespachar == null && abiertoPorMi != null) {
+            aDespachar = esperarVentana(abiertoPorMi);
+        }
+        if (aDespachar != null) {
+            despachar(aDespachar);
+        }
+        return esperar(propio);
+    }
+
+    /**
+     * Olvido las búsquedas en curso: las que lleguen desde ahora hacen una
+     * consulta nueva en lugar de sumarse a una que empezó antes. Se llama
+     * después de cada escritura, para que quien acaba de grabar no reciba lo
+     * que otro hilo leyó antes del cambio. Los que ya estaban esperando
+     * reciben igual su resultado.
+     */
+    void olvidarEnCurso() {
+        enVuelo.clear();
+    }
+
+    /** Publico los contadores como grupo de medidores de {@link Metricas}. */
+    void registrarMedidores(String grupo) {
+        Metricas.registrarMedidores(grupo, Map.of(
+                "pedidos", this::getPedidos,
+                "compartidos", this::getCompartidos,
+                "consultas", this::getLotes,
+                "clavesCargadas", this::getClavesCargadas,
+                "ahorradas", this::getAhorradas));
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    /** Búsquedas pedidas. */
+    long getPedidos() { return pedidos.sum(); }
+
+    /** Búsquedas que compartieron la consulta de otro hilo (misma clave). */
+    long getCompartidos() { return compartidos.sum(); }
+
+    /** Consultas hechas a la base. */
+    long getLotes() { return lotes.sum(); }
+
+    /** Claves buscadas en esas consultas. */
+    long getClavesCargadas() { return clavesCargadas.sum(); }
+
+    /** Consultas que se ahorraron respecto de una por búsqueda. */
+    long getAhorradas() { return Math.max(0, getPedidos() - getLotes()); }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    /**
+     * Espero a que venza la ventana de la tanda que abrí (o a que otro la
+     * despache por llena). Si sigue abierta al vencer, me toca despacharla.
+     */
+    private Lote<K, V> esperarVentana(Lote<K, V> lote) {
+        synchronized (lock) {
+            long resta;
+            while (abierto == lote && (resta = lote.venceEn - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, resta);
+                } catch (InterruptedException e) {
+                    // Despacho igual: hay otros hilos esperando esta tanda
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return abierto == lote ? cerrarAbierto() : null;
+        }
+    }
+
+    /**
+     * Saco la tanda abierta para despacharla (con el lock tomado). La cuento
+     * como en la base desde ya, así el que llega enseguida espera la ventana.
+     */
+    private Lote<K, V> cerrarAbierto() {
+        Lote<K, V> lote = abierto;
+        abierto = null;
+        despachando.incrementAndGet();
+        return lote;
+    }
+
+    /**
+     * Hago la consulta de la tanda (cada clave una vez) y le aviso a cada
+     * hilo que la espera. Si una clave está repetida, el primero recibe el
+     * valor leído y los demás una copia: nunca dos hilos con la misma instancia.
+     */
+    private void despachar(Lote<K, V> lote) {
+        lotes.increment();
+        List<K> distintas = new ArrayList<>(new LinkedHashSet<>(lote.claves));
+        clavesCargadas.add(distintas.size());
+        try {
+            Map<K, V> leidos = carga.cargar(distintas);
+            Set<K> entregadas = new HashSet<>();
+            for (int i = 0; i < lote.claves.size(); i++) {
+                K clave = lote.claves.get(i);
+                V valor = leidos.get(clave);
+                if (valor != null && !entregadas.add(clave)) {
+                    valor = copiar.apply(valor);
+                }
+                // Primero la saco de enVuelo: el que llegue después hace una búsqueda nueva
+                enVuelo.remove(clave, lote.futuros.get(i));
+                lote.futuros.get(i).complete(Optional.ofNullable(valor));
+            }
+        } catch (Throwable t) {
+            for (int i = 0; i < lote.claves.size(); i++) {
+                enVuelo.remove(lote.claves.get(i), lote.futuros.get(i));
+                lote.futuros.get(i).completeExceptionally(t);
+            }
+        } finally {
+            despachando.decrementAndGet();
+        }
+    }
+
+    private Optional<V> esperar(CompletableFuture<Optional<V>> futuro) throws SQLException {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Se interrumpió la espera de " + nombre, e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof SQLException s) {
+                throw new SQLException(s.getMessage(), s.getSQLState(), s.getErrorCode(), s);
+            }
+            if (causa instanceof RuntimeException r) {
+                throw r;
+            }
+            if (causa instanceof Error err) {
+                throw err;
+            }
+            throw new DataAccessException("Error en " + nombre, causa);
+        }
+    }
+}
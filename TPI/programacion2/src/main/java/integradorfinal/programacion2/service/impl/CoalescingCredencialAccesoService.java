@@ -0,0 +1,162 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.config.ReplicaRouter;
+import integradorfinal.programacion2.config.TransactionTemplate;
+import integradorfinal.programacion2.dao.Projection;
+import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.service.CredencialAccesoService;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decorador de {@link CredencialAccesoService} que junta las búsquedas que
+ * llegan a la vez desde varios hilos (ver {@link Coalescedor}):
+ *
+ * - findByUsuarioId: las del mismo usuario comparten una consulta y las de
+ *   usuarios distintos salen juntas en un findByUsuarioIds.
+ * - findById: las del mismo ID comparten una consulta.
+ *
+ * Igual que {@link CoalescingUsuarioService}: lo demás se delega, las
+ * escrituras cortan las lecturas en curso y dentro de una transacción (o en
+ * la ventana de read-your-writes de quien llama) no se junta nada.
+ */
+public class CoalescingCredencialAccesoService implements CredencialAccesoService {
+
+    private final CredencialAccesoService delegate;
+
+    private final Coalescedor<Long, CredencialAcceso> porUsuarioId;
+    private final Coalescedor<Long, CredencialAcceso> porId;
+
+    /**
+     * Uso la ventana y el tamaño de tanda configurados en db.properties.
+     *
+     * @param delegate servicio real
+     */
+    public CoalescingCredencialAccesoService(CredencialAccesoService delegate) {
+        this(delegate, Config.COALESCE_WINDOW_MS, Config.COALESCE_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param delegate  servicio real
+     * @param ventanaMs cuánto se espera a juntar usuarios distintos (0 = solo se comparten los iguales)
+     * @param maxLote   máximo de usuarios por consulta
+     */
+    public CoalescingCredencialAccesoService(CredencialAccesoService delegate, long ventanaMs, int maxLote) {
+        this.delegate = delegate;
+        this.porUsuarioId = new Coalescedor<>("findByUsuarioId", delegate::findByUsuarioIds,
+                CredencialAcceso::new, ventanaMs, maxLote);
+        this.porId = new Coalescedor<>("findById", claves -> {
+            Long id = claves.get(0);
+            return delegate.findById(id).map(c -> Map.of(id, c)).orElseGet(Map::of);
+        }, CredencialAcceso::new, 0, 1);
+        porUsuarioId.registrarMedidores("CoalescenciaCredencialPorUsuario");
+        porId.registrarMedidores("CoalescenciaCredencialPorId");
+    }
+
+    // ======================================================
+    // BÚSQUEDAS QUE SE JUNTAN
+    // ======================================================
+
+    @Override
+    public Optional<CredencialAcceso> findByUsuarioId(Long usuarioId) throws SQLException {
+        if (usuarioId == null || TransactionTemplate.isTransactionActive() || ReplicaRouter.isEnVentana()) {
+            return delegate.findByUsuarioId(usuarioId);
+        }
+        return porUsuarioId.cargar(usuarioId);
+    }
+
+    @Override
+    public Optional<CredencialAcceso> findById(Long id) throws SQLException {
+        if (id == null || TransactionTemplate.isTransactionActive() || ReplicaRouter.isEnVentana()) {
+            return delegate.findById(id);
+        }
+        return porId.cargar(id);
+    }
+
+    // ======================================================
+    // DELEGADOS
+    // ======================================================
+
+    @Override
+    public Map<Long, CredencialAcceso> findByUsuarioIds(Collection<Long> usuarioIds) throws SQLException {
+        return delegate.findByUsuarioIds(usuarioIds);
+    }
+
+    @Override
+    public List<CredencialAcceso> findAll() throws SQLException {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<CredencialAcceso> findPage(Long afterId, int limit) throws SQLException {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<CredencialAcceso> findPage(Long afterId, int limit, Projection projection) throws SQLException {
+        return delegate.findPage(afterId, limit, projection);
+    }
+
+    // ======================================================
+    // ESCRITURAS (delegan y cortan las lecturas en curso)
+    // ======================================================
+
+    @Override
+    public Long create(CredencialAcceso entity) throws SQLException {
+        try {
+            return delegate.create(entity);
+        } finally {
+            olvidarEnCurso();
+        }
+    }
+
+    @Override
+    public void update(CredencialAcceso entity) throws SQLException {
+        try {
+            delegate.update(entity);
+        } finally {
+            olvidarEnCurso();
+        }
+    }
+
+    @Override
+    public void updatePasswordSeguro(Long usuarioId, String nuevoHash, String nuevoSalt) throws SQLException {
+        try {
+            delegate.updatePasswordSeguro(usuarioId, nuevoHash, nuevoSalt);
+        } finally {
+            olvidarEnCurso();
+        }
+    }
+
+    @Override
+    public void softDeleteById(Long id) throws SQLException {
+        try {
+            delegate.softDeleteById(id);
+        } finally {
+            olvidarEnCurso();
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) throws SQLException {
+        try {
+            delegate.deleteById(id);
+        } finally {
+            olvidarEnCurso();
+        }
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private void olvidarEnCurso() {
+        porUsuarioId.olvidarEnCurso();
+        porId.olvidarEnCurso();
+    }
+}
@@ -0,0 +1,217 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.config.ReplicaRouter;
+import integradorfinal.programacion2.config.TransactionTemplate;
+import integradorfinal.programacion2.dao.Disponibilidad;
+import integradorfinal.programacion2.dao.Projection;
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.service.AuthenticationResult;
+import integradorfinal.programacion2.service.UsuarioService;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decorador de {@link UsuarioService} que junta las búsquedas que llegan a la
+ * vez desde varios hilos (ver {@link Coalescedor}):
+ *
+ * - findById: las del mismo ID comparten una consulta y las de IDs distintos
+ *   salen juntas en un findByIds (coalesce.windowMs / coalesce.maxBatchSize).
+ * - findByUsername / findByEmail: las de la misma clave comparten una
+ *   consulta (un usuario muy buscado, por ejemplo en el login, no multiplica
+ *   consultas iguales). No hay búsqueda por muchos username, así que no se
+ *   arman tandas.
+ *
+ * Todo lo demás se delega tal cual. Las escrituras, además, hacen que las
+ * búsquedas siguientes no se sumen a una lectura que empezó antes del cambio.
+ * Dentro de una transacción no junto nada: la lectura tiene que ir por la
+ * conexión de la transacción, en el hilo de quien llama. Tampoco si quien
+ * llama acaba de escribir y hay réplicas: la tanda la ejecuta otro hilo, que
+ * podría leer de una réplica atrasada (ver ReplicaRouter).
+ */
+public class CoalescingUsuarioService implements UsuarioService {
+
+    private final UsuarioService delegate;
+
+    private final Coalescedor<Long, Usuario> porId;
+    private final Coalescedor<String, Usuario> porUsername;
+    private final Coalescedor<String, Usuario> porEmail;
+
+    /**
+     * Uso la ventana y el tamaño de tanda configurados en db.properties.
+     *
+     * @param delegate servicio real
+     */
+    public CoalescingUsuarioService(UsuarioService delegate) {
+        this(delegate, Config.COALESCE_WINDOW_MS, Config.COALESCE_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * @param delegate  servicio real
+     * @param ventanaMs cuánto se espera a juntar IDs distintos (0 = solo se comparten los iguales)
+     * @param maxLote   máximo de IDs por consulta
+     */
+    public CoalescingUsuarioService(UsuarioService delegate, long ventanaMs, int maxLote) {
+        this.delegate = delegate;
+        this.porId = new Coalescedor<>("findById", delegate::findByIds,
+                Usuario::new, ventanaMs, maxLote);
+        this.porUsername = new Coalescedor<>("findByUsername", claves -> deAUno(claves, delegate::findByUsername),
+                Usuario::new, 0, 1);
+        this.porEmail = new Coalescedor<>("findByEmail", claves -> deAUno(claves, delegate::findByEmail),
+                Usuario::new, 0, 1);
+        porId.registrarMedidores("CoalescenciaUsuarioPorId");
+        porUsername.registrarMedidores("CoalescenciaUsuarioPorUsername");
+        porEmail.registrarMedidores("CoalescenciaUsuarioPorEmail");
+    }
+
+    // ======================================================
+    // BÚSQUEDAS QUE SE JUNTAN
+    // ======================================================
+
+    @Override
+    public Optional<Usuario> findById(Long id) throws SQLException {
+        if (id == null || TransactionTemplate.isTransactionActive() || ReplicaRouter.isEnVentana()) {
+            return delegate.findById(id);
+        }
+        return porId.cargar(id);
+    }
+
+    @Override
+    public Optional<Usuario> findByUsername(String username) throws SQLException {
+        if (username == null || TransactionTemplate.isTransactionActive() || ReplicaRouter.isEnVentana()) {
+            return delegate.findByUsername(username);
+        }
+        return porUsername.cargar(username);
+    }
+
+    @Override
+    public Optional<Usuario> findByEmail(String email) throws SQLException {
+        if (email == null || TransactionTemplate.isTransactionActive() || ReplicaRouter.isEnVentana()) {
+            return delegate.findByEmail(email);
+        }
+        return porEmail.cargar(email);
+    }
+
+    // ======================================================
+    // DELEGADOS
+    // ======================================================
+
+    @Override
+    public Map<Long, Usuario> findByIds(Collection<Long> ids) throws SQLException {
+        return delegate.findByIds(ids);
+    }
+
+    @Override
+    public boolean existsByUsername(String username) throws SQLException {
+        return delegate.existsByUsername(username);
+    }
+
+    @Override
+    public boolean existsByEmail(String email) throws SQLException {
+        return delegate.existsByEmail(email);
+    }
+
+    @Override
+    public Disponibilidad checkAvailability(String username, String email) throws SQLException {
+        return delegate.checkAvailability(username, email);
+    }
+
+    @Override
+    public List<Usuario> findAll() throws SQLException {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit) throws SQLException {
+        return delegate.findPage(afterId, limit);
+    }
+
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit, Projection projection) throws SQLException {
+        return delegate.findPage(afterId, limit, projection);
+    }
+
+    @Override
+    public AuthenticationResult authenticate(String username, String password) throws SQLException {
+        return delegate.authenticate(username, password);
+    }
+
+    @Override
+    public void demoRollback() throws SQLException {
+        delegate.demoRollback();
+    }
+
+    // ======================================================
+    // ESCRITURAS (delegan y cortan las lecturas en curso)
+    // ======================================================
+
+    @Override
+    public Long create(Usuario entity) throws SQLException {
+        try {
+            return delegate.create(entity);
+        } finally {
+            olvidarEnCurso();
+        }
+    }
+
+    @Override
+    public Long createUsuarioConCredencial(Usuario usuario) throws SQLException {
+        try {
+            return delegate.createUsuarioConCredencial(usuario);
+        } finally {
+            olvidarEnCurso();
+        }
+    }
+
+    @Override
+    public void update(Usuario entity) throws SQLException {
+        try {
+            delegate.update(entity);
+        } finally {
+            olvidarEnCurso();
+        }
+    }
+
+    @Override
+    public void softDeleteById(Long id) throws SQLException {
+        try {
+            delegate.softDeleteById(id);
+        } finally {
+            olvidarEnCurso();
+        }
+    }
+
+    @Override
+    public void deleteById(Long id) throws SQLException {
+        try {
+            delegate.deleteById(id);
+        } finally {
+            olvidarEnCurso();
+        }
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private void olvidarEnCurso() {
+        porId.olvidarEnCurso();
+        porUsername.olvidarEnCurso();
+        porEmail.olvidarEnCurso();
+    }
+
+    /** Búsqueda de una sola clave (las tandas de username / email son de 1). */
+    @FunctionalInterface
+    private interface Busqueda {
+        Optional<Usuario> buscar(String clave) throws SQLException;
+    }
+
+    private static Map<String, Usuario> deAUno(List<String> claves, Busqueda busqueda) throws SQLException {
+        String clave = claves.get(0);
+        return busqueda.buscar(clave).map(u -> Map.of(clave, u)).orElseGet(Map::of);
+    }
+}
@@ -1,12 +1,16 @@
 package integradorfinal.programacion2.service.impl;
 
 import integradorfinal.programacion2.dao.CredencialAccesoDao;
+import integradorfinal.programacion2.dao.Projection;
 import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
 import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.metrics.Metricas;
 import integradorfinal.programacion2.service.CredencialAccesoService;
 
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -25,10 +29,12 @@ public class CredencialAccesoServiceImpl implements CredencialAccesoService {
     private final CredencialAccesoDao credencialDao;
 
     /**
-     * Constructor por defecto: instancio el DAO concreto que usa JDBC.
+     * Constructor por defecto: instancio el DAO concreto que usa JDBC
+     * (envuelto para medir cada llamada, ver Metricas).
      */
     public CredencialAccesoServiceImpl() {
-        this.credencialDao = new CredencialAccesoDaoImpl();
+        this.credencialDao = Metricas.instrumentar(CredencialAccesoDao.class, new CredencialAccesoDaoImpl(),
+                "CredencialAccesoDao");
     }
 
 
@@ -113,6 +119,42 @@ public class CredencialAccesoServiceImpl implements CredencialAccesoService {
         }
     }
 
+    /**
+     * Obtiene una página de credenciales no eliminadas, ordenadas por ID.
+     *
+     * <p>
+     * Usa paginación por clave: para la primera página se pasa {@code null}
+     * y para las siguientes el ID de la última credencial recibida.</p>
+     *
+     * @param afterId ID de la última credencial de la página anterior (o null)
+     * @param limit   cantidad máxima de credenciales a devolver
+     * @return la página pedida; vacía si no hay más credenciales
+     * @throws SQLException si ocurre un error al acceder a la base de datos
+     */
+    @Override
+    public List<CredencialAcceso> findPage(Long afterId, int limit) throws SQLException {
+        try {
+            return credencialDao.findPage(afterId, limit);
+        } catch (SQLException e) {
+            throw new SQLException("Error al listar la página de credenciales de acceso.", e);
+        }
+    }
+
+    /**
+     * Obtiene una página con la proyección indicada (por ejemplo
+     * {@link Projection#SUMMARY} para listados que no necesitan todas las columnas).
+     *
+     * @throws SQLException si ocurre un error al acceder a la base de datos
+     */
+    @Override
+    public List<CredencialAcceso> findPage(Long afterId, int limit, Projection projection) throws SQLException {
+        try {
+            return credencialDao.findPage(afterId, limit, projection);
+        } catch (SQLException e) {
+            throw new SQLException("Error al listar la página de credenciales de acceso.", e);
+        }
+    }
+
     /**
      * Actualiza una credencial existente en la base de datos.
      *
@@ -210,6 +252,32 @@ public class CredencialAccesoServiceImpl implements CredencialAccesoService {
         }
     }
 
+    /**
+     * Obtiene las credenciales de varios usuarios de una vez.
+     *
+     * <p>
+     * El DAO las trae con WHERE usuario_id IN (...) en tramos, en lugar de
+     * una consulta por usuario.</p>
+     *
+     * @param usuarioIds IDs de los usuarios dueños de las credenciales
+     * @return usuario_id → credencial, en el orden de {@code usuarioIds}; los
+     * usuarios sin credencial no aparecen
+     * @throws IllegalArgumentException si {@code usuarioIds} es null o contiene null
+     * @throws SQLException si ocurre un error al acceder a la base de datos
+     */
+    @Override
+    public Map<Long, CredencialAcceso> findByUsuarioIds(Collection<Long> usuarioIds) throws SQLException {
+        if (usuarioIds == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser null");
+        }
+        try {
+            return credencialDao.findByUsuarioIds(usuarioIds);
+        } catch (SQLException e) {
+            // SQLException con un mensaje más claro
+            throw new SQLException("Error al buscar las credenciales de " + usuarioIds.size() + " usuarios", e);
+        }
+    }
+
     /**
      * Actualiza la contraseña de un usuario de forma segura.
      *
@@ -218,7 +286,7 @@ public class CredencialAccesoServiceImpl implements CredencialAccesoService {
      * <ul>
      * <li>Validar que el nuevo password no esté vacío.</li>
      * <li>Generar un salt aleatorio.</li>
-     * <li>Calcular el hash usando SHA-256 + salt mediante
+     * <li>Calcular el hash (PBKDF2 + salt por defecto) mediante
      * {@link PasswordUtil}.</li>
      * <li>Delegar en el DAO para que ejecute el stored procedure que actualiza
      * la contraseña.</li>
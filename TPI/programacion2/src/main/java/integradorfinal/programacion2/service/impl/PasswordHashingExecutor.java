@@ -0,0 +1,236 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.metrics.Metricas;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de hilos para el hash de contraseñas del login.
+ *
+ * Verificar una contraseña (sobre todo con PBKDF2) es lo que más CPU gasta
+ * en un login. Si cada login hashea en su propio hilo, un pico de intentos
+ * ocupa todos los núcleos y frena todo lo demás. Acá el hash corre en una
+ * cantidad fija de hilos (por defecto, uno por núcleo) con:
+ * - una cola FIFO justa y con capacidad fija,
+ * - rechazo inmediato si la cola está llena (no se acumulan más pedidos),
+ * - un tiempo máximo de espera en la cola: si pasado ese tiempo la tarea
+ *   todavía no empezó, quien la pidió deja de esperar y recibe el rechazo, y
+ *   la tarea se saca de la cola sin ejecutarse. Una tarea que ya empezó a
+ *   hashear a tiempo se espera hasta que termine (es un solo hash).
+ *
+ * La parte de base de datos del login sigue en el hilo de quien llama; acá
+ * solo entra el cálculo del hash.
+ *
+ * Hay una sola instancia compartida, igual que el pool de conexiones.
+ */
+public final class PasswordHashingExecutor {
+
+    // Instancia compartida por toda la aplicación (se crea al primer uso)
+    private static volatile PasswordHashingExecutor compartido = null;
+
+    private final ThreadPoolExecutor pool;
+    private final long maxEsperaNs;
+
+    private final LongAdder ejecutadas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder vencidas = new LongAdder();
+    private final LongAdder esperaTotalNs = new LongAdder();
+    private final LongAccumulator esperaMaxNs = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param hilos       cantidad de hilos de hash
+     * @param capacidad   tareas que pueden esperar en la cola
+     * @param maxEsperaMs tiempo máximo que una tarea puede esperar en la cola
+     */
+    public PasswordHashingExecutor(int hilos, int capacidad, long maxEsperaMs) {
+        this.maxEsperaNs = TimeUnit.MILLISECONDS.toNanos(maxEsperaMs);
+        AtomicInteger numero = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidad, true),
+                r -> {
+                    Thread t = new Thread(r, "hash-password-" + numero.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // ======================================================
+    // INSTANCIA COMPARTIDA
+    // ======================================================
+
+    /**
+     * Devuelvo la instancia compartida, creándola la primera vez con la
+     * configuración de db.properties (auth.hash.*).
+     */
+    public static PasswordHashingExecutor compartido() {
+        PasswordHashingExecutor e = compartido;
+        if (e == null) {
+            synchronized (PasswordHashingExecutor.class) {
+                e = compartido;
+                if (e == null) {
+                    int hilos = Config.AUTH_HASH_THREADS > 0
+                            ? Config.AUTH_HASH_THREADS
+                            : Runtime.getRuntime().availableProcessors();
+                    e = new PasswordHashingExecutor(hilos, Config.AUTH_HASH_QUEUE_SIZE, Config.AUTH_HASH_MAX_WAIT_MS);
+                    compartido = e;
+                    PasswordHashingExecutor instancia = e;
+                    Metricas.registrarMedidores("HashLogin", Map.of(
+                            "enCola", instancia::getEnCola,
+                            "activas", instancia::getActivas,
+                            "ejecutadas", instancia::getEjecutadas,
+                            "rechazadas", instancia::getRechazadas,
+                            "vencidas", instancia::getVencidas,
+                            "esperaPromedioMs", instancia::getEsperaPromedioMs,
+                            "esperaMaximaMs", instancia::getEsperaMaximaMs));
+                }
+            }
+        }
+        return e;
+    }
+
+    /** Detengo la instancia compartida (si se llegó a crear). */
+    public static void cerrarCompartido() {
+        PasswordHashingExecutor e;
+        synchronized (PasswordHashingExecutor.class) {
+            e = compartido;
+            compartido = null;
+        }
+        if (e != null) {
+            e.cerrar();
+        }
+    }
+
+    // ======================================================
+    // API
+    // ======================================================
+
+    /**
+     * Ejecuto la tarea en el pool y espero el resultado. Si la tarea no
+     * empieza dentro del máximo de espera, dejo de esperar y la descarto.
+     *
+     * @throws RejectedExecutionException si la cola está llena, si la tarea
+     *         esperó en la cola más que el máximo o si el pool está cerrado
+     * @throws IllegalStateException      si la tarea falló (con la causa original)
+     */
+    public <T> T ejecutar(Callable<T> tarea) {
+        final long encolada = System.nanoTime();
+        // La tarea y quien espera compiten por este flag: o empieza o se abandona, nunca las dos
+        final AtomicBoolean tomada = new AtomicBoolean(false);
+        Future<T> f;
+        try {
+            f = pool.submit(() -> {
+                if (!tomada.compareAndSet(false, true)) {
+                    throw new CancellationException("Quien la pidió ya dejó de esperar");
+                }
+                long espera = System.nanoTime() - encolada;
+                esperaTotalNs.add(espera);
+                esperaMaxNs.accumulate(espera);
+                ejecutadas.increment();
+                return tarea.call();
+            });
+        } catch (RejectedExecutionException e) {
+            rechazadas.increment();
+            throw new RejectedExecutionException("Demasiados logins en curso: se rechaza el pedido", e);
+        }
+
+        try {
+            return resultado(f, encolada, tomada);
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Se interrumpió la espera de la verificación", e);
+        } catch (CancellationException e) {
+            throw new RejectedExecutionException("Se canceló la verificación", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RejectedExecutionException r) throw r;
+            if (causa instanceof RuntimeException r) throw r;
+            throw new IllegalStateException("Falló la verificación de la contraseña", causa);
+        }
+    }
+
+    /**
+     * Espero el resultado como máximo hasta que se cumpla el máximo de espera
+     * desde que se encoló. Si para entonces la tarea sigue en la cola, la
+     * cancelo y la saco; si ya está hasheando, espero a que termine.
+     */
+    private <T> T resultado(Future<T> f, long encolada, AtomicBoolean tomada)
+            throws InterruptedException, ExecutionException {
+        long restante = maxEsperaNs - (System.nanoTime() - encolada);
+        try {
+            return f.get(Math.max(0, restante), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            if (!tomada.compareAndSet(false, true)) {
+                return f.get(); // ya empezó a tiempo: el hash no tarda más que eso
+            }
+            f.cancel(false);
+            pool.purge(); // que la cancelada no ocupe lugar en la cola
+            long espera = System.nanoTime() - encolada;
+            esperaTotalNs.add(espera);
+            esperaMaxNs.accumulate(espera);
+            vencidas.increment();
+            throw new RejectedExecutionException(
+                    "La verificación esperó " + TimeUnit.NANOSECONDS.toMillis(espera) + " ms en la cola", e);
+        }
+    }
+
+    /** Dejo de aceptar tareas y espero un poco a que terminen las que están en curso. */
+    public void cerrar() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(TimeUnit.NANOSECONDS.toMillis(maxEsperaNs), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    /** Tareas esperando en la cola en este momento. */
+    public int getEnCola() { return pool.getQueue().size(); }
+
+    /** Hilos hasheando en este momento. */
+    public int getActivas() { return pool.getActiveCount(); }
+
+    /** Tareas ejecutadas desde que arrancó. */
+    public long getEjecutadas() { return ejecutadas.sum(); }
+
+    /** Pedidos rechazados al llegar porque la cola estaba llena. */
+    public long getRechazadas() { return rechazadas.sum(); }
+
+    /** Tareas descartadas por esperar en la cola más que el máximo (quien las pidió recibió el rechazo). */
+    public long getVencidas() { return vencidas.sum(); }
+
+    /** Espera promedio en la cola, en ms. */
+    public double getEsperaPromedioMs() {
+        long n = getEjecutadas() + getVencidas();
+        return n == 0 ? 0.0 : esperaTotalNs.sum() / (double) n / 1_000_000.0;
+    }
+
+    /** Espera más larga en la cola, en ms. */
+    public double getEsperaMaximaMs() { return esperaMaxNs.get() / 1_000_000.0; }
+
+    @Override
+    public String toString() {
+        return String.format("PasswordHashingExecutor{hilos=%d, activas=%d, enCola=%d, ejecutadas=%d, rechazadas=%d, vencidas=%d, esperaProm=%.1fms, esperaMax=%.1fms}",
+                pool.getCorePoolSize(), getActivas(), getEnCola(), getEjecutadas(), getRechazadas(), getVencidas(),
+                getEsperaPromedioMs(), getEsperaMaximaMs());
+    }
+}
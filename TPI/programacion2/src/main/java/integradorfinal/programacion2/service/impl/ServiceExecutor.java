@@ -0,0 +1,237 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.config.ReplicaRouter;
+import integradorfinal.programacion2.exceptions.DataAccessException;
+import integradorfinal.programacion2.metrics.Metricas;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de hilos donde corren las variantes asíncronas (*Async) de
+ * los servicios.
+ *
+ * Cada operación asíncrona toma una conexión del pool mientras corre, así
+ * que por defecto hay tantos hilos como conexiones (db.pool.maxSize): con
+ * más hilos las tareas solo quedarían esperando una conexión libre. Las que
+ * no entran esperan en una cola de capacidad fija y, si la cola está llena,
+ * se rechazan enseguida.
+ *
+ * Todas las operaciones devuelven un CompletableFuture que termina con:
+ * - el resultado, si todo salió bien;
+ * - una DataAccessException si falló la base (las SQLException se envuelven
+ *   acá, las DataAccessException de los DAO llegan tal cual);
+ * - la excepción original para errores de validación (IllegalArgumentException, ...);
+ * - RejectedExecutionException si no había lugar en la cola;
+ * - TimeoutException si se pasó de async.timeoutMs (o del orTimeout que
+ *   le ponga quien llama);
+ * - CancellationException si quien llama lo cancela.
+ * Si el future se cancela o vence antes de que la tarea empiece, la tarea
+ * ya no se ejecuta (no llega a pedir conexión); si ya estaba corriendo, se
+ * interrumpe su hilo, lo que corta la espera de una conexión del pool. Una
+ * sentencia que ya está en la base termina igual y su resultado se descarta.
+ *
+ * Las tareas corren en otro hilo, así que no participan de una transacción
+ * abierta por quien las llama (cada una usa su propia conexión). Sí usan la
+ * sesión de read-your-writes de quien las encola (ver ReplicaRouter): lo que
+ * escribe la tarea lo ve enseguida quien la pidió, aunque haya réplicas.
+ *
+ * JDK 17 no tiene hilos virtuales; por eso es un pool de hilos comunes,
+ * acotado por la cantidad de conexiones, que es el límite real.
+ */
+public final class ServiceExecutor {
+
+    /** Operación de servicio que puede fallar con SQLException. */
+    @FunctionalInterface
+    public interface Operacion<T> {
+        T ejecutar() throws SQLException;
+    }
+
+    // Instancia compartida por toda la aplicación (se crea al primer uso)
+    private static volatile ServiceExecutor compartido = null;
+
+    private final ThreadPoolExecutor pool;
+    private final long timeoutMs;
+
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder fallidas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder canceladas = new LongAdder();
+
+    /**
+     * @param hilos     cantidad de hilos
+     * @param capacidad tareas que pueden esperar en la cola
+     * @param timeoutMs tiempo máximo de cada operación, con la espera incluida (0 = sin límite)
+     */
+    public ServiceExecutor(int hilos, int capacidad, long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        AtomicInteger numero = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidad),
+                r -> {
+                    Thread t = new Thread(r, "servicio-async-" + numero.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // ======================================================
+    // INSTANCIA COMPARTIDA
+    // ======================================================
+
+    /**
+     * Devuelvo la instancia compartida, creándola la primera vez con la
+     * configuración de db.properties (async.*).
+     */
+    public static ServiceExecutor compartido() {
+        ServiceExecutor e = compartido;
+        if (e == null) {
+            synchronized (ServiceExecutor.class) {
+                e = compartido;
+                if (e == null) {
+                    int hilos = Config.ASYNC_THREADS > 0 ? Config.ASYNC_THREADS : Config.POOL_MAX_SIZE;
+                    e = new ServiceExecutor(hilos, Config.ASYNC_QUEUE_SIZE, Config.ASYNC_TIMEOUT_MS);
+                    compartido = e;
+                    ServiceExecutor instancia = e;
+                    Metricas.registrarMedidores("Async", Map.of(
+                            "enCola", instancia::getEnCola,
+                            "activas", instancia::getActivas,
+                            "completadas", instancia::getCompletadas,
+                            "fallidas", instancia::getFallidas,
+                            "rechazadas", instancia::getRechazadas,
+                            "canceladas", instancia::getCanceladas));
+                }
+            }
+        }
+        return e;
+    }
+
+    /** Detengo la instancia compartida (si se llegó a crear). */
+    public static void cerrarCompartido() {
+        ServiceExecutor e;
+        synchronized (ServiceExecutor.class) {
+            e = compartido;
+            compartido = null;
+        }
+        if (e != null) {
+            e.cerrar();
+        }
+    }
+
+    // ======================================================
+    // API
+    // ======================================================
+
+    /**
+     * Encolo la operación y devuelvo enseguida el future con su resultado.
+     *
+     * @param nombre    nombre de la operación, para el mensaje de error
+     * @param operacion lo que se ejecuta en el pool
+     */
+    public <T> CompletableFuture<T> enviar(String nombre, Operacion<T> operacion) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        ReplicaRouter.Sesion sesion = ReplicaRouter.isActivo() ? ReplicaRouter.sesionActual() : null;
+        Future<?> tarea;
+        try {
+            tarea = pool.submit(() -> ejecutar(nombre, operacion, sesion, resultado));
+        } catch (RejectedExecutionException e) {
+            rechazadas.increment();
+            resultado.completeExceptionally(new RejectedExecutionException(
+                    "Demasiadas operaciones asíncronas en curso: se rechaza " + nombre, e));
+            return resultado;
+        }
+
+        // Si quien llama cancela o se vence el tiempo, la tarea no sigue ocupando el pool
+        resultado.whenComplete((valor, error) -> {
+            if (error instanceof CancellationException || error instanceof TimeoutException) {
+                canceladas.increment();
+                tarea.cancel(true);
+            }
+        });
+        if (timeoutMs > 0) {
+            resultado.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        return resultado;
+    }
+
+    /** Dejo de aceptar tareas y espero un poco a que terminen las que están en curso. */
+    public void cerrar() {
+        pool.shutdown();
+        try {
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    /** Tareas esperando en la cola en este momento. */
+    public int getEnCola() { return pool.getQueue().size(); }
+
+    /** Hilos ejecutando una operación en este momento. */
+    public int getActivas() { return pool.getActiveCount(); }
+
+    /** Operaciones que terminaron bien. */
+    public long getCompletadas() { return completadas.sum(); }
+
+    /** Operaciones que terminaron con error. */
+    public long getFallidas() { return fallidas.sum(); }
+
+    /** Pedidos rechazados al llegar porque la cola estaba llena. */
+    public long getRechazadas() { return rechazadas.sum(); }
+
+    /** Operaciones canceladas o vencidas. */
+    public long getCanceladas() { return canceladas.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("ServiceExecutor{hilos=%d, activas=%d, enCola=%d, completadas=%d, fallidas=%d, rechazadas=%d, canceladas=%d}",
+                pool.getCorePoolSize(), getActivas(), getEnCola(), getCompletadas(), getFallidas(), getRechazadas(),
+                getCanceladas());
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    /** Corre la operación en el hilo del pool y completa el future según cómo terminó. */
+    private <T> void ejecutar(String nombre, Operacion<T> operacion, ReplicaRouter.Sesion sesion,
+                              CompletableFuture<T> resultado) {
+        // Cancelado o vencido mientras esperaba en la cola: ni pido conexión
+        if (resultado.isDone()) {
+            return;
+        }
+        ReplicaRouter.Sesion anterior = sesion != null ? ReplicaRouter.usarSesion(sesion) : null;
+        try {
+            T valor = operacion.ejecutar();
+            if (resultado.complete(valor)) {
+                completadas.increment();
+            }
+        } catch (SQLException e) {
+            fallidas.increment();
+            resultado.completeExceptionally(new DataAccessException("Error de base de datos en " + nombre, e));
+        } catch (Throwable t) {
+            fallidas.increment();
+            resultado.completeExceptionally(t);
+        } finally {
+            if (sesion != null) {
+                ReplicaRouter.usarSesion(anterior);
+            }
+        }
+    }
+}
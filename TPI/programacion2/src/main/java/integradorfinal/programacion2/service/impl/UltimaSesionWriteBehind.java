@@ -0,0 +1,282 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.config.TransactionTemplate;
+import integradorfinal.programacion2.dao.CredencialAccesoDao;
+import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
+import integradorfinal.programacion2.metrics.Metricas;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Escritura diferida (write-behind) de credencial_acceso.ultima_sesion.
+ *
+ * En un pico de logins, cada login exitoso hacía su propio UPDATE, que además
+ * dispara el trigger bu_credencial_no_activa_si_usuario_inactivo (con su propio
+ * SELECT sobre usuario) y compite por los locks de fila de InnoDB. Con este
+ * componente el login solo anota la fecha en un mapa concurrente por
+ * usuario_id; si el mismo usuario entra varias veces antes de grabar, queda
+ * una sola entrada (la más reciente).
+ *
+ * Un hilo graba todo lo pendiente cada {@link Config#ULTIMA_SESION_FLUSH_MS}
+ * (o antes si se juntan {@link Config#ULTIMA_SESION_MAX_PENDIENTES} usuarios)
+ * con un único UPDATE ... CASE por tramo, dentro de una transacción. Ese
+ * período es el máximo atraso con el que puede quedar ultima_sesion en la base.
+ * Si la grabación falla, lo pendiente vuelve al mapa y se reintenta en la
+ * próxima vuelta. Al cerrar se graba lo que quede.
+ *
+ * Es opcional (login.ultimaSesion.writeBehind en db.properties) y hay una sola
+ * instancia compartida, igual que el pool de conexiones.
+ */
+public final class UltimaSesionWriteBehind {
+
+    // Instancia compartida por toda la aplicación (se crea al primer uso)
+    private static volatile UltimaSesionWriteBehind compartido = null;
+
+    private final CredencialAccesoDao credencialDao;
+    private final TransactionTemplate tx = new TransactionTemplate();
+    private final int maxPendientes;
+
+    // usuario_id → última sesión todavía no grabada
+    private final ConcurrentHashMap<Long, LocalDateTime> pendientes = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService grabador;
+
+    // Evita encolar varias grabaciones anticipadas seguidas
+    private final AtomicBoolean grabacionPedida = new AtomicBoolean(false);
+    private volatile boolean cerrado = false;
+
+    private final LongAdder registradas = new LongAdder();
+    private final LongAdder escritas = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder errores = new LongAdder();
+    private volatile long ultimoFlushMs = 0;
+
+    /**
+     * @param credencialDao DAO con el que se graban los lotes
+     * @param flushMs       cada cuántos milisegundos se graba lo pendiente
+     * @param maxPendientes cantidad de usuarios pendientes que dispara una grabación anticipada
+     */
+    public UltimaSesionWriteBehind(CredencialAccesoDao credencialDao, long flushMs, int maxPendientes) {
+        this.credencialDao = credencialDao;
+        this.maxPendientes = Math.max(1, maxPendientes);
+        this.grabador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ultima-sesion-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        grabador.scheduleWithFixedDelay(this::flushSilencioso, flushMs, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    // ======================================================
+    // INSTANCIA COMPARTIDA
+    // ======================================================
+
+    /**
+     * Devuelvo la instancia compartida, creándola la primera vez con la
+     * configuración de db.properties. También registro un shutdown hook para
+     * no perder lo pendiente si la aplicación se corta sin pasar por
+     * {@link #cerrarCompartido()}.
+     */
+    public static UltimaSesionWriteBehind compartido() {
+        UltimaSesionWriteBehind w = compartido;
+        if (w == null) {
+            synchronized (UltimaSesionWriteBehind.class) {
+                w = compartido;
+                if (w == null) {
+                    w = new UltimaSesionWriteBehind(new CredencialAccesoDaoImpl(),
+                            Config.ULTIMA_SESION_FLUSH_MS, Config.ULTIMA_SESION_MAX_PENDIENTES);
+                    compartido = w;
+                    UltimaSesionWriteBehind instancia = w;
+                    Runtime.getRuntime().addShutdownHook(new Thread(instancia::cerrar, "ultima-sesion-shutdown"));
+                    Metricas.registrarMedidores("UltimaSesion", Map.of(
+                            "pendientes", instancia::getPendientes,
+                            "registradas", instancia::getRegistradas,
+                            "escritas", instancia::getEscritas,
+                            "flushes", instancia::getFlushes,
+                            "errores", instancia::getErrores,
+                            "ultimoFlushMs", instancia::getUltimoFlushMs,
+                            "coalescingRatio", instancia::getCoalescingRatio));
+                }
+            }
+        }
+        return w;
+    }
+
+    /**
+     * Grabo lo pendiente y detengo la instancia compartida (si se llegó a crear).
+     * Hay que llamarlo antes de cerrar el pool de conexiones.
+     */
+    public static void cerrarCompartido() {
+        UltimaSesionWriteBehind w;
+        synchronized (UltimaSesionWriteBehind.class) {
+            w = compartido;
+            compartido = null;
+        }
+        if (w != null) {
+            w.cerrar();
+        }
+    }
+
+    // ======================================================
+    // API
+    // ======================================================
+
+    /**
+     * Anoto la última sesión de un usuario para grabarla más tarde. Si ya había
+     * una pendiente, me quedo con la más reciente.
+     *
+     * @return false si el componente ya se cerró (por ejemplo, desde el
+     * shutdown hook): no se anotó nada y quien llama la tiene que grabar por
+     * su cuenta
+     */
+    public boolean registrar(Long usuarioId, LocalDateTime cuando) {
+        if (cerrado) {
+            return false;
+        }
+        pendientes.merge(usuarioId, cuando, UltimaSesionWriteBehind::masReciente);
+        // Saco solo lo que anoté yo: si otro hilo dejó una fecha más nueva, es
+        // de él (y la mía ya no hace falta)
+        if (cerrado && pendientes.remove(usuarioId, cuando)) {
+            // Se cerró mientras anotaba: puede que la última grabación ya no
+            // la incluya, así que la devuelvo a quien llama
+            return false;
+        }
+        registradas.increment();
+
+        if (pendientes.size() >= maxPendientes && grabacionPedida.compareAndSet(false, true)) {
+            try {
+                grabador.execute(() -> {
+                    grabacionPedida.set(false);
+                    flushSilencioso();
+                });
+            } catch (RejectedExecutionException e) {
+                // Se está cerrando: lo pendiente lo graba cerrar()
+                grabacionPedida.set(false);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Grabo ahora todo lo pendiente en un único UPDATE ... CASE por tramo.
+     * Si falla, lo pendiente vuelve al mapa (sin pisar fechas más nuevas).
+     *
+     * @return cantidad de usuarios enviados a la base
+     * @throws SQLException si falla la grabación
+     */
+    public synchronized int flush() throws SQLException {
+        if (pendientes.isEmpty()) return 0;
+
+        // Saco cada entrada solo si no cambió mientras la copiaba; si llegó
+        // una fecha más nueva, queda para la próxima vuelta.
+        Map<Long, LocalDateTime> lote = new HashMap<>();
+        for (Map.Entry<Long, LocalDateTime> e : pendientes.entrySet()) {
+            if (pendientes.remove(e.getKey(), e.getValue())) {
+                lote.put(e.getKey(), e.getValue());
+            }
+        }
+        if (lote.isEmpty()) return 0;
+
+        long inicio = System.nanoTime();
+        try {
+            tx.execute(status -> credencialDao.updateUltimaSesionAll(lote, status.getConnection()));
+        } catch (SQLException | RuntimeException e) {
+            errores.increment();
+            lote.forEach((id, cuando) -> pendientes.merge(id, cuando, UltimaSesionWriteBehind::masReciente));
+            throw e;
+        }
+        ultimoFlushMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        flushes.increment();
+        escritas.add(lote.size());
+        return lote.size();
+    }
+
+    /**
+     * Detengo el hilo de grabación y grabo lo que quede pendiente.
+     * Después de cerrar, {@link #registrar} ya no acepta sesiones (devuelve false).
+     */
+    public void cerrar() {
+        if (cerrado) return;
+        cerrado = true;
+        grabador.shutdown();
+        try {
+            grabador.awaitTermination(Config.ULTIMA_SESION_FLUSH_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            int n = flush();
+            if (n > 0) {
+                System.out.println("Últimas sesiones pendientes grabadas: " + n);
+            }
+        } catch (SQLException e) {
+            System.err.println("No se pudieron grabar " + pendientes.size()
+                    + " últimas sesiones pendientes: " + e.getMessage());
+        }
+    }
+
+    // ======================================================
+    // MÉTRICAS
+    // ======================================================
+
+    /** Logins anotados desde que arrancó. */
+    public long getRegistradas() { return registradas.sum(); }
+
+    /** Filas enviadas a la base (una por usuario y por grabación). */
+    public long getEscritas() { return escritas.sum(); }
+
+    /** Grabaciones exitosas. */
+    public long getFlushes() { return flushes.sum(); }
+
+    /** Grabaciones que fallaron (y se reintentaron más tarde). */
+    public long getErrores() { return errores.sum(); }
+
+    /** Usuarios esperando ser grabados. */
+    public int getPendientes() { return pendientes.size(); }
+
+    /** Duración de la última grabación exitosa, en ms. */
+    public long getUltimoFlushMs() { return ultimoFlushMs; }
+
+    /**
+     * Proporción de escrituras ahorradas por juntar logins del mismo usuario
+     * (0 = ninguna; 0.9 = se escribió 1 fila cada 10 logins).
+     */
+    public double getCoalescingRatio() {
+        long r = getRegistradas() - getPendientes();
+        return r <= 0 ? 0.0 : Math.max(0.0, 1.0 - (double) getEscritas() / r);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("UltimaSesionWriteBehind{registradas=%d, escritas=%d, coalescing=%.1f%%, flushes=%d, errores=%d, pendientes=%d}",
+                getRegistradas(), getEscritas(), getCoalescingRatio() * 100, getFlushes(), getErrores(), getPendientes());
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    /** Versión para el hilo de grabación: un error no tiene que cortar las próximas vueltas. */
+    private void flushSilencioso() {
+        try {
+            flush();
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Error grabando últimas sesiones (se reintenta): " + e.getMessage());
+        }
+    }
+
+    private static LocalDateTime masReciente(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,448 @@
+package integradorfinal.programacion2.service.impl;
+
+import integradorfinal.programacion2.config.Config;
+import integradorfinal.programacion2.config.TransactionTemplate;
+import integradorfinal.programacion2.dao.CredencialAccesoDao;
+import integradorfinal.programacion2.dao.UsuarioDao;
+import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
+import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
+import integradorfinal.programacion2.entities.CredencialAcceso;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.util.PasswordUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Importación masiva de usuarios con credencial desde un archivo CSV.
+ *
+ * Formato de cada línea (la primera puede ser un encabezado que empiece con "username"):
+ * <pre>
+ * username,nombre,apellido,email,password[,salt]
+ * </pre>
+ * Si viene la columna salt, el password se toma como un hash ya calculado y se
+ * guarda tal cual: se acepta cualquier formato que reconozca algún
+ * {@link integradorfinal.programacion2.util.PasswordHasher} (el SHA-256 original
+ * en hex o pbkdf2-sha256$iteraciones$hex, como los exporta la aplicación).
+ * Si no viene, es texto plano y se hashea.
+ *
+ * El archivo se procesa como un pipeline acotado, para que la memoria no crezca
+ * con el tamaño del archivo:
+ * <ol>
+ * <li>Este hilo lee y valida las líneas, y las agrupa en lotes.</li>
+ * <li>Cada lote se hashea en paralelo en un ForkJoinPool (salt + hash con PasswordUtil).</li>
+ * <li>Un hilo escritor guarda cada lote (usuarios + credenciales) con createAll en
+ * una transacción. Si el lote falla, lo reintenta fila por fila para aislar las malas.</li>
+ * </ol>
+ * Entre la lectura y la escritura hay una cola acotada, así que nunca hay en
+ * memoria más que unos pocos lotes. Las filas rechazadas van a un archivo aparte
+ * con el número de línea y el motivo, y la importación sigue.
+ */
+public class UsuarioCsvImporter {
+
+    // Lotes hasheados o en proceso que pueden esperar al escritor
+    private static final int LOTES_EN_VUELO = 4;
+
+    private final UsuarioDao usuarioDao;
+    private final CredencialAccesoDao credencialDao;
+    private final TransactionTemplate tx = new TransactionTemplate();
+
+    public UsuarioCsvImporter() {
+        this(new UsuarioDaoImpl(), new CredencialAccesoDaoImpl());
+    }
+
+    public UsuarioCsvImporter(UsuarioDao usuarioDao, CredencialAccesoDao credencialDao) {
+        this.usuarioDao = usuarioDao;
+        this.credencialDao = credencialDao;
+    }
+
+    /**
+     * Importo el archivo completo.
+     *
+     * @param csv       archivo de entrada (UTF-8)
+     * @param rechazos  archivo donde se escriben las filas rechazadas
+     * @return el resumen de la importación
+     * @throws IOException  si no se puede leer el CSV o escribir los rechazos
+     * @throws SQLException si se pierde la conexión con la base (se corta la importación)
+     */
+    public Resultado importar(Path csv, Path rechazos) throws IOException, SQLException {
+        int hilos = Config.IMPORT_HASH_THREADS > 0
+                ? Config.IMPORT_HASH_THREADS : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool hasheo = new ForkJoinPool(hilos);
+        ExecutorService escritor = Executors.newSingleThreadExecutor(r -> new Thread(r, "importacion-escritor"));
+        BlockingQueue<Future<List<Fila>>> cola = new ArrayBlockingQueue<>(LOTES_EN_VUELO);
+
+        Resultado res = new Resultado();
+        long inicio = System.nanoTime();
+
+        try (BufferedReader in = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+             Rechazos rech = new Rechazos(Files.newBufferedWriter(rechazos, StandardCharsets.UTF_8))) {
+
+            // Etapa 3: el escritor toma los lotes en el mismo orden en que se leyeron.
+            Future<?> escritura = escritor.submit(() -> {
+                while (true) {
+                    List<Fila> lote = cola.take().get();
+                    if (lote.isEmpty()) return null; // fin del archivo
+                    escribirLote(lote, rech, res);
+                    informarProgreso(res, inicio);
+                }
+            });
+
+            // Etapas 1 y 2: leo, valido y mando a hashear cada lote.
+            List<Fila> lote = new ArrayList<>(Config.IMPORT_CHUNK_SIZE);
+            String linea;
+            long nroLinea = 0;
+            while ((linea = in.readLine()) != null) {
+                nroLinea++;
+                if (linea.isBlank() || (nroLinea == 1 && linea.toLowerCase().startsWith("username"))) {
+                    continue;
+                }
+                res.leidas.incrementAndGet();
+                try {
+                    lote.add(parsear(nroLinea, linea));
+                } catch (IllegalArgumentException e) {
+                    rech.escribir(nroLinea, e.getMessage(), linea);
+                    res.rechazadas.incrementAndGet();
+                }
+                if (lote.size() == Config.IMPORT_CHUNK_SIZE) {
+                    encolar(cola, lote, hasheo, escritura);
+                    lote = new ArrayList<>(Config.IMPORT_CHUNK_SIZE);
+                }
+            }
+            if (!lote.isEmpty()) {
+                encolar(cola, lote, hasheo, escritura);
+            }
+            encolar(cola, List.of(), hasheo, escritura);
+
+            esperar(escritura);
+        } finally {
+            escritor.shutdownNow();
+            hasheo.shutdownNow();
+        }
+
+        res.segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        return res;
+    }
+
+    // ======================================================
+    // ETAPAS DEL PIPELINE
+    // ======================================================
+
+    /**
+     * Mando el lote a hashear y dejo su Future en la cola. Si la cola está llena
+     * espero: eso frena la lectura y mantiene la memoria acotada.
+     */
+    private void encolar(BlockingQueue<Future<List<Fila>>> cola, List<Fila> lote,
+                         ForkJoinPool hasheo, Future<?> escritura) throws IOException, SQLException {
+        Future<List<Fila>> hasheado = CompletableFuture.supplyAsync(() -> {
+            lote.parallelStream().forEach(Fila::hashear);
+            return lote;
+        }, hasheo);
+        try {
+            while (!cola.offer(hasheado, 200, TimeUnit.MILLISECONDS)) {
+                if (escritura.isDone()) {
+                    esperar(escritura); // el escritor terminó con error: lo propago
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importación interrumpida", e);
+        }
+    }
+
+    /**
+     * Guardo un lote completo en una transacción. Si falla (por ejemplo, un
+     * username duplicado), se revierte entero y lo reintento fila por fila.
+     */
+    private void escribirLote(List<Fila> lote, Rechazos rech, Resultado res) throws SQLException, IOException {
+        try {
+            tx.execute(status -> {
+                Connection conn = status.getConnection();
+                List<Usuario> usuarios = new ArrayList<>(lote.size());
+                List<CredencialAcceso> credenciales = new ArrayList<>(lote.size());
+                for (Fila f : lote) {
+                    usuarios.add(f.usuario);
+                    credenciales.add(f.credencial);
+                }
+                usuarioDao.createAll(usuarios, conn);
+                for (Fila f : lote) {
+                    f.credencial.setUsuarioId(f.usuario.getIdUsuario());
+                }
+                credencialDao.createAll(credenciales, conn);
+                return null;
+            });
+            res.importadas.addAndGet(lote.size());
+        } catch (SQLException e) {
+            if (esErrorDeConexion(e)) throw e;
+            for (Fila f : lote) {
+                escribirFila(f, rech, res);
+            }
+        }
+    }
+
+    private void escribirFila(Fila f, Rechazos rech, Resultado res) throws SQLException, IOException {
+        try {
+            tx.execute(status -> {
+                Connection conn = status.getConnection();
+                Long id = usuarioDao.create(f.usuario, conn);
+                f.credencial.setUsuarioId(id);
+                credencialDao.create(f.credencial, conn);
+                return null;
+            });
+            res.importadas.incrementAndGet();
+        } catch (SQLException e) {
+            if (esErrorDeConexion(e)) throw e;
+            rech.escribir(f.nroLinea, e.getMessage(), f.original);
+            res.rechazadas.incrementAndGet();
+        }
+    }
+
+    /**
+     * Muestro el avance (filas/seg) como mucho cada 2 segundos. Solo lo llama el escritor.
+     */
+    private void informarProgreso(Resultado res, long inicio) {
+        long ahora = System.nanoTime();
+        if (ahora - res.ultimoInforme < 2_000_000_000L) return;
+        res.ultimoInforme = ahora;
+        double seg = (ahora - inicio) / 1_000_000_000.0;
+        long procesadas = res.importadas.get() + res.rechazadas.get();
+        System.out.printf("  ... %d filas procesadas (%d importadas, %d rechazadas) - %.0f filas/seg%n",
+                procesadas, res.importadas.get(), res.rechazadas.get(), seg > 0 ? procesadas / seg : 0.0);
+    }
+
+    // ======================================================
+    // PARSEO Y VALIDACIÓN
+    // ======================================================
+
+    /**
+     * Convierto una línea en una Fila validada.
+     *
+     * @throws IllegalArgumentException con el motivo si la línea no es válida
+     */
+    private Fila parsear(long nroLinea, String linea) {
+        List<String> cols = separarCsv(linea);
+        if (cols.size() < 5 || cols.size() > 6) {
+            throw new IllegalArgumentException("Se esperaban 5 o 6 columnas y hay " + cols.size());
+        }
+        String username = requerido(cols.get(0), "username", 60);
+        String nombre = requerido(cols.get(1), "nombre", 100);
+        String apellido = requerido(cols.get(2), "apellido", 100);
+        String email = requerido(cols.get(3), "email", 120);
+        String password = cols.get(4);
+        String salt = cols.size() == 6 ? cols.get(5).trim() : "";
+
+        if (email.indexOf('@') <= 0) {
+            throw new IllegalArgumentException("Email inválido");
+        }
+        if (password.isBlank()) {
+            throw new IllegalArgumentException("El password es obligatorio");
+        }
+        if (!salt.isEmpty()) {
+            if (salt.length() > 64) {
+                throw new IllegalArgumentException("El salt supera los 64 caracteres");
+            }
+            if (!PasswordUtil.isRecognizedHash(password.trim())) {
+                throw new IllegalArgumentException("El hash precalculado no tiene un formato conocido "
+                        + "(SHA-256 en hex o pbkdf2-sha256$iteraciones$hex)");
+            }
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+
+        Usuario u = new Usuario();
+        u.setEliminado(false);
+        u.setUsername(username);
+        u.setNombre(nombre);
+        u.setApellido(apellido);
+        u.setEmail(email);
+        u.setFechaRegistro(ahora);
+        u.setActivo(true);
+        u.setEstado(Estado.ACTIVO);
+
+        CredencialAcceso c = new CredencialAcceso();
+        c.setEliminado(false);
+        c.setEstado(Estado.ACTIVO);
+        c.setUltimoCambio(ahora);
+        c.setRequiereReset(false);
+        if (!salt.isEmpty()) {
+            c.setHashPassword(password.trim());
+            c.setSalt(salt);
+        }
+
+        return new Fila(nroLinea, linea, u, c, salt.isEmpty() ? password : null);
+    }
+
+    private static String requerido(String valor, String campo, int max) {
+        String v = valor.trim();
+        if (v.isEmpty()) {
+            throw new IllegalArgumentException("El campo " + campo + " es obligatorio");
+        }
+        if (v.length() > max) {
+            throw new IllegalArgumentException("El campo " + campo + " supera los " + max + " caracteres");
+        }
+        return v;
+    }
+
+    /**
+     * Separo una línea CSV respetando comillas dobles ("a,b" y "" como comilla escapada).
+     */
+    private static List<String> separarCsv(String linea) {
+        List<String> cols = new ArrayList<>(6);
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char ch = linea.charAt(i);
+            if (entreComillas) {
+                if (ch == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(ch);
+                }
+            } else if (ch == '"') {
+                entreComillas = true;
+            } else if (ch == ',') {
+                cols.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(ch);
+            }
+        }
+        if (entreComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        cols.add(actual.toString());
+        return cols;
+    }
+
+    /**
+     * Errores de conexión (SQLState 08xxx) o de pool agotado: no tiene sentido
+     * seguir fila por fila, corto la importación.
+     */
+    private static boolean esErrorDeConexion(SQLException e) {
+        String estado = e.getSQLState();
+        return (estado != null && estado.startsWith("08"))
+                || e instanceof SQLTransientConnectionException
+                || e instanceof SQLNonTransientConnectionException;
+    }
+
+    private static void esperar(Future<?> escritura) throws IOException, SQLException {
+        try {
+            escritura.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof ExecutionException ee && ee.getCause() != null) causa = ee.getCause();
+            if (causa instanceof SQLException se) throw se;
+            if (causa instanceof IOException ioe) throw ioe;
+            if (causa instanceof RuntimeException re) throw re;
+            throw new IOException("Error en la importación", causa);
+        }
+    }
+
+    // ======================================================
+    // TIPOS AUXILIARES
+    // ======================================================
+
+    /** Una fila válida del CSV, lista para hashear y guardar. */
+    private static final class Fila {
+        final long nroLinea;
+        final String original;
+        final Usuario usuario;
+        final CredencialAcceso credencial;
+        // Password en texto plano (null si vino ya hasheado); se descarta al hashear
+        String passwordPlano;
+
+        Fila(long nroLinea, String original, Usuario usuario, CredencialAcceso credencial, String passwordPlano) {
+            this.nroLinea = nroLinea;
+            this.original = original;
+            this.usuario = usuario;
+            this.credencial = credencial;
+            this.passwordPlano = passwordPlano;
+        }
+
+        void hashear() {
+            if (passwordPlano == null) return;
+            String salt = PasswordUtil.generateSalt(16);
+            credencial.setSalt(salt);
+            credencial.setHashPassword(PasswordUtil.hashPassword(passwordPlano, salt));
+            passwordPlano = null;
+        }
+    }
+
+    /** Archivo de rechazos; lo usan el lector y el escritor, por eso está sincronizado. */
+    private static final class Rechazos implements AutoCloseable {
+        private final BufferedWriter out;
+
+        Rechazos(BufferedWriter out) throws IOException {
+            this.out = out;
+            out.write("linea;motivo;contenido_original");
+            out.newLine();
+        }
+
+        synchronized void escribir(long nroLinea, String motivo, String original) throws IOException {
+            out.write(nroLinea + ";" + String.valueOf(motivo).replace('\n', ' ').replace(';', ',') + ";" + original);
+            out.newLine();
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /** Resumen de una importación. */
+    public static final class Resultado {
+        private final AtomicLong leidas = new AtomicLong();
+        private final AtomicLong importadas = new AtomicLong();
+        private final AtomicLong rechazadas = new AtomicLong();
+        private double segundos;
+        private long ultimoInforme = System.nanoTime();
+
+        public long getLeidas() { return leidas.get(); }
+
+        public long getImportadas() { return importadas.get(); }
+
+        public long getRechazadas() { return rechazadas.get(); }
+
+        public double getSegundos() { return segundos; }
+
+        public double getFilasPorSegundo() {
+            return segundos > 0 ? (importadas.get() + rechazadas.get()) / segundos : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Importación: %d filas leídas, %d importadas, %d rechazadas en %.1f s (%.0f filas/seg)",
+                    getLeidas(), getImportadas(), getRechazadas(), segundos, getFilasPorSegundo());
+        }
+    }
+}
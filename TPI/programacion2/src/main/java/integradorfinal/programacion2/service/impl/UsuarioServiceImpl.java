@@ -1,21 +1,32 @@
 package integradorfinal.programacion2.service.impl;
 
+import integradorfinal.programacion2.config.Config;
 import integradorfinal.programacion2.config.DatabaseConnection;
+import integradorfinal.programacion2.config.TransactionTemplate;
 import integradorfinal.programacion2.dao.CredencialAccesoDao;
+import integradorfinal.programacion2.dao.Disponibilidad;
+import integradorfinal.programacion2.dao.Projection;
 import integradorfinal.programacion2.dao.UsuarioDao;
+import integradorfinal.programacion2.dao.impl.CachingUsuarioDao;
 import integradorfinal.programacion2.dao.impl.CredencialAccesoDaoImpl;
 import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
 import integradorfinal.programacion2.entities.CredencialAcceso;
 import integradorfinal.programacion2.entities.Estado;
 import integradorfinal.programacion2.entities.Usuario;
+import integradorfinal.programacion2.exceptions.DuplicateKeyException;
+import integradorfinal.programacion2.metrics.Metricas;
+import integradorfinal.programacion2.service.AuthenticationResult;
 import integradorfinal.programacion2.service.UsuarioService;
 import integradorfinal.programacion2.util.PasswordUtil;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Capa de negocio para Usuario. Orquesta DAO + transacciones (commit/rollback).
@@ -25,16 +36,62 @@ public class UsuarioServiceImpl implements UsuarioService {
     private final UsuarioDao usuarioDao;
     private final CredencialAccesoDao credencialDao;
 
-    // Inyección simple por defecto
+    // Unidad de trabajo para las operaciones que tocan más de una tabla
+    private final TransactionTemplate tx = new TransactionTemplate();
+
+    // Escritura diferida de ultima_sesion (null = se graba en el momento)
+    private final UltimaSesionWriteBehind ultimaSesion;
+
+    // Pool acotado donde corre la verificación de contraseñas del login
+    private final PasswordHashingExecutor hasheo;
+
+    // Inyección simple por defecto (con caché de lectura de usuarios si está activado)
+    // Los DAO van envueltos para medir cada llamada (ver Metricas)
     public UsuarioServiceImpl() {
-        this.usuarioDao = new UsuarioDaoImpl();
-        this.credencialDao = new CredencialAccesoDaoImpl();
+        UsuarioDao dao = new UsuarioDaoImpl();
+        if (Config.CACHE_USUARIO_ENABLED) {
+            CachingUsuarioDao cache = new CachingUsuarioDao(dao);
+            Metricas.registrarMedidores("CacheUsuario", Map.of(
+                    "tamanio", cache::size,
+                    "hits", cache::getHits,
+                    "misses", cache::getMisses,
+                    "evictions", cache::getEvictions,
+                    "expirations", cache::getExpirations,
+                    "invalidations", cache::getInvalidations,
+                    "hitRatio", cache::getHitRatio));
+            dao = cache;
+        }
+        this.usuarioDao = Metricas.instrumentar(UsuarioDao.class, dao, "UsuarioDao");
+        this.credencialDao = Metricas.instrumentar(CredencialAccesoDao.class, new CredencialAccesoDaoImpl(),
+                "CredencialAccesoDao");
+        this.ultimaSesion = Config.ULTIMA_SESION_WRITE_BEHIND ? UltimaSesionWriteBehind.compartido() : null;
+        this.hasheo = PasswordHashingExecutor.compartido();
     }
 
     // (Opcional) Inyección por constructor para tests
     public UsuarioServiceImpl(UsuarioDao usuarioDao, CredencialAccesoDao credencialDao) {
+        this(usuarioDao, credencialDao, null);
+    }
+
+    /**
+     * Inyección por constructor indicando también el registro diferido de
+     * última sesión (null = cada login graba ultima_sesion en el momento).
+     */
+    public UsuarioServiceImpl(UsuarioDao usuarioDao, CredencialAccesoDao credencialDao,
+                              UltimaSesionWriteBehind ultimaSesion) {
+        this(usuarioDao, credencialDao, ultimaSesion, PasswordHashingExecutor.compartido());
+    }
+
+    /**
+     * Inyección por constructor indicando además el pool donde se verifican
+     * las contraseñas del login.
+     */
+    public UsuarioServiceImpl(UsuarioDao usuarioDao, CredencialAccesoDao credencialDao,
+                              UltimaSesionWriteBehind ultimaSesion, PasswordHashingExecutor hasheo) {
         this.usuarioDao = usuarioDao;
         this.credencialDao = credencialDao;
+        this.ultimaSesion = ultimaSesion;
+        this.hasheo = hasheo;
     }
 
     // ================================
@@ -69,6 +126,9 @@ public class UsuarioServiceImpl implements UsuarioService {
 
         try {
             return usuarioDao.create(entity);
+        } catch (DuplicateKeyException e) {
+            // Ya dice qué campo está repetido: la dejo pasar tal cual
+            throw e;
         } catch (SQLException e) {
             //SQLException con un mensaje más claro
             throw new SQLException("Error al crear el usuario con username = "
@@ -121,6 +181,42 @@ public class UsuarioServiceImpl implements UsuarioService {
         }
     }
 
+    /**
+     * Obtiene una página de usuarios no eliminados, ordenados por ID.
+     *
+     * <p>
+     * Usa paginación por clave: para la primera página se pasa {@code null}
+     * y para las siguientes el ID del último usuario recibido.</p>
+     *
+     * @param afterId ID del último usuario de la página anterior (o null)
+     * @param limit   cantidad máxima de usuarios a devolver
+     * @return la página pedida; vacía si no hay más usuarios
+     * @throws SQLException si ocurre un error al acceder a la base de datos
+     */
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit) throws SQLException {
+        try {
+            return usuarioDao.findPage(afterId, limit);
+        } catch (SQLException e) {
+            throw new SQLException("Error al listar la página de usuarios.", e);
+        }
+    }
+
+    /**
+     * Obtiene una página con la proyección indicada (por ejemplo
+     * {@link Projection#SUMMARY} para listados que no necesitan todas las columnas).
+     *
+     * @throws SQLException si ocurre un error al acceder a la base de datos
+     */
+    @Override
+    public List<Usuario> findPage(Long afterId, int limit, Projection projection) throws SQLException {
+        try {
+            return usuarioDao.findPage(afterId, limit, projection);
+        } catch (SQLException e) {
+            throw new SQLException("Error al listar la página de usuarios.", e);
+        }
+    }
+
     /**
      * Actualiza un usuario existente en la base de datos.
      *
@@ -140,6 +236,9 @@ public class UsuarioServiceImpl implements UsuarioService {
 
         try {
             usuarioDao.update(entity);
+        } catch (DuplicateKeyException e) {
+            // Ya dice qué campo está repetido: la dejo pasar tal cual
+            throw e;
         } catch (SQLException e) {
             //SQLException con un mensaje más claro
             throw new SQLException("Error al actualizar el usuario con id = "
@@ -243,6 +342,215 @@ public class UsuarioServiceImpl implements UsuarioService {
         }
     }
 
+    /**
+     * Indica si el username ya está tomado (por un usuario activo o
+     * eliminado lógicamente).
+     *
+     * @param username nombre de usuario
+     * @return true si no se puede usar para un usuario nuevo
+     * @throws SQLException si ocurre un error al acceder a la base de datos
+     */
+    @Override
+    public boolean existsByUsername(String username) throws SQLException {
+        try {
+            return usuarioDao.existsByUsername(username);
+        } catch (SQLException e) {
+            // SQLException con un mensaje más claro
+            throw new SQLException("Error al verificar el username " + username, e);
+        }
+    }
+
+    /**
+     * Indica si el email ya está tomado (por un usuario activo o eliminado
+     * lógicamente).
+     *
+     * @param email correo electrónico
+     * @return true si no se puede usar para un usuario nuevo
+     * @throws SQLException si ocurre un error al acceder a la base de datos
+     */
+    @Override
+    public boolean existsByEmail(String email) throws SQLException {
+        try {
+            return usuarioDao.existsByEmail(email);
+        } catch (SQLException e) {
+            // SQLException con un mensaje más claro
+            throw new SQLException("Error al verificar el email " + email, e);
+        }
+    }
+
+    /**
+     * Verifica username y email de un alta en una sola consulta.
+     *
+     * <p>
+     * Sirve para avisar antes de pedir el resto de los datos; la garantía la
+     * dan los índices únicos: si otro hilo toma el username entre esta
+     * verificación y el alta, {@link #createUsuarioConCredencial(Usuario)}
+     * lanza {@link DuplicateKeyException}.</p>
+     *
+     * @param username nombre de usuario
+     * @param email    correo electrónico
+     * @return cuál de los dos está libre
+     * @throws SQLException si ocurre un error al acceder a la base de datos
+     */
+    @Override
+    public Disponibilidad checkAvailability(String username, String email) throws SQLException {
+        try {
+            return usuarioDao.checkAvailability(username, email);
+        } catch (SQLException e) {
+            // SQLException con un mensaje más claro
+            throw new SQLException("Error al verificar la disponibilidad de " + username + " / " + email, e);
+        }
+    }
+
+    /**
+     * Busca varios usuarios por ID de una vez.
+     *
+     * <p>
+     * El DAO los trae con WHERE id_usuario IN (...) en tramos (y, con el
+     * caché activo, solo los que no están en caché). Es lo que conviene usar
+     * en lugar de llamar a findById dentro de un bucle.</p>
+     *
+     * @param ids IDs de los usuarios a buscar
+     * @return ID → usuario, en el orden de {@code ids}; los que no existen no
+     * aparecen
+     * @throws IllegalArgumentException si {@code ids} es null o contiene null
+     * @throws SQLException si ocurre un error al acceder a la base de datos
+     */
+    @Override
+    public Map<Long, Usuario> findByIds(Collection<Long> ids) throws SQLException {
+        if (ids == null) {
+            throw new IllegalArgumentException("La lista de IDs no puede ser null");
+        }
+        try {
+            return usuarioDao.findByIds(ids);
+        } catch (SQLException e) {
+            // SQLException con un mensaje más claro
+            throw new SQLException("Error al buscar " + ids.size() + " usuarios por id", e);
+        }
+    }
+
+    /**
+     * Autentica a un usuario por username y contraseña.
+     *
+     * <p>
+     * La lectura es un solo JOIN entre usuario y credencial_acceso (por los
+     * índices únicos de username y usuario_id), en el primario aunque haya
+     * réplicas; como no escribe, no cuenta para read-your-writes. La contraseña la verifico con
+     * la conexión ya devuelta al pool: con PBKDF2 cada verificación tarda
+     * decenas de milisegundos y no quiero tener una conexión ocupada mientras
+     * tanto. Además la verificación corre en {@link PasswordHashingExecutor}:
+     * si hay demasiados logins en espera, el intento se rechaza enseguida con
+     * {@link AuthenticationResult.Status#SOBRECARGA} en lugar de encolarse.</p>
+     *
+     * <p>
+     * Si la contraseña es correcta, en una segunda conexión hago un UPDATE que
+     * solo toca ultima_sesion (o la anoto para grabarla por lotes, si está
+     * activa la escritura diferida) y, si el hash guardado es de un esquema
+     * viejo o con menos iteraciones, lo regenero con el esquema actual vía
+     * sp_actualizar_password_seguro. Con la escritura diferida y sin hash que
+     * regenerar (el caso común) no hace falta esa segunda conexión.</p>
+     *
+     * @param username nombre de usuario
+     * @param password contraseña en texto plano
+     * @return el resultado del login; en caso de éxito trae el usuario con su credencial
+     * @throws SQLException si ocurre un error al acceder a la base de datos
+     */
+    @Override
+    public AuthenticationResult authenticate(String username, String password) throws SQLException {
+        try {
+            Optional<Usuario> optUser;
+            // Solo lectura: del primario, pero sin abrir la ventana de read-your-writes
+            try (Connection conn = DatabaseConnection.getPrimaryReadConnection()) {
+                optUser = usuarioDao.findByUsernameWithCredencial(username, conn);
+            }
+            if (optUser.isEmpty()) {
+                return AuthenticationResult.fallido(AuthenticationResult.Status.USUARIO_NO_ENCONTRADO);
+            }
+
+            Usuario u = optUser.get();
+            CredencialAcceso cred = u.getCredencial();
+            if (cred == null) {
+                return AuthenticationResult.fallido(AuthenticationResult.Status.SIN_CREDENCIAL);
+            }
+
+            // Verificación y, si hace falta, el nuevo hash: todo en un solo
+            // paso por el pool de hash y antes de pedir la conexión
+            Verificacion v;
+            try {
+                v = hasheo.ejecutar(() -> verificar(cred, password));
+            } catch (RejectedExecutionException e) {
+                return AuthenticationResult.fallido(AuthenticationResult.Status.SOBRECARGA);
+            }
+            if (!v.ok()) {
+                return AuthenticationResult.fallido(AuthenticationResult.Status.PASSWORD_INCORRECTA);
+            }
+            String nuevoSalt = v.nuevoSalt();
+            String nuevoHash = v.nuevoHash();
+
+            LocalDateTime ahora = LocalDateTime.now();
+            // Si la escritura diferida ya se cerró (al salir), la grabo acá mismo
+            boolean anotada = ultimaSesion != null && ultimaSesion.registrar(u.getIdUsuario(), ahora);
+            // Anotada y sin hash nuevo no hay nada que grabar: no pido conexión
+            if (!anotada || nuevoHash != null) {
+                try (Connection conn = DatabaseConnection.getConnection()) {
+                    if (!anotada) {
+                        credencialDao.updateUltimaSesion(u.getIdUsuario(), ahora, conn);
+                    }
+                    if (nuevoHash != null) {
+                        rehashear(u, cred, nuevoHash, nuevoSalt, conn);
+                    }
+                }
+            }
+            cred.setUltimaSesion(ahora);
+            cred.marcarLimpio(); // ya quedó grabada (o anotada para grabar): no es un cambio pendiente
+            return AuthenticationResult.ok(u);
+        } catch (SQLException e) {
+            throw new SQLException("Error al autenticar al usuario " + username, e);
+        }
+    }
+
+    /**
+     * Verifico la contraseña y, si es correcta y el hash guardado quedó viejo,
+     * calculo el nuevo (corre en el pool de hash).
+     */
+    private Verificacion verificar(CredencialAcceso cred, String password) {
+        if (!PasswordUtil.validatePassword(password, cred.getSalt(), cred.getHashPassword())) {
+            return new Verificacion(false, null, null);
+        }
+        if (!debeRehashear(cred)) {
+            return new Verificacion(true, null, null);
+        }
+        String salt = PasswordUtil.generateSalt(16);
+        return new Verificacion(true, salt, PasswordUtil.hashPassword(password, salt));
+    }
+
+    /** Resultado de {@link #verificar}: nuevoSalt/nuevoHash solo vienen si hay que regenerar el hash. */
+    private record Verificacion(boolean ok, String nuevoSalt, String nuevoHash) {}
+
+    /**
+     * Solo regenero el hash si el guardado quedó viejo y la credencial no
+     * tiene pendiente un cambio de contraseña: el procedimiento almacenado
+     * pone requiere_reset en FALSE y no quiero saltear ese cambio.
+     */
+    private boolean debeRehashear(CredencialAcceso cred) {
+        return !cred.isRequiereReset() && PasswordUtil.needsRehash(cred.getHashPassword());
+    }
+
+    /**
+     * Grabo el hash regenerado. Si falla no corto el login (la contraseña ya
+     * se validó): queda el hash anterior y se vuelve a intentar la próxima vez.
+     */
+    private void rehashear(Usuario u, CredencialAcceso cred, String nuevoHash, String nuevoSalt, Connection conn) {
+        try {
+            credencialDao.updatePasswordSeguro(u.getIdUsuario(), nuevoHash, nuevoSalt, conn);
+            cred.setHashPassword(nuevoHash);
+            cred.setSalt(nuevoSalt);
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("No se pudo actualizar el hash de la contraseña de " + u.getUsername()
+                    + ": " + e.getMessage());
+        }
+    }
+
     /**
      * Crea un nuevo {@link Usuario} junto con su {@link CredencialAcceso} en
      * una única transacción.
@@ -251,13 +559,13 @@ public class UsuarioServiceImpl implements UsuarioService {
      * Este método aplica validaciones de negocio mínimas (username, email y
      * credencial obligatorios), inicializa valores por defecto (fecha de
      * registro, estado, último cambio) y asegura la seguridad de la contraseña
-     * generando un {@code salt} aleatorio y calculando el hash con SHA-256
+     * generando un {@code salt} aleatorio y calculando el hash (PBKDF2 por defecto)
      * antes de persistir los datos.</p>
      *
      * <p>
-     * La operación se ejecuta de forma transaccional:
+     * La operación se ejecuta de forma transaccional con {@link TransactionTemplate}:
      * <ul>
-     * <li>Se desactiva el autocommit de la conexión.</li>
+     * <li>Se toma una conexión del pool y se desactiva el autocommit.</li>
      * <li>Se inserta primero el usuario en la tabla {@code usuario},
      * recuperando su ID generado.</li>
      * <li>Se inserta la credencial asociada en la tabla
@@ -267,20 +575,20 @@ public class UsuarioServiceImpl implements UsuarioService {
      * <li>Si ocurre cualquier error, se ejecuta {@code rollback()} para
      * revertir los cambios y evitar inconsistencias.</li>
      * </ul>
-     * Al finalizar, se restaura el estado original de autocommit y se cierra la
-     * conexión.</p>
+     * Al finalizar, la plantilla devuelve la conexión al pool.</p>
      *
      * @param usuario objeto {@link Usuario} a persistir, con datos básicos y
      * credencial asociada
      * @return el identificador generado para el nuevo usuario
      * @throws IllegalArgumentException si el usuario o su credencial no cumplen
      * las validaciones mínimas
+     * @throws DuplicateKeyException si el username o el email ya están
+     * tomados (la transacción se revierte; no hace falta llamar antes a
+     * {@link #checkAvailability(String, String)})
      * @throws SQLException si ocurre un error en la inserción de usuario o
      * credencial, o en las operaciones de commit/rollback
      *
-     * @see java.sql.Connection#setAutoCommit(boolean)
-     * @see java.sql.Connection#commit()
-     * @see java.sql.Connection#rollback()
+     * @see TransactionTemplate#execute(integradorfinal.programacion2.config.TransactionCallback)
      */
     @Override
     public Long createUsuarioConCredencial(Usuario usuario) throws SQLException {
@@ -324,13 +632,10 @@ public class UsuarioServiceImpl implements UsuarioService {
         cred.setSalt(salt);
         cred.setHashPassword(hash);
 
-        Connection conn = null;
-        boolean prevAutoCommit = true;
-
-        try {
-            conn = DatabaseConnection.getConnection();
-            prevAutoCommit = conn.getAutoCommit();
-            conn.setAutoCommit(false); // --- INICIO TRANSACCIÓN ---
+        // La plantilla abre la transacción, hace commit si todo sale bien
+        // y rollback ante cualquier excepción.
+        return tx.execute(status -> {
+            Connection conn = status.getConnection();
 
             // 1) Crear USUARIO (genera id)
             Long userId = usuarioDao.create(usuario, conn);
@@ -339,29 +644,8 @@ public class UsuarioServiceImpl implements UsuarioService {
             cred.setUsuarioId(userId);
             credencialDao.create(cred, conn);
 
-            // 3) Commit si todo OK
-            conn.commit();
             return userId;
-
-        } catch (SQLException ex) {
-            // Rollback ante cualquier problema
-            if (conn != null) {
-                try {
-                    conn.rollback();
-                } catch (SQLException ignore) {
-                }
-            }
-            throw ex;
-        } finally {
-            // Restaurar autocommit y cerrar conexión
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(prevAutoCommit);
-                } catch (SQLException ignore) {
-                }
-            }
-            DatabaseConnection.closeConnection();
-        }
+        });
     }
 
     /**
@@ -373,14 +657,13 @@ public class UsuarioServiceImpl implements UsuarioService {
      * manejo transaccional en JDBC:</p>
      *
      * <ol>
-     * <li>Se inicia una transacción desactivando el autocommit.</li>
+     * <li>Se inicia una transacción con {@link TransactionTemplate}.</li>
      * <li>Se crea un usuario de prueba en la base de datos (sin commit).</li>
      * <li>Se lanza intencionalmente una {@link SQLException} para simular un
      * error.</li>
-     * <li>El bloque {@code catch} ejecuta un {@code rollback()}, revirtiendo la
+     * <li>La plantilla ejecuta el {@code rollback()}, revirtiendo la
      * operación y asegurando que el usuario no quede persistido.</li>
-     * <li>Finalmente se restaura el estado original de autocommit y se cierra
-     * la conexión.</li>
+     * <li>Finalmente la plantilla devuelve la conexión al pool.</li>
      * </ol>
      *
      * <p>
@@ -393,52 +676,31 @@ public class UsuarioServiceImpl implements UsuarioService {
      */
     @Override
     public void demoRollback() throws SQLException {
-        Connection conn = null;
-        boolean prevAutoCommit = true;
+        System.out.println(">>> Iniciando demo de rollback con error simulado...");
 
         try {
-            System.out.println(">>> Iniciando demo de rollback con error simulado...");
-
-            conn = DatabaseConnection.getConnection();
-            prevAutoCommit = conn.getAutoCommit();
-            conn.setAutoCommit(false); // --- INICIO TRANSACCIÓN ---
-
-            // 1) Crear un usuario de prueba
-            Usuario u = new Usuario();
-            u.setUsername("rollback_demo_" + System.currentTimeMillis());
-            u.setNombre("Demo");
-            u.setApellido("Rollback");
-            u.setEmail("demo.rollback@example.com");
-            u.setFechaRegistro(LocalDateTime.now());
-            u.setActivo(true);
-            u.setEstado(Estado.ACTIVO);
-            u.setEliminado(false);
-
-            Long idUsuario = usuarioDao.create(u, conn);
-            System.out.println("Usuario demo creado con ID (sin commit): " + idUsuario);
-
-            // 2) ERROR FORZADO para demostrar rollback
-            throw new SQLException("Error simulado para demostrar ROLLBACK");
-
-            // 3) (Nunca llega acá)
-            // conn.commit();
+            tx.execute(status -> {
+                // 1) Crear un usuario de prueba
+                Usuario u = new Usuario();
+                u.setUsername("rollback_demo_" + System.currentTimeMillis());
+                u.setNombre("Demo");
+                u.setApellido("Rollback");
+                u.setEmail("demo.rollback@example.com");
+                u.setFechaRegistro(LocalDateTime.now());
+                u.setActivo(true);
+                u.setEstado(Estado.ACTIVO);
+                u.setEliminado(false);
+
+                Long idUsuario = usuarioDao.create(u, status.getConnection());
+                System.out.println("Usuario demo creado con ID (sin commit): " + idUsuario);
+
+                // 2) ERROR FORZADO para demostrar rollback
+                throw new SQLException("Error simulado para demostrar ROLLBACK");
+            });
         } catch (SQLException ex) {
-            if (conn != null) {
-                try {
-                    conn.rollback(); // ROLLBACK REAL
-                    System.out.println(">>> Se ejecutó ROLLBACK correctamente.");
-                } catch (SQLException ignore) {
-                }
-            }
+            // Cuando la excepción llega acá, la plantilla ya ejecutó el ROLLBACK real.
+            System.out.println(">>> Se ejecutó ROLLBACK correctamente.");
             throw ex;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.setAutoCommit(prevAutoCommit);
-                } catch (SQLException ignore) {
-                }
-            }
-            DatabaseConnection.closeConnection();
         }
     }
 
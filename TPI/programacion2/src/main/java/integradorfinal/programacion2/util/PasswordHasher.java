@@ -0,0 +1,48 @@
+package integradorfinal.programacion2.util;
+
+/**
+ * Esquema de hash de contraseñas.
+ *
+ * Cada implementación sabe reconocer sus propios hashes guardados en
+ * credencial_acceso.hash_password (por el prefijo que les pone), así
+ * {@link PasswordUtil} puede validar credenciales viejas y nuevas a la vez
+ * y saber cuáles conviene volver a hashear.
+ *
+ * El salt sigue guardándose aparte, en la columna salt.
+ */
+public interface PasswordHasher {
+
+    /** Nombre del esquema (es también el prefijo del hash guardado, si tiene). */
+    String id();
+
+    /**
+     * Calculo el valor a guardar en hash_password para este password y salt.
+     */
+    String hash(String password, String salt);
+
+    /**
+     * Verifico el password contra un hash guardado por este esquema.
+     * Devuelvo false (sin excepción) si el hash guardado está mal formado.
+     */
+    boolean verify(String password, String salt, String stored);
+
+    /** Indico si el hash guardado fue generado por este esquema. */
+    boolean supports(String stored);
+
+    /**
+     * Indico si el valor tiene el formato completo de un hash de este esquema
+     * (no solo el prefijo). Sirve para aceptar hashes ya calculados, por
+     * ejemplo en una importación.
+     */
+    default boolean isWellFormed(String stored) {
+        return supports(stored);
+    }
+
+    /**
+     * Indico si un hash de este mismo esquema se generó con parámetros más
+     * débiles que los actuales (y conviene regenerarlo en el próximo login).
+     */
+    default boolean needsRehash(String stored) {
+        return false;
+    }
+}
@@ -1,68 +1,249 @@
 package integradorfinal.programacion2.util;
 
+import integradorfinal.programacion2.config.Config;
+
 import java.nio.charset.StandardCharsets;
+import java.security.DigestException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
 
 /**
  * Utilidad simple para gestionar contraseñas:
  * - generar salt aleatorio
- * - hashear con SHA-256 (password + salt)
- * - validar password vs hash esperado
+ * - hashear con el esquema preferido (PBKDF2 por defecto, ver {@link PasswordHasher})
+ * - validar password vs hash esperado, con el esquema que corresponda al hash guardado
+ * - avisar si un hash guardado conviene regenerarlo (needsRehash)
+ *
+ * El esquema preferido se arma una sola vez, la primera vez que se usa
+ * (si hay que calibrar PBKDF2, se hace en ese momento).
  *
- * Nota: Para producción suele recomendarse BCrypt/Argon2.
- * Para el integrador, SHA-256 + salt es suficiente.
+ * También contiene el SHA-256 original (password + salt, una pasada), que
+ * usa {@link Sha256PasswordHasher} para validar las credenciales viejas.
+ * Como se llama en cada login, cada hilo reutiliza su propio MessageDigest y
+ * sus buffers, el hex se arma con una tabla (sin String.format) y la
+ * validación compara los bytes del digest en lugar de los strings.
  */
 public final class PasswordUtil {
 
     private static final String HASH_ALGO = "SHA-256";
+    private static final int DIGEST_BYTES = 32;
     private static final SecureRandom RNG = new SecureRandom();
 
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    // Valor de cada carácter hex en minúscula; -1 para cualquier otro (incluidas mayúsculas)
+    private static final byte[] NIBBLE = new byte[128];
+    static {
+        Arrays.fill(NIBBLE, (byte) -1);
+        for (int i = 0; i < HEX.length; i++) NIBBLE[HEX[i]] = (byte) i;
+    }
+
+    // Digest y buffers de cada hilo (MessageDigest no es thread-safe)
+    private static final ThreadLocal<Motor> MOTOR = ThreadLocal.withInitial(Motor::new);
+
+    // Esquemas que sé validar además del preferido
+    private static final List<PasswordHasher> CONOCIDOS = List.of(
+            new Pbkdf2PasswordHasher(Config.PBKDF2_MIN_ITERATIONS),
+            new Sha256PasswordHasher());
+
     private PasswordUtil() {}
 
+    /**
+     * Esquema con el que se hashean las contraseñas nuevas. Lo armo una sola
+     * vez (holder perezoso): la calibración de PBKDF2 corre en el primer uso.
+     */
+    public static PasswordHasher preferredHasher() {
+        return Preferido.HASHER;
+    }
+
     /** Genera un salt aleatorio de N bytes, devuelto como hex. */
     public static String generateSalt(int numBytes) {
-        
+
         byte[] salt = new byte[numBytes];
         RNG.nextBytes(salt);
-        return toHex(salt);
+        return toHex(salt, salt.length, new char[salt.length * 2]);
     }
 
-    /** Calcula el hash SHA-256 de (password + salt) y devuelve hex. */
+    /** Calcula el hash de (password + salt) con el esquema preferido. */
     public static String hashPassword(String password, String saltHex) {
-        try {
-            MessageDigest md = MessageDigest.getInstance(HASH_ALGO);
-            byte[] input = (password + saltHex).getBytes(StandardCharsets.UTF_8);
-            byte[] digest = md.digest(input);
-            return toHex(digest);
-        } catch (NoSuchAlgorithmException e) {
-            // No debería ocurrir para SHA-256 en JRE moderno
-            throw new IllegalStateException("Algoritmo de hash no disponible: " + HASH_ALGO, e);
-        }
+        return preferredHasher().hash(password, saltHex);
     }
 
-    /** Valida password calculando hash con el salt y comparando con el hash esperado. */
-    public static boolean validatePassword(String password, String saltHex, String expectedHashHex) {
-        String calc = hashPassword(password, saltHex);
-        return slowEquals(calc, expectedHashHex);
+    /**
+     * Valida password contra el hash guardado, usando el esquema con el que
+     * se generó ese hash (el SHA-256 original o PBKDF2 con sus iteraciones).
+     */
+    public static boolean validatePassword(String password, String saltHex, String expectedHash) {
+        PasswordHasher h = hasherPara(expectedHash);
+        return h != null && h.verify(password, saltHex, expectedHash);
+    }
+
+    /**
+     * Indico si un hash guardado no es del esquema preferido o se generó con
+     * parámetros más débiles. Solo tiene sentido preguntarlo después de un
+     * login correcto, que es cuando tengo el password para regenerarlo.
+     */
+    public static boolean needsRehash(String storedHash) {
+        PasswordHasher p = preferredHasher();
+        return !p.supports(storedHash) || p.needsRehash(storedHash);
+    }
+
+    /**
+     * Indico si el valor es un hash completo de alguno de los esquemas que
+     * conozco (el SHA-256 original o PBKDF2), por ejemplo para aceptar
+     * contraseñas ya hasheadas en una importación.
+     */
+    public static boolean isRecognizedHash(String stored) {
+        PasswordHasher h = hasherPara(stored);
+        return h != null && h.isWellFormed(stored);
+    }
+
+    // ===== SHA-256 original (lo usa Sha256PasswordHasher) =====
+
+    /** SHA-256 de (password + salt) en hex, exactamente como se guardaba antes. */
+    static String sha256Hex(String password, String saltHex) {
+        Motor m = MOTOR.get();
+        m.digerir(password, saltHex);
+        return toHex(m.digest, DIGEST_BYTES, m.hex);
+    }
+
+    /** Comparo SHA-256 de (password + salt) contra el hex guardado. */
+    static boolean sha256Matches(String password, String saltHex, String expectedHashHex) {
+        if (expectedHashHex == null) return false;
+        Motor m = MOTOR.get();
+        m.digerir(password, saltHex);
+        return slowEquals(m.digest, expectedHashHex, m.esperado);
     }
 
     // ===== helpers =====
 
-    private static String toHex(byte[] bytes) {
-        StringBuilder sb = new StringBuilder(bytes.length * 2);
-        for (byte b : bytes) sb.append(String.format("%02x", b));
-        return sb.toString();
+    /** Hex en minúsculas de todos los bytes. */
+    static String toHex(byte[] bytes) {
+        return toHex(bytes, bytes.length, new char[bytes.length * 2]);
+    }
+
+    /** Comparación constante de un digest contra su hex esperado (ver la versión con buffer). */
+    static boolean slowEquals(byte[] digest, String expectedHex) {
+        if (expectedHex == null) return false;
+        byte[] buffer = MOTOR.get().esperado;
+        return slowEquals(digest, expectedHex, digest.length <= buffer.length ? buffer : new byte[digest.length]);
     }
 
-    /** Comparación constante para evitar filtrado por tiempo. */
-    private static boolean slowEquals(String a, String b) {
-        if (a == null || b == null) return false;
-        byte[] x = a.getBytes(StandardCharsets.UTF_8);
-        byte[] y = b.getBytes(StandardCharsets.UTF_8);
-        int diff = x.length ^ y.length;
-        for (int i = 0; i < Math.min(x.length, y.length); i++) diff |= x[i] ^ y[i];
+    /**
+     * Indico si desde {@code desde} hasta el final hay exactamente un digest de
+     * 256 bits en hex en minúscula (el formato que arman los dos esquemas).
+     */
+    static boolean esDigestHex(String texto, int desde) {
+        if (desde < 0 || texto.length() - desde != DIGEST_BYTES * 2) return false;
+        for (int i = desde; i < texto.length(); i++) {
+            if (nibble(texto.charAt(i)) > 0x0f) return false;
+        }
+        return true;
+    }
+
+    /** Esquema que generó el hash guardado, o null si no lo reconozco. */
+    private static PasswordHasher hasherPara(String stored) {
+        if (stored == null) return null;
+        PasswordHasher p = preferredHasher();
+        if (p.supports(stored)) return p;
+        for (PasswordHasher h : CONOCIDOS) {
+            if (h.supports(stored)) return h;
+        }
+        return null;
+    }
+
+    /**
+     * Paso los primeros {@code n} bytes a hex usando el buffer recibido
+     * (que tiene que tener lugar para 2 * n caracteres).
+     */
+    private static String toHex(byte[] bytes, int n, char[] out) {
+        for (int i = 0, j = 0; i < n; i++) {
+            int b = bytes[i] & 0xff;
+            out[j++] = HEX[b >>> 4];
+            out[j++] = HEX[b & 0x0f];
+        }
+        return new String(out, 0, n * 2);
+    }
+
+    /**
+     * Comparación constante para evitar filtrado por tiempo. Decodifico el hex
+     * esperado al buffer {@code esperado} y comparo byte a byte contra el digest;
+     * recorro siempre todo, sin cortar en la primera diferencia. Solo acepto
+     * hex en minúsculas (igual que antes, cuando se comparaban los strings).
+     */
+    private static boolean slowEquals(byte[] digest, String expectedHex, byte[] esperado) {
+        int diff = expectedHex.length() ^ (digest.length * 2);
+        int n = Math.min(expectedHex.length() / 2, digest.length);
+        for (int i = 0; i < n; i++) {
+            int alto = nibble(expectedHex.charAt(2 * i));
+            int bajo = nibble(expectedHex.charAt(2 * i + 1));
+            diff |= (alto | bajo) & 0x100; // carácter inválido
+            esperado[i] = (byte) ((alto << 4) | (bajo & 0x0f));
+        }
+        for (int i = 0; i < n; i++) diff |= digest[i] ^ esperado[i];
         return diff == 0;
     }
+
+    /** Valor del carácter hex, o 0x100 si no es un hex en minúscula. */
+    private static int nibble(char c) {
+        int v = c < NIBBLE.length ? NIBBLE[c] : -1;
+        return v < 0 ? 0x100 : v;
+    }
+
+    /** Armo el esquema preferido según db.properties (password.hasher). */
+    private static final class Preferido {
+        static final PasswordHasher HASHER = crear();
+
+        private static PasswordHasher crear() {
+            switch (Config.PASSWORD_HASHER.toLowerCase(Locale.ROOT)) {
+                case Sha256PasswordHasher.ID:
+                    return new Sha256PasswordHasher();
+                case "pbkdf2":
+                case Pbkdf2PasswordHasher.ID:
+                    return Config.PBKDF2_ITERATIONS > 0
+                            ? new Pbkdf2PasswordHasher(Math.max(Config.PBKDF2_ITERATIONS, Config.PBKDF2_MIN_ITERATIONS))
+                            : Pbkdf2PasswordHasher.calibrado(Config.PBKDF2_TARGET_MS, Config.PBKDF2_MIN_ITERATIONS);
+                default:
+                    System.err.println("Esquema de hash desconocido: '" + Config.PASSWORD_HASHER + "'. Uso pbkdf2");
+                    return Pbkdf2PasswordHasher.calibrado(Config.PBKDF2_TARGET_MS, Config.PBKDF2_MIN_ITERATIONS);
+            }
+        }
+    }
+
+    /** Estado por hilo: el MessageDigest y los buffers que se reutilizan. */
+    private static final class Motor {
+        private final MessageDigest md;
+        private final byte[] digest = new byte[DIGEST_BYTES];
+        private final byte[] esperado = new byte[DIGEST_BYTES];
+        private final char[] hex = new char[DIGEST_BYTES * 2];
+
+        Motor() {
+            try {
+                md = MessageDigest.getInstance(HASH_ALGO);
+            } catch (NoSuchAlgorithmException e) {
+                // No debería ocurrir para SHA-256 en JRE moderno
+                throw new IllegalStateException("Algoritmo de hash no disponible: " + HASH_ALGO, e);
+            }
+        }
+
+        /**
+         * Dejo en {@code digest} el SHA-256 de (password + salt). Paso las dos
+         * partes por separado: da lo mismo que los bytes UTF-8 del string
+         * concatenado, sin armar el string intermedio.
+         */
+        void digerir(String password, String saltHex) {
+            md.update(String.valueOf(password).getBytes(StandardCharsets.UTF_8));
+            md.update(String.valueOf(saltHex).getBytes(StandardCharsets.UTF_8));
+            try {
+                md.digest(digest, 0, DIGEST_BYTES);
+            } catch (DigestException e) {
+                md.reset();
+                throw new IllegalStateException("No se pudo calcular el hash", e);
+            }
+        }
+    }
 }
@@ -0,0 +1,178 @@
+package integradorfinal.programacion2.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.security.spec.InvalidKeySpecException;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Esquema PBKDF2 con HMAC-SHA256 (viene con el JDK, sin dependencias).
+ *
+ * A diferencia del SHA-256 de una pasada, el costo se ajusta con la cantidad
+ * de iteraciones. Las guardo dentro del hash para que cada credencial se
+ * pueda validar con los parámetros con que se creó, aunque después se suban:
+ *
+ * <pre>pbkdf2-sha256$&lt;iteraciones&gt;$&lt;hash en hex&gt;</pre>
+ *
+ * Con {@link #calibrado(long, int)} se elige la cantidad de iteraciones
+ * midiendo cuánto tarda un hash en la máquina actual.
+ */
+public final class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    public static final String ID = "pbkdf2-sha256";
+
+    private static final String ALGO = "PBKDF2WithHmacSHA256";
+    private static final String PREFIJO = ID + "$";
+    private static final int BITS = 256;
+
+    // Tope para no quedar colgado si en la base aparece un valor absurdo
+    private static final int MAX_ITERACIONES = 10_000_000;
+
+    // Iteraciones con las que mido el tiempo de un hash al calibrar
+    private static final int ITERACIONES_PRUEBA = 10_000;
+
+    // Margen por debajo del valor calibrado que todavía no pide re-hashear
+    private static final double TOLERANCIA_CALIBRADO = 0.20;
+
+    // SecretKeyFactory no garantiza ser thread-safe: uno por hilo
+    private static final ThreadLocal<SecretKeyFactory> FACTORY = ThreadLocal.withInitial(() -> {
+        try {
+            return SecretKeyFactory.getInstance(ALGO);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Algoritmo de hash no disponible: " + ALGO, e);
+        }
+    });
+
+    private final int iteraciones;
+
+    // Por debajo de esto un hash guardado se regenera (ver needsRehash)
+    private final int minimoRehash;
+
+    /**
+     * @param iteraciones iteraciones de PBKDF2 para los hashes nuevos; los
+     *                    guardados con menos se regeneran en el próximo login
+     */
+    public Pbkdf2PasswordHasher(int iteraciones) {
+        this(iteraciones, iteraciones);
+    }
+
+    /**
+     * @param iteraciones  iteraciones de PBKDF2 para los hashes nuevos
+     * @param minimoRehash iteraciones por debajo de las cuales un hash
+     *                     guardado se regenera (no más que {@code iteraciones})
+     */
+    public Pbkdf2PasswordHasher(int iteraciones, int minimoRehash) {
+        if (iteraciones < 1 || iteraciones > MAX_ITERACIONES) {
+            throw new IllegalArgumentException("Cantidad de iteraciones inválida: " + iteraciones);
+        }
+        this.iteraciones = iteraciones;
+        this.minimoRehash = Math.max(1, Math.min(minimoRehash, iteraciones));
+    }
+
+    /**
+     * Mido cuánto tarda un hash en esta máquina y elijo las iteraciones para
+     * que cada uno tarde aproximadamente {@code objetivoMs}.
+     *
+     * La medición cambia un poco en cada arranque, así que no re-hasheo por
+     * quedar apenas debajo del valor de esta corrida: solo los hashes con
+     * menos del 80% de las iteraciones calibradas (y nunca por debajo de
+     * {@code minimo}) se regeneran.
+     *
+     * @param objetivoMs tiempo buscado por hash, en milisegundos
+     * @param minimo     iteraciones mínimas aunque la máquina sea lenta
+     */
+    public static Pbkdf2PasswordHasher calibrado(long objetivoMs, int minimo) {
+        // Primero unas vueltas para que el JIT compile HMAC/SHA-256
+        for (int i = 0; i < 3; i++) derivar("calibracion", "salt", ITERACIONES_PRUEBA);
+
+        long mejorNs = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long inicio = System.nanoTime();
+            derivar("calibracion", "salt", ITERACIONES_PRUEBA);
+            mejorNs = Math.min(mejorNs, System.nanoTime() - inicio);
+        }
+
+        long calculadas = ITERACIONES_PRUEBA * (objetivoMs * 1_000_000L) / Math.max(1, mejorNs);
+        calculadas = calculadas / 1000 * 1000; // redondeo a miles
+        int elegidas = (int) Math.max(minimo, Math.min(calculadas, MAX_ITERACIONES));
+        int piso = (int) Math.max(minimo, elegidas * (1 - TOLERANCIA_CALIBRADO));
+        return new Pbkdf2PasswordHasher(elegidas, piso);
+    }
+
+    public int getIteraciones() {
+        return iteraciones;
+    }
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String hash(String password, String salt) {
+        return PREFIJO + iteraciones + "$" + PasswordUtil.toHex(derivar(password, salt, iteraciones));
+    }
+
+    @Override
+    public boolean verify(String password, String salt, String stored) {
+        int it = iteraciones(stored);
+        if (it < 1) return false;
+        String esperado = stored.substring(stored.indexOf('$', PREFIJO.length()) + 1);
+        return PasswordUtil.slowEquals(derivar(password, salt, it), esperado);
+    }
+
+    @Override
+    public boolean supports(String stored) {
+        return stored != null && stored.startsWith(PREFIJO);
+    }
+
+    /** Prefijo, iteraciones válidas y los 256 bits del hash en hex. */
+    @Override
+    public boolean isWellFormed(String stored) {
+        return iteraciones(stored) >= 1
+                && PasswordUtil.esDigestHex(stored, stored.indexOf('$', PREFIJO.length()) + 1);
+    }
+
+    /**
+     * Hay que regenerarlo si se creó con menos iteraciones que el mínimo
+     * aceptado (las configuradas o, si se calibraron, el piso con tolerancia).
+     */
+    @Override
+    public boolean needsRehash(String stored) {
+        return iteraciones(stored) < minimoRehash;
+    }
+
+    @Override
+    public String toString() {
+        return ID + " (" + iteraciones + " iteraciones)";
+    }
+
+    // ===== helpers =====
+
+    /** Iteraciones guardadas en el hash, o -1 si no tiene el formato esperado. */
+    private static int iteraciones(String stored) {
+        if (stored == null || !stored.startsWith(PREFIJO)) return -1;
+        int fin = stored.indexOf('$', PREFIJO.length());
+        if (fin < 0) return -1;
+        try {
+            int it = Integer.parseInt(stored, PREFIJO.length(), fin, 10);
+            return it >= 1 && it <= MAX_ITERACIONES ? it : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** PBKDF2-HMAC-SHA256 de 256 bits. Uso los bytes UTF-8 del salt tal como está guardado. */
+    private static byte[] derivar(String password, String salt, int iteraciones) {
+        PBEKeySpec spec = new PBEKeySpec(String.valueOf(password).toCharArray(),
+                String.valueOf(salt).getBytes(StandardCharsets.UTF_8), iteraciones, BITS);
+        try {
+            return FACTORY.get().generateSecret(spec).getEncoded();
+        } catch (InvalidKeySpecException e) {
+            throw new IllegalStateException("No se pudo calcular el hash", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
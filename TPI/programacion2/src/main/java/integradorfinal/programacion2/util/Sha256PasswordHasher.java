@@ -0,0 +1,46 @@
+package integradorfinal.programacion2.util;
+
+/**
+ * Esquema original: una sola pasada de SHA-256 sobre (password + salt),
+ * guardado como 64 caracteres hex sin prefijo.
+ *
+ * Lo mantengo para validar las credenciales que ya están en la base; una
+ * vez que el usuario entra con su contraseña, se vuelve a hashear con el
+ * esquema preferido.
+ */
+public final class Sha256PasswordHasher implements PasswordHasher {
+
+    public static final String ID = "sha256";
+
+    @Override
+    public String id() {
+        return ID;
+    }
+
+    @Override
+    public String hash(String password, String salt) {
+        return PasswordUtil.sha256Hex(password, salt);
+    }
+
+    @Override
+    public boolean verify(String password, String salt, String stored) {
+        return PasswordUtil.sha256Matches(password, salt, stored);
+    }
+
+    /** Los hashes viejos no tienen prefijo: son solo el hex. */
+    @Override
+    public boolean supports(String stored) {
+        return stored != null && stored.indexOf('$') < 0;
+    }
+
+    /** 64 caracteres hex en minúscula, como los guardaba la versión original. */
+    @Override
+    public boolean isWellFormed(String stored) {
+        return stored != null && PasswordUtil.esDigestHex(stored, 0);
+    }
+
+    @Override
+    public String toString() {
+        return ID + " (una pasada, solo para credenciales viejas)";
+    }
+}
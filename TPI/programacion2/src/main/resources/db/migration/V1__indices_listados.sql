@@ -0,0 +1,13 @@
+-- Índices para los listados de los DAO (findAll, findPage y streamAll):
+--   WHERE eliminado = FALSE ORDER BY id
+--   WHERE id > ? AND eliminado = FALSE ORDER BY id LIMIT ?
+-- Con eliminado primero y el id después, el filtro es un rango del índice y
+-- el orden sale del índice (sin ordenar aparte). Las demás columnas son las
+-- de la proyección SUMMARY: con ellas el listado se responde solo con el
+-- índice, sin leer cada fila completa.
+
+CREATE INDEX ix_usuario_listado
+    ON usuario (eliminado, id_usuario, username, estado);
+
+CREATE INDEX ix_cred_listado
+    ON credencial_acceso (eliminado, id_credencial, usuario_id, estado, ultima_sesion, requiere_reset);
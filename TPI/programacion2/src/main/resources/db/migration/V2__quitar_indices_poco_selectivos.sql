@@ -0,0 +1,7 @@
+-- Los índices de una sola columna sobre activo y estado (dos valores cada
+-- una) no los usa ninguna consulta de los DAO y cada alta o cambio de estado
+-- los tiene que mantener. Los crean los scripts de Base_de_Datos_*.sql.
+
+DROP INDEX ix_usuario_activo ON usuario;
+DROP INDEX ix_usuario_estado ON usuario;
+DROP INDEX ix_cred_estado ON credencial_acceso;
@@ -0,0 +1,369 @@
+package integradorfinal.programacion2.bench;
+
+import integradorfinal.programacion2.config.MigrationRunner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Carga el script real de la base (Base_de_Datos_Solo_Tablas) en una base H2
+ * en modo MySQL, para que los tests y los benchmarks usen las mismas tablas,
+ * restricciones e índices que la aplicación en lugar de un CREATE TABLE
+ * copiado a mano.
+ *
+ * El script se lee tal cual (respetando los bloques DELIMITER) y cada sentencia
+ * se adapta o se omite según lo que H2 soporta:
+ * - DROP/CREATE DATABASE y USE: se omiten (la base es la de la URL).
+ * - CREATE TABLE: se quitan las opciones de tabla (ENGINE, CHARSET, COLLATE).
+ * - CREATE TRIGGER: se omite (en H2 los triggers son clases Java).
+ * - CREATE PROCEDURE: si el cuerpo son solo sentencias DML con los parámetros
+ *   como datos (como sp_actualizar_password_seguro), se registra como un
+ *   CREATE ALIAS equivalente; si tiene lógica propia (DECLARE, IF...), se omite.
+ * - Cualquier otra sentencia que H2 no acepte se omite con un aviso, salvo
+ *   CREATE TABLE / CREATE INDEX, que cortan la carga porque sin ellos lo
+ *   medido no sería la base real.
+ *
+ * Después del script aplico las migraciones de la aplicación
+ * (MigrationRunner, db/migration), que es como queda la base real al arrancar.
+ *
+ * El script se copia a los recursos de test y viaja, junto con esta clase,
+ * en el jar de tests (tfi-prog2-1.0-tests.jar, ver pom.xml) que usan los
+ * benchmarks; con -Dbench.schema=ruta se puede cargar otro archivo.
+ */
+public final class EsquemaMySql {
+
+    private static final String RECURSO = "/esquema/Base_de_Datos_Solo_Tablas_(Sin usuarios insertados).sql";
+
+    private static final Pattern DELIMITER = Pattern.compile("(?i)^\\s*DELIMITER\\s+(\\S+)\\s*$");
+    private static final Pattern OPCIONES_TABLA = Pattern.compile("(?is)\\)\\s*(ENGINE|DEFAULT\\s+CHARSET|CHARSET|COLLATE)\\b.*$");
+    private static final Pattern PROCEDIMIENTO = Pattern.compile(
+            "(?is)^CREATE\\s+PROCEDURE\\s+(\\w+)\\s*\\((.*?)\\)\\s*BEGIN\\b(.*)\\bEND\\s*$");
+    private static final Pattern PARAMETRO = Pattern.compile("(?i)^\\s*(?:IN\\s+)?(\\w+)\\s+(\\w+)");
+
+    private EsquemaMySql() {}
+
+    /** Resultado de la carga: qué se ejecutó y qué quedó afuera (y por qué). */
+    public record Resumen(int ejecutadas, List<String> omitidas) {
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("Esquema cargado: ")
+                    .append(ejecutadas).append(" sentencias, ").append(omitidas.size()).append(" omitidas");
+            for (String o : omitidas) {
+                sb.append(System.lineSeparator()).append("  - ").append(o);
+            }
+            return sb.toString();
+        }
+    }
+
+    // ======================================================
+    // CARGA
+    // ======================================================
+
+    /**
+     * Ejecuto el script sobre la conexión recibida (en autocommit) y devuelvo
+     * el resumen de lo que se cargó.
+     */
+    public static Resumen cargar(Connection conn) throws SQLException, IOException {
+        int ejecutadas = 0;
+        List<String> omitidas = new ArrayList<>();
+
+        try (Statement st = conn.createStatement()) {
+            for (String sql : leerSentencias()) {
+                String motivo = motivoParaOmitir(sql);
+                if (motivo != null) {
+                    omitidas.add(motivo + ": " + resumir(sql));
+                    continue;
+                }
+                String adaptada = adaptar(sql);
+                if (adaptada == null) {
+                    omitidas.add("procedimiento con lógica propia: " + resumir(sql));
+                    continue;
+                }
+                try {
+                    st.execute(adaptada);
+                    ejecutadas++;
+                } catch (SQLException e) {
+                    if (esEstructura(sql)) {
+                        throw new SQLException("No se pudo cargar en H2: " + resumir(sql), e);
+                    }
+                    omitidas.add("no soportada por H2 (" + primeraLinea(e.getMessage()) + "): " + resumir(sql));
+                }
+            }
+        }
+        MigrationRunner.migrar(conn);
+        return new Resumen(ejecutadas, omitidas);
+    }
+
+    /**
+     * Cuerpo común de los procedimientos registrados con CREATE ALIAS: ejecuto
+     * cada sentencia del procedimiento con los parámetros como binds, en la
+     * misma conexión (y transacción) de quien lo llamó. Lo llama el código
+     * que H2 compila para el alias, por eso es público.
+     */
+    public static void ejecutarProcedimiento(Connection conn, String[] sentencias, int[][] binds, Object[] args)
+            throws SQLException {
+        for (int i = 0; i < sentencias.length; i++) {
+            try (PreparedStatement ps = conn.prepareStatement(sentencias[i])) {
+                for (int j = 0; j < binds[i].length; j++) {
+                    ps.setObject(j + 1, args[binds[i][j]]);
+                }
+                ps.execute();
+            }
+        }
+    }
+
+    // ======================================================
+    // LECTURA DEL SCRIPT
+    // ======================================================
+
+    /**
+     * Parto el script en sentencias respetando DELIMITER y sacando los
+     * comentarios (-- y /* *&#47;) que no estén dentro de un literal.
+     */
+    static List<String> leerSentencias() throws IOException {
+        List<String> sentencias = new ArrayList<>();
+        String delimitador = ";";
+        StringBuilder actual = new StringBuilder();
+        boolean enComentario = false;
+
+        try (BufferedReader in = new BufferedReader(abrirScript())) {
+            String linea;
+            while ((linea = in.readLine()) != null) {
+                Matcher d = DELIMITER.matcher(linea);
+                if (!enComentario && d.matches()) {
+                    delimitador = d.group(1);
+                    continue;
+                }
+                StringBuilder limpia = new StringBuilder();
+                enComentario = sinComentarios(linea, enComentario, limpia);
+                actual.append(limpia).append('\n');
+
+                String texto = actual.toString().stripTrailing();
+                if (texto.endsWith(delimitador)) {
+                    String sql = texto.substring(0, texto.length() - delimitador.length()).strip();
+                    if (!sql.isEmpty()) {
+                        sentencias.add(sql);
+                    }
+                    actual.setLength(0);
+                }
+            }
+        }
+        String resto = actual.toString().strip();
+        if (!resto.isEmpty()) {
+            sentencias.add(resto);
+        }
+        return sentencias;
+    }
+
+    private static Reader abrirScript() throws IOException {
+        String ruta = System.getProperty("bench.schema");
+        if (ruta != null && !ruta.isBlank()) {
+            return Files.newBufferedReader(Path.of(ruta), StandardCharsets.UTF_8);
+        }
+        InputStream in = EsquemaMySql.class.getResourceAsStream(RECURSO);
+        if (in == null) {
+            throw new IOException("No se encontró " + RECURSO + " en el classpath (¿se compiló con mvn?)");
+        }
+        return new InputStreamReader(in, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copio a {@code destino} la parte de la línea que no es comentario y
+     * devuelvo si la línea termina dentro de un comentario de bloque.
+     */
+    private static boolean sinComentarios(String linea, boolean enComentario, StringBuilder destino) {
+        boolean enLiteral = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            char sig = i + 1 < linea.length() ? linea.charAt(i + 1) : '\0';
+            if (enComentario) {
+                if (c == '*' && sig == '/') {
+                    enComentario = false;
+                    i++;
+                }
+            } else if (enLiteral) {
+                destino.append(c);
+                if (c == '\'') {
+                    enLiteral = false;
+                }
+            } else if (c == '\'') {
+                enLiteral = true;
+                destino.append(c);
+            } else if (c == '-' && sig == '-') {
+                break;
+            } else if (c == '/' && sig == '*') {
+                enComentario = true;
+                i++;
+            } else {
+                destino.append(c);
+            }
+        }
+        return enComentario;
+    }
+
+    // ======================================================
+    // ADAPTACIÓN A H2
+    // ======================================================
+
+    private static String motivoParaOmitir(String sql) {
+        String inicio = normalizar(sql);
+        if (inicio.startsWith("DROP DATABASE") || inicio.startsWith("CREATE DATABASE") || inicio.startsWith("USE ")) {
+            return "base de datos (se usa la de la URL)";
+        }
+        if (inicio.startsWith("CREATE TRIGGER")) {
+            return "trigger";
+        }
+        return null;
+    }
+
+    /**
+     * Devuelvo la sentencia lista para H2, o null si es un procedimiento que
+     * no se puede traducir.
+     */
+    private static String adaptar(String sql) {
+        String inicio = normalizar(sql);
+        if (inicio.startsWith("CREATE TABLE")) {
+            return OPCIONES_TABLA.matcher(sql).replaceFirst(")");
+        }
+        if (inicio.startsWith("CREATE PROCEDURE")) {
+            return aliasDeProcedimiento(sql);
+        }
+        return sql;
+    }
+
+    /**
+     * Traduzco un procedimiento de solo DML a un CREATE ALIAS con código Java
+     * (que H2 compila al registrarlo). Cada uso de un parámetro en el cuerpo
+     * pasa a ser un "?" y el alias ejecuta las sentencias con
+     * {@link #ejecutarProcedimiento}.
+     */
+    private static String aliasDeProcedimiento(String sql) {
+        Matcher m = PROCEDIMIENTO.matcher(sql.strip());
+        if (!m.matches()) {
+            return null;
+        }
+        String nombre = m.group(1);
+
+        List<String> parametros = new ArrayList<>();
+        StringBuilder firma = new StringBuilder("java.sql.Connection conn");
+        for (String p : m.group(2).split(",")) {
+            if (p.isBlank()) continue;
+            Matcher pm = PARAMETRO.matcher(p);
+            String tipo = pm.find() ? tipoJava(pm.group(2)) : null;
+            if (tipo == null) {
+                return null;
+            }
+            parametros.add(pm.group(1));
+            firma.append(", ").append(tipo).append(' ').append(pm.group(1));
+        }
+
+        List<String> sentencias = new ArrayList<>();
+        List<int[]> binds = new ArrayList<>();
+        Pattern usoParametro = parametros.isEmpty() ? null
+                : Pattern.compile("(?i)\\b(" + String.join("|", parametros) + ")\\b");
+        for (String s : m.group(3).split(";")) {
+            String cuerpo = s.strip();
+            if (cuerpo.isEmpty()) continue;
+            String verbo = normalizar(cuerpo);
+            if (!(verbo.startsWith("UPDATE") || verbo.startsWith("INSERT") || verbo.startsWith("DELETE"))) {
+                return null;
+            }
+            List<Integer> orden = new ArrayList<>();
+            StringBuilder conBinds = new StringBuilder();
+            if (usoParametro != null) {
+                Matcher u = usoParametro.matcher(cuerpo);
+                while (u.find()) {
+                    orden.add(indiceIgnorandoMayusculas(parametros, u.group(1)));
+                    u.appendReplacement(conBinds, "?");
+                }
+                u.appendTail(conBinds);
+            } else {
+                conBinds.append(cuerpo);
+            }
+            sentencias.add(conBinds.toString().replaceAll("\\s+", " "));
+            binds.add(orden.stream().mapToInt(Integer::intValue).toArray());
+        }
+        if (sentencias.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder codigo = new StringBuilder("CREATE ALIAS ").append(nombre).append(" AS $$\n")
+                .append("void ").append(nombre).append('(').append(firma).append(") throws java.sql.SQLException {\n")
+                .append("    ").append(EsquemaMySql.class.getName()).append(".ejecutarProcedimiento(conn,\n")
+                .append("        new String[]{");
+        for (int i = 0; i < sentencias.size(); i++) {
+            codigo.append(i == 0 ? "" : ", ").append('"').append(sentencias.get(i).replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        codigo.append("},\n        new int[][]{");
+        for (int i = 0; i < binds.size(); i++) {
+            codigo.append(i == 0 ? "" : ", ").append('{');
+            int[] b = binds.get(i);
+            for (int j = 0; j < b.length; j++) {
+                codigo.append(j == 0 ? "" : ", ").append(b[j]);
+            }
+            codigo.append('}');
+        }
+        codigo.append("},\n        new Object[]{").append(String.join(", ", parametros)).append("});\n}\n$$");
+        return codigo.toString();
+    }
+
+    /** Tipo Java (con null posible) para cada tipo de parámetro de MySQL que sé traducir. */
+    private static String tipoJava(String tipoSql) {
+        return switch (tipoSql.toUpperCase(Locale.ROOT)) {
+            case "INT", "INTEGER", "SMALLINT", "TINYINT", "MEDIUMINT" -> "Integer";
+            case "BIGINT" -> "Long";
+            case "VARCHAR", "CHAR", "TEXT" -> "String";
+            case "BOOLEAN", "BOOL" -> "Boolean";
+            case "DATETIME", "TIMESTAMP" -> "java.sql.Timestamp";
+            case "DATE" -> "java.sql.Date";
+            default -> null;
+        };
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private static boolean esEstructura(String sql) {
+        String inicio = normalizar(sql);
+        return inicio.startsWith("CREATE TABLE") || inicio.startsWith("CREATE INDEX")
+                || inicio.startsWith("CREATE UNIQUE INDEX");
+    }
+
+    private static int indiceIgnorandoMayusculas(List<String> nombres, String nombre) {
+        for (int i = 0; i < nombres.size(); i++) {
+            if (nombres.get(i).equalsIgnoreCase(nombre)) return i;
+        }
+        throw new IllegalStateException(nombre);
+    }
+
+    private static String normalizar(String sql) {
+        return sql.strip().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+    }
+
+    private static String resumir(String sql) {
+        String una = sql.strip().replaceAll("\\s+", " ");
+        return una.length() <= 70 ? una : una.substring(0, 67) + "...";
+    }
+
+    private static String primeraLinea(String texto) {
+        if (texto == null) return "sin mensaje";
+        int fin = texto.indexOf('\n');
+        return fin < 0 ? texto : texto.substring(0, fin);
+    }
+}
@@ -0,0 +1,161 @@
+package integradorfinal.programacion2.config;
+
+import integradorfinal.programacion2.bench.EsquemaMySql;
+import integradorfinal.programacion2.dao.impl.UsuarioDaoImpl;
+import integradorfinal.programacion2.entities.Estado;
+import integradorfinal.programacion2.entities.Usuario;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica el ruteo de lecturas a réplicas (ReplicaRouter) con dos bases H2
+ * independientes: db.url hace de primario y db.replicas de réplica, sin
+ * replicación entre ellas (ver surefire en pom.xml). Así un usuario grabado
+ * en el primario "no llegó" a la réplica y se puede ver a cuál de las dos fue
+ * cada lectura.
+ *
+ * La URL de la réplica lleva IFEXISTS=TRUE: si se apaga esa base, el pool ya
+ * no la puede volver a crear vacía y la réplica queda inalcanzable.
+ */
+class RuteoDeLecturasTest {
+
+    private static final UsuarioDaoImpl dao = new UsuarioDaoImpl();
+
+    private Long id;
+    private String username;
+
+    @BeforeAll
+    static void crearBases() throws Exception {
+        assertTrue(ReplicaRouter.isActivo(), "Falta db.replicas en la configuración de surefire");
+        cargarEsquema(Config.JDBC_URL);
+        cargarEsquema(urlParaCrearReplica());
+    }
+
+    @AfterAll
+    static void cerrarBases() {
+        DatabaseConnection.closeConnection();
+    }
+
+    /** Cada test graba su usuario en el primario con una sesión nueva (sin ventanas de otros tests). */
+    @BeforeEach
+    void grabarUsuario() throws SQLException {
+        ReplicaRouter.usarSesion(new ReplicaRouter.Sesion());
+        username = "ruteo" + System.nanoTime();
+        Usuario u = new Usuario();
+        u.setUsername(username);
+        u.setNombre("Ruteo");
+        u.setApellido("Lecturas");
+        u.setEmail(username + "@mail.com");
+        u.setActivo(true);
+        u.setEstado(Estado.ACTIVO);
+        id = dao.create(u);
+    }
+
+    @AfterEach
+    void borrarUsuario() {
+        dao.deleteById(id);
+        ReplicaRouter.usarSesion(null);
+    }
+
+    // ======================================================
+    // TESTS
+    // ======================================================
+
+    @Test
+    void dentroDeLaVentanaLeeDelPrimario() throws SQLException {
+        long porVentana = ReplicaRouter.getPorVentana();
+
+        assertTrue(dao.findByUsername(username).isPresent(), "recién escrito, la sesión tiene que verlo");
+        assertEquals(porVentana + 1, ReplicaRouter.getPorVentana());
+    }
+
+    @Test
+    void fueraDeLaVentanaLeeDeLaReplica() throws Exception {
+        esperarFinDeVentana();
+        long replica = ReplicaRouter.getLecturasReplica();
+
+        assertFalse(dao.findByUsername(username).isPresent(), "pasada la ventana tiene que leer de la réplica");
+        assertEquals(replica + 1, ReplicaRouter.getLecturasReplica());
+    }
+
+    @Test
+    void otraSesionLeeDeLaReplica() throws Exception {
+        boolean loVe = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dao.findByUsername(username).isPresent();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+
+        assertFalse(loVe, "otro hilo no escribió: tiene que leer de la réplica");
+    }
+
+    @Test
+    void enTransaccionLeeDelPrimario() throws Exception {
+        esperarFinDeVentana();
+        long replica = ReplicaRouter.getLecturasReplica();
+
+        boolean loVe = new TransactionTemplate(Propagation.READ_ONLY)
+                .execute(status -> dao.findByUsername(username).isPresent());
+
+        assertTrue(loVe, "dentro de una transacción tiene que leer del primario");
+        assertEquals(replica, ReplicaRouter.getLecturasReplica());
+    }
+
+    @Test
+    void conLaReplicaCaidaLeeDelPrimario() throws Exception {
+        esperarFinDeVentana();
+        apagarReplica();
+        try {
+            long fallas = ReplicaRouter.getFallasReplica();
+
+            assertTrue(dao.findByUsername(username).isPresent(), "sin réplica tiene que leer del primario");
+            assertEquals(fallas + 1, ReplicaRouter.getFallasReplica());
+        } finally {
+            cargarEsquema(urlParaCrearReplica());
+        }
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    private static void esperarFinDeVentana() throws InterruptedException {
+        Thread.sleep(Config.READ_YOUR_WRITES_MS + 50);
+        assertFalse(ReplicaRouter.isEnVentana());
+    }
+
+    /** La URL de la réplica sin IFEXISTS, para poder crear la base. */
+    private static String urlParaCrearReplica() {
+        return Config.DB_REPLICAS.get(0).replace(";IFEXISTS=TRUE", "");
+    }
+
+    private static void cargarEsquema(String url) throws Exception {
+        try (Connection conn = DriverManager.getConnection(url, Config.DB_USER, Config.DB_PASS)) {
+            EsquemaMySql.cargar(conn);
+        }
+    }
+
+    /** Cierro el pool de la réplica y borro la base (H2 en memoria desaparece con SHUTDOWN). */
+    private static void apagarReplica() throws SQLException {
+        ReplicaRouter.cerrar();
+        try (Connection conn = DriverManager.getConnection(urlParaCrearReplica(), Config.DB_USER, Config.DB_PASS);
+             Statement st = conn.createStatement()) {
+            st.execute("SHUTDOWN");
+        }
+    }
+}
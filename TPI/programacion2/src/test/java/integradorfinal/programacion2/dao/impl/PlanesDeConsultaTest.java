@@ -0,0 +1,178 @@
+package integradorfinal.programacion2.dao.impl;
+
+import integradorfinal.programacion2.bench.EsquemaMySql;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica con EXPLAIN que las consultas de los DAO usen los índices que les
+ * corresponden después de las migraciones (db/migration): los únicos para
+ * las búsquedas por username / email / usuario_id y los compuestos
+ * ix_usuario_listado / ix_cred_listado para los listados con eliminado =
+ * FALSE. También revisa que ya no estén los índices de activo / estado.
+ *
+ * Carga el esquema real en una H2 en memoria propia (EsquemaMySql, que ya
+ * aplica las migraciones) con 5000 usuarios; no usa el pool ni Config.
+ */
+class PlanesDeConsultaTest {
+
+    private static final String URL = "jdbc:h2:mem:planes;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    private static final int USUARIOS = 5000;
+
+    /**
+     * Una consulta a revisar. Cada elemento de {@code indices} tiene que
+     * aparecer en el plan; "a|b" acepta cualquiera de los dos.
+     */
+    record Chequeo(String nombre, String sql, Object[] parametros, String... indices) {
+        @Override
+        public String toString() {
+            return nombre;
+        }
+    }
+
+    private static final Object[] SIN_PARAMETROS = {};
+
+    private static Connection conn;
+
+    @BeforeAll
+    static void cargarBase() throws Exception {
+        conn = DriverManager.getConnection(URL, "sa", "");
+        EsquemaMySql.cargar(conn);
+        cargarDatos(conn);
+    }
+
+    @AfterAll
+    static void cerrarBase() throws SQLException {
+        if (conn != null) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("SHUTDOWN");
+            }
+            conn.close();
+        }
+    }
+
+    static Stream<Chequeo> chequeos() {
+        return Stream.of(
+                new Chequeo("UsuarioDao.findByUsername", UsuarioDaoImpl.SQL_FIND_BY_USERNAME,
+                        new Object[]{"user10"}, "uq_usuario_username"),
+                new Chequeo("UsuarioDao.findByEmail", UsuarioDaoImpl.SQL_FIND_BY_EMAIL,
+                        new Object[]{"user10@mail.com"}, "uq_usuario_email"),
+                new Chequeo("UsuarioDao.existsByUsername", UsuarioDaoImpl.SQL_EXISTS_USERNAME,
+                        new Object[]{"user10"}, "uq_usuario_username"),
+                new Chequeo("UsuarioDao.existsByEmail", UsuarioDaoImpl.SQL_EXISTS_EMAIL,
+                        new Object[]{"user10@mail.com"}, "uq_usuario_email"),
+                new Chequeo("UsuarioDao.checkAvailability", UsuarioDaoImpl.SQL_CHECK_AVAILABILITY,
+                        new Object[]{"user10", "user10@mail.com"}, "uq_usuario_username", "uq_usuario_email"),
+                new Chequeo("UsuarioDao.findByUsernameWithCredencial", UsuarioDaoImpl.SQL_FIND_BY_USERNAME_CON_CREDENCIAL,
+                        new Object[]{"user10"}, "uq_usuario_username", "uq_credencial_usuario"),
+                new Chequeo("UsuarioDao.findAll (SUMMARY)", UsuarioDaoImpl.SQL_FIND_ALL_RESUMEN,
+                        SIN_PARAMETROS, "ix_usuario_listado"),
+                new Chequeo("UsuarioDao.findPage (SUMMARY)", UsuarioDaoImpl.SQL_FIND_PAGE_RESUMEN,
+                        new Object[]{100L, 50}, "ix_usuario_listado"),
+                new Chequeo("UsuarioDao.findPage", UsuarioDaoImpl.SQL_FIND_PAGE,
+                        new Object[]{100L, 50}, "ix_usuario_listado|primary"),
+                new Chequeo("CredencialAccesoDao.findByUsuarioId", CredencialAccesoDaoImpl.SQL_FIND_BY_USUARIO_ID,
+                        new Object[]{10L}, "uq_credencial_usuario"),
+                new Chequeo("CredencialAccesoDao.findAll (SUMMARY)", CredencialAccesoDaoImpl.SQL_FIND_ALL_RESUMEN,
+                        SIN_PARAMETROS, "ix_cred_listado"),
+                new Chequeo("CredencialAccesoDao.findPage (SUMMARY)", CredencialAccesoDaoImpl.SQL_FIND_PAGE_RESUMEN,
+                        new Object[]{100L, 50}, "ix_cred_listado"),
+                new Chequeo("CredencialAccesoDao.findPage", CredencialAccesoDaoImpl.SQL_FIND_PAGE,
+                        new Object[]{100L, 50}, "ix_cred_listado|primary"));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("chequeos")
+    void usaLosIndicesEsperados(Chequeo c) throws SQLException {
+        String plan = explicar(c);
+        List<String> faltan = new ArrayList<>();
+        for (String esperado : c.indices()) {
+            if (!contieneAlguno(plan, esperado)) faltan.add(esperado);
+        }
+        assertTrue(faltan.isEmpty(), c.nombre() + " no usa " + faltan + "; plan: " + plan);
+    }
+
+    /** Índices que quitó V2 y no tienen que volver. */
+    @ParameterizedTest(name = "{1}")
+    @CsvSource({
+            "usuario, ix_usuario_activo",
+            "usuario, ix_usuario_estado",
+            "credencial_acceso, ix_cred_estado"})
+    void noEstanLosIndicesQuitados(String tabla, String indice) throws SQLException {
+        assertFalse(existeIndice(tabla, indice), indice + " sigue existiendo en " + tabla);
+    }
+
+    // ======================================================
+    // MÉTODOS AUXILIARES
+    // ======================================================
+
+    /** Usuarios y credenciales de prueba, para que el planificador tenga estadísticas. */
+    private static void cargarDatos(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.execute("INSERT INTO usuario (username, nombre, apellido, email) "
+                    + "SELECT 'user' || X, 'Nombre' || X, 'Apellido' || X, 'user' || X || '@mail.com' "
+                    + "FROM SYSTEM_RANGE(1, " + USUARIOS + ")");
+            st.execute("INSERT INTO credencial_acceso (usuario_id, estado, hash_password, salt, ultimo_cambio) "
+                    + "SELECT id_usuario, 'ACTIVO', 'pbkdf2-sha256$10000$' || REPEAT('0', 64), "
+                    + "'a1b2c3d4e5f60718293a4b5c6d7e8f90', CURRENT_TIMESTAMP FROM usuario");
+            st.execute("UPDATE usuario SET eliminado = TRUE WHERE MOD(id_usuario, 50) = 0");
+            st.execute("ANALYZE");
+        }
+    }
+
+    /** Todo el resultado del EXPLAIN en un texto (en H2, el índice va en un comentario del SQL). */
+    private static String explicar(Chequeo c) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement ps = conn.prepareStatement("EXPLAIN " + c.sql())) {
+            for (int i = 0; i < c.parametros().length; i++) {
+                ps.setObject(i + 1, c.parametros()[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                ResultSetMetaData md = rs.getMetaData();
+                while (rs.next()) {
+                    for (int i = 1; i <= md.getColumnCount(); i++) {
+                        plan.append(md.getColumnLabel(i)).append('=').append(rs.getString(i)).append(' ');
+                    }
+                }
+            }
+        }
+        return plan.toString().replaceAll("\\s+", " ").trim();
+    }
+
+    private static boolean contieneAlguno(String plan, String esperados) {
+        String enMinusculas = plan.toLowerCase(Locale.ROOT);
+        for (String indice : esperados.split("\\|")) {
+            if (enMinusculas.contains(indice)) return true;
+        }
+        return false;
+    }
+
+    private static boolean existeIndice(String tabla, String indice) throws SQLException {
+        DatabaseMetaData md = conn.getMetaData();
+        try (ResultSet rs = md.getIndexInfo(null, null, tabla.toUpperCase(Locale.ROOT), false, true)) {
+            while (rs.next()) {
+                if (indice.equalsIgnoreCase(rs.getString("INDEX_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+}